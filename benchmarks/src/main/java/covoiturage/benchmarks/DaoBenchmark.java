@@ -0,0 +1,40 @@
+package covoiturage.benchmarks;
+
+import covoiturage.dao.DAOFactory;
+import covoiturage.dao.ReservationDAO;
+import covoiturage.dao.TrajetDAO;
+import covoiturage.model.Reservation;
+import covoiturage.model.Trajet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Lectures de la couche DAO.
+ */
+public class DaoBenchmark extends EtatBenchmark {
+    private TrajetDAO trajetDAO;
+    private ReservationDAO reservationDAO;
+    private List<Long> trajetsReserves;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        preparerDonnees();
+        trajetDAO = DAOFactory.getTrajetDAO();
+        reservationDAO = DAOFactory.getReservationDAO();
+        trajetsReserves = DonneesBenchmark.trajetsReserves(1000);
+    }
+
+    @Benchmark
+    public List<Trajet> trajetFindAll() {
+        return trajetDAO.findAll();
+    }
+
+    @Benchmark
+    public List<Reservation> reservationFindByTrajetId() {
+        return reservationDAO.findByTrajetId(trajetsReserves.get(suivant(trajetsReserves.size())));
+    }
+}
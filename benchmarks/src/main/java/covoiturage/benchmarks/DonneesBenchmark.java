@@ -0,0 +1,74 @@
+package covoiturage.benchmarks;
+
+import covoiturage.config.DatabaseConfig;
+import covoiturage.dao.ImportDAO;
+import covoiturage.tools.GenerateurDonnees;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Jeu de données des benchmarks, produit par GenerateurDonnees à partir d'une échelle et d'une graine.
+ *
+ * La base visée (db.url, à surcharger par -Ddb.url=...) doit avoir le schéma de schema.sql ;
+ * son contenu est remplacé. Un commentaire sur la table trajets mémorise l'échelle, la graine
+ * et la date de génération pour ne pas régénérer le jeu d'un benchmark à l'autre.
+ */
+final class DonneesBenchmark {
+
+    private DonneesBenchmark() {
+    }
+
+    /**
+     * Génère le jeu de données s'il ne correspond pas déjà à cette échelle et à cette graine.
+     * @param echelle L'échelle de GenerateurDonnees (0,05 = 10 000 trajets)
+     */
+    static void preparer(double echelle, long graine) throws SQLException {
+        LocalDate reference = LocalDate.now();
+        String marqueur = "benchmark echelle=" + echelle + " graine=" + graine + " reference=" + reference;
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            if (marqueur.equals(lireMarqueur(conn))) {
+                return;
+            }
+        }
+
+        new GenerateurDonnees(echelle, graine, reference, ImportDAO.Mode.COPY, 50_000).generer(true);
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("COMMENT ON TABLE trajets IS '" + marqueur + "'");
+        }
+    }
+
+    /**
+     * @return Les identifiants des trajets qui ont des réservations
+     */
+    static List<Long> trajetsReserves(int limite) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                     "SELECT DISTINCT trajet_id FROM reservations ORDER BY trajet_id LIMIT ?")) {
+            pstmt.setInt(1, limite);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static String lireMarqueur(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT obj_description('trajets'::regclass, 'pg_class')")) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package covoiturage.benchmarks;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Réglages communs des benchmarks : temps moyen par appel, une JVM dédiée sans instrumentation
+ * des requêtes ni budget (ils mesureraient leur propre coût), et un jeu de données
+ * synthétique paramétré par -p echelle=... -p graine=...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Ddb.instrumentation.enabled=false", "-Ddb.queryBudget.enabled=false"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public abstract class EtatBenchmark {
+
+    @Param("0.05")
+    public double echelle;
+
+    @Param("42")
+    public long graine;
+
+    private int curseur;
+
+    protected void preparerDonnees() throws SQLException {
+        DonneesBenchmark.preparer(echelle, graine);
+    }
+
+    /**
+     * @return Un indice qui parcourt cycliquement [0, taille) d'un appel à l'autre
+     */
+    protected int suivant(int taille) {
+        curseur = (curseur + 1) % taille;
+        return curseur;
+    }
+}
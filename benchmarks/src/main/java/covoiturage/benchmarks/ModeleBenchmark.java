@@ -0,0 +1,31 @@
+package covoiturage.benchmarks;
+
+import covoiturage.model.Trajet;
+import covoiturage.service.ServiceFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul des places restantes d'un trajet, servi par le compteur de places partagé.
+ */
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ModeleBenchmark extends EtatBenchmark {
+    private List<Trajet> trajets;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        preparerDonnees();
+        trajets = ServiceFactory.getTrajetService().getTrajetsPage(null, 1000).elements();
+    }
+
+    @Benchmark
+    public int calculerPlacesRestantes() {
+        return trajets.get(suivant(trajets.size())).calculerPlacesRestantes();
+    }
+}
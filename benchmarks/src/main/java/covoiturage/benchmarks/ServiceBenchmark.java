@@ -0,0 +1,68 @@
+package covoiturage.benchmarks;
+
+import covoiturage.dao.DAOFactory;
+import covoiturage.model.Conducteur;
+import covoiturage.model.Reservation;
+import covoiturage.model.Trajet;
+import covoiturage.model.Utilisateur;
+import covoiturage.service.ReservationService;
+import covoiturage.service.ServiceFactory;
+import covoiturage.service.TrajetService;
+import covoiturage.tools.GenerateurDonnees;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Recherche de trajets et réservation, au niveau des services.
+ * Chaque appel mesuré ouvre sa portée de requêtes, comme une tâche de l'interface.
+ */
+public class ServiceBenchmark extends EtatBenchmark {
+    /** Les recherches portent sur les axes entre les villes les plus fréquentes */
+    private static final int VILLES_RECHERCHEES = 6;
+
+    private TrajetService trajetService;
+    private ReservationService reservationService;
+    private Utilisateur passager;
+    private Trajet trajetReservable;
+
+    @Setup(Level.Trial)
+    public void preparer() throws SQLException {
+        preparerDonnees();
+        trajetService = ServiceFactory.getTrajetService();
+        reservationService = ServiceFactory.getReservationService();
+        passager = DAOFactory.getUtilisateurDAO().findById(1L).orElseThrow();
+
+        // Trajet dédié aux réservations, d'une capacité suffisante pour toute la mesure
+        Conducteur conducteur = DAOFactory.getConducteurDAO().findById(1L).orElseThrow();
+        trajetReservable = new Trajet("Benchmark-Départ", "Benchmark-Arrivée",
+                LocalDateTime.now().plusDays(30), 10.0, 10_000_000);
+        trajetReservable.setConducteur(conducteur);
+        ServiceFactory.getConducteurService().proposerTrajet(trajetReservable);
+    }
+
+    @TearDown(Level.Trial)
+    public void nettoyer() {
+        DAOFactory.getTrajetDAO().delete(trajetReservable.getId());
+    }
+
+    @Benchmark
+    public List<Trajet> rechercherTrajetsDisponibles() {
+        int depart = suivant(VILLES_RECHERCHEES);
+        int arrivee = (depart + 1) % VILLES_RECHERCHEES;
+        return ServiceFactory.appeler("ServiceBenchmark.rechercherTrajetsDisponibles",
+                () -> trajetService.rechercherTrajetsDisponibles(GenerateurDonnees.VILLES.get(depart),
+                        GenerateurDonnees.VILLES.get(arrivee), LocalDateTime.now()));
+    }
+
+    @Benchmark
+    public Long creerReservation() {
+        return ServiceFactory.appeler("ServiceBenchmark.creerReservation",
+                () -> reservationService.creerReservation(new Reservation(1, passager, trajetReservable)));
+    }
+}
@@ -0,0 +1,91 @@
+package covoiturage.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Changement publié par la base sur le canal covoiturage_changements (voir notifier_changement()
+ * dans schema.sql). Les identifiants absents de la table concernée valent null.
+ * @param id L'identifiant de la ligne modifiée, null pour un changement en masse
+ * @param lieuDepartId Pour un trajet, sa ville de départ (table lieux)
+ * @param lieuArriveeId Pour un trajet, sa ville d'arrivée (table lieux)
+ */
+public record ChangeEvent(
+        Table table,
+        Operation operation,
+        Long id,
+        Long trajetId,
+        Long reservationId,
+        Long utilisateurId,
+        Long conducteurId,
+        Long lieuDepartId,
+        Long lieuArriveeId) {
+
+    public enum Table {
+        TRAJETS, RESERVATIONS, PAIEMENTS, AVIS
+    }
+
+    public enum Operation {
+        INSERT, UPDATE, DELETE,
+        /** Table vidée */
+        TRUNCATE,
+        /** Lot inséré par un import en masse, sans notification par ligne */
+        IMPORT,
+        /** Émis localement après une reconnexion : des notifications ont pu être perdues */
+        RESYNC
+    }
+
+    // Objet JSON plat produit par json_build_object : chaînes, nombres et null
+    private static final Pattern CHAMP = Pattern.compile("\"(\\w+)\"\\s*:\\s*(?:\"([^\"]*)\"|(-?\\d+)|null)");
+
+    /**
+     * @return Vrai si le changement porte sur un nombre inconnu de lignes : les données de la table sont à relire
+     */
+    public boolean isMasse() {
+        return operation == Operation.TRUNCATE || operation == Operation.IMPORT || operation == Operation.RESYNC;
+    }
+
+    /**
+     * @return Le trajet concerné : la ligne elle-même pour un trajet, sa colonne trajet_id sinon
+     */
+    public Long trajetConcerne() {
+        return table == Table.TRAJETS ? id : trajetId;
+    }
+
+    /**
+     * Lit la charge utile d'une notification.
+     * @return L'événement, ou null si la table ou l'opération est inconnue
+     */
+    public static ChangeEvent depuisJson(String json) {
+        Map<String, String> champs = new HashMap<>();
+        Matcher m = CHAMP.matcher(json == null ? "" : json);
+        while (m.find()) {
+            champs.put(m.group(1), m.group(2) != null ? m.group(2) : m.group(3));
+        }
+
+        try {
+            return new ChangeEvent(
+                    Table.valueOf(champs.getOrDefault("table", "").toUpperCase()),
+                    Operation.valueOf(champs.getOrDefault("op", "").toUpperCase()),
+                    entier(champs.get("id")),
+                    entier(champs.get("trajet_id")),
+                    entier(champs.get("reservation_id")),
+                    entier(champs.get("utilisateur_id")),
+                    entier(champs.get("conducteur_id")),
+                    entier(champs.get("lieu_depart_id")),
+                    entier(champs.get("lieu_arrivee_id")));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static ChangeEvent resynchronisation(Table table) {
+        return new ChangeEvent(table, Operation.RESYNC, null, null, null, null, null, null, null);
+    }
+
+    private static Long entier(String valeur) {
+        return valeur == null ? null : Long.valueOf(valeur);
+    }
+}
@@ -0,0 +1,148 @@
+package covoiturage.config;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Flux des changements publiés par les déclencheurs de la base (NOTIFY covoiturage_changements).
+ *
+ * Un thread dédié tient sa propre connexion, hors du pool et de l'instrumentation, en LISTEN
+ * sur le canal ; chaque notification est convertie en ChangeEvent et transmise aux abonnés,
+ * dans l'ordre, sur ce thread. Après une coupure, le flux se reconnecte et émet un RESYNC
+ * par table : les notifications de l'intervalle sont perdues.
+ */
+public class ChangeFeed {
+    public static final String CANAL = "covoiturage_changements";
+
+    private final String url;
+    private final Properties connectionProperties;
+    private final int attenteMs;
+    private final long delaiReconnexionMs;
+    private final long validationMs;
+
+    private final List<Consumer<ChangeEvent>> abonnes = new CopyOnWriteArrayList<>();
+    private volatile boolean actif;
+    private Thread ecoute;
+
+    /**
+     * @param attenteMs Durée maximale d'une attente de notification : délai d'arrêt du flux
+     * @param delaiReconnexionMs Pause entre deux tentatives de connexion
+     * @param validationMs Silence au-delà duquel la connexion est vérifiée
+     */
+    public ChangeFeed(String url, Properties connectionProperties, int attenteMs, long delaiReconnexionMs,
+                      long validationMs) {
+        this.url = url;
+        this.connectionProperties = connectionProperties;
+        this.attenteMs = attenteMs;
+        this.delaiReconnexionMs = delaiReconnexionMs;
+        this.validationMs = validationMs;
+    }
+
+    /**
+     * Abonne un consommateur ; le flux démarre au premier abonnement.
+     * Le consommateur est appelé sur le thread du flux et ne doit pas le bloquer.
+     */
+    public void abonner(Consumer<ChangeEvent> abonne) {
+        abonnes.add(abonne);
+        demarrer();
+    }
+
+    public void desabonner(Consumer<ChangeEvent> abonne) {
+        abonnes.remove(abonne);
+    }
+
+    private synchronized void demarrer() {
+        if (ecoute != null) {
+            return;
+        }
+        actif = true;
+        ecoute = new Thread(this::ecouter, "flux-changements");
+        ecoute.setDaemon(true);
+        ecoute.start();
+    }
+
+    public synchronized void arreter() {
+        actif = false;
+        if (ecoute != null) {
+            ecoute.interrupt();
+            ecoute = null;
+        }
+    }
+
+    private void ecouter() {
+        boolean reconnexion = false;
+        while (actif) {
+            try (Connection conn = DriverManager.getConnection(url, connectionProperties)) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("LISTEN " + CANAL);
+                }
+                if (reconnexion) {
+                    System.out.println("[flux de changements] reconnecté");
+                    for (ChangeEvent.Table table : ChangeEvent.Table.values()) {
+                        diffuser(ChangeEvent.resynchronisation(table));
+                    }
+                }
+                reconnexion = true;
+                recevoir(conn);
+            } catch (SQLException e) {
+                if (!actif) {
+                    return;
+                }
+                System.err.println("[flux de changements] connexion perdue (" + e.getMessage()
+                        + "), nouvelle tentative dans " + delaiReconnexionMs + " ms");
+                reconnexion = true;
+            }
+
+            try {
+                Thread.sleep(delaiReconnexionMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void recevoir(Connection conn) throws SQLException {
+        PGConnection pg = conn.unwrap(PGConnection.class);
+        long derniereActivite = System.currentTimeMillis();
+
+        while (actif) {
+            // Bloque jusqu'à la première notification ou l'expiration du délai
+            PGNotification[] notifications = pg.getNotifications(attenteMs);
+            if (notifications != null && notifications.length > 0) {
+                derniereActivite = System.currentTimeMillis();
+                for (PGNotification notification : notifications) {
+                    ChangeEvent evenement = ChangeEvent.depuisJson(notification.getParameter());
+                    if (evenement != null) {
+                        diffuser(evenement);
+                    }
+                }
+            } else if (System.currentTimeMillis() - derniereActivite > validationMs) {
+                // Une connexion coupée sans erreur TCP resterait muette : on la vérifie
+                if (!conn.isValid(5)) {
+                    throw new SQLException("Connexion d'écoute invalide");
+                }
+                derniereActivite = System.currentTimeMillis();
+            }
+        }
+    }
+
+    private void diffuser(ChangeEvent evenement) {
+        for (Consumer<ChangeEvent> abonne : abonnes) {
+            try {
+                abonne.accept(evenement);
+            } catch (RuntimeException e) {
+                // Un abonné en erreur ne prive pas les autres du flux
+                e.printStackTrace();
+            }
+        }
+    }
+}
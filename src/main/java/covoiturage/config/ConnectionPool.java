@@ -0,0 +1,338 @@
+package covoiturage.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool de connexions JDBC borné.
+ * Les connexions rendues par {@link #getConnection()} sont des proxys : leur méthode close()
+ * remet la connexion physique dans le pool au lieu de la fermer, ce qui permet aux DAO
+ * de conserver leurs blocs try-with-resources sans modification.
+ */
+public class ConnectionPool {
+    private final String url;
+    private final Properties connectionProperties;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMs;
+    private final long idleTimeoutMs;
+    private final int validationTimeoutSec;
+    private final long leakDetectionThresholdMs;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+
+    // Statistiques
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param connectionProperties Propriétés passées au pilote à l'ouverture de chaque connexion
+     *                             (user, password et réglages du pilote)
+     */
+    public ConnectionPool(String url, Properties connectionProperties,
+                          int minSize, int maxSize, long acquireTimeoutMs, long idleTimeoutMs,
+                          int validationTimeoutSec, long leakDetectionThresholdMs) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Taille de pool invalide : min=" + minSize + ", max=" + maxSize);
+        }
+
+        this.url = url;
+        this.connectionProperties = connectionProperties;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.validationTimeoutSec = validationTimeoutSec;
+        this.leakDetectionThresholdMs = leakDetectionThresholdMs;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "covoiturage-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::housekeeping, 5, 5, TimeUnit.SECONDS);
+
+        // Pré-remplissage jusqu'à la taille minimale
+        for (int i = 0; i < minSize; i++) {
+            try {
+                idle.offerLast(new PooledConnection(openPhysicalConnection()));
+            } catch (SQLException e) {
+                e.printStackTrace();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Emprunte une connexion au pool, en attendant au plus le délai d'acquisition configuré.
+     * @return Une connexion dont close() la restitue au pool
+     * @throws SQLException Si aucune connexion n'est disponible à temps ou si l'ouverture échoue
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Le pool de connexions est fermé");
+        }
+
+        long debut = System.nanoTime();
+        waitingThreads.incrementAndGet();
+        boolean acquis;
+        try {
+            acquis = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompu pendant l'attente d'une connexion", e);
+        } finally {
+            waitingThreads.decrementAndGet();
+        }
+
+        long attente = System.nanoTime() - debut;
+        totalWaitNanos.addAndGet(attente);
+        maxWaitNanos.accumulateAndGet(attente, Math::max);
+
+        if (!acquis) {
+            timeouts.incrementAndGet();
+            throw new SQLTimeoutException("Aucune connexion disponible après " + acquireTimeoutMs
+                    + " ms (pool saturé : " + maxSize + " connexions actives)");
+        }
+
+        try {
+            PooledConnection pooled = borrowIdleOrCreate();
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrowStack = leakDetectionThresholdMs > 0 ? new Throwable("Connexion empruntée ici") : null;
+            pooled.leakReported = false;
+            borrowed.add(pooled);
+            acquisitions.incrementAndGet();
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection borrowIdleOrCreate() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isValid(pooled.physical)) {
+                return pooled;
+            }
+            validationFailures.incrementAndGet();
+            destroy(pooled);
+        }
+        return new PooledConnection(openPhysicalConnection());
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection openPhysicalConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, connectionProperties);
+        totalConnections.incrementAndGet();
+        created.incrementAndGet();
+        return connection;
+    }
+
+    private void destroy(PooledConnection pooled) {
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        totalConnections.decrementAndGet();
+        destroyed.incrementAndGet();
+    }
+
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        pooled.borrowStack = null;
+        pooled.lastReleasedAt = System.currentTimeMillis();
+
+        try {
+            // Remise dans un état neutre avant réutilisation
+            if (!pooled.physical.isClosed() && !pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            if (closed || pooled.physical.isClosed()) {
+                destroy(pooled);
+            } else {
+                idle.offerFirst(pooled);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Tâche périodique : éviction des connexions inactives au-delà de la taille minimale
+     * et détection des connexions empruntées depuis trop longtemps.
+     */
+    private void housekeeping() {
+        long maintenant = System.currentTimeMillis();
+
+        if (idleTimeoutMs > 0) {
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalConnections.get() > minSize) {
+                PooledConnection pooled = it.next();
+                if (maintenant - pooled.lastReleasedAt > idleTimeoutMs && idle.remove(pooled)) {
+                    destroy(pooled);
+                }
+            }
+        }
+
+        if (leakDetectionThresholdMs > 0) {
+            for (PooledConnection pooled : borrowed) {
+                Throwable stack = pooled.borrowStack;
+                if (!pooled.leakReported && stack != null && maintenant - pooled.borrowedAt > leakDetectionThresholdMs) {
+                    pooled.leakReported = true;
+                    leaksDetected.incrementAndGet();
+                    System.err.println("Fuite de connexion probable : connexion non restituée depuis "
+                            + (maintenant - pooled.borrowedAt) + " ms");
+                    stack.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Un instantané des statistiques du pool
+     */
+    public PoolStatistics getStatistics() {
+        long nbAcquisitions = acquisitions.get();
+        return new PoolStatistics(
+                maxSize,
+                totalConnections.get(),
+                borrowed.size(),
+                idle.size(),
+                waitingThreads.get(),
+                nbAcquisitions,
+                timeouts.get(),
+                nbAcquisitions == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get()) / nbAcquisitions,
+                TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()),
+                created.get(),
+                destroyed.get(),
+                validationFailures.get(),
+                leaksDetected.get());
+    }
+
+    /**
+     * Ferme toutes les connexions inactives ; les connexions empruntées seront fermées à leur restitution.
+     */
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    /**
+     * Connexion physique gérée par le pool.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private volatile long borrowedAt;
+        private volatile long lastReleasedAt = System.currentTimeMillis();
+        private volatile Throwable borrowStack;
+        private volatile boolean leakReported;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    /**
+     * Proxy remis aux DAO : intercepte close() et refuse toute utilisation après restitution.
+     */
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean released = false;
+
+        private Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            if (released) {
+                throw new SQLException("Connexion déjà restituée au pool");
+            }
+
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
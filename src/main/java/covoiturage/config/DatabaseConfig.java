@@ -5,14 +5,20 @@ import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.function.Consumer;
 
 public class DatabaseConfig {
     private static final String CONFIG_FILE = "database.properties";
     private static final Properties properties = new Properties();
     private static String url;
-    private static String username;
-    private static String password;
+    private static final Properties connectionProperties = new Properties();
+    private static ConnectionPool pool;
+    private static QueryInstrumentation instrumentation;
+    private static QueryBudget queryBudget;
+    private static ChangeFeed changeFeed;
 
     static {
         try (InputStream input = DatabaseConfig.class.getClassLoader().getResourceAsStream(CONFIG_FILE)){
@@ -22,12 +28,65 @@ public class DatabaseConfig {
             }
 
             properties.load(input);
-            url         = properties.getProperty("db.url");
-            username    = properties.getProperty("db.username");
-            password    = properties.getProperty("db.password");
+            url = getProperty("db.url", null);
+            connectionProperties.setProperty("user", getProperty("db.username", ""));
+            connectionProperties.setProperty("password", getProperty("db.password", ""));
+
+            // Réglages du pilote : préparation côté serveur et cache des requêtes préparées par connexion
+            connectionProperties.setProperty("prepareThreshold",
+                    String.valueOf(getIntProperty("db.prepareThreshold", 5)));
+            connectionProperties.setProperty("preparedStatementCacheQueries",
+                    String.valueOf(getIntProperty("db.statementCacheQueries", 256)));
+            connectionProperties.setProperty("preparedStatementCacheSizeMiB",
+                    String.valueOf(getIntProperty("db.statementCacheSizeMiB", 5)));
+            connectionProperties.setProperty("reWriteBatchedInserts",
+                    String.valueOf(getBooleanProperty("db.reWriteBatchedInserts", false)));
 
             // chargement du driver PostgreSQL
             Class.forName("org.postgresql.Driver");
+
+            // Pool de connexions optionnel (db.pool.enabled=true)
+            if (getBooleanProperty("db.pool.enabled", false)) {
+                pool = new ConnectionPool(url, connectionProperties,
+                        getIntProperty("db.pool.minSize", 2),
+                        getIntProperty("db.pool.maxSize", 10),
+                        getIntProperty("db.pool.acquireTimeoutMs", 5000),
+                        getIntProperty("db.pool.idleTimeoutMs", 300000),
+                        getIntProperty("db.pool.validationTimeoutSec", 2),
+                        getIntProperty("db.pool.leakDetectionThresholdMs", 0));
+                Runtime.getRuntime().addShutdownHook(new Thread(pool::shutdown));
+            }
+
+            // Mesure des requêtes par méthode de DAO (db.instrumentation.enabled=true)
+            if (getBooleanProperty("db.instrumentation.enabled", false)) {
+                // Budget de requêtes par appel de service (db.queryBudget.enabled=true)
+                if (getBooleanProperty("db.queryBudget.enabled", false)) {
+                    queryBudget = new QueryBudget(
+                            getIntProperty("db.queryBudget.max", 50),
+                            getIntProperty("db.queryBudget.nPlusOneThreshold", 5),
+                            getBooleanProperty("db.queryBudget.strict", false),
+                            getBooleanProperty("db.queryBudget.log", false));
+                }
+                instrumentation = new QueryInstrumentation(getIntProperty("db.instrumentation.slowQueryMs", 200),
+                        queryBudget, getBooleanProperty("db.instrumentation.logParameterValues", false));
+                if (getBooleanProperty("db.instrumentation.summaryOnShutdown", true)) {
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                        System.out.print("\nRequêtes par méthode :\n" + instrumentation.resume());
+                        if (queryBudget != null) {
+                            System.out.print("\nRequêtes par appel de service :\n" + queryBudget.resume());
+                        }
+                    }));
+                }
+            }
+
+            // Flux des changements de la base (db.changeFeed.enabled=true), démarré au premier abonnement
+            if (getBooleanProperty("db.changeFeed.enabled", false)) {
+                changeFeed = new ChangeFeed(url, connectionProperties,
+                        getIntProperty("db.changeFeed.waitMs", 500),
+                        getIntProperty("db.changeFeed.reconnectDelayMs", 2000),
+                        getIntProperty("db.changeFeed.validationIntervalMs", 30000));
+                Runtime.getRuntime().addShutdownHook(new Thread(changeFeed::arreter));
+            }
         } catch (IOException | ClassNotFoundException e){
             e.printStackTrace();
             throw new RuntimeException("Erreur lors de l'initialisation de la configuration de la base de données", e);
@@ -39,6 +98,127 @@ public class DatabaseConfig {
     }
 
     public static Connection getConnection() throws SQLException{
-        return DriverManager.getConnection(url, username, password);
+        Connection connection = pool != null
+                ? pool.getConnection()
+                : DriverManager.getConnection(url, connectionProperties);
+        return instrumentation != null ? instrumentation.wrap(connection) : connection;
+    }
+
+    /**
+     * @return Les statistiques du pool, ou Optional.empty() si le pool est désactivé
+     */
+    public static Optional<PoolStatistics> getPoolStatistics() {
+        return pool == null ? Optional.empty() : Optional.of(pool.getStatistics());
+    }
+
+    public static boolean isPoolEnabled() {
+        return pool != null;
+    }
+
+    /**
+     * @return Les statistiques des requêtes par méthode, ou une liste vide si l'instrumentation est désactivée
+     */
+    public static List<QueryStatistics> getQueryStatistics() {
+        return instrumentation == null ? List.of() : instrumentation.getStatistics();
+    }
+
+    /**
+     * @return Le tableau récapitulatif des requêtes, ou Optional.empty() si l'instrumentation est désactivée
+     */
+    public static Optional<String> getQuerySummary() {
+        return instrumentation == null ? Optional.empty() : Optional.of(instrumentation.resume());
+    }
+
+    /**
+     * Ouvre une portée de comptage des requêtes sur le thread courant, à fermer par try-with-resources.
+     * Sans budget actif (db.queryBudget.enabled), la portée reste vide.
+     * @param nom Le nom de la portée dans les statistiques
+     * @param maxRequetes Le nombre de requêtes au-delà duquel la portée est signalée
+     */
+    public static QueryScope openQueryScope(String nom, int maxRequetes) {
+        return queryBudget == null
+                ? new QueryScope(null, nom, maxRequetes, null)
+                : queryBudget.ouvrir(nom, maxRequetes);
+    }
+
+    /**
+     * Ouvre une portée dont le budget est celui configuré pour ce nom (db.queryBudget.max.nom),
+     * sinon le budget par défaut.
+     * @see #openQueryScope(String, int)
+     */
+    public static QueryScope openQueryScope(String nom) {
+        return queryBudget == null
+                ? new QueryScope(null, nom, Integer.MAX_VALUE, null)
+                : queryBudget.ouvrir(nom, queryBudget.budgetDe(nom));
+    }
+
+    /**
+     * @return Les statistiques du budget de requêtes par appel de service, ou une liste vide s'il est désactivé
+     */
+    public static List<ScopeStatistics> getQueryScopeStatistics() {
+        return queryBudget == null ? List.of() : queryBudget.getStatistics();
+    }
+
+    /**
+     * Abonne un consommateur aux changements publiés par la base ; sans effet si le flux est désactivé.
+     * Le consommateur est appelé sur le thread du flux, pas sur l'EDT.
+     */
+    public static void addChangeListener(Consumer<ChangeEvent> listener) {
+        if (changeFeed != null) {
+            changeFeed.abonner(listener);
+        }
+    }
+
+    public static void removeChangeListener(Consumer<ChangeEvent> listener) {
+        if (changeFeed != null) {
+            changeFeed.desabonner(listener);
+        }
+    }
+
+    public static boolean isChangeFeedEnabled() {
+        return changeFeed != null;
+    }
+
+    /**
+     * Lit une propriété texte de database.properties.
+     * Une propriété système du même nom (-Dcle=valeur) remplace la valeur du fichier.
+     * @param key La clé de la propriété
+     * @param defaultValue La valeur utilisée si la propriété est absente
+     */
+    public static String getProperty(String key, String defaultValue) {
+        String value = lire(key);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Lit une propriété booléenne de database.properties.
+     * @param key La clé de la propriété
+     * @param defaultValue La valeur utilisée si la propriété est absente
+     */
+    public static boolean getBooleanProperty(String key, boolean defaultValue) {
+        String value = lire(key);
+        return value == null || value.isBlank() ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    /**
+     * Lit une propriété entière de database.properties.
+     * @param key La clé de la propriété
+     * @param defaultValue La valeur utilisée si la propriété est absente ou invalide
+     */
+    public static int getIntProperty(String key, int defaultValue) {
+        String value = lire(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Valeur invalide pour " + key + " : " + value + " (défaut : " + defaultValue + ")");
+            return defaultValue;
+        }
+    }
+
+    private static String lire(String key) {
+        return System.getProperty(key, properties.getProperty(key));
     }
 }
@@ -0,0 +1,64 @@
+package covoiturage.config;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogramme de latences à échelle logarithmique, sans verrou : chaque puissance de deux
+ * (en microsecondes) est découpée en 8 sous-intervalles, soit une précision d'environ 12 %
+ * sur les centiles, pour une mémoire fixe quel que soit le nombre de mesures.
+ */
+public class LatencyHistogram {
+    private static final int SOUS_INTERVALLES = 8;
+    private static final int BITS_SOUS_INTERVALLES = 3;
+    private static final int EXPOSANTS = 40;
+
+    private final AtomicLongArray compteurs = new AtomicLongArray(EXPOSANTS * SOUS_INTERVALLES);
+
+    public void enregistrer(long micros) {
+        compteurs.incrementAndGet(indice(Math.max(0, micros)));
+    }
+
+    /**
+     * @param centile Entre 0 et 100
+     * @return La borne supérieure de l'intervalle contenant le centile, en microsecondes (0 si vide)
+     */
+    public long centile(double centile) {
+        long total = 0;
+        for (int i = 0; i < compteurs.length(); i++) {
+            total += compteurs.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rang = Math.max(1, (long) Math.ceil(centile / 100.0 * total));
+        long cumul = 0;
+        for (int i = 0; i < compteurs.length(); i++) {
+            cumul += compteurs.get(i);
+            if (cumul >= rang) {
+                return borneSuperieure(i);
+            }
+        }
+        return borneSuperieure(compteurs.length() - 1);
+    }
+
+    private static int indice(long micros) {
+        if (micros < SOUS_INTERVALLES) {
+            return (int) micros;
+        }
+        int exposant = 63 - Long.numberOfLeadingZeros(micros);
+        int sousIntervalle = (int) (micros >>> (exposant - BITS_SOUS_INTERVALLES)) & (SOUS_INTERVALLES - 1);
+        int indice = (exposant - BITS_SOUS_INTERVALLES + 1) * SOUS_INTERVALLES + sousIntervalle;
+        return Math.min(indice, EXPOSANTS * SOUS_INTERVALLES - 1);
+    }
+
+    private static long borneSuperieure(int indice) {
+        if (indice < SOUS_INTERVALLES) {
+            return indice;
+        }
+        int exposant = indice / SOUS_INTERVALLES + BITS_SOUS_INTERVALLES - 1;
+        long sousIntervalle = indice % SOUS_INTERVALLES;
+        long largeur = 1L << (exposant - BITS_SOUS_INTERVALLES);
+        return (1L << exposant) + (sousIntervalle + 1) * largeur - 1;
+    }
+}
@@ -0,0 +1,37 @@
+package covoiturage.config;
+
+/**
+ * Instantané des statistiques du pool de connexions.
+ * Les temps d'attente sont exprimés en microsecondes.
+ */
+public record PoolStatistics(
+        int tailleMax,
+        int connexionsTotales,
+        int connexionsActives,
+        int connexionsInactives,
+        int threadsEnAttente,
+        long acquisitions,
+        long expirationsAttente,
+        long attenteMoyenneMicros,
+        long attenteMaxMicros,
+        long connexionsCreees,
+        long connexionsDetruites,
+        long echecsValidation,
+        long fuitesDetectees) {
+
+    /**
+     * @return Le taux d'occupation du pool entre 0 et 1
+     */
+    public double saturation() {
+        return tailleMax == 0 ? 0 : (double) connexionsActives / tailleMax;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pool[actives=%d/%d, inactives=%d, en attente=%d, acquisitions=%d, expirations=%d, " +
+                        "attente moy=%dµs, attente max=%dµs, créées=%d, détruites=%d, validations échouées=%d, fuites=%d]",
+                connexionsActives, tailleMax, connexionsInactives, threadsEnAttente, acquisitions, expirationsAttente,
+                attenteMoyenneMicros, attenteMaxMicros, connexionsCreees, connexionsDetruites, echecsValidation,
+                fuitesDetectees);
+    }
+}
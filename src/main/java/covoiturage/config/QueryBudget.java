@@ -0,0 +1,224 @@
+package covoiturage.config;
+
+import java.lang.StackWalker.StackFrame;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Budget de requêtes par appel de service et détection des N+1.
+ *
+ * Chaque requête exécutée est rattachée à une portée : la portée explicite la plus interne
+ * du thread. Les appels aux services l'ouvrent à leur point d'entrée (ServiceFactory.appeler,
+ * utilisé par chaque tâche de fond de l'interface graphique) et la ferment à leur sortie.
+ *
+ * Sans portée explicite, la fin de l'appel n'est pas connue : deux appels successifs depuis une même
+ * boucle ont la même pile. La requête est alors seulement attribuée, dans les statistiques, à la
+ * méthode du paquetage service la plus externe de la pile, sans contrôle de budget ni de N+1.
+ *
+ * Une portée qui dépasse son budget, ou qui exécute la même requête avec des paramètres différents
+ * au-delà du seuil, est comptée dans les statistiques, et journalisée sur demande
+ * (db.queryBudget.log) ; en mode strict, la requête fautive lève QueryBudgetExceededException.
+ */
+public class QueryBudget {
+    private static final StackWalker PILE = StackWalker.getInstance();
+    private static final String PAQUETAGE_SERVICE = "covoiturage.service.";
+    private static final Pattern LITTERAUX = Pattern.compile("'[^']*'|\\b\\d+(\\.\\d+)?\\b");
+    private static final int PARAMETRES_RETENUS = 64;
+
+    private final int maxRequetes;
+    private final int seuilNPlusUn;
+    private final boolean strict;
+    private final boolean journaliser;
+
+    private final ThreadLocal<QueryScope> porteeExplicite = new ThreadLocal<>();
+    private final Map<String, Integer> budgets = new ConcurrentHashMap<>();
+    private final Map<String, Compteurs> compteurs = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxRequetes Nombre de requêtes autorisé par appel, sauf budget propre à la méthode
+     * @param seuilNPlusUn Nombre d'exécutions d'une même requête, avec des paramètres différents, signalé comme N+1
+     * @param strict Lever QueryBudgetExceededException au lieu de simplement compter
+     * @param journaliser Écrire chaque dépassement et N+1 sur la sortie d'erreur
+     */
+    public QueryBudget(int maxRequetes, int seuilNPlusUn, boolean strict, boolean journaliser) {
+        if (maxRequetes < 1 || seuilNPlusUn < 2) {
+            throw new IllegalArgumentException("Budget de requêtes invalide : max " + maxRequetes
+                    + ", seuil N+1 " + seuilNPlusUn);
+        }
+        this.maxRequetes = maxRequetes;
+        this.seuilNPlusUn = seuilNPlusUn;
+        this.strict = strict;
+        this.journaliser = journaliser;
+    }
+
+    /**
+     * Ouvre une portée explicite sur le thread courant, à fermer par try-with-resources.
+     * Les portées s'imbriquent : une requête compte dans la portée courante et dans ses parentes.
+     */
+    public QueryScope ouvrir(String nom, int maxRequetes) {
+        QueryScope portee = new QueryScope(this, nom, maxRequetes, porteeExplicite.get());
+        porteeExplicite.set(portee);
+        compteurs(nom).appels.increment();
+        return portee;
+    }
+
+    /**
+     * @return Le budget de la méthode : db.queryBudget.max.Classe.methode, sinon le budget par défaut
+     */
+    public int budgetDe(String methode) {
+        return budgets.computeIfAbsent(methode,
+                m -> DatabaseConfig.getIntProperty("db.queryBudget.max." + m, maxRequetes));
+    }
+
+    void fermer(QueryScope portee) {
+        if (porteeExplicite.get() == portee) {
+            if (portee.parent == null) {
+                porteeExplicite.remove();
+            } else {
+                porteeExplicite.set(portee.parent);
+            }
+        }
+    }
+
+    /**
+     * Compte une requête dans la portée courante, avant son exécution.
+     * @param parametres Les paramètres liés, vides pour une requête non préparée
+     * @throws QueryBudgetExceededException En mode strict, si la requête dépasse le budget ou révèle un N+1
+     */
+    void enregistrer(String sql, List<Object> parametres) {
+        if (sql == null) {
+            return;
+        }
+        QueryScope portee = porteeExplicite.get();
+        if (portee == null) {
+            String methode = methodeService();
+            if (methode != null) {
+                compteurs(methode).requetes.increment();
+            }
+            return;
+        }
+
+        // Une requête non préparée porte ses valeurs dans son texte : on les retire pour la reconnaître
+        String forme = parametres.isEmpty() ? LITTERAUX.matcher(sql).replaceAll("?") : sql;
+        String valeurs = parametres.isEmpty() ? sql : parametres.toString();
+
+        for (QueryScope p = portee; p != null; p = p.parent) {
+            controler(p, forme, valeurs);
+        }
+    }
+
+    private void controler(QueryScope portee, String forme, String valeurs) {
+        Compteurs c = compteurs(portee.getNom());
+        portee.requetes++;
+        c.requetes.increment();
+        c.maxRequetesParAppel.accumulateAndGet(portee.requetes, Math::max);
+
+        if (portee.requetes > portee.getMaxRequetes() && !portee.depasse) {
+            portee.depasse = true;
+            c.depassements.increment();
+            signaler(portee, String.format("[budget de requêtes dépassé] %s : plus de %d requêtes",
+                    portee.getNom(), portee.getMaxRequetes()));
+        }
+
+        Set<String> vues = portee.parametresParRequete.computeIfAbsent(forme, f -> new HashSet<>());
+        if (vues.size() < Math.max(seuilNPlusUn, PARAMETRES_RETENUS)) {
+            vues.add(valeurs);
+        }
+        if (vues.size() >= seuilNPlusUn && portee.suspicionsNPlusUn.add(forme)) {
+            c.suspicionsNPlusUn.increment();
+            signaler(portee, String.format("[N+1 suspecté] %s : %d exécutions avec des paramètres différents de %s",
+                    portee.getNom(), vues.size(), forme));
+        }
+    }
+
+    private void signaler(QueryScope portee, String message) {
+        if (journaliser) {
+            System.err.println(message);
+        }
+        if (strict) {
+            throw new QueryBudgetExceededException(message, portee);
+        }
+    }
+
+    /**
+     * @return La méthode du paquetage service la plus externe de la pile, ou null si la requête ne vient pas d'un service
+     */
+    private static String methodeService() {
+        return PILE.walk(frames -> {
+            StackFrame service = null;
+            Iterator<StackFrame> it = frames.iterator();
+            while (it.hasNext()) {
+                StackFrame frame = it.next();
+                if (frame.getClassName().startsWith(PAQUETAGE_SERVICE)) {
+                    service = frame;
+                }
+            }
+            return service == null ? null : nomMethode(service);
+        });
+    }
+
+    private static String nomMethode(StackFrame frame) {
+        String classe = frame.getClassName();
+        classe = classe.substring(classe.lastIndexOf('.') + 1);
+        int interne = classe.indexOf('$');
+        if (interne > 0) {
+            classe = classe.substring(0, interne);
+        }
+        String methode = frame.getMethodName();
+        // lambda$creerReservation$0 -> creerReservation
+        if (methode.startsWith("lambda$")) {
+            int fin = methode.indexOf('$', "lambda$".length());
+            methode = methode.substring("lambda$".length(), fin < 0 ? methode.length() : fin);
+        }
+        return classe + "." + methode;
+    }
+
+    /**
+     * @return Les statistiques de chaque méthode de service, par nombre de requêtes décroissant
+     */
+    public List<ScopeStatistics> getStatistics() {
+        List<ScopeStatistics> statistiques = new ArrayList<>();
+        compteurs.forEach((nom, c) -> statistiques.add(new ScopeStatistics(nom, c.appels.sum(), c.requetes.sum(),
+                c.maxRequetesParAppel.get(), c.depassements.sum(), c.suspicionsNPlusUn.sum())));
+        statistiques.sort(Comparator.comparingLong(ScopeStatistics::requetes).reversed());
+        return statistiques;
+    }
+
+    public void reset() {
+        compteurs.clear();
+    }
+
+    /**
+     * @return Un tableau récapitulatif, une ligne par méthode de service
+     */
+    public String resume() {
+        StringBuilder resume = new StringBuilder(String.format("%-48s %8s %9s %8s %8s %12s %6s%n",
+                "appel", "appels", "requêtes", "moy", "max", "dépassements", "N+1"));
+        for (ScopeStatistics s : getStatistics()) {
+            resume.append(String.format("%-48s %8d %9d %8.1f %8d %12d %6d%n", s.nom(), s.appels(), s.requetes(),
+                    s.moyenneRequetesParAppel(), s.maxRequetesParAppel(), s.depassements(), s.suspicionsNPlusUn()));
+        }
+        return resume.toString();
+    }
+
+    private Compteurs compteurs(String nom) {
+        return compteurs.computeIfAbsent(nom, n -> new Compteurs());
+    }
+
+    private static final class Compteurs {
+        private final LongAdder appels = new LongAdder();
+        private final LongAdder requetes = new LongAdder();
+        private final AtomicLong maxRequetesParAppel = new AtomicLong();
+        private final LongAdder depassements = new LongAdder();
+        private final LongAdder suspicionsNPlusUn = new LongAdder();
+    }
+}
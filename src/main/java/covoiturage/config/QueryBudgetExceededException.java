@@ -0,0 +1,18 @@
+package covoiturage.config;
+
+/**
+ * Levée en mode strict (db.queryBudget.strict=true) quand un appel de service dépasse son budget
+ * de requêtes ou répète une même requête avec des paramètres différents.
+ */
+public class QueryBudgetExceededException extends IllegalStateException {
+    private final transient QueryScope portee;
+
+    public QueryBudgetExceededException(String message, QueryScope portee) {
+        super(message);
+        this.portee = portee;
+    }
+
+    public QueryScope getPortee() {
+        return portee;
+    }
+}
@@ -0,0 +1,331 @@
+package covoiturage.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Instrumentation des accès à la base, à la frontière des DAO : les connexions rendues par
+ * DatabaseConfig sont enveloppées dans des proxys qui mesurent chaque exécution de requête.
+ * Les mesures sont regroupées par méthode appelante (par exemple TrajetDAO.findById),
+ * retrouvée dans la pile d'appels : les DAO n'ont rien à déclarer.
+ *
+ * Pour chaque méthode : requêtes, erreurs, lignes lues ou modifiées, connexions obtenues et
+ * histogramme des latences. Les requêtes plus lentes que le seuil, ou en échec, sont journalisées ;
+ * leurs paramètres n'y figurent que par position et type (un mot de passe peut en faire partie),
+ * sauf si la journalisation des valeurs est demandée. Si un QueryBudget est fourni, chaque requête
+ * lui est soumise avant son exécution.
+ */
+public class QueryInstrumentation {
+    private static final StackWalker PILE = StackWalker.getInstance();
+    private static final int LONGUEUR_MAX_PARAMETRE = 100;
+    private static final Pattern CHAINES = Pattern.compile("'(?:[^']|'')*'");
+
+    private final long seuilLentMicros;
+    private final QueryBudget budget;
+    private final boolean journaliserValeurs;
+    private final Map<String, Compteurs> compteurs = new ConcurrentHashMap<>();
+
+    /**
+     * @param seuilLentMs Durée à partir de laquelle une requête est journalisée (0 = toutes)
+     */
+    public QueryInstrumentation(long seuilLentMs) {
+        this(seuilLentMs, null, false);
+    }
+
+    /**
+     * @param seuilLentMs Durée à partir de laquelle une requête est journalisée (0 = toutes)
+     * @param budget Le budget de requêtes par appel de service, ou null
+     * @param journaliserValeurs Journaliser les valeurs des paramètres et les chaînes littérales
+     *                           (diagnostic uniquement : mots de passe et données personnelles en clair)
+     */
+    public QueryInstrumentation(long seuilLentMs, QueryBudget budget, boolean journaliserValeurs) {
+        this.seuilLentMicros = seuilLentMs * 1000;
+        this.budget = budget;
+        this.journaliserValeurs = journaliserValeurs;
+    }
+
+    /**
+     * Enveloppe une connexion qui vient d'être obtenue : l'obtention est comptée pour la méthode appelante.
+     */
+    public Connection wrap(Connection connection) {
+        compteurs(appelant()).connexions.increment();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    /**
+     * @return Les statistiques de chaque méthode, par temps total décroissant
+     */
+    public List<QueryStatistics> getStatistics() {
+        List<QueryStatistics> statistiques = new ArrayList<>();
+        compteurs.forEach((methode, c) -> statistiques.add(c.instantane(methode)));
+        statistiques.sort(Comparator.comparingLong(QueryStatistics::tempsTotalMicros).reversed());
+        return statistiques;
+    }
+
+    public void reset() {
+        compteurs.clear();
+    }
+
+    /**
+     * @return Un tableau récapitulatif, une ligne par méthode
+     */
+    public String resume() {
+        StringBuilder resume = new StringBuilder(String.format("%-48s %9s %7s %10s %9s %10s %9s %9s %9s %9s%n",
+                "méthode", "requêtes", "erreurs", "lignes", "connexions", "total ms", "p50 µs", "p95 µs", "p99 µs", "max µs"));
+        for (QueryStatistics s : getStatistics()) {
+            resume.append(String.format("%-48s %9d %7d %10d %9d %10d %9d %9d %9d %9d%n",
+                    s.methode(), s.requetes(), s.erreurs(), s.lignes(), s.connexions(), s.tempsTotalMicros() / 1000,
+                    s.p50Micros(), s.p95Micros(), s.p99Micros(), s.maxMicros()));
+        }
+        return resume.toString();
+    }
+
+    private Compteurs compteurs(String methode) {
+        return compteurs.computeIfAbsent(methode, m -> new Compteurs());
+    }
+
+    /**
+     * @return La première méthode de la pile hors JDK, proxys et configuration, sous la forme Classe.methode
+     */
+    private static String appelant() {
+        return PILE.walk(frames -> frames
+                .filter(frame -> !estInfrastructure(frame.getClassName()))
+                .findFirst()
+                .map(frame -> {
+                    String classe = frame.getClassName();
+                    String methode = frame.getMethodName();
+                    // lambda$findAll$0 -> findAll
+                    if (methode.startsWith("lambda$")) {
+                        int fin = methode.indexOf('$', "lambda$".length());
+                        methode = methode.substring("lambda$".length(), fin < 0 ? methode.length() : fin);
+                    }
+                    return classe.substring(classe.lastIndexOf('.') + 1) + "." + methode;
+                })
+                .orElse("inconnu"));
+    }
+
+    private static boolean estInfrastructure(String classe) {
+        return classe.startsWith("covoiturage.config.") || classe.startsWith("java.") || classe.startsWith("jdk.")
+                || classe.startsWith("sun.") || classe.startsWith("com.sun.") || classe.contains("$Proxy");
+    }
+
+    private void enregistrer(Compteurs c, String methode, long debutNanos, String sql, List<Object> parametres,
+                             Throwable erreur) {
+        long micros = (System.nanoTime() - debutNanos) / 1000;
+        c.requetes.increment();
+        c.tempsTotalMicros.add(micros);
+        c.maxMicros.accumulateAndGet(micros, Math::max);
+        c.histogramme.enregistrer(micros);
+
+        if (!journaliserValeurs) {
+            // Une requête non préparée porte ses valeurs dans son texte
+            sql = CHAINES.matcher(sql).replaceAll("'…'");
+        }
+        if (erreur != null) {
+            c.erreurs.increment();
+            System.err.printf("[requête en échec] %s (%d µs) : %s%s%n  %s%n", methode, micros, sql,
+                    formaterParametres(parametres), erreur.getMessage());
+        } else if (micros >= seuilLentMicros) {
+            System.err.printf("[requête lente] %s (%d ms) : %s%s%n", methode, micros / 1000, sql,
+                    formaterParametres(parametres));
+        }
+    }
+
+    private String formaterParametres(List<Object> parametres) {
+        if (parametres == null || parametres.isEmpty()) {
+            return "";
+        }
+        if (!journaliserValeurs) {
+            return formaterTypes(parametres);
+        }
+        StringBuilder texte = new StringBuilder(" | paramètres [");
+        for (int i = 0; i < parametres.size(); i++) {
+            if (i > 0) {
+                texte.append(", ");
+            }
+            Object valeur = parametres.get(i);
+            if (valeur instanceof String chaine) {
+                texte.append('\'')
+                        .append(chaine.length() > LONGUEUR_MAX_PARAMETRE ? chaine.substring(0, LONGUEUR_MAX_PARAMETRE) + "…" : chaine)
+                        .append('\'');
+            } else {
+                texte.append(valeur);
+            }
+        }
+        return texte.append(']').toString();
+    }
+
+    /**
+     * Paramètres sans leurs valeurs : position et type, par exemple [1 String, 2 Long, 3 null].
+     */
+    private static String formaterTypes(List<Object> parametres) {
+        StringBuilder texte = new StringBuilder(" | paramètres [");
+        for (int i = 0; i < parametres.size(); i++) {
+            if (i > 0) {
+                texte.append(", ");
+            }
+            Object valeur = parametres.get(i);
+            texte.append(i + 1).append(' ').append(valeur == null ? "null" : valeur.getClass().getSimpleName());
+        }
+        return texte.append(']').toString();
+    }
+
+    private static Object invoquer(Object cible, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(cible, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class Compteurs {
+        private final LongAdder requetes = new LongAdder();
+        private final LongAdder erreurs = new LongAdder();
+        private final LongAdder lignes = new LongAdder();
+        private final LongAdder connexions = new LongAdder();
+        private final LongAdder tempsTotalMicros = new LongAdder();
+        private final AtomicLong maxMicros = new AtomicLong();
+        private final LatencyHistogram histogramme = new LatencyHistogram();
+
+        private QueryStatistics instantane(String methode) {
+            return new QueryStatistics(methode, requetes.sum(), erreurs.sum(), lignes.sum(), connexions.sum(),
+                    tempsTotalMicros.sum(), histogramme.centile(50), histogramme.centile(95),
+                    histogramme.centile(99), maxMicros.get());
+        }
+    }
+
+    /**
+     * Proxy de connexion : enveloppe les requêtes qu'elle crée, délègue tout le reste.
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object resultat = invoquer(connection, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> envelopper(Statement.class, resultat, null);
+                case "prepareStatement" -> envelopper(PreparedStatement.class, resultat, (String) args[0]);
+                case "prepareCall" -> envelopper(CallableStatement.class, resultat, (String) args[0]);
+                default -> resultat;
+            };
+        }
+
+        private Object envelopper(Class<?> type, Object statement, String sql) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler((Statement) statement, sql));
+        }
+    }
+
+    /**
+     * Proxy de requête : retient les paramètres liés et mesure chaque exécution.
+     */
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String sql;
+        private final List<Object> parametres = new ArrayList<>();
+        private int lotEnCours;
+
+        private StatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nom = method.getName();
+
+            if (nom.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer indice) {
+                lierParametre(indice, nom.equals("setNull") ? null : args[1]);
+            } else if (nom.equals("clearParameters")) {
+                parametres.clear();
+            } else if (nom.equals("addBatch")) {
+                lotEnCours++;
+            } else if (nom.startsWith("execute")) {
+                return executer(method, args);
+            } else if (nom.equals("getResultSet")) {
+                Object resultat = invoquer(statement, method, args);
+                return resultat == null ? null : envelopperResultats((ResultSet) resultat, compteurs(appelant()));
+            }
+            return invoquer(statement, method, args);
+        }
+
+        private Object executer(Method method, Object[] args) throws Throwable {
+            String methode = appelant();
+            Compteurs c = compteurs(methode);
+            String requete = args != null && args.length > 0 && args[0] instanceof String texte ? texte : sql;
+            if (budget != null) {
+                budget.enregistrer(requete, parametres);
+            }
+            if (lotEnCours > 0) {
+                requete = requete + " (lot de " + lotEnCours + ")";
+            }
+
+            long debut = System.nanoTime();
+            Object resultat;
+            try {
+                resultat = invoquer(statement, method, args);
+            } catch (Throwable e) {
+                enregistrer(c, methode, debut, requete, parametres, e);
+                throw e;
+            } finally {
+                if (method.getName().startsWith("executeBatch") || method.getName().startsWith("executeLargeBatch")) {
+                    lotEnCours = 0;
+                }
+            }
+            enregistrer(c, methode, debut, requete, parametres, null);
+
+            if (resultat instanceof ResultSet resultats) {
+                return envelopperResultats(resultats, c);
+            }
+            if (resultat instanceof Integer modifiees && modifiees > 0) {
+                c.lignes.add(modifiees);
+            } else if (resultat instanceof Long modifiees && modifiees > 0) {
+                c.lignes.add(modifiees);
+            } else if (resultat instanceof int[] parRequete) {
+                for (int modifiees : parRequete) {
+                    c.lignes.add(Math.max(modifiees, 0));
+                }
+            }
+            return resultat;
+        }
+
+        private void lierParametre(int indice, Object valeur) {
+            while (parametres.size() < indice) {
+                parametres.add(null);
+            }
+            parametres.set(indice - 1, valeur);
+        }
+
+        private ResultSet envelopperResultats(ResultSet resultats, Compteurs c) {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        Object resultat = invoquer(resultats, method, args);
+                        if (Boolean.TRUE.equals(resultat) && method.getName().equals("next")) {
+                            c.lignes.increment();
+                        }
+                        return resultat;
+                    });
+        }
+    }
+}
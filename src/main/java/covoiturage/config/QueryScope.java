@@ -0,0 +1,69 @@
+package covoiturage.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Portée de comptage des requêtes : un appel de service ou un bloc, ouvert explicitement
+ * par DatabaseConfig.openQueryScope. Une portée n'est utilisée que par le thread qui l'a ouverte.
+ */
+public final class QueryScope implements AutoCloseable {
+    private final QueryBudget budget;
+    private final String nom;
+    private final int maxRequetes;
+    final QueryScope parent;
+
+    int requetes;
+    boolean depasse;
+    final Map<String, Set<String>> parametresParRequete = new HashMap<>();
+    final Set<String> suspicionsNPlusUn = new LinkedHashSet<>();
+
+    QueryScope(QueryBudget budget, String nom, int maxRequetes, QueryScope parent) {
+        this.budget = budget;
+        this.nom = nom;
+        this.maxRequetes = maxRequetes;
+        this.parent = parent;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public int getMaxRequetes() {
+        return maxRequetes;
+    }
+
+    /**
+     * @return Le nombre de requêtes exécutées depuis l'ouverture de la portée
+     */
+    public int getRequetes() {
+        return requetes;
+    }
+
+    public boolean isDepasse() {
+        return depasse;
+    }
+
+    /**
+     * @return Les requêtes répétées avec des paramètres différents (signature d'un N+1)
+     */
+    public List<String> getSuspicionsNPlusUn() {
+        return new ArrayList<>(suspicionsNPlusUn);
+    }
+
+    @Override
+    public void close() {
+        if (budget != null) {
+            budget.fermer(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[requêtes=%d/%d, N+1=%s]", nom, requetes, maxRequetes, suspicionsNPlusUn);
+    }
+}
@@ -0,0 +1,29 @@
+package covoiturage.config;
+
+/**
+ * Instantané des statistiques d'une méthode de DAO (ou de l'appelant des requêtes hors DAO).
+ * Les latences, mesurées sur l'exécution des requêtes, sont exprimées en microsecondes.
+ */
+public record QueryStatistics(
+        String methode,
+        long requetes,
+        long erreurs,
+        long lignes,
+        long connexions,
+        long tempsTotalMicros,
+        long p50Micros,
+        long p95Micros,
+        long p99Micros,
+        long maxMicros) {
+
+    public long moyenneMicros() {
+        return requetes == 0 ? 0 : tempsTotalMicros / requetes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[requêtes=%d, erreurs=%d, lignes=%d, connexions=%d, moy=%dµs, p50=%dµs, " +
+                        "p95=%dµs, p99=%dµs, max=%dµs]",
+                methode, requetes, erreurs, lignes, connexions, moyenneMicros(), p50Micros, p95Micros, p99Micros, maxMicros);
+    }
+}
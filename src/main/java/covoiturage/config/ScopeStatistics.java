@@ -0,0 +1,23 @@
+package covoiturage.config;
+
+/**
+ * Instantané du budget de requêtes d'une méthode de service (ou d'une portée explicite).
+ */
+public record ScopeStatistics(
+        String nom,
+        long appels,
+        long requetes,
+        long maxRequetesParAppel,
+        long depassements,
+        long suspicionsNPlusUn) {
+
+    public double moyenneRequetesParAppel() {
+        return appels == 0 ? 0 : (double) requetes / appels;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[appels=%d, requêtes=%d, moy=%.1f, max=%d, dépassements=%d, N+1=%d]",
+                nom, appels, requetes, moyenneRequetesParAppel(), maxRequetesParAppel, depassements, suspicionsNPlusUn);
+    }
+}
@@ -9,9 +9,15 @@ import java.util.List;
 import java.util.Optional;
 
 public class AdministrateurDAO {
+    // Cache en lecture traversante sur findById, invalidé par save, update et delete
+    private final EntityCache<Administrateur> cache = EntityCache.fromConfig("administrateurs", Administrateur::new);
 
     public Optional<Administrateur> findById(Long id) {
-        String sql = "SELECT * FROM administrateur WHERE id = ?";
+        return cache.getOrLoad(id, this::chargerParId);
+    }
+
+    private Optional<Administrateur> chargerParId(Long id) {
+        String sql = "SELECT * FROM administrateurs WHERE id = ?";
 
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -110,6 +116,7 @@ public class AdministrateurDAO {
                 if (rs.next()) {
                     Long id = rs.getLong(1);
                     admin.setId(id);
+                    cache.invalidate(id);
                     return id;
                 }
             }
@@ -136,6 +143,7 @@ public class AdministrateurDAO {
             pstmt.setLong(7, admin.getId());
 
             int rowsAffected = pstmt.executeUpdate();
+            cache.invalidate(admin.getId());
             return rowsAffected > 0;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -152,10 +160,15 @@ public class AdministrateurDAO {
             pstmt.setLong(1, id);
 
             int rowsAffected = pstmt.executeUpdate();
+            cache.invalidate(id);
             return rowsAffected > 0;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
+
+    public CacheStatistics getCacheStatistics() {
+        return cache.getStatistics();
+    }
 }
@@ -10,8 +10,9 @@ import java.util.Optional;
 
 
 public class AvisDAO {
-    private TrajetDAO trajetDAO             = new TrajetDAO();
-    private UtilisateurDAO utilisateurDAO   = new UtilisateurDAO();
+    // Instances partagées de DAOFactory : une écriture invalide le même cache que ces lectures
+    private final TrajetDAO trajetDAO             = DAOFactory.getTrajetDAO();
+    private final UtilisateurDAO utilisateurDAO   = DAOFactory.getUtilisateurDAO();
 
 
     public Optional<Avis> findById(Long id) {
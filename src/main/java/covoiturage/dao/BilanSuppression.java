@@ -0,0 +1,124 @@
+package covoiturage.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ce qu'une suppression en bloc a effectivement supprimé (d'après les clauses RETURNING),
+ * avec la durée de chaque requête.
+ */
+public class BilanSuppression {
+    private boolean supprime;
+    private final List<Long> trajetIds = new ArrayList<>();
+    private int reservations;
+    private int reservationsAnnulees;
+    private int paiements;
+    private int paiementsRembourses;
+    private double montantRembourse;
+    private int avis;
+    private final Map<String, Long> dureesMicros = new LinkedHashMap<>();
+
+    /**
+     * @return true si l'entité demandée (trajet ou conducteur) a été supprimée
+     */
+    public boolean isSupprime() {
+        return supprime;
+    }
+
+    /**
+     * @return Les identifiants des trajets supprimés
+     */
+    public List<Long> getTrajetIds() {
+        return Collections.unmodifiableList(trajetIds);
+    }
+
+    public int getReservations() {
+        return reservations;
+    }
+
+    /**
+     * @return Les réservations encore actives au moment de la suppression
+     */
+    public int getReservationsAnnulees() {
+        return reservationsAnnulees;
+    }
+
+    public int getPaiements() {
+        return paiements;
+    }
+
+    /**
+     * @return Les paiements qui n'avaient pas encore été remboursés
+     */
+    public int getPaiementsRembourses() {
+        return paiementsRembourses;
+    }
+
+    public double getMontantRembourse() {
+        return montantRembourse;
+    }
+
+    public int getAvis() {
+        return avis;
+    }
+
+    /**
+     * @return La durée de chaque étape, dans l'ordre d'exécution
+     */
+    public Map<String, Long> getDureesMicros() {
+        return Collections.unmodifiableMap(dureesMicros);
+    }
+
+    public long getDureeTotaleMicros() {
+        return dureesMicros.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    void setSupprime(boolean supprime) {
+        this.supprime = supprime;
+    }
+
+    void ajouterTrajet(Long trajetId) {
+        trajetIds.add(trajetId);
+    }
+
+    void setReservations(int reservations, int reservationsAnnulees) {
+        this.reservations = reservations;
+        this.reservationsAnnulees = reservationsAnnulees;
+    }
+
+    void setPaiements(int paiements, int paiementsRembourses, double montantRembourse) {
+        this.paiements = paiements;
+        this.paiementsRembourses = paiementsRembourses;
+        this.montantRembourse = montantRembourse;
+    }
+
+    void setAvis(int avis) {
+        this.avis = avis;
+    }
+
+    /**
+     * Enregistre la durée d'une étape commencée à l'instant donné (System.nanoTime()).
+     */
+    void mesurer(String etape, long debutNanos) {
+        dureesMicros.merge(etape, (System.nanoTime() - debutNanos) / 1_000, Long::sum);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder etapes = new StringBuilder();
+        dureesMicros.forEach((etape, duree) -> {
+            if (etapes.length() > 0) {
+                etapes.append(", ");
+            }
+            etapes.append(etape).append('=').append(duree / 1000.0).append(" ms");
+        });
+        return String.format("Bilan[supprimé=%s, trajets=%d, réservations=%d (dont %d annulées), "
+                        + "paiements=%d (dont %d remboursés, %.2f), avis=%d, durée=%.1f ms (%s)]",
+                supprime, trajetIds.size(), reservations, reservationsAnnulees,
+                paiements, paiementsRembourses, montantRembourse, avis,
+                getDureeTotaleMicros() / 1000.0, etapes);
+    }
+}
@@ -0,0 +1,21 @@
+package covoiturage.dao;
+
+/**
+ * Instantané des compteurs d'un cache d'entités.
+ */
+public record CacheStatistics(String nom, int taille, int tailleMax, long hits, long misses, long evictions) {
+
+    /**
+     * @return La proportion de lectures servies par le cache, entre 0 et 1
+     */
+    public double tauxSucces() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cache %s[taille=%d/%d, hits=%d, misses=%d, évictions=%d, taux=%.1f%%]",
+                nom, taille, tailleMax, hits, misses, evictions, tauxSucces() * 100);
+    }
+}
@@ -4,13 +4,21 @@ import covoiturage.config.DatabaseConfig;
 import covoiturage.model.Conducteur;
 
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public class ConducteurDAO {
+    // Cache en lecture traversante sur findById, invalidé par save, update et delete
+    private final EntityCache<Conducteur> cache = EntityCache.fromConfig("conducteurs", Conducteur::new);
 
     public Optional<Conducteur> findById(Long id) {
+        return cache.getOrLoad(id, this::chargerParId);
+    }
+
+    private Optional<Conducteur> chargerParId(Long id) {
         String sql = "SELECT * FROM conducteurs WHERE id = ?";
 
         try (Connection conn = DatabaseConfig.getConnection();
@@ -29,6 +37,7 @@ public class ConducteurDAO {
                     conducteur.setTelephone(rs.getString("telephone"));
                     conducteur.setNumeroPermis(rs.getString("numero_permis"));
                     conducteur.setVehiculeInfo(rs.getString("vehicule_info"));
+                    conducteur.setDateModification(rs.getObject("updated_at", LocalDateTime.class));
 
                     return Optional.of(conducteur);
                 }
@@ -59,6 +68,7 @@ public class ConducteurDAO {
                     conducteur.setTelephone(rs.getString("telephone"));
                     conducteur.setNumeroPermis(rs.getString("numero_permis"));
                     conducteur.setVehiculeInfo(rs.getString("vehicule_info"));
+                    conducteur.setDateModification(rs.getObject("updated_at", LocalDateTime.class));
 
                     return Optional.of(conducteur);
                 }
@@ -87,6 +97,7 @@ public class ConducteurDAO {
                 conducteur.setTelephone(rs.getString("telephone"));
                 conducteur.setNumeroPermis(rs.getString("numero_permis"));
                 conducteur.setVehiculeInfo(rs.getString("vehicule_info"));
+                conducteur.setDateModification(rs.getObject("updated_at", LocalDateTime.class));
 
                 conducteurs.add(conducteur);
             }
@@ -96,6 +107,103 @@ public class ConducteurDAO {
         return conducteurs;
     }
 
+    /**
+     * Lit une page de conducteurs triés par identifiant, à partir d'un curseur.
+     * @param apresId Identifiant du dernier conducteur de la page précédente, ou null pour la première page
+     * @param taille Nombre de conducteurs par page
+     * @return La page lue
+     */
+    public Page<Conducteur> findPage(Long apresId, int taille) {
+        List<Conducteur> conducteurs = new ArrayList<>();
+        String sql = "SELECT * FROM conducteurs " +
+                (apresId != null ? "WHERE id > ? " : "") +
+                "ORDER BY id LIMIT ?";
+
+        LocalDateTime horloge = null;
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            // La première page date le chargement : les synchronisations suivantes partent de là
+            if (apresId == null) {
+                horloge = Delta.horloge(conn);
+            }
+
+            int index = 1;
+            if (apresId != null) {
+                pstmt.setLong(index++, apresId);
+            }
+            pstmt.setInt(index, taille + 1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Conducteur conducteur = new Conducteur();
+                    conducteur.setId(rs.getLong("id"));
+                    conducteur.setNom(rs.getString("nom"));
+                    conducteur.setPrenom(rs.getString("prenom"));
+                    conducteur.setEmail(rs.getString("email"));
+                    conducteur.setMotDePasse(rs.getString("mot_de_passe"));
+                    conducteur.setTelephone(rs.getString("telephone"));
+                    conducteur.setNumeroPermis(rs.getString("numero_permis"));
+                    conducteur.setVehiculeInfo(rs.getString("vehicule_info"));
+                    conducteur.setDateModification(rs.getObject("updated_at", LocalDateTime.class));
+
+                    conducteurs.add(conducteur);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return Page.of(conducteurs, taille, horloge);
+    }
+
+    /**
+     * Lit les conducteurs connus du client modifiés depuis une date, et vérifie leur existence.
+     * Les nouveaux conducteurs ne sont pas lus : la table paginée les reçoit à leur place par la pagination.
+     * Les lignes relues remplacent leur version en cache.
+     * @param depuis Date de modification à partir de laquelle lire (exclue), ou null pour tout relire
+     * @param connus Les identifiants déjà affichés par le client
+     * @param limite Nombre maximal de lignes modifiées à lire
+     */
+    public Delta<Conducteur> findModifiedSince(LocalDateTime depuis, Collection<Long> connus, int limite) throws SQLException {
+        List<Conducteur> conducteurs = new ArrayList<>();
+        long generation = cache.getGeneration();
+        String sql = "SELECT * FROM conducteurs WHERE id = ANY(?) " +
+                (depuis != null ? "AND updated_at > ? " : "") +
+                "ORDER BY updated_at, id LIMIT ?";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            LocalDateTime horloge = Delta.horloge(conn);
+            int index = 1;
+            pstmt.setArray(index++, conn.createArrayOf("bigint", connus.toArray()));
+            if (depuis != null) {
+                pstmt.setObject(index++, depuis);
+            }
+            pstmt.setInt(index, limite + 1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Conducteur conducteur = new Conducteur();
+                    conducteur.setId(rs.getLong("id"));
+                    conducteur.setNom(rs.getString("nom"));
+                    conducteur.setPrenom(rs.getString("prenom"));
+                    conducteur.setEmail(rs.getString("email"));
+                    conducteur.setMotDePasse(rs.getString("mot_de_passe"));
+                    conducteur.setTelephone(rs.getString("telephone"));
+                    conducteur.setNumeroPermis(rs.getString("numero_permis"));
+                    conducteur.setVehiculeInfo(rs.getString("vehicule_info"));
+                    conducteur.setDateModification(rs.getObject("updated_at", LocalDateTime.class));
+
+                    conducteurs.add(conducteur);
+                    cache.put(conducteur.getId(), conducteur, generation);
+                }
+            }
+            return Delta.of(conducteurs, Delta.idsExistants(conn, "conducteurs", connus), limite, horloge);
+        }
+    }
+
     public Long save(Conducteur conducteur) {
         String sql = "INSERT INTO conducteurs (nom, prenom, email, mot_de_passe, telephone, numero_permis, vehicule_info) " +
                      "VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING id";
@@ -116,6 +224,7 @@ public class ConducteurDAO {
                 if (rs.next()) {
                     Long id = rs.getLong(1);
                     conducteur.setId(id);
+                    cache.invalidate(id);
                     return id;
                 }
             }
@@ -142,6 +251,7 @@ public class ConducteurDAO {
             pstmt.setLong(8, conducteur.getId());
 
             int rowsAffected = pstmt.executeUpdate();
+            cache.invalidate(conducteur.getId());
             return rowsAffected > 0;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -158,10 +268,51 @@ public class ConducteurDAO {
             pstmt.setLong(1, id);
 
             int rowsAffected = pstmt.executeUpdate();
+            cache.invalidate(id);
             return rowsAffected > 0;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
+
+    /**
+     * Supprime le conducteur avec ses trajets, les réservations, paiements et avis de ces trajets,
+     * en quelques requêtes ensemblistes dans une seule transaction : en cas d'erreur, rien n'est supprimé.
+     * @return Le bilan de la suppression
+     */
+    public BilanSuppression deleteEnCascade(Long id) throws SQLException {
+        BilanSuppression bilan = new BilanSuppression();
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                TrajetDAO.supprimerEnBloc(conn, "conducteur_id = ?", id, bilan);
+
+                long debut = System.nanoTime();
+                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM conducteurs WHERE id = ?")) {
+                    pstmt.setLong(1, id);
+                    bilan.setSupprime(pstmt.executeUpdate() > 0);
+                }
+                bilan.mesurer("conducteur", debut);
+
+                debut = System.nanoTime();
+                conn.commit();
+                bilan.mesurer("commit", debut);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } finally {
+            cache.invalidate(id);
+        }
+
+        return bilan;
+    }
+
+    public CacheStatistics getCacheStatistics() {
+        return cache.getStatistics();
+    }
 }
@@ -6,6 +6,10 @@ package covoiturage.dao;
  */
 
 public class DAOFactory {
+    // Avant les DAO : TrajetDAO s'en sert
+    private static final LieuRegistry lieuRegistry              = new LieuRegistry();
+    private static final LieuMatcher lieuMatcher                = LieuMatcher.fromConfig(lieuRegistry);
+    // Ordre de déclaration = ordre de création : un DAO qui en utilise un autre est déclaré après lui
     private static final AdministrateurDAO administrateurDAO    = new AdministrateurDAO();
     private static final UtilisateurDAO utilisateurDAO          = new UtilisateurDAO();
     private static final ConducteurDAO conducteurDAO            = new ConducteurDAO();
@@ -13,6 +17,10 @@ public class DAOFactory {
     private static final ReservationDAO reservationDAO          = new ReservationDAO();
     private static final AvisDAO avisDAO                        = new AvisDAO();
     private static final PaiementDAO paiementDAO                = new PaiementDAO();
+    private static final StatistiquesDAO statistiquesDAO        = new StatistiquesDAO();
+    private static final RapportDAO rapportDAO                  = new RapportDAO();
+    private static final ImportDAO importDAO                    = new ImportDAO();
+    private static final ExportDAO exportDAO                    = new ExportDAO();
 
     private DAOFactory() {
         // Constructeur privé pour empêcher l'instanciation
@@ -45,4 +53,28 @@ public class DAOFactory {
     public static PaiementDAO getPaiementDAO() {
         return paiementDAO;
     }
+
+    public static StatistiquesDAO getStatistiquesDAO() {
+        return statistiquesDAO;
+    }
+
+    public static RapportDAO getRapportDAO() {
+        return rapportDAO;
+    }
+
+    public static ImportDAO getImportDAO() {
+        return importDAO;
+    }
+
+    public static ExportDAO getExportDAO() {
+        return exportDAO;
+    }
+
+    public static LieuRegistry getLieuRegistry() {
+        return lieuRegistry;
+    }
+
+    public static LieuMatcher getLieuMatcher() {
+        return lieuMatcher;
+    }
 }
@@ -0,0 +1,80 @@
+package covoiturage.dao;
+
+import covoiturage.config.DatabaseConfig;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Changements d'une table depuis le dernier chargement d'un client, lus sur la colonne updated_at.
+ * Les suppressions ne laissent pas de ligne : elles se déduisent des identifiants connus du client
+ * qui n'existent plus.
+ * @param modifies Les lignes créées ou modifiées depuis la date demandée, de la plus ancienne à la plus récente
+ * @param existants Parmi les identifiants connus du client, ceux qui existent encore
+ * @param tronque true si les modifications dépassent la limite demandée : mieux vaut tout recharger
+ * @param horloge L'heure du serveur lue avant les modifications : le curseur de la lecture suivante
+ */
+public record Delta<T>(List<T> modifies, Set<Long> existants, boolean tronque, LocalDateTime horloge) {
+
+    /**
+     * Construit un delta à partir d'une lecture de limite + 1 lignes :
+     * la ligne supplémentaire indique seulement que la limite est dépassée.
+     */
+    static <T> Delta<T> of(List<T> lignes, Set<Long> existants, int limite, LocalDateTime horloge) {
+        if (lignes.size() > limite) {
+            return new Delta<>(List.copyOf(lignes.subList(0, limite)), Set.copyOf(existants), true, horloge);
+        }
+        return new Delta<>(List.copyOf(lignes), Set.copyOf(existants), false, horloge);
+    }
+
+    /**
+     * Lit l'heure du serveur, à lancer avant la lecture des lignes sur la même connexion :
+     * une ligne écrite entre les deux sera simplement relue à la synchronisation suivante.
+     * clock_timestamp() et non now(), figé au début de la transaction comme les dates d'écriture (migration 009).
+     */
+    static LocalDateTime horloge(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT clock_timestamp()::timestamp");
+             ResultSet rs = pstmt.executeQuery()) {
+            rs.next();
+            return rs.getObject(1, LocalDateTime.class);
+        }
+    }
+
+    /**
+     * Lit l'heure du serveur sur sa propre connexion, pour dater un chargement fait par une autre lecture.
+     * À lancer avant ce chargement.
+     */
+    public static LocalDateTime horlogeServeur() {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return horloge(conn);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Échec de la lecture de l'heure du serveur : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return Les identifiants de la table parmi ceux donnés, en une requête
+     */
+    static Set<Long> idsExistants(Connection conn, String table, Collection<Long> ids) throws SQLException {
+        Set<Long> existants = new HashSet<>();
+        if (ids.isEmpty()) {
+            return existants;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT id FROM " + table + " WHERE id = ANY(?)")) {
+            pstmt.setArray(1, conn.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    existants.add(rs.getLong(1));
+                }
+            }
+        }
+        return existants;
+    }
+}
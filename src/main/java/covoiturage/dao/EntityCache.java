@@ -0,0 +1,135 @@
+package covoiturage.dao;
+
+import covoiturage.config.DatabaseConfig;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache d'entités par identifiant, borné en taille (éviction LRU) et en durée de vie.
+ * Les DAO l'utilisent en lecture traversante sur findById et l'invalident dans save, update et delete.
+ *
+ * Les entités sont mutables : le cache garde sa propre copie et rend une copie à chaque lecture,
+ * si bien qu'un appelant qui modifie l'entité reçue ne change ni le cache ni celle des autres.
+ * Une lecture en base ne met en cache que si aucune invalidation n'a eu lieu depuis son début
+ * (génération inchangée) : une ligne lue avant une écriture ne remplace pas son invalidation.
+ * @param <V> Le type des entités mises en cache
+ */
+class EntityCache<V> {
+    private final String nom;
+    private final int tailleMax;
+    private final long ttlMillis;
+    private final UnaryOperator<V> copie;
+
+    // Augmentée par chaque invalidation, sous le verrou de l'instance
+    private long generation;
+
+    // Ordre d'accès : la première entrée est la moins récemment utilisée
+    private final LinkedHashMap<Long, Entree<V>> entrees = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    EntityCache(String nom, int tailleMax, long ttlMillis, UnaryOperator<V> copie) {
+        this.nom = nom;
+        this.tailleMax = tailleMax;
+        this.ttlMillis = ttlMillis;
+        this.copie = copie;
+    }
+
+    /**
+     * Construit un cache à partir des propriétés db.cache.* de database.properties.
+     * Un cache désactivé a une taille nulle : toutes les lectures vont en base.
+     * @param copie Copie d'une entité (constructeur de copie du modèle)
+     */
+    static <V> EntityCache<V> fromConfig(String nom, UnaryOperator<V> copie) {
+        int tailleMax = DatabaseConfig.getBooleanProperty("db.cache.enabled", true)
+                ? DatabaseConfig.getIntProperty("db.cache.maxSize", 1000)
+                : 0;
+        return new EntityCache<>(nom, tailleMax, DatabaseConfig.getIntProperty("db.cache.ttlSeconds", 300) * 1000L,
+                copie);
+    }
+
+    /**
+     * Retourne l'entité en cache ou la charge avec le chargeur fourni.
+     * Les absences (Optional.empty()) ne sont pas mises en cache.
+     */
+    Optional<V> getOrLoad(Long id, Function<Long, Optional<V>> chargeur) {
+        long generationLue = getGeneration();
+        V valeur = get(id);
+        if (valeur != null) {
+            return Optional.of(valeur);
+        }
+        Optional<V> chargee = chargeur.apply(id);
+        chargee.ifPresent(v -> put(id, v, generationLue));
+        return chargee;
+    }
+
+    /**
+     * @return La génération à relever avant une lecture en base, pour {@link #put}
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return Une copie de l'entité en cache, ou null si absente ou expirée
+     */
+    synchronized V get(Long id) {
+        Entree<V> entree = entrees.get(id);
+        if (entree == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entree.expireA() < System.currentTimeMillis()) {
+            entrees.remove(id);
+            evictions.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return copie.apply(entree.valeur());
+    }
+
+    /**
+     * Met en cache une copie d'une entité lue en base.
+     * @param generationLue La génération relevée avant la lecture : si une invalidation a eu lieu
+     *                      depuis, la ligne lue peut être périmée et n'est pas mise en cache
+     */
+    synchronized void put(Long id, V valeur, long generationLue) {
+        if (tailleMax <= 0 || id == null || generationLue != generation) {
+            return;
+        }
+        entrees.put(id, new Entree<>(copie.apply(valeur), System.currentTimeMillis() + ttlMillis));
+
+        Iterator<Map.Entry<Long, Entree<V>>> it = entrees.entrySet().iterator();
+        while (entrees.size() > tailleMax && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    synchronized void invalidate(Long id) {
+        generation++;
+        entrees.remove(id);
+    }
+
+    synchronized void clear() {
+        generation++;
+        entrees.clear();
+    }
+
+    synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(nom, entrees.size(), tailleMax, hits.get(), misses.get(), evictions.get());
+    }
+
+    private record Entree<V>(V valeur, long expireA) {
+    }
+}
@@ -0,0 +1,36 @@
+package covoiturage.dao;
+
+import covoiturage.config.DatabaseConfig;
+import covoiturage.rapport.PeriodeRapport;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Export brut d'une table par COPY ... TO STDOUT : le serveur produit directement le CSV,
+ * que le pilote recopie dans le flux de sortie sans créer d'objet par ligne.
+ */
+public class ExportDAO {
+
+    /**
+     * Écrit la table au format CSV (avec ligne d'en-tête) dans le flux, trié par id.
+     * @param periode Filtre sur la colonne de date de la table ; ignoré si la table n'est pas datée
+     * @return Le nombre de lignes exportées
+     */
+    public long exporter(TableExport table, PeriodeRapport periode, OutputStream sortie) throws SQLException, IOException {
+        String requete = "SELECT " + table.getColonnes() + " FROM " + table.getTable();
+        if (table.isDatee() && !periode.equals(PeriodeRapport.TOUT)) {
+            // COPY n'accepte pas de paramètres : les bornes sont des LocalDate, donc sans risque d'injection
+            requete += " WHERE " + table.getColonneDate() + " >= DATE '" + periode.debut() + "'"
+                    + " AND " + table.getColonneDate() + " < DATE '" + periode.fin() + "'";
+        }
+        String sql = "COPY (" + requete + " ORDER BY id) TO STDOUT WITH (FORMAT csv, HEADER)";
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            return conn.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, sortie);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package covoiturage.dao;
+
+import covoiturage.config.ChangeFeed;
+import covoiturage.config.DatabaseConfig;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Écriture en masse de lignes déjà validées. Chaque lot est inséré dans sa propre transaction,
+ * soit par COPY ... FROM STDIN (CopyManager du pilote PostgreSQL), soit par un batch JDBC.
+ * Les notifications par ligne des déclencheurs sont coupées pendant le lot, remplacées
+ * par une seule notification IMPORT envoyée à la validation.
+ */
+public class ImportDAO {
+
+    public enum Mode {
+        /** COPY FROM STDIN : le plus rapide, un seul aller-retour par lot */
+        COPY,
+        /** INSERT en batch JDBC : plus lent, mais n'exige pas de connexion PostgreSQL native */
+        BATCH
+    }
+
+    private final int fetchSize = DatabaseConfig.getIntProperty("report.fetchSize", 1000);
+
+    /**
+     * Insère un lot de lignes dans une seule transaction : en cas d'erreur, aucune ligne du lot n'est insérée.
+     * @param lignes Les valeurs de chaque ligne, dans l'ordre de table.getColonnes()
+     * @return Le nombre de lignes insérées
+     */
+    public long inserer(TableImport table, List<Object[]> lignes, Mode mode) throws SQLException {
+        return inserer(table.getTable(), table.getColonnes(), lignes, mode);
+    }
+
+    /**
+     * Variante pour un jeu de colonnes quelconque, identifiant compris (génération de données).
+     * @see #inserer(TableImport, List, Mode)
+     */
+    public long inserer(String table, List<String> colonnes, List<Object[]> lignes, Mode mode) throws SQLException {
+        if (lignes.isEmpty()) {
+            return 0;
+        }
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                notifierImport(conn, table);
+                long inseres = mode == Mode.COPY
+                        ? copier(conn, table, colonnes, lignes)
+                        : insererBatch(conn, table, colonnes, lignes);
+                conn.commit();
+                return inseres;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * @return Les emails déjà présents dans la table (utilisateurs ou conducteurs)
+     */
+    public Set<String> emailsExistants(TableImport table) throws SQLException {
+        Set<String> emails = new HashSet<>();
+        lireColonne("SELECT email FROM " + table.getTable(), rs -> emails.add(rs.getString(1)));
+        return emails;
+    }
+
+    /**
+     * @return Les identifiants de tous les conducteurs, pour valider les trajets importés
+     */
+    public Set<Long> idsConducteurs() throws SQLException {
+        Set<Long> ids = new HashSet<>();
+        lireColonne("SELECT id FROM conducteurs", rs -> ids.add(rs.getLong(1)));
+        return ids;
+    }
+
+    /**
+     * @return Le nombre de lignes de la table
+     */
+    public long compter(String table) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Vide les tables et remet leurs séquences d'identifiants à 1.
+     */
+    public void vider(String... tables) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("TRUNCATE " + String.join(", ", tables) + " RESTART IDENTITY");
+        }
+    }
+
+    /**
+     * Après une insertion avec identifiants explicites : recale la séquence de la table sur le plus
+     * grand identifiant, puis met à jour les statistiques du planificateur.
+     */
+    public void finaliser(String table) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), " +
+                    "COALESCE((SELECT MAX(id) FROM " + table + "), 0) + 1, false)");
+            stmt.execute("ANALYZE " + table);
+        }
+    }
+
+    /**
+     * Coupe les notifications par ligne jusqu'à la fin de la transaction et programme
+     * la notification du lot, délivrée par PostgreSQL à la validation.
+     */
+    private static void notifierImport(Connection conn, String table) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT set_config('covoiturage.notifications', 'off', true), " +
+                        "pg_notify(?, json_build_object('table', ?::text, 'op', 'IMPORT')::text)")) {
+            pstmt.setString(1, ChangeFeed.CANAL);
+            pstmt.setString(2, table);
+            pstmt.execute();
+        }
+    }
+
+    private long copier(Connection conn, String table, List<String> colonnes, List<Object[]> lignes) throws SQLException {
+        StringBuilder csv = new StringBuilder(lignes.size() * 64);
+        for (Object[] ligne : lignes) {
+            for (int i = 0; i < ligne.length; i++) {
+                if (i > 0) {
+                    csv.append(',');
+                }
+                ajouterValeurCsv(csv, ligne[i]);
+            }
+            csv.append('\n');
+        }
+
+        String sql = "COPY " + table + " (" + String.join(", ", colonnes) + ") FROM STDIN WITH (FORMAT csv)";
+        try {
+            return conn.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, new StringReader(csv.toString()));
+        } catch (IOException e) {
+            throw new SQLException("Erreur de lecture du lot pendant le COPY", e);
+        }
+    }
+
+    private long insererBatch(Connection conn, String table, List<String> colonnes, List<Object[]> lignes) throws SQLException {
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", colonnes) + ") " +
+                "VALUES (" + String.join(", ", Collections.nCopies(colonnes.size(), "?")) + ")";
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (Object[] ligne : lignes) {
+                for (int i = 0; i < ligne.length; i++) {
+                    Object valeur = ligne[i];
+                    pstmt.setObject(i + 1, valeur instanceof LocalDateTime date ? Timestamp.valueOf(date) : valeur);
+                }
+                pstmt.addBatch();
+            }
+
+            long inseres = 0;
+            for (int resultat : pstmt.executeBatch()) {
+                // Avec reWriteBatchedInserts, le pilote ne rapporte pas le nombre de lignes par requête
+                inseres += resultat == Statement.SUCCESS_NO_INFO ? 1 : resultat;
+            }
+            return inseres;
+        }
+    }
+
+    /**
+     * Écrit une valeur au format CSV de COPY : les textes sont toujours entre guillemets
+     * pour distinguer la chaîne vide de NULL (champ vide sans guillemets).
+     */
+    private static void ajouterValeurCsv(StringBuilder csv, Object valeur) {
+        if (valeur == null) {
+            return;
+        }
+        if (valeur instanceof String texte) {
+            csv.append('"').append(texte.replace("\"", "\"\"")).append('"');
+        } else {
+            csv.append(valeur);
+        }
+    }
+
+    private void lireColonne(String sql, LecteurLigne lecteur) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            // Lecture par lots (curseur côté serveur) : hors autocommit uniquement
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.setFetchSize(fetchSize);
+                try (ResultSet rs = stmt.executeQuery(sql)) {
+                    while (rs.next()) {
+                        lecteur.lire(rs);
+                    }
+                }
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface LecteurLigne {
+        void lire(ResultSet rs) throws SQLException;
+    }
+}
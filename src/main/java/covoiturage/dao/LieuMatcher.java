@@ -0,0 +1,155 @@
+package covoiturage.dao;
+
+import covoiturage.config.DatabaseConfig;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Correspondance approchée des noms de villes pour la recherche de trajets : casse, espaces
+ * et accents ignorés, fautes de frappe tolérées (« Soussa » trouve « Sousse »), résultats
+ * classés par similarité.
+ *
+ * Deux modes (db.recherche.mode) :
+ * <ul>
+ *     <li>TRIGRAM : pg_trgm côté base (migrations 005 et 006), index GIN sur lieux.cle ;</li>
+ *     <li>MEMOIRE : index de trigrammes en mémoire des villes du LieuRegistry, qui traduit la saisie
+ *     en identifiants de villes, cherchés ensuite par l'index (lieu_depart_id, lieu_arrivee_id) de trajets.</li>
+ * </ul>
+ * En mode auto, TRIGRAM si la base a la fonction normaliser_lieu, MEMOIRE sinon.
+ * L'index en mémoire n'est reconstruit que lorsqu'une ville s'ajoute au LieuRegistry : les réservations
+ * et autres mises à jour de trajets ne changent pas les villes et ne le touchent pas.
+ */
+public class LieuMatcher {
+    public enum Mode { TRIGRAM, MEMOIRE }
+
+    /**
+     * Une ville de l'index qui correspond à la saisie.
+     * @param nom Le nom normalisé
+     * @param ids Les identifiants des villes de ce nom dans la table lieux
+     * @param similarite La similarité avec la saisie, entre 0 et 1
+     */
+    public record Correspondance(String nom, Set<Integer> ids, double similarite) {
+    }
+
+    private final LieuRegistry registre;
+    private final String modeConfigure;
+    private final double seuil;
+
+    private volatile Mode mode;
+    // Sous le verrou de l'instance
+    private TrigramIndex index = new TrigramIndex();
+    private long generationIndexee = -1;
+
+    /**
+     * @param mode auto, trigram ou memoire
+     * @param seuil Similarité minimale d'une ville approchée, entre 0 et 1
+     */
+    LieuMatcher(LieuRegistry registre, String mode, double seuil) {
+        this.registre = registre;
+        this.modeConfigure = mode;
+        this.seuil = seuil;
+    }
+
+    static LieuMatcher fromConfig(LieuRegistry registre) {
+        return new LieuMatcher(registre, DatabaseConfig.getProperty("db.recherche.mode", "auto"),
+                Double.parseDouble(DatabaseConfig.getProperty("db.recherche.seuilSimilarite", "0.3")));
+    }
+
+    /**
+     * Même règle que la fonction SQL normaliser_lieu : sans accents, en minuscules, espaces réduits.
+     */
+    public static String normaliser(String lieu) {
+        if (lieu == null) {
+            return "";
+        }
+        String sansAccents = Normalizer.normalize(lieu.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        return sansAccents.replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    public Mode getMode() {
+        Mode courant = mode;
+        if (courant == null) {
+            courant = detecter();
+            mode = courant;
+        }
+        return courant;
+    }
+
+    public double getSeuil() {
+        return seuil;
+    }
+
+    /**
+     * Mode MEMOIRE : villes dont la similarité avec la saisie atteint le seuil.
+     * @return Les correspondances, de la plus proche à la plus éloignée
+     */
+    public List<Correspondance> similaires(String saisie) {
+        return trier(index().similaires(normaliser(saisie), seuil));
+    }
+
+    /**
+     * Mode MEMOIRE : villes dont le nom normalisé contient la saisie normalisée.
+     * @return Les correspondances, de la plus proche à la plus éloignée
+     */
+    public List<Correspondance> contenant(String saisie) {
+        return trier(index().contenant(normaliser(saisie)));
+    }
+
+    /**
+     * @return L'index des villes du registre, reconstruit si des villes s'y sont ajoutées
+     */
+    private synchronized TrigramIndex index() {
+        try {
+            long generation = registre.getGeneration();
+            if (generation != generationIndexee) {
+                TrigramIndex charge = new TrigramIndex();
+                registre.lieux().forEach((id, nom) -> charge.ajouter(normaliser(nom), id));
+                index = charge;
+                generationIndexee = generation;
+            }
+        } catch (SQLException e) {
+            // L'index précédent (vide si rien n'a encore été lu) sert ; la lecture sera retentée
+            e.printStackTrace();
+        }
+        return index;
+    }
+
+    private Mode detecter() {
+        switch (modeConfigure.toLowerCase(Locale.ROOT)) {
+            case "trigram":
+                return Mode.TRIGRAM;
+            case "memoire":
+                return Mode.MEMOIRE;
+            default:
+                break;
+        }
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT to_regprocedure('normaliser_lieu(text)') IS NOT NULL")) {
+            return rs.next() && rs.getBoolean(1) ? Mode.TRIGRAM : Mode.MEMOIRE;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Mode.MEMOIRE;
+        }
+    }
+
+    private static List<Correspondance> trier(Map<TrigramIndex.Entree, Double> resultats) {
+        List<Correspondance> correspondances = new ArrayList<>();
+        resultats.forEach((entree, similarite) ->
+                correspondances.add(new Correspondance(entree.nom(), entree.ids(), similarite)));
+        correspondances.sort(Comparator.comparingDouble(Correspondance::similarite).reversed()
+                .thenComparing(Correspondance::nom));
+        return correspondances;
+    }
+}
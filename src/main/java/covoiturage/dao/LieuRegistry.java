@@ -0,0 +1,191 @@
+package covoiturage.dao;
+
+import covoiturage.config.ChangeEvent;
+import covoiturage.config.DatabaseConfig;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registre en mémoire de la table lieux : identifiant entier et nom canonique de chaque ville.
+ *
+ * Les trajets ne portent que les identifiants de leurs villes ; leurs noms viennent d'ici, en un
+ * seul exemplaire partagé par tous les trajets chargés. Les villes se comparent par identifiant :
+ * deux écritures d'une même ville (casse, espaces et accents ignorés, LieuMatcher.normaliser)
+ * ont le même. Le registre est lu à la première utilisation, puis complété par les villes créées
+ * par ce client. Le flux de changements signale les villes créées par les autres : un trajet écrit
+ * avec une ville inconnue, ou un changement en masse, fait relire la table à la prochaine utilisation.
+ *
+ * La génération augmente à chaque ville ajoutée : les structures construites à partir du registre
+ * (index de trigrammes de LieuMatcher) savent ainsi quand se reconstruire.
+ */
+public class LieuRegistry {
+    // Lectures sans verrou ; seule la relecture de la table est sous le verrou de l'instance
+    private final Map<Integer, String> noms = new ConcurrentHashMap<>();
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile boolean aRelire = true;
+    private boolean abonne;
+
+    LieuRegistry() {
+    }
+
+    /**
+     * @return Le nom canonique de la ville, ou null si aucune ville n'a cet identifiant
+     */
+    public String getNom(int id) throws SQLException {
+        completer();
+        return noms.get(id);
+    }
+
+    /**
+     * Nom d'une ville déjà dans le registre, sans requête : utilisable sur le thread du flux de changements.
+     * @return Le nom canonique, ou null si la ville n'est pas (encore) connue
+     */
+    public String getNomConnu(int id) {
+        return noms.get(id);
+    }
+
+    /**
+     * Nom d'une ville annoncée par le flux de changements : si elle n'est pas encore connue, elle vient
+     * d'être créée par un autre client et la table est relue. À appeler hors du thread du flux.
+     * @return Le nom canonique, ou null si aucune ville n'a cet identifiant
+     */
+    public String getNomAnnonce(int id) throws SQLException {
+        if (!noms.containsKey(id)) {
+            aRelire = true;
+        }
+        return getNom(id);
+    }
+
+    /**
+     * Nom partagé d'une ville lue avec son trajet (jointure sur lieux), sans requête ni verrou :
+     * utilisable pendant qu'une connexion est tenue. Une ville encore inconnue est ajoutée au registre.
+     */
+    String interner(int id, String nom) {
+        enregistrer(id, nom);
+        return noms.get(id);
+    }
+
+    /**
+     * Identifiant d'une ville connue, sans la créer.
+     * @return L'identifiant, ou null si aucune ville n'a ce nom (casse, espaces et accents ignorés)
+     */
+    public Integer chercher(String nom) throws SQLException {
+        completer();
+        return ids.get(LieuMatcher.normaliser(nom));
+    }
+
+    /**
+     * Identifiant d'une ville, créée dans la table lieux si elle n'y est pas encore.
+     * @param nom Le nom saisi ; c'est le nom canonique si la ville est nouvelle
+     */
+    public int resoudre(String nom) throws SQLException {
+        Integer id = chercher(nom);
+        if (id != null) {
+            return id;
+        }
+
+        // Création concurrente par un autre client : ON CONFLICT rend la ligne existante
+        String cle = LieuMatcher.normaliser(nom);
+        String sql = "INSERT INTO lieux (nom, cle) VALUES (?, ?) " +
+                "ON CONFLICT (cle) DO UPDATE SET cle = EXCLUDED.cle RETURNING id, nom";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, nom.trim());
+            pstmt.setString(2, cle);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                id = rs.getInt("id");
+                enregistrer(id, rs.getString("nom"));
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Relit la table lieux si des villes ont pu y être créées par d'autres clients.
+     * @return Une copie des noms canoniques, par identifiant
+     */
+    public Map<Integer, String> lieux() throws SQLException {
+        completer();
+        return new HashMap<>(noms);
+    }
+
+    /**
+     * Relit la table lieux si des villes ont pu y être créées par d'autres clients.
+     * @return Un compteur qui augmente à chaque ville ajoutée au registre
+     */
+    public long getGeneration() throws SQLException {
+        completer();
+        return generation.get();
+    }
+
+    /**
+     * Relit la table lieux à la première utilisation ou après le signalement d'une ville inconnue.
+     */
+    private void completer() throws SQLException {
+        if (!aRelire) {
+            return;
+        }
+        synchronized (this) {
+            if (!aRelire) {
+                return;
+            }
+            if (!abonne) {
+                DatabaseConfig.addChangeListener(this::appliquer);
+                abonne = true;
+            }
+            // Remis à false avant la lecture : une ville signalée pendant la lecture la fera refaire
+            aRelire = false;
+            try (Connection conn = DatabaseConfig.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT id, nom FROM lieux")) {
+
+                while (rs.next()) {
+                    enregistrer(rs.getInt("id"), rs.getString("nom"));
+                }
+            } catch (SQLException e) {
+                aRelire = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Appelé sur le thread du flux : aucune requête ici, seulement le signalement d'une relecture.
+     * Les mises à jour de places ou d'horaires ne changent pas les villes connues et n'ont pas d'effet.
+     */
+    private void appliquer(ChangeEvent evenement) {
+        if (evenement.table() != ChangeEvent.Table.TRAJETS || evenement.operation() == ChangeEvent.Operation.DELETE) {
+            return;
+        }
+        if (evenement.isMasse() || inconnu(evenement.lieuDepartId()) || inconnu(evenement.lieuArriveeId())) {
+            aRelire = true;
+        }
+    }
+
+    private boolean inconnu(Long id) {
+        return id != null && !noms.containsKey(id.intValue());
+    }
+
+    /**
+     * Un nom déjà connu garde son exemplaire : c'est lui que reçoivent les trajets.
+     */
+    private void enregistrer(int id, String nom) {
+        if (noms.putIfAbsent(id, nom) == null) {
+            ids.putIfAbsent(LieuMatcher.normaliser(nom), id);
+            generation.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package covoiturage.dao;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Page d'une lecture paginée par curseur (keyset).
+ * Le curseur de la page suivante est le dernier élément de la page courante.
+ * @param elements Les éléments de la page, dans l'ordre du curseur
+ * @param suivante true s'il reste des éléments après cette page
+ * @param horloge L'heure du serveur lue avant la page, ou null pour une page construite en mémoire
+ */
+public record Page<T>(List<T> elements, boolean suivante, LocalDateTime horloge) {
+
+    /**
+     * Construit une page à partir d'une lecture de taille + 1 lignes :
+     * la ligne supplémentaire indique seulement l'existence d'une page suivante.
+     */
+    static <T> Page<T> of(List<T> lignes, int taille, LocalDateTime horloge) {
+        if (lignes.size() > taille) {
+            return new Page<>(List.copyOf(lignes.subList(0, taille)), true, horloge);
+        }
+        return new Page<>(List.copyOf(lignes), false, horloge);
+    }
+
+    public T dernier() {
+        return elements.isEmpty() ? null : elements.get(elements.size() - 1);
+    }
+
+    public boolean isEmpty() {
+        return elements.isEmpty();
+    }
+}
@@ -10,7 +10,8 @@ import java.util.List;
 import java.util.Optional;
 
 public class PaiementDAO {
-    private ReservationDAO reservationDAO = new ReservationDAO();
+    // Instance partagée de DAOFactory
+    private final ReservationDAO reservationDAO = DAOFactory.getReservationDAO();
 
     public Optional<Paiement> findById(Long id) {
         String sql = "SELECT * FROM paiements WHERE id = ?";
@@ -0,0 +1,139 @@
+package covoiturage.dao;
+
+import covoiturage.config.DatabaseConfig;
+import covoiturage.rapport.PeriodeRapport;
+import covoiturage.rapport.RapportWriter;
+
+import java.io.IOException;
+import java.sql.*;
+
+/**
+ * Requêtes d'agrégat des rapports d'administration. Le résultat est lu par un curseur
+ * côté serveur (lots de report.fetchSize lignes) et transmis ligne par ligne au writer :
+ * la mémoire utilisée ne dépend pas du nombre de lignes du rapport.
+ */
+public class RapportDAO {
+    /**
+     * Paiements non remboursés de la réservation r, agrégés en une ligne (montant_paye, null sans paiement) :
+     * une jointure directe répéterait la réservation pour chaque paiement et fausserait ses comptes.
+     */
+    private static final String PAIEMENTS_PAR_RESERVATION = "LEFT JOIN LATERAL (" +
+            "SELECT SUM(pa.montant) AS montant_paye FROM paiements pa " +
+            "WHERE pa.reservation_id = r.id AND pa.est_rembourse = false) p ON true ";
+
+    private final int fetchSize = DatabaseConfig.getIntProperty("report.fetchSize", 1000);
+
+    /**
+     * Activité par utilisateur : réservations, places, annulations et montants payés sur la période.
+     * @return Le nombre de lignes écrites
+     */
+    public long exporterActiviteUtilisateurs(PeriodeRapport periode, RapportWriter writer) throws SQLException, IOException {
+        String sql = "SELECT u.id, u.nom, u.prenom, u.email, " +
+                "COUNT(r.id) AS reservations, " +
+                "COALESCE(SUM(r.nb_places) FILTER (WHERE r.est_annule = false AND r.statut <> 'ANNULEE'), 0) AS places_reservees, " +
+                "COUNT(r.id) FILTER (WHERE r.est_annule = true OR r.statut = 'ANNULEE') AS annulations, " +
+                "COALESCE(SUM(p.montant_paye), 0) AS montant_paye, " +
+                "MAX(r.date_reservation) AS derniere_reservation " +
+                "FROM utilisateurs u " +
+                "LEFT JOIN reservations r ON r.utilisateur_id = u.id " +
+                "AND r.date_reservation >= ? AND r.date_reservation < ? " +
+                PAIEMENTS_PAR_RESERVATION +
+                "GROUP BY u.id, u.nom, u.prenom, u.email " +
+                "ORDER BY u.id";
+        return exporter(sql, periode, writer);
+    }
+
+    /**
+     * Trajets par itinéraire et par mois de départ : volumes, taux d'annulation et remplissage.
+     * @return Le nombre de lignes écrites
+     */
+    public long exporterTrajetsParItineraire(PeriodeRapport periode, RapportWriter writer) throws SQLException, IOException {
+        // Regroupement sur les identifiants des villes ; leurs noms ne sont joints qu'aux lignes agrégées
+        String sql = "SELECT r.mois, ld.nom AS lieu_depart, la.nom AS lieu_arrivee, " +
+                "r.trajets, r.trajets_annules, r.taux_annulation, r.places_offertes, r.places_reservees, " +
+                "r.taux_remplissage, r.prix_moyen " +
+                "FROM (SELECT to_char(date_trunc('month', t.date_depart), 'YYYY-MM') AS mois, " +
+                "t.lieu_depart_id, t.lieu_arrivee_id, " +
+                "COUNT(*) AS trajets, " +
+                "COUNT(*) FILTER (WHERE t.est_annule = true) AS trajets_annules, " +
+                "ROUND(100.0 * COUNT(*) FILTER (WHERE t.est_annule = true) / COUNT(*), 2) AS taux_annulation, " +
+                "SUM(t.nb_places_disponibles) AS places_offertes, " +
+                "SUM(t.nb_places_reservees) AS places_reservees, " +
+                "ROUND(100.0 * SUM(t.nb_places_reservees) / NULLIF(SUM(t.nb_places_disponibles), 0), 2) AS taux_remplissage, " +
+                "ROUND(AVG(t.prix)::numeric, 2) AS prix_moyen " +
+                "FROM trajets t " +
+                "WHERE t.date_depart >= ? AND t.date_depart < ? " +
+                "GROUP BY 1, t.lieu_depart_id, t.lieu_arrivee_id) r " +
+                "JOIN lieux ld ON ld.id = r.lieu_depart_id " +
+                "JOIN lieux la ON la.id = r.lieu_arrivee_id " +
+                "ORDER BY r.mois, ld.nom, la.nom";
+        return exporter(sql, periode, writer);
+    }
+
+    /**
+     * Entonnoir des réservations par mois : créées, en attente, confirmées, annulées puis payées.
+     * @return Le nombre de lignes écrites
+     */
+    public long exporterEntonnoirReservations(PeriodeRapport periode, RapportWriter writer) throws SQLException, IOException {
+        String sql = "SELECT to_char(date_trunc('month', r.date_reservation), 'YYYY-MM') AS mois, " +
+                "COUNT(*) AS reservations, " +
+                "COUNT(*) FILTER (WHERE r.est_annule = false AND r.statut = 'EN_ATTENTE') AS en_attente, " +
+                "COUNT(*) FILTER (WHERE r.est_annule = false AND r.statut = 'CONFIRMEE') AS confirmees, " +
+                "COUNT(*) FILTER (WHERE r.est_annule = true OR r.statut = 'ANNULEE') AS annulees, " +
+                "COUNT(*) FILTER (WHERE p.montant_paye IS NOT NULL) AS payees, " +
+                "ROUND(100.0 * COUNT(*) FILTER (WHERE r.est_annule = false AND r.statut = 'CONFIRMEE') / COUNT(*), 2) AS taux_confirmation, " +
+                "ROUND(100.0 * COUNT(*) FILTER (WHERE r.est_annule = true OR r.statut = 'ANNULEE') / COUNT(*), 2) AS taux_annulation, " +
+                "COALESCE(SUM(p.montant_paye), 0) AS montant_paye " +
+                "FROM reservations r " +
+                PAIEMENTS_PAR_RESERVATION +
+                "WHERE r.date_reservation >= ? AND r.date_reservation < ? " +
+                "GROUP BY 1 " +
+                "ORDER BY 1";
+        return exporter(sql, periode, writer);
+    }
+
+    /**
+     * Exécute une requête bornée par la période et écrit chaque ligne dès sa lecture.
+     */
+    private long exporter(String sql, PeriodeRapport periode, RapportWriter writer) throws SQLException, IOException {
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            // Le pilote PostgreSQL n'utilise un curseur (lecture par lots) que hors mode autocommit
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+                pstmt.setFetchSize(fetchSize);
+                pstmt.setTimestamp(1, Timestamp.valueOf(periode.debut().atStartOfDay()));
+                pstmt.setTimestamp(2, Timestamp.valueOf(periode.fin().atStartOfDay()));
+
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    ResultSetMetaData metaData = rs.getMetaData();
+                    int nbColonnes = metaData.getColumnCount();
+
+                    String[] colonnes = new String[nbColonnes];
+                    for (int i = 0; i < nbColonnes; i++) {
+                        colonnes[i] = metaData.getColumnLabel(i + 1);
+                    }
+                    writer.entete(colonnes);
+
+                    // Un seul tableau réutilisé : le writer ne conserve pas les lignes
+                    Object[] valeurs = new Object[nbColonnes];
+                    long lignes = 0;
+                    while (rs.next()) {
+                        for (int i = 0; i < nbColonnes; i++) {
+                            valeurs[i] = rs.getObject(i + 1);
+                        }
+                        writer.ligne(valeurs);
+                        lignes++;
+                    }
+                    return lignes;
+                }
+            } finally {
+                // Lecture seule : la transaction du curseur est simplement terminée
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+}
@@ -4,19 +4,29 @@ import covoiturage.config.DatabaseConfig;
 import covoiturage.model.Reservation;
 import covoiturage.model.enums.StatutReservation;
 
-import javax.xml.crypto.Data;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Accès aux réservations. Les écritures passent toutes par reserverPlaces, confirmer et annuler,
+ * qui tiennent trajets.nb_places_reservees dans la même transaction : il n'y a pas d'insertion,
+ * de mise à jour ni de suppression libres qui contourneraient ce compteur.
+ */
 public class ReservationDAO {
-    private TrajetDAO trajetDAO = new TrajetDAO();
-    private UtilisateurDAO utilisateurDAO = new UtilisateurDAO();
+    // Instances partagées de DAOFactory : une écriture invalide le même cache que ces lectures
+    private final TrajetDAO trajetDAO = DAOFactory.getTrajetDAO();
+    private final UtilisateurDAO utilisateurDAO = DAOFactory.getUtilisateurDAO();
 
     public Optional<Reservation> findById(Long id) {
         String sql = "SELECT * FROM reservations WHERE id = ?";
+        ReservationGraphLoader graphe = new ReservationGraphLoader(utilisateurDAO, trajetDAO);
+        List<Reservation> reservations;
 
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -24,77 +34,73 @@ public class ReservationDAO {
             pstmt.setLong(1, id);
 
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    Reservation reservation = new Reservation();
-                    reservation.setId(rs.getLong("id"));
-                    reservation.setDateReservation(rs.getObject("date_reservation", LocalDateTime.class));
-                    reservation.setNbPlaces(rs.getInt("nb_places"));
+                reservations = mapReservations(rs, graphe);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Optional.empty();
+        }
 
-                    String statusStr = rs.getString("statut");
-                    StatutReservation statut = StatutReservation.valueOf(statusStr);
-                    reservation.setStatut(statut);
+        graphe.load();
+        return reservations.isEmpty() ? Optional.empty() : Optional.of(reservations.get(0));
+    }
 
-                    reservation.setAnnule(rs.getBoolean("est_annule"));
+    /**
+     * Charge plusieurs réservations (utilisateurs et trajets compris) en une requête par type d'entité.
+     * @param ids Les identifiants recherchés
+     * @return Les réservations trouvées, indexées par identifiant
+     */
+    public Map<Long, Reservation> findByIds(Collection<Long> ids) {
+        Map<Long, Reservation> reservations = new HashMap<>();
+        if (ids.isEmpty()) {
+            return reservations;
+        }
 
+        String sql = "SELECT * FROM reservations WHERE id = ANY(?)";
+        ReservationGraphLoader graphe = new ReservationGraphLoader(utilisateurDAO, trajetDAO);
 
-                    // Récupération de l'utilisateur
-                    Long utilisateurId = rs.getLong("utilisateur_id");
-                    utilisateurDAO.findById(utilisateurId).ifPresent(reservation::setUtilisateur);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-                    // Récupération du trajet
-                    Long trajetId = rs.getLong("trajet_id");
-                    trajetDAO.findById(trajetId).ifPresent(reservation::setTrajet);
+            pstmt.setArray(1, conn.createArrayOf("bigint", ids.toArray()));
 
-                    return Optional.of(reservation);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                for (Reservation reservation : mapReservations(rs, graphe)) {
+                    reservations.put(reservation.getId(), reservation);
                 }
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            return reservations;
         }
-        return Optional.empty();
+
+        graphe.load();
+        return reservations;
     }
 
     public List<Reservation> findAll() {
-        List<Reservation> reservations = new ArrayList<>();
         String sql = "SELECT * FROM reservations";
-
+        ReservationGraphLoader graphe = new ReservationGraphLoader(utilisateurDAO, trajetDAO);
+        List<Reservation> reservations;
 
         try (Connection conn = DatabaseConfig.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
-            while (rs.next()) {
-                Reservation reservation = new Reservation();
-                reservation.setId(rs.getLong("id"));
-                reservation.setDateReservation(rs.getObject("date_reservation", LocalDateTime.class));
-                reservation.setNbPlaces(rs.getInt("nb_places"));
-
-                String statutStr = rs.getString("statut");
-                StatutReservation statut = StatutReservation.valueOf(statutStr);
-                reservation.setStatut(statut);
-
-                reservation.setAnnule(rs.getBoolean("est_annule"));
-
-                // Récupération de l'utilisateur
-                Long utilisateurId = rs.getLong("utilisateur_id");
-                utilisateurDAO.findById(utilisateurId).ifPresent(reservation::setUtilisateur);
-
-                // Récupération du trajet
-                Long trajetId = rs.getLong("trajet_id");
-                trajetDAO.findById(trajetId).ifPresent(reservation::setTrajet);
-
-                reservations.add(reservation);
-            }
+            reservations = mapReservations(rs, graphe);
         } catch (SQLException e) {
             e.printStackTrace();
+            return new ArrayList<>();
         }
 
+        graphe.load();
         return reservations;
     }
 
     public List<Reservation> findByUtilisateurId(Long utilisateurId) {
-        List<Reservation> reservations = new ArrayList<>();
         String sql = "SELECT * FROM reservations WHERE utilisateur_id = ?";
+        ReservationGraphLoader graphe = new ReservationGraphLoader(utilisateurDAO, trajetDAO);
+        List<Reservation> reservations;
 
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -102,38 +108,48 @@ public class ReservationDAO {
             pstmt.setLong(1, utilisateurId);
 
             try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Reservation reservation = new Reservation();
-                    reservation.setId(rs.getLong("id"));
-                    reservation.setDateReservation(rs.getObject("date_reservation", LocalDateTime.class));
-                    reservation.setNbPlaces(rs.getInt("nb_places"));
+                reservations = mapReservations(rs, graphe);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
 
-                    String statutStr = rs.getString("statut");
-                    StatutReservation statut = StatutReservation.valueOf(statutStr);
-                    reservation.setStatut(statut);
+        graphe.load();
+        return reservations;
+    }
 
-                    reservation.setAnnule(rs.getBoolean("est_annule"));
+    /**
+     * @param limite Nombre maximal de réservations retournées
+     * @return Les réservations les plus récentes de l'utilisateur, de la plus récente à la plus ancienne
+     */
+    public List<Reservation> findRecentesByUtilisateurId(Long utilisateurId, int limite) {
+        String sql = "SELECT * FROM reservations WHERE utilisateur_id = ? ORDER BY date_reservation DESC, id DESC LIMIT ?";
+        ReservationGraphLoader graphe = new ReservationGraphLoader(utilisateurDAO, trajetDAO);
+        List<Reservation> reservations;
 
-                    // Récupération de l'utilisateur
-                    utilisateurDAO.findById(utilisateurId).ifPresent(reservation::setUtilisateur);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-                    // Récupération du trajet
-                    Long trajetId = rs.getLong("trajet_id");
-                    trajetDAO.findById(trajetId).ifPresent(reservation::setTrajet);
+            pstmt.setLong(1, utilisateurId);
+            pstmt.setInt(2, limite);
 
-                    reservations.add(reservation);
-                }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                reservations = mapReservations(rs, graphe);
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            return new ArrayList<>();
         }
 
+        graphe.load();
         return reservations;
     }
 
     public List<Reservation> findByTrajetId(Long trajetId) {
-        List<Reservation> reservations = new ArrayList<>();
         String sql = "SELECT * FROM reservations WHERE trajet_id = ?";
+        ReservationGraphLoader graphe = new ReservationGraphLoader(utilisateurDAO, trajetDAO);
+        List<Reservation> reservations;
 
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -141,100 +157,244 @@ public class ReservationDAO {
             pstmt.setLong(1, trajetId);
 
             try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Reservation reservation = new Reservation();
-                    reservation.setId(rs.getLong("id"));
-                    reservation.setDateReservation(rs.getObject("date_reservation", LocalDateTime.class));
-                    reservation.setNbPlaces(rs.getInt("nb_places"));
+                reservations = mapReservations(rs, graphe);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
 
-                    String statutStr = rs.getString("statut");
-                    StatutReservation statut = StatutReservation.valueOf(statutStr);
-                    reservation.setStatut(statut);
+        graphe.load();
+        return reservations;
+    }
 
-                    reservation.setAnnule(rs.getBoolean("est_annule"));
+    /**
+     * Lit en une requête les réservations de tous les trajets d'un conducteur, groupées par trajet.
+     */
+    public List<Reservation> findByConducteurId(Long conducteurId) {
+        String sql = "SELECT r.* FROM reservations r JOIN trajets t ON t.id = r.trajet_id " +
+                "WHERE t.conducteur_id = ? ORDER BY r.trajet_id, r.id";
+        ReservationGraphLoader graphe = new ReservationGraphLoader(utilisateurDAO, trajetDAO);
+        List<Reservation> reservations;
 
-                    // Récupération de l'utilisateur
-                    Long utilisateurId = rs.getLong("utilisateur_id");
-                    utilisateurDAO.findById(utilisateurId).ifPresent(reservation::setUtilisateur);
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-                    // Récupération du trajet
-                    trajetDAO.findById(trajetId).ifPresent(reservation::setTrajet);
+            pstmt.setLong(1, conducteurId);
 
-                    reservations.add(reservation);
-                }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                reservations = mapReservations(rs, graphe);
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            return new ArrayList<>();
         }
 
+        graphe.load();
         return reservations;
     }
 
-    public Long save(Reservation reservation) {
-        String sql = "INSERT INTO reservations (date_reservation, nb_places, statut, utilisateur_id, trajet_id, est_annule) " +
-                "VALUES (?, ?, ?, ?, ?, ?) RETURNING id";
+    /**
+     * Lit les réservations des trajets d'un conducteur créées ou modifiées depuis une date,
+     * et vérifie l'existence des réservations connues du client.
+     * @param depuis Date de modification à partir de laquelle lire (exclue), ou null pour tout lire
+     * @param connus Les identifiants déjà affichés par le client, dont on vérifie l'existence
+     * @param limite Nombre maximal de lignes modifiées à lire
+     */
+    public Delta<Reservation> findByConducteurIdModifiedSince(Long conducteurId, LocalDateTime depuis,
+                                                              Collection<Long> connus, int limite) throws SQLException {
+        return findModifiedSince("t.conducteur_id", conducteurId, depuis, connus, limite);
+    }
+
+    /**
+     * Lit les réservations d'un utilisateur créées ou modifiées depuis une date,
+     * et vérifie l'existence des réservations connues du client.
+     * @param depuis Date de modification à partir de laquelle lire (exclue), ou null pour tout lire
+     * @param connus Les identifiants déjà affichés par le client, dont on vérifie l'existence
+     * @param limite Nombre maximal de lignes modifiées à lire
+     */
+    public Delta<Reservation> findByUtilisateurIdModifiedSince(Long utilisateurId, LocalDateTime depuis,
+                                                               Collection<Long> connus, int limite) throws SQLException {
+        return findModifiedSince("r.utilisateur_id", utilisateurId, depuis, connus, limite);
+    }
+
+    private Delta<Reservation> findModifiedSince(String colonne, Long valeur, LocalDateTime depuis,
+                                                 Collection<Long> connus, int limite) throws SQLException {
+        String sql = "SELECT r.* FROM reservations r JOIN trajets t ON t.id = r.trajet_id " +
+                "WHERE " + colonne + " = ? " +
+                (depuis != null ? "AND r.updated_at > ? " : "") +
+                "ORDER BY r.updated_at, r.id LIMIT ?";
+        ReservationGraphLoader graphe = new ReservationGraphLoader(utilisateurDAO, trajetDAO);
+        Delta<Reservation> delta;
 
         try (Connection conn = DatabaseConfig.getConnection();
-            PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setObject(1, reservation.getDateReservation());
-            pstmt.setInt(2, reservation.getNbPlaces());
-            pstmt.setString(3, reservation.getStatut().name());
-            pstmt.setLong(4, reservation.getUtilisateur().getId());
-            pstmt.setLong(5, reservation.getTrajet().getId());
-            pstmt.setBoolean(6, reservation.isAnnule());
+            LocalDateTime horloge = Delta.horloge(conn);
+            int index = 1;
+            pstmt.setLong(index++, valeur);
+            if (depuis != null) {
+                pstmt.setObject(index++, depuis);
+            }
+            pstmt.setInt(index, limite + 1);
 
+            List<Reservation> modifiees;
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    Long id = rs.getLong(1);
-                    reservation.setId(id);
-                    return id;
-                }
+                modifiees = mapReservations(rs, graphe);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            delta = Delta.of(modifiees, Delta.idsExistants(conn, "reservations", connus), limite, horloge);
         }
 
-        return null;
+        graphe.load();
+        return delta;
     }
 
-    public boolean update(Reservation reservation) {
-        String sql = "UPDATE reservations SET date_reservation = ?, nb_places = ?, statut = ?, " +
-                     "utilisateur_id = ?, trajet_id = ?, est_annule = ? WHERE id = ?";
+    /**
+     * Construit les réservations d'un résultat et enregistre leurs utilisateurs et trajets dans le graphe.
+     * L'appelant ne lance graphe.load() qu'après avoir fermé sa connexion : les requêtes de résolution
+     * n'empruntent pas une seconde connexion au pool pendant que la première est tenue.
+     */
+    private List<Reservation> mapReservations(ResultSet rs, ReservationGraphLoader graphe) throws SQLException {
+        List<Reservation> reservations = new ArrayList<>();
 
-        try (Connection conn = DatabaseConfig.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        while (rs.next()) {
+            Reservation reservation = new Reservation();
+            reservation.setId(rs.getLong("id"));
+            reservation.setDateReservation(rs.getObject("date_reservation", LocalDateTime.class));
+            reservation.setNbPlaces(rs.getInt("nb_places"));
 
-            pstmt.setObject(1, reservation.getDateReservation());
-            pstmt.setInt(2, reservation.getNbPlaces());
-            pstmt.setString(3, reservation.getStatut().name());
-            pstmt.setLong(4, reservation.getUtilisateur().getId());
-            pstmt.setLong(5, reservation.getTrajet().getId());
-            pstmt.setBoolean(6, reservation.isAnnule());
-            pstmt.setLong(7, reservation.getId());
+            String statutStr = rs.getString("statut");
+            StatutReservation statut = StatutReservation.valueOf(statutStr);
+            reservation.setStatut(statut);
 
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+            reservation.setAnnule(rs.getBoolean("est_annule"));
+            reservation.setDateModification(rs.getObject("updated_at", LocalDateTime.class));
+
+            graphe.register(reservation, rs.getLong("utilisateur_id"), rs.getLong("trajet_id"));
+            reservations.add(reservation);
+        }
+
+        return reservations;
+    }
+
+    /**
+     * Réserve des places et enregistre la réservation dans une même transaction.
+     * La mise à jour conditionnelle de trajets.nb_places_reservees verrouille la ligne du trajet :
+     * deux réservations concurrentes ne peuvent pas dépasser la capacité.
+     * Les SQLException sont propagées pour permettre une nouvelle tentative sur erreur transitoire.
+     * @param reservation La réservation à enregistrer (trajet et utilisateur renseignés)
+     * @return L'identifiant de la réservation, ou null si le trajet n'a plus assez de places
+     *         (ou n'est plus réservable)
+     */
+    public Long reserverPlaces(Reservation reservation) throws SQLException {
+        String sqlPlaces = "UPDATE trajets SET nb_places_reservees = nb_places_reservees + ? " +
+                "WHERE id = ? AND est_annule = false AND date_depart > now() " +
+                "AND nb_places_reservees + ? <= nb_places_disponibles";
+        String sqlInsert = "INSERT INTO reservations (date_reservation, nb_places, statut, utilisateur_id, trajet_id, est_annule) " +
+                "VALUES (?, ?, ?, ?, ?, ?) RETURNING id";
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement pstmt = conn.prepareStatement(sqlPlaces)) {
+                    pstmt.setInt(1, reservation.getNbPlaces());
+                    pstmt.setLong(2, reservation.getTrajet().getId());
+                    pstmt.setInt(3, reservation.getNbPlaces());
+
+                    if (pstmt.executeUpdate() == 0) {
+                        conn.rollback();
+                        return null;
+                    }
+                }
+
+                Long id = null;
+                try (PreparedStatement pstmt = conn.prepareStatement(sqlInsert)) {
+                    pstmt.setObject(1, reservation.getDateReservation());
+                    pstmt.setInt(2, reservation.getNbPlaces());
+                    pstmt.setString(3, reservation.getStatut().name());
+                    pstmt.setLong(4, reservation.getUtilisateur().getId());
+                    pstmt.setLong(5, reservation.getTrajet().getId());
+                    pstmt.setBoolean(6, reservation.isAnnule());
+
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next()) {
+                            id = rs.getLong(1);
+                        }
+                    }
+                }
+
+                conn.commit();
+                reservation.setId(id);
+                return id;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         }
     }
 
-    public boolean delete(Long id) {
-        String sql = "DELETE FROM reservations WHERE id = ?";
+    /**
+     * Confirme une réservation en attente. Les places ayant été comptées à la création,
+     * la confirmation ne peut pas dépasser la capacité ; la condition sur le statut
+     * empêche deux confirmations ou une confirmation après annulation concurrentes.
+     * @return true si la réservation était en attente et a été confirmée
+     */
+    public boolean confirmer(Long reservationId) throws SQLException {
+        String sql = "UPDATE reservations SET statut = 'CONFIRMEE' " +
+                "WHERE id = ? AND statut = 'EN_ATTENTE' AND est_annule = false";
 
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setLong(1, id);
-
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+            pstmt.setLong(1, reservationId);
+            return pstmt.executeUpdate() > 0;
         }
     }
 
+    /**
+     * Annule une réservation et libère ses places dans une même transaction.
+     * @return true si la réservation était active et a été annulée
+     */
+    public boolean annuler(Long reservationId) throws SQLException {
+        String sqlAnnulation = "UPDATE reservations SET statut = 'ANNULEE', est_annule = true " +
+                "WHERE id = ? AND statut <> 'ANNULEE' AND est_annule = false " +
+                "RETURNING trajet_id, nb_places";
+        String sqlPlaces = "UPDATE trajets SET nb_places_reservees = GREATEST(nb_places_reservees - ?, 0) " +
+                "WHERE id = ?";
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                long trajetId;
+                int nbPlaces;
+                try (PreparedStatement pstmt = conn.prepareStatement(sqlAnnulation)) {
+                    pstmt.setLong(1, reservationId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (!rs.next()) {
+                            conn.rollback();
+                            return false;
+                        }
+                        trajetId = rs.getLong("trajet_id");
+                        nbPlaces = rs.getInt("nb_places");
+                    }
+                }
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sqlPlaces)) {
+                    pstmt.setInt(1, nbPlaces);
+                    pstmt.setLong(2, trajetId);
+                    pstmt.executeUpdate();
+                }
+
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
 }
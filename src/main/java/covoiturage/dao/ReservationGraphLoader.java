@@ -0,0 +1,75 @@
+package covoiturage.dao;
+
+import covoiturage.model.Reservation;
+import covoiturage.model.Trajet;
+import covoiturage.model.Utilisateur;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Résout les utilisateurs et trajets d'un lot de réservations en une requête par type d'entité
+ * (WHERE id = ANY(?)), au lieu d'un findById par ligne.
+ * Les maps d'identité garantissent qu'un même trajet ou utilisateur n'est chargé qu'une fois
+ * et partagé par toutes les réservations du lot.
+ */
+class ReservationGraphLoader {
+    private final UtilisateurDAO utilisateurDAO;
+    private final TrajetDAO trajetDAO;
+
+    private final List<Lien> liens = new ArrayList<>();
+    private final Map<Long, Utilisateur> utilisateurs = new HashMap<>();
+    private final Map<Long, Trajet> trajets = new HashMap<>();
+
+    ReservationGraphLoader(UtilisateurDAO utilisateurDAO, TrajetDAO trajetDAO) {
+        this.utilisateurDAO = utilisateurDAO;
+        this.trajetDAO = trajetDAO;
+    }
+
+    /**
+     * Enregistre une réservation dont les références seront résolues par {@link #load()}.
+     */
+    void register(Reservation reservation, Long utilisateurId, Long trajetId) {
+        liens.add(new Lien(reservation, utilisateurId, trajetId));
+    }
+
+    /**
+     * Charge en lot les entités manquantes puis les rattache aux réservations enregistrées.
+     */
+    void load() {
+        Set<Long> utilisateurIds = new LinkedHashSet<>();
+        Set<Long> trajetIds = new LinkedHashSet<>();
+
+        for (Lien lien : liens) {
+            if (lien.utilisateurId() != null && !utilisateurs.containsKey(lien.utilisateurId())) {
+                utilisateurIds.add(lien.utilisateurId());
+            }
+            if (lien.trajetId() != null && !trajets.containsKey(lien.trajetId())) {
+                trajetIds.add(lien.trajetId());
+            }
+        }
+
+        utilisateurs.putAll(utilisateurDAO.findByIds(utilisateurIds));
+        trajets.putAll(trajetDAO.findByIds(trajetIds));
+
+        for (Lien lien : liens) {
+            Utilisateur utilisateur = utilisateurs.get(lien.utilisateurId());
+            if (utilisateur != null) {
+                lien.reservation().setUtilisateur(utilisateur);
+            }
+            Trajet trajet = trajets.get(lien.trajetId());
+            if (trajet != null) {
+                lien.reservation().setTrajet(trajet);
+            }
+        }
+
+        liens.clear();
+    }
+
+    private record Lien(Reservation reservation, Long utilisateurId, Long trajetId) {
+    }
+}
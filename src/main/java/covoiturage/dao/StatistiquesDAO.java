@@ -0,0 +1,113 @@
+package covoiturage.dao;
+
+import covoiturage.config.DatabaseConfig;
+import covoiturage.model.ReservationsParStatut;
+import covoiturage.model.StatistiquesConducteur;
+import covoiturage.model.StatistiquesPlateforme;
+import covoiturage.model.StatistiquesTrajets;
+
+import java.sql.*;
+
+/**
+ * Requêtes d'agrégat des tableaux de bord : chaque indicateur est calculé par la base
+ * (COUNT / SUM) sans charger les entités correspondantes.
+ */
+public class StatistiquesDAO {
+
+    private static final String COLONNES_TRAJETS =
+            "COUNT(*) AS trajets_total, " +
+            "COUNT(*) FILTER (WHERE est_annule = false AND date_depart > now()) AS trajets_a_venir, " +
+            "COUNT(*) FILTER (WHERE est_annule = true) AS trajets_annules";
+
+    private static final String COLONNES_RESERVATIONS =
+            "COUNT(*) FILTER (WHERE r.est_annule = false AND r.statut = 'EN_ATTENTE') AS reservations_en_attente, " +
+            "COUNT(*) FILTER (WHERE r.est_annule = false AND r.statut = 'CONFIRMEE') AS reservations_confirmees, " +
+            "COUNT(*) FILTER (WHERE r.est_annule = true OR r.statut = 'ANNULEE') AS reservations_annulees";
+
+    public StatistiquesPlateforme statistiquesPlateforme() {
+        String sql = "SELECT (SELECT COUNT(*) FROM utilisateurs) AS nb_utilisateurs, " +
+                "(SELECT COUNT(*) FROM conducteurs) AS nb_conducteurs, " +
+                "t.*, r.*, " +
+                "(SELECT COALESCE(SUM(montant), 0) FROM paiements WHERE est_rembourse = false) AS revenus " +
+                "FROM (SELECT " + COLONNES_TRAJETS + " FROM trajets) t, " +
+                "(SELECT " + COLONNES_RESERVATIONS + " FROM reservations r) r";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            if (rs.next()) {
+                return new StatistiquesPlateforme(
+                        rs.getLong("nb_utilisateurs"),
+                        rs.getLong("nb_conducteurs"),
+                        mapTrajets(rs),
+                        mapReservations(rs),
+                        rs.getDouble("revenus"));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return StatistiquesPlateforme.AUCUNE;
+    }
+
+    public StatistiquesConducteur statistiquesConducteur(Long conducteurId) {
+        String sql = "SELECT t.*, r.*, " +
+                "(SELECT COALESCE(SUM(p.montant), 0) FROM paiements p " +
+                "JOIN reservations pr ON pr.id = p.reservation_id " +
+                "JOIN trajets pt ON pt.id = pr.trajet_id " +
+                "WHERE pt.conducteur_id = ? AND p.est_rembourse = false) AS revenus " +
+                "FROM (SELECT " + COLONNES_TRAJETS + " FROM trajets WHERE conducteur_id = ?) t, " +
+                "(SELECT " + COLONNES_RESERVATIONS + " FROM reservations r " +
+                "JOIN trajets rt ON rt.id = r.trajet_id WHERE rt.conducteur_id = ?) r";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, conducteurId);
+            pstmt.setLong(2, conducteurId);
+            pstmt.setLong(3, conducteurId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new StatistiquesConducteur(mapTrajets(rs), mapReservations(rs), rs.getDouble("revenus"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return StatistiquesConducteur.AUCUNE;
+    }
+
+    public ReservationsParStatut reservationsParStatutUtilisateur(Long utilisateurId) {
+        String sql = "SELECT " + COLONNES_RESERVATIONS + " FROM reservations r WHERE r.utilisateur_id = ?";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setLong(1, utilisateurId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapReservations(rs);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return ReservationsParStatut.AUCUNE;
+    }
+
+    private StatistiquesTrajets mapTrajets(ResultSet rs) throws SQLException {
+        return new StatistiquesTrajets(
+                rs.getLong("trajets_total"),
+                rs.getLong("trajets_a_venir"),
+                rs.getLong("trajets_annules"));
+    }
+
+    private ReservationsParStatut mapReservations(ResultSet rs) throws SQLException {
+        return new ReservationsParStatut(
+                rs.getLong("reservations_en_attente"),
+                rs.getLong("reservations_confirmees"),
+                rs.getLong("reservations_annulees"));
+    }
+}
@@ -0,0 +1,59 @@
+package covoiturage.dao;
+
+/**
+ * Tables exportables par ExportDAO, avec les colonnes exportées (jamais les mots de passe)
+ * et la colonne de date sur laquelle porte le filtre de période, s'il y en a une.
+ */
+public enum TableExport {
+    RESERVATIONS("Réservations", "reservations",
+            "id, date_reservation, nb_places, statut, est_annule, utilisateur_id, trajet_id", "date_reservation"),
+    PAIEMENTS("Paiements", "paiements",
+            "id, montant, date_paiement, est_rembourse, reservation_id", "date_paiement"),
+    TRAJETS("Trajets", "trajets",
+            "id, (SELECT nom FROM lieux WHERE lieux.id = lieu_depart_id) AS lieu_depart, "
+                    + "(SELECT nom FROM lieux WHERE lieux.id = lieu_arrivee_id) AS lieu_arrivee, "
+                    + "date_depart, prix, nb_places_disponibles, nb_places_reservees, est_annule, conducteur_id",
+            "date_depart"),
+    AVIS("Avis", "avis",
+            "id, note, commentaire, utilisateur_id, trajet_id", null),
+    UTILISATEURS("Utilisateurs", "utilisateurs",
+            "id, nom, prenom, email, telephone, preferences", null),
+    CONDUCTEURS("Conducteurs", "conducteurs",
+            "id, nom, prenom, email, telephone, numero_permis, vehicule_info", null);
+
+    private final String libelle;
+    private final String table;
+    private final String colonnes;
+    private final String colonneDate;
+
+    TableExport(String libelle, String table, String colonnes, String colonneDate) {
+        this.libelle = libelle;
+        this.table = table;
+        this.colonnes = colonnes;
+        this.colonneDate = colonneDate;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getColonnes() {
+        return colonnes;
+    }
+
+    /**
+     * @return La colonne filtrée par la période, ou null si la table n'est pas datée
+     */
+    public String getColonneDate() {
+        return colonneDate;
+    }
+
+    public boolean isDatee() {
+        return colonneDate != null;
+    }
+
+    @Override
+    public String toString() {
+        return libelle;
+    }
+}
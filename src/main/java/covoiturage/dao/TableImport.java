@@ -0,0 +1,28 @@
+package covoiturage.dao;
+
+import java.util.List;
+
+/**
+ * Tables alimentables par l'import en masse, avec les colonnes écrites dans l'ordre attendu par ImportDAO.
+ */
+public enum TableImport {
+    UTILISATEURS("utilisateurs", "nom", "prenom", "email", "mot_de_passe", "telephone", "preferences"),
+    CONDUCTEURS("conducteurs", "nom", "prenom", "email", "mot_de_passe", "telephone", "numero_permis", "vehicule_info"),
+    TRAJETS("trajets", "lieu_depart_id", "lieu_arrivee_id", "date_depart", "prix", "nb_places_disponibles", "conducteur_id", "est_annule");
+
+    private final String table;
+    private final List<String> colonnes;
+
+    TableImport(String table, String... colonnes) {
+        this.table = table;
+        this.colonnes = List.of(colonnes);
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public List<String> getColonnes() {
+        return colonnes;
+    }
+}
@@ -2,20 +2,35 @@ package covoiturage.dao;
 
 
 import covoiturage.config.DatabaseConfig;
+import covoiturage.model.Conducteur;
 import covoiturage.model.Trajet;
-import org.postgresql.shaded.com.ongres.scram.common.StringPreparation;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class TrajetDAO {
-    private ConducteurDAO conducteurDAO = new ConducteurDAO();
+    // Trajet, villes et conducteur chargés en une seule requête (colonnes du conducteur préfixées par c_)
+    private static final String SELECT_TRAJET_CONDUCTEUR =
+            "SELECT t.id, t.lieu_depart_id, t.lieu_arrivee_id, ld.nom AS lieu_depart_nom, la.nom AS lieu_arrivee_nom, " +
+            "t.date_depart, t.prix, t.nb_places_disponibles, " +
+            "t.conducteur_id, t.est_annule, t.updated_at, " +
+            "c.nom AS c_nom, c.prenom AS c_prenom, c.email AS c_email, c.mot_de_passe AS c_mot_de_passe, " +
+            "c.telephone AS c_telephone, c.numero_permis AS c_numero_permis, c.vehicule_info AS c_vehicule_info " +
+            "FROM trajets t JOIN lieux ld ON ld.id = t.lieu_depart_id JOIN lieux la ON la.id = t.lieu_arrivee_id " +
+            "LEFT JOIN conducteurs c ON c.id = t.conducteur_id ";
+
+    // Noms des villes : un seul exemplaire par ville, partagé via le registre
+    private final LieuRegistry lieux = DAOFactory.getLieuRegistry();
 
     public Optional<Trajet> findById(Long id) {
-        String sql = "SELECT * FROM trajets WHERE id = ?";
+        String sql = SELECT_TRAJET_CONDUCTEUR + "WHERE t.id = ?";
 
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -24,20 +39,7 @@ public class TrajetDAO {
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    Trajet trajet = new Trajet();
-                    trajet.setId(rs.getLong("id"));
-                    trajet.setLieuDepart(rs.getString("lieu_depart"));
-                    trajet.setLieuArrivee(rs.getString("lieu_arrivee"));
-                    trajet.setDateDepart(rs.getObject("date_depart", LocalDateTime.class));
-                    trajet.setPrix(rs.getDouble("prix"));
-                    trajet.setNbPlacesDisponibles(rs.getInt("nb_places_disponibles"));
-                    trajet.setEstAnnule(rs.getBoolean("est_annule"));
-
-                    // Récupération du conducteur
-                    Long conducteurId = rs.getLong("conducteur_id");
-                    conducteurDAO.findById(conducteurId).ifPresent(trajet::setConducteur);
-
-                    return Optional.of(trajet);
+                    return Optional.of(mapTrajet(rs, new HashMap<>()));
                 }
             }
         } catch (SQLException e) {
@@ -49,40 +51,23 @@ public class TrajetDAO {
 
 
     public List<Trajet> findAll() {
-        List<Trajet> trajets = new ArrayList<>();
-        String sql = "SELECT * FROM trajets";
+        String sql = SELECT_TRAJET_CONDUCTEUR;
 
         try (Connection conn = DatabaseConfig.getConnection();
              Statement  stmt = conn.createStatement();
              ResultSet  rs   = stmt.executeQuery(sql)) {
 
-            while (rs.next()) {
-                Trajet trajet = new Trajet();
-                trajet.setId(rs.getLong("id"));
-                trajet.setLieuDepart(rs.getString("lieu_depart"));
-                trajet.setLieuArrivee(rs.getString("lieu_arrivee"));
-                trajet.setDateDepart(rs.getObject("date_depart", LocalDateTime.class));
-                trajet.setPrix(rs.getDouble("prix"));
-                trajet.setNbPlacesDisponibles(rs.getInt("nb_places_disponibles"));
-                trajet.setEstAnnule(rs.getBoolean("est_annule"));
-
-                // Récupération du conducteur
-                Long conducteurId = rs.getLong("conducteur_id");
-                conducteurDAO.findById(conducteurId).ifPresent(trajet::setConducteur);
-
-                trajets.add(trajet);
-            }
+            return mapTrajets(rs);
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
-        return trajets;
+        return new ArrayList<>();
     }
 
 
     public List<Trajet> findByConducteurId(Long conducteurId) {
-        List<Trajet> trajets = new ArrayList<>();
-        String sql = "SELECT * FROM trajets WHERE conducteur_id = ?";
+        String sql = SELECT_TRAJET_CONDUCTEUR + "WHERE t.conducteur_id = ?";
 
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -90,77 +75,444 @@ public class TrajetDAO {
             pstmt.setLong(1, conducteurId);
 
             try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    Trajet trajet = new Trajet();
-                    trajet.setId(rs.getLong("id"));
-                    trajet.setLieuDepart(rs.getString("lieu_depart"));
-                    trajet.setLieuArrivee(rs.getString("lieu_arrivee"));
-                    trajet.setDateDepart(rs.getObject("date_depart", LocalDateTime.class));
-                    trajet.setPrix(rs.getDouble("prix"));
-                    trajet.setNbPlacesDisponibles(rs.getInt("nb_places_disponibles"));
-                    trajet.setEstAnnule(rs.getBoolean("est_annule"));
-
-                    // Récupération du conducteur
-                    conducteurDAO.findById(conducteurId).ifPresent(trajet::setConducteur);
-
-                    trajets.add(trajet);
-                }
+                return mapTrajets(rs);
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
-        return trajets;
+        return new ArrayList<>();
     }
 
 
+    /**
+     * Trajets à venir dont les villes contiennent les fragments saisis (casse, espaces et accents ignorés),
+     * les plus proches des fragments en premier.
+     */
     public List<Trajet> findByLieuDepartAndLieuArrivee(String lieuDepart, String lieuArrivee) {
+        String filtres = "t.est_annule = false AND t.date_depart > now() ";
+        ParametresRequete parametres = (pstmt, index) -> index;
+
+        LieuMatcher matcher = DAOFactory.getLieuMatcher();
+        if (matcher.getMode() == LieuMatcher.Mode.MEMOIRE) {
+            return rechercherParVilles(matcher.contenant(lieuDepart), matcher.contenant(lieuArrivee), filtres, parametres);
+        }
+        // LIKE '%...%' sur lieux.cle : servi par l'index GIN de trigrammes
+        return rechercherParSimilarite(lieuDepart, lieuArrivee, false, filtres, parametres);
+    }
+
+
+    /**
+     * Lit une page de trajets triés par (date_depart, id), à partir d'un curseur.
+     * @param apresDate Date de départ du dernier trajet de la page précédente, ou null pour la première page
+     * @param apresId Identifiant du dernier trajet de la page précédente, ou null pour la première page
+     * @param taille Nombre de trajets par page
+     * @return La page lue
+     */
+    public Page<Trajet> findPage(LocalDateTime apresDate, Long apresId, int taille) {
+        return findPage(null, apresDate, apresId, taille);
+    }
+
+    /**
+     * Lit une page des trajets d'un conducteur triés par (date_depart, id), à partir d'un curseur.
+     */
+    public Page<Trajet> findPageByConducteurId(Long conducteurId, LocalDateTime apresDate, Long apresId, int taille) {
+        return findPage(conducteurId, apresDate, apresId, taille);
+    }
+
+    /**
+     * Lit les trajets connus du client modifiés depuis une date, et vérifie leur existence.
+     * Les nouveaux trajets ne sont pas lus : la table paginée les reçoit à leur place par la pagination.
+     * @param depuis Date de modification à partir de laquelle lire (exclue), ou null pour tout relire
+     * @param connus Les identifiants déjà affichés par le client
+     * @param limite Nombre maximal de lignes modifiées à lire
+     */
+    public Delta<Trajet> findModifiedSince(LocalDateTime depuis, Collection<Long> connus, int limite) throws SQLException {
+        return findModifiedSince(null, depuis, connus, limite);
+    }
+
+    /**
+     * Lit les trajets d'un conducteur créés ou modifiés depuis une date,
+     * et vérifie l'existence des trajets connus du client.
+     * @param depuis Date de modification à partir de laquelle lire (exclue), ou null pour tout lire
+     * @param connus Les identifiants déjà affichés par le client, dont on vérifie l'existence
+     * @param limite Nombre maximal de lignes modifiées à lire
+     */
+    public Delta<Trajet> findByConducteurIdModifiedSince(Long conducteurId, LocalDateTime depuis, Collection<Long> connus,
+                                                         int limite) throws SQLException {
+        return findModifiedSince(conducteurId, depuis, connus, limite);
+    }
+
+    /**
+     * Sans conducteur, la lecture se limite aux trajets connus ; avec un conducteur, elle lit aussi ses nouveaux trajets.
+     */
+    private Delta<Trajet> findModifiedSince(Long conducteurId, LocalDateTime depuis, Collection<Long> connus,
+                                            int limite) throws SQLException {
+        String sql = SELECT_TRAJET_CONDUCTEUR + "WHERE true " +
+                (conducteurId != null ? "AND t.conducteur_id = ? " : "AND t.id = ANY(?) ") +
+                (depuis != null ? "AND t.updated_at > ? " : "") +
+                "ORDER BY t.updated_at, t.id LIMIT ?";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            LocalDateTime horloge = Delta.horloge(conn);
+            int index = 1;
+            if (conducteurId != null) {
+                pstmt.setLong(index++, conducteurId);
+            } else {
+                pstmt.setArray(index++, conn.createArrayOf("bigint", connus.toArray()));
+            }
+            if (depuis != null) {
+                pstmt.setObject(index++, depuis);
+            }
+            pstmt.setInt(index, limite + 1);
+
+            List<Trajet> modifies;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                modifies = mapTrajets(rs);
+            }
+            return Delta.of(modifies, Delta.idsExistants(conn, "trajets", connus), limite, horloge);
+        }
+    }
+
+    private Page<Trajet> findPage(Long conducteurId, LocalDateTime apresDate, Long apresId, int taille) {
+        boolean premierePage = apresDate == null || apresId == null;
+        String sql = SELECT_TRAJET_CONDUCTEUR + "WHERE true " +
+                (conducteurId != null ? "AND t.conducteur_id = ? " : "") +
+                (premierePage ? "" : "AND (t.date_depart, t.id) > (?, ?) ") +
+                "ORDER BY t.date_depart, t.id LIMIT ?";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            // La première page date le chargement : les synchronisations suivantes partent de là
+            LocalDateTime horloge = premierePage ? Delta.horloge(conn) : null;
+            int index = 1;
+            if (conducteurId != null) {
+                pstmt.setLong(index++, conducteurId);
+            }
+            if (!premierePage) {
+                pstmt.setObject(index++, apresDate);
+                pstmt.setLong(index++, apresId);
+            }
+            pstmt.setInt(index, taille + 1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return Page.of(mapTrajets(rs), taille, horloge);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return Page.of(new ArrayList<>(), taille, null);
+    }
+
+
+    /**
+     * Recherche des trajets disponibles entièrement côté base : correspondance approchée des villes,
+     * fenêtre de dates, trajets non annulés et places restantes suffisantes.
+     * Les villes sont comparées sans casse, espaces ni accents, fautes de frappe tolérées
+     * jusqu'au seuil de similarité de LieuMatcher ; les villes exactes viennent en premier.
+     * @param lieuDepart Ville de départ
+     * @param lieuArrivee Ville d'arrivée
+     * @param dateMin Date de départ minimale (exclue)
+     * @param dateMax Date de départ maximale (incluse), ou null pour ne pas borner
+     * @param nbPlacesMin Nombre minimal de places restantes
+     * @return Les trajets correspondants, par similarité des villes décroissante puis par date de départ
+     */
+    public List<Trajet> rechercherDisponibles(String lieuDepart, String lieuArrivee, LocalDateTime dateMin,
+                                              LocalDateTime dateMax, int nbPlacesMin) {
+        String filtres = "t.est_annule = false " +
+                "AND t.date_depart > ? " +
+                (dateMax != null ? "AND t.date_depart <= ? " : "") +
+                // Compteur tenu par les réservations et annulations : pas d'agrégat sur reservations
+                "AND t.nb_places_disponibles - t.nb_places_reservees >= ? ";
+        ParametresRequete parametres = (pstmt, index) -> {
+            pstmt.setObject(index++, dateMin);
+            if (dateMax != null) {
+                pstmt.setObject(index++, dateMax);
+            }
+            pstmt.setInt(index++, nbPlacesMin);
+            return index;
+        };
+
+        LieuMatcher matcher = DAOFactory.getLieuMatcher();
+        if (matcher.getMode() == LieuMatcher.Mode.MEMOIRE) {
+            return rechercherParVilles(matcher.similaires(lieuDepart), matcher.similaires(lieuArrivee), filtres, parametres);
+        }
+        return rechercherParSimilarite(lieuDepart, lieuArrivee, true, filtres, parametres);
+    }
+
+    /**
+     * Mode TRIGRAM de LieuMatcher : les villes proches de chaque saisie sont choisies dans la petite
+     * table lieux, puis les trajets sont joints par identifiant, dans la même requête.
+     * @param approchee true pour la similarité (opérateur %, fautes de frappe tolérées), false pour
+     *                  les villes qui contiennent la saisie
+     * @param filtres Les autres conditions de la requête, liées par parametres
+     */
+    private List<Trajet> rechercherParSimilarite(String lieuDepart, String lieuArrivee, boolean approchee,
+                                                 String filtres, ParametresRequete parametres) {
+        // L'opérateur % est servi par l'index GIN de trigrammes (seuil pg_trgm.similarity_threshold,
+        // 0,3 par défaut) ; la comparaison à similarity() applique le seuil de LieuMatcher s'il est plus strict.
+        String condition = approchee ? "cle % ? AND similarity(cle, ?) >= ?" : "cle LIKE '%' || ? || '%'";
+        String sql = "WITH depart AS (SELECT id, similarity(cle, ?) AS similarite FROM lieux WHERE " + condition + "), " +
+                "arrivee AS (SELECT id, similarity(cle, ?) AS similarite FROM lieux WHERE " + condition + ") " +
+                SELECT_TRAJET_CONDUCTEUR +
+                "JOIN depart d ON d.id = t.lieu_depart_id " +
+                "JOIN arrivee a ON a.id = t.lieu_arrivee_id " +
+                "WHERE " + filtres +
+                "ORDER BY d.similarite + a.similarite DESC, t.date_depart, t.id";
+
+        // La saisie est normalisée comme lieux.cle
+        String depart = LieuMatcher.normaliser(lieuDepart);
+        String arrivee = LieuMatcher.normaliser(lieuArrivee);
+        double seuil = DAOFactory.getLieuMatcher().getSeuil();
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            for (String saisie : List.of(depart, arrivee)) {
+                pstmt.setString(index++, saisie);
+                pstmt.setString(index++, saisie);
+                if (approchee) {
+                    pstmt.setString(index++, saisie);
+                    pstmt.setDouble(index++, seuil);
+                }
+            }
+            parametres.lier(pstmt, index);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return mapTrajets(rs);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+
+    @FunctionalInterface
+    private interface ParametresRequete {
+        /**
+         * Lie les paramètres d'une partie de requête à partir de l'indice donné.
+         * @return L'indice du paramètre suivant
+         */
+        int lier(PreparedStatement pstmt, int index) throws SQLException;
+    }
+
+    /**
+     * Mode MEMOIRE de LieuMatcher : les villes approchées sont déjà résolues en identifiants,
+     * cherchés par l'index (lieu_depart_id, lieu_arrivee_id) ; le classement par similarité est fait ici.
+     * @param filtres Les autres conditions de la requête, liées par parametres
+     */
+    private List<Trajet> rechercherParVilles(List<LieuMatcher.Correspondance> departs,
+                                             List<LieuMatcher.Correspondance> arrivees,
+                                             String filtres, ParametresRequete parametres) {
+        if (departs.isEmpty() || arrivees.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Integer, Double> similariteDepart = similariteParLieu(departs);
+        Map<Integer, Double> similariteArrivee = similariteParLieu(arrivees);
+
+        String sql = SELECT_TRAJET_CONDUCTEUR +
+                "WHERE t.lieu_depart_id = ANY(?) " +
+                "AND t.lieu_arrivee_id = ANY(?) " +
+                "AND " + filtres +
+                "ORDER BY t.date_depart, t.id";
+
         List<Trajet> trajets = new ArrayList<>();
-        String sql = "SELECT * FROM trajets WHERE lieu_depart LIKE ? AND lieu_arrivee LIKE ? AND est_annule = false AND date_depart > now()";
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setArray(1, conn.createArrayOf("integer", similariteDepart.keySet().toArray()));
+            pstmt.setArray(2, conn.createArrayOf("integer", similariteArrivee.keySet().toArray()));
+            parametres.lier(pstmt, 3);
 
+            try (ResultSet rs = pstmt.executeQuery()) {
+                trajets = mapTrajets(rs);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        // Tri stable : à similarité égale, l'ordre des dates de départ est conservé
+        trajets.sort(Comparator.comparingDouble((Trajet trajet) ->
+                similariteDepart.getOrDefault(trajet.getLieuDepartId(), 0.0)
+                        + similariteArrivee.getOrDefault(trajet.getLieuArriveeId(), 0.0))
+                .reversed());
+        return trajets;
+    }
+
+    private static Map<Integer, Double> similariteParLieu(List<LieuMatcher.Correspondance> correspondances) {
+        Map<Integer, Double> similarites = new HashMap<>();
+        for (LieuMatcher.Correspondance correspondance : correspondances) {
+            for (int id : correspondance.ids()) {
+                similarites.put(id, correspondance.similarite());
+            }
+        }
+        return similarites;
+    }
+
+
+    /**
+     * Compte les trajets par ville, départs et arrivées confondus, pour le dictionnaire des villes.
+     * Les noms viennent du LieuRegistry : seuls les identifiants sont lus ici.
+     * @return Le nombre de trajets par identifiant de ville
+     */
+    public Map<Integer, Integer> countByLieuId() {
+        Map<Integer, Integer> frequences = new HashMap<>();
+        String sql = "SELECT lieu_id, count(*) AS nb FROM " +
+                "(SELECT lieu_depart_id AS lieu_id FROM trajets UNION ALL SELECT lieu_arrivee_id FROM trajets) t " +
+                "GROUP BY lieu_id";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                frequences.put(rs.getInt("lieu_id"), rs.getInt("nb"));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return frequences;
+    }
+
+    /**
+     * Lit en une requête le compteur trajets.nb_places_reservees d'un lot de trajets.
+     * @param ids Les identifiants des trajets
+     * @return Les places réservées (en attente et confirmées) par trajet trouvé
+     */
+    public Map<Long, Integer> findPlacesReserveesByIds(Collection<Long> ids) {
+        Map<Long, Integer> places = new HashMap<>();
+        if (ids.isEmpty()) {
+            return places;
+        }
+
+        String sql = "SELECT id, nb_places_reservees FROM trajets WHERE id = ANY(?)";
 
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, "%" + lieuDepart + "%");
-            pstmt.setString(2, "%" + lieuArrivee + "%");
+            pstmt.setArray(1, conn.createArrayOf("bigint", ids.toArray()));
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    Trajet trajet = new Trajet();
-                    trajet.setId(rs.getLong("id"));
-                    trajet.setLieuDepart(rs.getString("lieu_depart"));
-                    trajet.setLieuArrivee(rs.getString("lieu_arrivee"));
-                    trajet.setDateDepart(rs.getObject("date_depart", LocalDateTime.class));
-                    trajet.setPrix(rs.getDouble("prix"));
-                    trajet.setNbPlacesDisponibles(rs.getInt("nb_places_disponibles"));
-                    trajet.setEstAnnule(rs.getBoolean("est_annule"));
-
-                    // Récupération du conducteur
-                    Long conducteurId = rs.getLong("conducteur_id");
-                    conducteurDAO.findById(conducteurId).ifPresent(trajet::setConducteur);
-
-                    trajets.add(trajet);
+                    places.put(rs.getLong("id"), rs.getInt("nb_places_reservees"));
                 }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
+        return places;
+    }
+
+    /**
+     * Charge plusieurs trajets (et leurs conducteurs) en une seule requête.
+     * @param ids Les identifiants recherchés
+     * @return Les trajets trouvés, indexés par identifiant
+     */
+    public Map<Long, Trajet> findByIds(Collection<Long> ids) {
+        Map<Long, Trajet> trajets = new HashMap<>();
+        if (ids.isEmpty()) {
+            return trajets;
+        }
+
+        String sql = SELECT_TRAJET_CONDUCTEUR + "WHERE t.id = ANY(?)";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setArray(1, conn.createArrayOf("bigint", ids.toArray()));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                for (Trajet trajet : mapTrajets(rs)) {
+                    trajets.put(trajet.getId(), trajet);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return trajets;
+    }
+
+
+    /**
+     * Construit la liste des trajets d'un résultat issu de SELECT_TRAJET_CONDUCTEUR.
+     * Une seule instance de Conducteur est créée par conducteur_id.
+     */
+    private List<Trajet> mapTrajets(ResultSet rs) throws SQLException {
+        List<Trajet> trajets = new ArrayList<>();
+        Map<Long, Conducteur> conducteurs = new HashMap<>();
+
+        while (rs.next()) {
+            trajets.add(mapTrajet(rs, conducteurs));
+        }
+
         return trajets;
     }
 
+    private Trajet mapTrajet(ResultSet rs, Map<Long, Conducteur> conducteurs) throws SQLException {
+        Trajet trajet = new Trajet();
+        trajet.setId(rs.getLong("id"));
+        // Nom lu par la jointure, partagé avec les autres trajets de la même ville (sans requête)
+        int lieuDepartId = rs.getInt("lieu_depart_id");
+        int lieuArriveeId = rs.getInt("lieu_arrivee_id");
+        trajet.setLieuDepart(lieux.interner(lieuDepartId, rs.getString("lieu_depart_nom")));
+        trajet.setLieuDepartId(lieuDepartId);
+        trajet.setLieuArrivee(lieux.interner(lieuArriveeId, rs.getString("lieu_arrivee_nom")));
+        trajet.setLieuArriveeId(lieuArriveeId);
+        trajet.setDateDepart(rs.getObject("date_depart", LocalDateTime.class));
+        trajet.setPrix(rs.getDouble("prix"));
+        trajet.setNbPlacesDisponibles(rs.getInt("nb_places_disponibles"));
+        trajet.setEstAnnule(rs.getBoolean("est_annule"));
+        trajet.setDateModification(rs.getObject("updated_at", LocalDateTime.class));
+
+        // Conducteur issu de la jointure (absent si la ligne conducteurs n'existe plus)
+        long conducteurId = rs.getLong("conducteur_id");
+        if (!rs.wasNull() && rs.getString("c_email") != null) {
+            Conducteur conducteur = conducteurs.get(conducteurId);
+            if (conducteur == null) {
+                conducteur = new Conducteur();
+                conducteur.setId(conducteurId);
+                conducteur.setNom(rs.getString("c_nom"));
+                conducteur.setPrenom(rs.getString("c_prenom"));
+                conducteur.setEmail(rs.getString("c_email"));
+                conducteur.setMotDePasse(rs.getString("c_mot_de_passe"));
+                conducteur.setTelephone(rs.getString("c_telephone"));
+                conducteur.setNumeroPermis(rs.getString("c_numero_permis"));
+                conducteur.setVehiculeInfo(rs.getString("c_vehicule_info"));
+                conducteurs.put(conducteurId, conducteur);
+            }
+            trajet.setConducteur(conducteur);
+        }
+
+        return trajet;
+    }
+
 
 
     public Long save(Trajet trajet) {
-        String sql = "INSERT INTO trajets (lieu_depart, lieu_arrivee, date_depart, prix, nb_places_disponibles, conducteur_id, est_annule)" +
+        String sql = "INSERT INTO trajets (lieu_depart_id, lieu_arrivee_id, date_depart, prix, nb_places_disponibles, conducteur_id, est_annule)" +
                 "VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING id";
 
+        try {
+            resoudreLieux(trajet);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
-            pstmt.setString(1, trajet.getLieuDepart());
-            pstmt.setString(2, trajet.getLieuArrivee());
+            pstmt.setInt(1, trajet.getLieuDepartId());
+            pstmt.setInt(2, trajet.getLieuArriveeId());
             pstmt.setObject(3, trajet.getDateDepart());
             pstmt.setDouble(4, trajet.getPrix());
             pstmt.setInt(5, trajet.getNbPlacesDisponibles());
@@ -183,15 +535,22 @@ public class TrajetDAO {
 
 
     public boolean update(Trajet trajet) {
-        String sql = "UPDATE trajets SET lieu_depart = ?, lieu_arrivee = ?, date_depart = ?, " +
+        String sql = "UPDATE trajets SET lieu_depart_id = ?, lieu_arrivee_id = ?, date_depart = ?, " +
                 "prix = ?, nb_places_disponibles = ?, est_annule = ? WHERE id = ?";
 
+        try {
+            resoudreLieux(trajet);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+
         try (Connection conn = DatabaseConfig.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
 
-            pstmt.setString(1, trajet.getLieuDepart());
-            pstmt.setString(2, trajet.getLieuArrivee());
+            pstmt.setInt(1, trajet.getLieuDepartId());
+            pstmt.setInt(2, trajet.getLieuArriveeId());
             pstmt.setObject(3, trajet.getDateDepart());
             pstmt.setDouble(4, trajet.getPrix());
             pstmt.setInt(5, trajet.getNbPlacesDisponibles());
@@ -206,109 +565,132 @@ public class TrajetDAO {
         }
     }
 
+    /**
+     * Identifiants des villes du trajet, créées dans la table lieux si elles sont nouvelles.
+     * Le trajet reçoit le nom canonique de chaque ville.
+     */
+    private void resoudreLieux(Trajet trajet) throws SQLException {
+        if (trajet.getLieuDepartId() == null) {
+            int id = lieux.resoudre(trajet.getLieuDepart());
+            trajet.setLieuDepart(lieux.getNom(id));
+            trajet.setLieuDepartId(id);
+        }
+        if (trajet.getLieuArriveeId() == null) {
+            int id = lieux.resoudre(trajet.getLieuArrivee());
+            trajet.setLieuArrivee(lieux.getNom(id));
+            trajet.setLieuArriveeId(id);
+        }
+    }
 
-    public boolean delete(Long id) {
-        // Premièrement: vérifier l'existence des dépendances
-        boolean hasReservations = false;
-        boolean hasAvis = false;
-        boolean hasPaiements = false;
-
-        try (Connection conn = DatabaseConfig.getConnection()) {
-            // Vérifier les réservations
-            try (PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM reservations WHERE trajet_id = ?")) {
-                pstmt.setLong(1, id);
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        hasReservations = rs.getInt(1) > 0;
-                    }
-                }
-            }
-
-            // Vérifier les avis
-            try (PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM avis WHERE trajet_id = ?")) {
-                pstmt.setLong(1, id);
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        hasAvis = rs.getInt(1) > 0;
-                    }
-                }
-            }
 
-            // Vérifier les paiements liés aux réservations du trajet
-            if (hasReservations) {
-                try (PreparedStatement pstmt = conn.prepareStatement(
-                        "SELECT COUNT(*) FROM paiements WHERE reservation_id IN (SELECT id FROM reservations WHERE trajet_id = ?)")) {
-                    pstmt.setLong(1, id);
-                    try (ResultSet rs = pstmt.executeQuery()) {
-                        if (rs.next()) {
-                            hasPaiements = rs.getInt(1) > 0;
-                        }
-                    }
-                }
-            }
+    public boolean delete(Long id) {
+        try {
+            return deleteEnCascade(id).isSupprime();
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
+    }
 
-        // Supprimer en utilisant une transaction
-        Connection conn = null;
-        try {
-            conn = DatabaseConfig.getConnection();
+    /**
+     * Supprime le trajet avec ses avis, paiements et réservations dans une seule transaction,
+     * sans comptage préalable : chaque requête rapporte elle-même ce qu'elle a supprimé.
+     * @return Le bilan de la suppression (isSupprime() est faux si le trajet n'existe pas)
+     */
+    public BilanSuppression deleteEnCascade(Long id) throws SQLException {
+        BilanSuppression bilan = new BilanSuppression();
+
+        try (Connection conn = DatabaseConfig.getConnection()) {
             conn.setAutoCommit(false);
+            try {
+                supprimerEnBloc(conn, "id = ?", id, bilan);
+                bilan.setSupprime(bilan.getTrajetIds().contains(id));
 
-            // Si nous avons des dépendances, nous les supprimons d'abord
-            if (hasPaiements) {
-                try (PreparedStatement pstmt = conn.prepareStatement(
-                        "DELETE FROM paiements WHERE reservation_id IN (SELECT id FROM reservations WHERE trajet_id = ?)")) {
-                    pstmt.setLong(1, id);
-                    pstmt.executeUpdate();
-                }
+                long debut = System.nanoTime();
+                conn.commit();
+                bilan.mesurer("commit", debut);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
             }
+        }
 
-            if (hasReservations) {
-                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM reservations WHERE trajet_id = ?")) {
-                    pstmt.setLong(1, id);
-                    pstmt.executeUpdate();
-                }
-            }
+        return bilan;
+    }
 
-            if (hasAvis) {
-                try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM avis WHERE trajet_id = ?")) {
-                    pstmt.setLong(1, id);
-                    pstmt.executeUpdate();
+    /**
+     * Supprime en bloc les trajets désignés par le filtre, avec leurs avis, paiements et réservations,
+     * sur la connexion de l'appelant : la suppression fait partie de sa transaction.
+     * Les trajets sont d'abord verrouillés pour qu'aucune réservation ne s'y ajoute entre-temps.
+     * @param filtre Condition sur la table trajets, avec un seul paramètre (par exemple "conducteur_id = ?")
+     * @param parametre La valeur du paramètre du filtre
+     * @param bilan Reçoit ce qui a été supprimé et la durée de chaque requête
+     */
+    static void supprimerEnBloc(Connection conn, String filtre, long parametre, BilanSuppression bilan) throws SQLException {
+        long debut = System.nanoTime();
+        List<Long> trajetIds = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT id FROM trajets WHERE " + filtre + " FOR UPDATE")) {
+            pstmt.setLong(1, parametre);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    trajetIds.add(rs.getLong(1));
                 }
             }
+        }
+        bilan.mesurer("verrouillage", debut);
+        if (trajetIds.isEmpty()) {
+            return;
+        }
+        Array ids = conn.createArrayOf("bigint", trajetIds.toArray());
 
-            // Finalement, supprimer le trajet
-            try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM trajets WHERE id = ?")) {
-                pstmt.setLong(1, id);
-                int rowsAffected = pstmt.executeUpdate();
-
-                conn.commit();
-                return rowsAffected > 0;
+        debut = System.nanoTime();
+        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM avis WHERE trajet_id = ANY(?)")) {
+            pstmt.setArray(1, ids);
+            bilan.setAvis(pstmt.executeUpdate());
+        }
+        bilan.mesurer("avis", debut);
+
+        // Les paiements non encore remboursés sont comptés comme remboursés par la suppression
+        debut = System.nanoTime();
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "WITH supprimes AS (DELETE FROM paiements WHERE reservation_id IN " +
+                        "(SELECT id FROM reservations WHERE trajet_id = ANY(?)) RETURNING montant, est_rembourse) " +
+                        "SELECT COUNT(*), COUNT(*) FILTER (WHERE NOT est_rembourse), " +
+                        "COALESCE(SUM(montant) FILTER (WHERE NOT est_rembourse), 0) FROM supprimes")) {
+            pstmt.setArray(1, ids);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    bilan.setPaiements(rs.getInt(1), rs.getInt(2), rs.getDouble(3));
+                }
             }
-        } catch (SQLException e) {
-            // En cas d'erreur, annuler la transaction
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
+        }
+        bilan.mesurer("paiements", debut);
+
+        // De même, les réservations encore actives sont comptées comme annulées
+        debut = System.nanoTime();
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "WITH supprimees AS (DELETE FROM reservations WHERE trajet_id = ANY(?) RETURNING est_annule, statut) " +
+                        "SELECT COUNT(*), COUNT(*) FILTER (WHERE NOT est_annule AND statut <> 'ANNULEE') FROM supprimees")) {
+            pstmt.setArray(1, ids);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    bilan.setReservations(rs.getInt(1), rs.getInt(2));
                 }
             }
-            e.printStackTrace();
-            return false;
-        } finally {
-            // Rétablir l'auto-commit et fermer la connexion
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
+        }
+        bilan.mesurer("reservations", debut);
+
+        debut = System.nanoTime();
+        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM trajets WHERE id = ANY(?) RETURNING id")) {
+            pstmt.setArray(1, ids);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    bilan.ajouterTrajet(rs.getLong(1));
                 }
             }
         }
+        bilan.mesurer("trajets", debut);
     }
-}
\ No newline at end of file
+}
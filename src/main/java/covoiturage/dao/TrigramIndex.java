@@ -0,0 +1,158 @@
+package covoiturage.dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index inversé de trigrammes sur des noms de villes normalisés, pour la recherche approchée
+ * quand pg_trgm n'est pas disponible. Les trigrammes et la similarité suivent les règles de
+ * pg_trgm (mots complétés de deux espaces devant et d'un derrière, similarité de Jaccard) :
+ * les deux modes de recherche classent les villes de la même façon.
+ *
+ * Une recherche ne parcourt que les listes des trigrammes de la saisie, pas tous les noms.
+ */
+final class TrigramIndex {
+    /**
+     * Un nom de l'index, avec les identifiants des villes de la table lieux qui ont ce nom.
+     */
+    record Entree(String nom, Set<Integer> ids, int nbTrigrammes) {
+        /**
+         * Les identifiants continuent de changer dans l'index : les résultats en reçoivent une copie.
+         */
+        private Entree copie() {
+            return new Entree(nom, Set.copyOf(ids), nbTrigrammes);
+        }
+    }
+
+    private final List<Entree> entrees = new ArrayList<>();
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final Map<String, List<Integer>> listes = new HashMap<>();
+
+    /**
+     * @param nom Le nom normalisé (LieuMatcher.normaliser)
+     * @param id L'identifiant de la ville dans la table lieux
+     */
+    synchronized void ajouter(String nom, int id) {
+        Integer position = positions.get(nom);
+        if (position != null) {
+            entrees.get(position).ids().add(id);
+            return;
+        }
+
+        Set<String> trigrammes = trigrammes(nom);
+        Set<Integer> ids = new LinkedHashSet<>();
+        ids.add(id);
+        position = entrees.size();
+        entrees.add(new Entree(nom, ids, trigrammes.size()));
+        positions.put(nom, position);
+        for (String trigramme : trigrammes) {
+            listes.computeIfAbsent(trigramme, t -> new ArrayList<>()).add(position);
+        }
+    }
+
+    synchronized int taille() {
+        return entrees.size();
+    }
+
+    /**
+     * @param nom La saisie normalisée
+     * @param seuil Similarité minimale, entre 0 et 1
+     * @return Les noms dont la similarité atteint le seuil, avec leur similarité
+     */
+    synchronized Map<Entree, Double> similaires(String nom, double seuil) {
+        Set<String> saisie = trigrammes(nom);
+        Map<Entree, Double> resultats = new HashMap<>();
+        if (saisie.isEmpty()) {
+            return resultats;
+        }
+
+        int[] communs = new int[entrees.size()];
+        List<Integer> touches = new ArrayList<>();
+        for (String trigramme : saisie) {
+            for (int position : listes.getOrDefault(trigramme, List.of())) {
+                if (communs[position]++ == 0) {
+                    touches.add(position);
+                }
+            }
+        }
+
+        for (int position : touches) {
+            Entree entree = entrees.get(position);
+            double similarite = (double) communs[position] / (saisie.size() + entree.nbTrigrammes() - communs[position]);
+            if (similarite >= seuil) {
+                resultats.put(entree.copie(), similarite);
+            }
+        }
+        return resultats;
+    }
+
+    /**
+     * @param fragment La saisie normalisée
+     * @return Les noms qui contiennent le fragment, avec leur similarité au fragment
+     */
+    synchronized Map<Entree, Double> contenant(String fragment) {
+        Map<Entree, Double> resultats = new HashMap<>();
+        if (fragment.isEmpty()) {
+            return resultats;
+        }
+
+        // Un nom qui contient le fragment contient ses trigrammes intérieurs (trois lettres ou chiffres
+        // d'un même mot) : la plus courte de leurs listes borne les candidats. Sans trigramme intérieur,
+        // par exemple pour un fragment de moins de trois caractères, tous les noms sont parcourus.
+        List<Integer> candidats = null;
+        for (int debut = 0; debut + 3 <= fragment.length(); debut++) {
+            String trigramme = fragment.substring(debut, debut + 3);
+            if (!trigramme.codePoints().allMatch(Character::isLetterOrDigit)) {
+                continue;
+            }
+            List<Integer> liste = listes.getOrDefault(trigramme, List.of());
+            if (candidats == null || liste.size() < candidats.size()) {
+                candidats = liste;
+            }
+        }
+
+        Set<String> saisie = trigrammes(fragment);
+        List<Entree> parcourues = candidats == null ? entrees : candidats.stream().map(entrees::get).toList();
+        for (Entree entree : parcourues) {
+            if (entree.nom().contains(fragment)) {
+                resultats.put(entree.copie(), similarite(saisie, trigrammes(entree.nom())));
+            }
+        }
+        return resultats;
+    }
+
+    /**
+     * Trigrammes au sens de pg_trgm : chaque mot (suite de lettres et de chiffres) est complété
+     * de deux espaces devant et d'un derrière avant d'être découpé.
+     */
+    static Set<String> trigrammes(String nom) {
+        Set<String> trigrammes = new LinkedHashSet<>();
+        for (String mot : nom.split("[^\\p{L}\\p{N}]+")) {
+            if (mot.isEmpty()) {
+                continue;
+            }
+            String complete = "  " + mot + " ";
+            for (int debut = 0; debut + 3 <= complete.length(); debut++) {
+                trigrammes.add(complete.substring(debut, debut + 3));
+            }
+        }
+        return trigrammes;
+    }
+
+    private static double similarite(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        int communs = 0;
+        for (String trigramme : a) {
+            if (b.contains(trigramme)) {
+                communs++;
+            }
+        }
+        return (double) communs / (a.size() + b.size() - communs);
+    }
+}
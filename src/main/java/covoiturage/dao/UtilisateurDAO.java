@@ -6,13 +6,23 @@ import covoiturage.model.Utilisateur;
 
 
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class UtilisateurDAO {
+    // Cache en lecture traversante sur findById, invalidé par save, update et delete
+    private final EntityCache<Utilisateur> cache = EntityCache.fromConfig("utilisateurs", Utilisateur::new);
 
     public Optional<Utilisateur> findById(Long id) {
+        return cache.getOrLoad(id, this::chargerParId);
+    }
+
+    private Optional<Utilisateur> chargerParId(Long id) {
         String sql = "SELECT * FROM utilisateurs WHERE id = ?";
 
         try (Connection conn = DatabaseConfig.getConnection();
@@ -30,6 +40,7 @@ public class UtilisateurDAO {
                     utilisateur.setMotDePasse(rs.getString("mot_de_passe"));
                     utilisateur.setTelephone((rs.getString("telephone")));
                     utilisateur.setPreferences(rs.getString("preferences"));
+                    utilisateur.setDateModification(rs.getObject("updated_at", LocalDateTime.class));
 
                     return Optional.of(utilisateur);
                 }
@@ -57,6 +68,7 @@ public class UtilisateurDAO {
                     utilisateur.setMotDePasse(rs.getString("mot_de_passe"));
                     utilisateur.setTelephone(rs.getString("telephone"));
                     utilisateur.setPreferences(rs.getString("preferences"));
+                    utilisateur.setDateModification(rs.getObject("updated_at", LocalDateTime.class));
 
                     return Optional.of(utilisateur);
                 }
@@ -84,6 +96,7 @@ public class UtilisateurDAO {
                 utilisateur.setMotDePasse(rs.getString("mot_de_passe"));
                 utilisateur.setTelephone(rs.getString("telephone"));
                 utilisateur.setPreferences(rs.getString("preferences"));
+                utilisateur.setDateModification(rs.getObject("updated_at", LocalDateTime.class));
 
                 utilisateurs.add(utilisateur);
             }
@@ -93,6 +106,153 @@ public class UtilisateurDAO {
         return  utilisateurs;
     }
 
+    /**
+     * Lit une page d'utilisateurs triés par identifiant, à partir d'un curseur.
+     * @param apresId Identifiant du dernier utilisateur de la page précédente, ou null pour la première page
+     * @param taille Nombre d'utilisateurs par page
+     * @return La page lue
+     */
+    public Page<Utilisateur> findPage(Long apresId, int taille) {
+        List<Utilisateur> utilisateurs = new ArrayList<>();
+        String sql = "SELECT * FROM utilisateurs " +
+                (apresId != null ? "WHERE id > ? " : "") +
+                "ORDER BY id LIMIT ?";
+
+        LocalDateTime horloge = null;
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            // La première page date le chargement : les synchronisations suivantes partent de là
+            if (apresId == null) {
+                horloge = Delta.horloge(conn);
+            }
+
+            int index = 1;
+            if (apresId != null) {
+                pstmt.setLong(index++, apresId);
+            }
+            pstmt.setInt(index, taille + 1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Utilisateur utilisateur = new Utilisateur();
+                    utilisateur.setId(rs.getLong("id"));
+                    utilisateur.setNom(rs.getString("nom"));
+                    utilisateur.setPrenom(rs.getString("prenom"));
+                    utilisateur.setEmail(rs.getString("email"));
+                    utilisateur.setMotDePasse(rs.getString("mot_de_passe"));
+                    utilisateur.setTelephone(rs.getString("telephone"));
+                    utilisateur.setPreferences(rs.getString("preferences"));
+                    utilisateur.setDateModification(rs.getObject("updated_at", LocalDateTime.class));
+
+                    utilisateurs.add(utilisateur);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return Page.of(utilisateurs, taille, horloge);
+    }
+
+    /**
+     * Lit les utilisateurs connus du client modifiés depuis une date, et vérifie leur existence.
+     * Les nouveaux utilisateurs ne sont pas lus : la table paginée les reçoit à leur place par la pagination.
+     * Les lignes relues remplacent leur version en cache.
+     * @param depuis Date de modification à partir de laquelle lire (exclue), ou null pour tout relire
+     * @param connus Les identifiants déjà affichés par le client
+     * @param limite Nombre maximal de lignes modifiées à lire
+     */
+    public Delta<Utilisateur> findModifiedSince(LocalDateTime depuis, Collection<Long> connus, int limite) throws SQLException {
+        List<Utilisateur> utilisateurs = new ArrayList<>();
+        long generation = cache.getGeneration();
+        String sql = "SELECT * FROM utilisateurs WHERE id = ANY(?) " +
+                (depuis != null ? "AND updated_at > ? " : "") +
+                "ORDER BY updated_at, id LIMIT ?";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            LocalDateTime horloge = Delta.horloge(conn);
+            int index = 1;
+            pstmt.setArray(index++, conn.createArrayOf("bigint", connus.toArray()));
+            if (depuis != null) {
+                pstmt.setObject(index++, depuis);
+            }
+            pstmt.setInt(index, limite + 1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Utilisateur utilisateur = new Utilisateur();
+                    utilisateur.setId(rs.getLong("id"));
+                    utilisateur.setNom(rs.getString("nom"));
+                    utilisateur.setPrenom(rs.getString("prenom"));
+                    utilisateur.setEmail(rs.getString("email"));
+                    utilisateur.setMotDePasse(rs.getString("mot_de_passe"));
+                    utilisateur.setTelephone(rs.getString("telephone"));
+                    utilisateur.setPreferences(rs.getString("preferences"));
+                    utilisateur.setDateModification(rs.getObject("updated_at", LocalDateTime.class));
+
+                    utilisateurs.add(utilisateur);
+                    cache.put(utilisateur.getId(), utilisateur, generation);
+                }
+            }
+            return Delta.of(utilisateurs, Delta.idsExistants(conn, "utilisateurs", connus), limite, horloge);
+        }
+    }
+
+    /**
+     * Charge plusieurs utilisateurs en une seule requête.
+     * @param ids Les identifiants recherchés
+     * @return Les utilisateurs trouvés, indexés par identifiant
+     */
+    public Map<Long, Utilisateur> findByIds(Collection<Long> ids) {
+        Map<Long, Utilisateur> utilisateurs = new HashMap<>();
+
+        // Seuls les utilisateurs absents du cache sont demandés à la base
+        long generation = cache.getGeneration();
+        List<Long> manquants = new ArrayList<>();
+        for (Long id : ids) {
+            Utilisateur enCache = cache.get(id);
+            if (enCache != null) {
+                utilisateurs.put(id, enCache);
+            } else {
+                manquants.add(id);
+            }
+        }
+        if (manquants.isEmpty()) {
+            return utilisateurs;
+        }
+
+        String sql = "SELECT * FROM utilisateurs WHERE id = ANY(?)";
+
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setArray(1, conn.createArrayOf("bigint", manquants.toArray()));
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Utilisateur utilisateur = new Utilisateur();
+                    utilisateur.setId(rs.getLong("id"));
+                    utilisateur.setNom(rs.getString("nom"));
+                    utilisateur.setPrenom(rs.getString("prenom"));
+                    utilisateur.setEmail(rs.getString("email"));
+                    utilisateur.setMotDePasse(rs.getString("mot_de_passe"));
+                    utilisateur.setTelephone(rs.getString("telephone"));
+                    utilisateur.setPreferences(rs.getString("preferences"));
+                    utilisateur.setDateModification(rs.getObject("updated_at", LocalDateTime.class));
+
+                    utilisateurs.put(utilisateur.getId(), utilisateur);
+                    cache.put(utilisateur.getId(), utilisateur, generation);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return utilisateurs;
+    }
+
 
     public Long save(Utilisateur utilisateur) {
         String sql = "INSERT INTO utilisateurs (nom, prenom, email, mot_de_passe, telephone, preferences) " +
@@ -112,6 +272,7 @@ public class UtilisateurDAO {
                 if (rs.next()) {
                     Long id = rs.getLong(1);
                     utilisateur.setId(id);
+                    cache.invalidate(id);
                     return id;
                 }
             }
@@ -137,6 +298,7 @@ public class UtilisateurDAO {
             pstmt.setLong(7, utilisateur.getId());
 
             int rowsAffected = pstmt.executeUpdate();
+            cache.invalidate(utilisateur.getId());
             return rowsAffected > 0;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -152,6 +314,7 @@ public class UtilisateurDAO {
             pstmt.setLong(1, id);
 
             int rowsAffected = pstmt.executeUpdate();
+            cache.invalidate(id);
             return rowsAffected > 0;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -179,4 +342,7 @@ public class UtilisateurDAO {
         return false;
     }
 
+    public CacheStatistics getCacheStatistics() {
+        return cache.getStatistics();
+    }
 }
@@ -17,6 +17,11 @@ public class Administrateur extends Personne{
         this.role = role;
     }
 
+    public Administrateur(Administrateur autre) {
+        super(autre);
+        this.role = autre.role;
+    }
+
     public String getRole() {
         return role;
     }
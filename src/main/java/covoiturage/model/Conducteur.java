@@ -28,6 +28,13 @@ public class Conducteur extends Personne {
         this.trajets = new ArrayList<>();
     }
 
+    public Conducteur(Conducteur autre) {
+        super(autre);
+        this.numeroPermis = autre.numeroPermis;
+        this.vehiculeInfo = autre.vehiculeInfo;
+        this.trajets = autre.trajets != null ? new ArrayList<>(autre.trajets) : null;
+    }
+
     // Getters et Setters
     public String getNumeroPermis() {
         return numeroPermis;
@@ -1,14 +1,17 @@
 package covoiturage.model;
 
+import java.time.LocalDateTime;
 import java.util.Objects;
 
-public class Personne {
+public class Personne implements Synchronisable {
     private Long id;
     private String nom;
     private String prenom;
     private String email;
     private String motDePasse;
     private String telephone;
+    // Absente pour les administrateurs : leur table n'a pas de colonne updated_at
+    private LocalDateTime dateModification;
 
     public Personne() {
     }
@@ -30,6 +33,19 @@ public class Personne {
         this.nom = nom;
     }
 
+    /**
+     * Copie des champs d'une autre personne (copies défensives du cache des DAO).
+     */
+    protected Personne(Personne autre) {
+        this.id = autre.id;
+        this.nom = autre.nom;
+        this.prenom = autre.prenom;
+        this.email = autre.email;
+        this.motDePasse = autre.motDePasse;
+        this.telephone = autre.telephone;
+        this.dateModification = autre.dateModification;
+    }
+
 
     public Long getId() {
         return id;
@@ -79,6 +95,15 @@ public class Personne {
         this.telephone = telephone;
     }
 
+    @Override
+    public LocalDateTime getDateModification() {
+        return dateModification;
+    }
+
+    public void setDateModification(LocalDateTime dateModification) {
+        this.dateModification = dateModification;
+    }
+
 
     // Méthodes de l'interface utilisateur
     public void sInscrire() {
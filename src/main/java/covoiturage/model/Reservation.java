@@ -6,7 +6,7 @@ import covoiturage.model.enums.StatutReservation;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
-public class Reservation {
+public class Reservation implements Synchronisable {
     private Long id;
     private LocalDateTime dateReservation;
     private int nbPlaces;
@@ -15,6 +15,7 @@ public class Reservation {
     private Trajet trajet;
     private boolean annule;
     private Paiement paiement;
+    private LocalDateTime dateModification;
 
     // Constructeurs
     public Reservation() {
@@ -100,6 +101,15 @@ public class Reservation {
         this.annule = annule;
     }
 
+    @Override
+    public LocalDateTime getDateModification() {
+        return dateModification;
+    }
+
+    public void setDateModification(LocalDateTime dateModification) {
+        this.dateModification = dateModification;
+    }
+
     public Paiement getPaiement() {
         return paiement;
     }
@@ -0,0 +1,21 @@
+package covoiturage.model;
+
+/**
+ * Nombre de réservations par statut. Une réservation marquée annulée
+ * est comptée comme annulée quel que soit son statut.
+ */
+public record ReservationsParStatut(long enAttente, long confirmees, long annulees) {
+
+    public static final ReservationsParStatut AUCUNE = new ReservationsParStatut(0, 0, 0);
+
+    public long total() {
+        return enAttente + confirmees + annulees;
+    }
+
+    /**
+     * @return Les réservations en attente ou confirmées
+     */
+    public long actives() {
+        return enAttente + confirmees;
+    }
+}
@@ -0,0 +1,12 @@
+package covoiturage.model;
+
+/**
+ * Indicateurs du tableau de bord d'un conducteur.
+ * @param reservations Les réservations reçues sur ses trajets
+ * @param revenus Somme des paiements non remboursés reçus sur ses trajets
+ */
+public record StatistiquesConducteur(StatistiquesTrajets trajets, ReservationsParStatut reservations, double revenus) {
+
+    public static final StatistiquesConducteur AUCUNE = new StatistiquesConducteur(
+            StatistiquesTrajets.AUCUN, ReservationsParStatut.AUCUNE, 0);
+}
@@ -0,0 +1,12 @@
+package covoiturage.model;
+
+/**
+ * Indicateurs globaux du tableau de bord administrateur.
+ * @param revenus Somme des paiements non remboursés
+ */
+public record StatistiquesPlateforme(long utilisateurs, long conducteurs, StatistiquesTrajets trajets,
+                                     ReservationsParStatut reservations, double revenus) {
+
+    public static final StatistiquesPlateforme AUCUNE = new StatistiquesPlateforme(0, 0,
+            StatistiquesTrajets.AUCUN, ReservationsParStatut.AUCUNE, 0);
+}
@@ -0,0 +1,13 @@
+package covoiturage.model;
+
+/**
+ * Nombre de trajets : au total, à venir (non annulés et pas encore partis) et annulés.
+ */
+public record StatistiquesTrajets(long total, long aVenir, long annules) {
+
+    public static final StatistiquesTrajets AUCUN = new StatistiquesTrajets(0, 0, 0);
+
+    public long nonAnnules() {
+        return total - annules;
+    }
+}
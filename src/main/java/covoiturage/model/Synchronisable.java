@@ -0,0 +1,16 @@
+package covoiturage.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entité dont la table porte une colonne updated_at, mise à jour à chaque écriture :
+ * un client peut ne relire que les lignes modifiées depuis son dernier chargement.
+ */
+public interface Synchronisable {
+    Long getId();
+
+    /**
+     * @return La date de dernière modification en base, ou null si l'entité n'a pas été lue en base
+     */
+    LocalDateTime getDateModification();
+}
@@ -1,6 +1,5 @@
 package covoiturage.model;
 
-import covoiturage.model.enums.StatutReservation;
 import covoiturage.service.ServiceFactory;
 
 import java.time.LocalDateTime;
@@ -8,10 +7,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
-public class Trajet {
+public class Trajet implements Synchronisable {
     private Long id;
     private String lieuDepart;
     private String lieuArrivee;
+    // Identifiants des villes dans la table lieux ; null tant que le trajet n'est pas enregistré
+    // ou après un changement de ville
+    private Integer lieuDepartId;
+    private Integer lieuArriveeId;
     private LocalDateTime dateDepart;
     private double prix;
     private int nbPlacesDisponibles;
@@ -19,6 +22,7 @@ public class Trajet {
     private List<Reservation> reservations;
     private List<Avis> avis;
     private boolean estAnnule;
+    private LocalDateTime dateModification;
 
     public Trajet() {
         this.reservations = new ArrayList<>();
@@ -64,17 +68,39 @@ public class Trajet {
     }
 
     public void setLieuDepart(String lieuDepart) {
+        if (!Objects.equals(this.lieuDepart, lieuDepart)) {
+            this.lieuDepartId = null;
+        }
         this.lieuDepart = lieuDepart;
     }
 
+    public Integer getLieuDepartId() {
+        return lieuDepartId;
+    }
+
+    public void setLieuDepartId(Integer lieuDepartId) {
+        this.lieuDepartId = lieuDepartId;
+    }
+
     public String getLieuArrivee() {
         return lieuArrivee;
     }
 
     public void setLieuArrivee(String lieuArrivee) {
+        if (!Objects.equals(this.lieuArrivee, lieuArrivee)) {
+            this.lieuArriveeId = null;
+        }
         this.lieuArrivee = lieuArrivee;
     }
 
+    public Integer getLieuArriveeId() {
+        return lieuArriveeId;
+    }
+
+    public void setLieuArriveeId(Integer lieuArriveeId) {
+        this.lieuArriveeId = lieuArriveeId;
+    }
+
     public LocalDateTime getDateDepart() {
         return dateDepart;
     }
@@ -139,6 +165,15 @@ public class Trajet {
         this.estAnnule = estAnnule;
     }
 
+    @Override
+    public LocalDateTime getDateModification() {
+        return dateModification;
+    }
+
+    public void setDateModification(LocalDateTime dateModification) {
+        this.dateModification = dateModification;
+    }
+
     public boolean creer() {
         System.out.println("Création d'un trajet de " + lieuDepart + " à " + lieuArrivee);
         return true;
@@ -156,19 +191,8 @@ public class Trajet {
     }
 
     public int calculerPlacesRestantes() {
-        int placesReservees = 0;
-
-        // Récupérer toutes les réservations pour ce trajet
-        List<Reservation> reservations = ServiceFactory.getReservationService().getReservationsByTrajet(this.getId());
-
-        // Compter les places des réservations confirmées et en attente
-        for (Reservation reservation : reservations) {
-            if (!reservation.isAnnule() &&
-                    (reservation.getStatut() == StatutReservation.CONFIRMEE ||
-                            reservation.getStatut() == StatutReservation.EN_ATTENTE)) {
-                placesReservees += reservation.getNbPlaces();
-            }
-        }
+        // Places des réservations confirmées et en attente, tenues à jour par le compteur partagé
+        int placesReservees = ServiceFactory.getCompteurPlaces().getPlacesReservees(this.getId());
 
         return this.getNbPlacesDisponibles() - placesReservees;
     }
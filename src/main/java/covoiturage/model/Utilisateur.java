@@ -23,6 +23,12 @@ public class Utilisateur extends Personne{
         this.reservations = new ArrayList<>();
     }
 
+    public Utilisateur(Utilisateur autre) {
+        super(autre);
+        this.preferences = autre.preferences;
+        this.reservations = autre.reservations != null ? new ArrayList<>(autre.reservations) : null;
+    }
+
     public String getPreferences() {
         return preferences;
     }
@@ -0,0 +1,54 @@
+package covoiturage.rapport;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Rapport au format CSV (RFC 4180) : les valeurs contenant un séparateur,
+ * un guillemet ou un retour à la ligne sont entourées de guillemets.
+ */
+public class CsvRapportWriter implements RapportWriter {
+    private static final char SEPARATEUR = ',';
+
+    private final Writer sortie;
+
+    public CsvRapportWriter(Writer sortie) {
+        this.sortie = sortie;
+    }
+
+    @Override
+    public void entete(String[] colonnes) throws IOException {
+        ligne(colonnes);
+    }
+
+    @Override
+    public void ligne(Object[] valeurs) throws IOException {
+        for (int i = 0; i < valeurs.length; i++) {
+            if (i > 0) {
+                sortie.write(SEPARATEUR);
+            }
+            ecrire(valeurs[i]);
+        }
+        sortie.write("\r\n");
+    }
+
+    private void ecrire(Object valeur) throws IOException {
+        if (valeur == null) {
+            return;
+        }
+        String texte = valeur.toString();
+        if (texte.indexOf(SEPARATEUR) >= 0 || texte.indexOf('"') >= 0
+                || texte.indexOf('\n') >= 0 || texte.indexOf('\r') >= 0) {
+            sortie.write('"');
+            sortie.write(texte.replace("\"", "\"\""));
+            sortie.write('"');
+        } else {
+            sortie.write(texte);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        sortie.close();
+    }
+}
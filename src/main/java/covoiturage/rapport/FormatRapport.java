@@ -0,0 +1,32 @@
+package covoiturage.rapport;
+
+import java.io.Writer;
+
+/**
+ * Formats de sortie des rapports d'administration.
+ */
+public enum FormatRapport {
+    CSV("csv"),
+    HTML("html");
+
+    private final String extension;
+
+    FormatRapport(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param titre Le titre du rapport (ignoré en CSV)
+     * @param sortie La destination du rapport
+     */
+    public RapportWriter creerWriter(String titre, Writer sortie) {
+        return switch (this) {
+            case CSV -> new CsvRapportWriter(sortie);
+            case HTML -> new HtmlRapportWriter(titre, sortie);
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package covoiturage.rapport;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Rapport au format HTML : un tableau dont les lignes sont écrites au fil de la lecture.
+ */
+public class HtmlRapportWriter implements RapportWriter {
+    private final String titre;
+    private final Writer sortie;
+
+    public HtmlRapportWriter(String titre, Writer sortie) {
+        this.titre = titre;
+        this.sortie = sortie;
+    }
+
+    @Override
+    public void entete(String[] colonnes) throws IOException {
+        sortie.write("<!DOCTYPE html>\n<html lang=\"fr\">\n<head>\n<meta charset=\"UTF-8\">\n<title>");
+        sortie.write(echapper(titre));
+        sortie.write("</title>\n<style>\n"
+                + "body { font-family: sans-serif; margin: 20px; }\n"
+                + "table { border-collapse: collapse; }\n"
+                + "th, td { border: 1px solid #bdc3c7; padding: 4px 8px; }\n"
+                + "th { background: #ecf0f1; }\n"
+                + "td.nombre { text-align: right; }\n"
+                + "</style>\n</head>\n<body>\n<h1>");
+        sortie.write(echapper(titre));
+        sortie.write("</h1>\n<p>Généré le ");
+        sortie.write(LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")));
+        sortie.write("</p>\n<table>\n<thead><tr>");
+        for (String colonne : colonnes) {
+            sortie.write("<th>");
+            sortie.write(echapper(colonne));
+            sortie.write("</th>");
+        }
+        sortie.write("</tr></thead>\n<tbody>\n");
+    }
+
+    @Override
+    public void ligne(Object[] valeurs) throws IOException {
+        sortie.write("<tr>");
+        for (Object valeur : valeurs) {
+            sortie.write(valeur instanceof Number ? "<td class=\"nombre\">" : "<td>");
+            if (valeur != null) {
+                sortie.write(echapper(valeur.toString()));
+            }
+            sortie.write("</td>");
+        }
+        sortie.write("</tr>\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sortie.write("</tbody>\n</table>\n</body>\n</html>\n");
+        } finally {
+            sortie.close();
+        }
+    }
+
+    private static String echapper(String texte) {
+        StringBuilder sb = new StringBuilder(texte.length());
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            switch (c) {
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '&' -> sb.append("&amp;");
+                case '"' -> sb.append("&quot;");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
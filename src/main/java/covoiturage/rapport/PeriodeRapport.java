@@ -0,0 +1,39 @@
+package covoiturage.rapport;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Période couverte par un rapport : du premier jour inclus au dernier jour exclu.
+ */
+public record PeriodeRapport(LocalDate debut, LocalDate fin) {
+
+    /** Tout l'historique. */
+    public static final PeriodeRapport TOUT = new PeriodeRapport(LocalDate.of(1970, 1, 1), LocalDate.of(9999, 12, 31));
+
+    public PeriodeRapport {
+        if (debut == null || fin == null || !debut.isBefore(fin)) {
+            throw new IllegalArgumentException("La période du rapport est invalide");
+        }
+    }
+
+    public static PeriodeRapport mois(YearMonth mois) {
+        return new PeriodeRapport(mois.atDay(1), mois.plusMonths(1).atDay(1));
+    }
+
+    public static PeriodeRapport annee(int annee) {
+        return new PeriodeRapport(LocalDate.of(annee, 1, 1), LocalDate.of(annee + 1, 1, 1));
+    }
+
+    /**
+     * @return Un libellé de la période, utilisé dans le titre et le nom du fichier
+     */
+    public String libelle() {
+        if (this.equals(TOUT)) {
+            return "historique";
+        }
+        DateTimeFormatter format = DateTimeFormatter.BASIC_ISO_DATE;
+        return debut.format(format) + "-" + fin.minusDays(1).format(format);
+    }
+}
@@ -0,0 +1,15 @@
+package covoiturage.rapport;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Écrit un rapport ligne par ligne : aucune ligne n'est conservée en mémoire
+ * après son écriture. close() termine le document et ferme la sortie.
+ */
+public interface RapportWriter extends Closeable {
+
+    void entete(String[] colonnes) throws IOException;
+
+    void ligne(Object[] valeurs) throws IOException;
+}
@@ -1,17 +1,42 @@
 package covoiturage.service;
 
+import covoiturage.config.DatabaseConfig;
 import covoiturage.dao.AdministrateurDAO;
 import covoiturage.dao.DAOFactory;
+import covoiturage.dao.ExportDAO;
+import covoiturage.dao.RapportDAO;
+import covoiturage.dao.TableExport;
 import covoiturage.model.Administrateur;
-
+import covoiturage.rapport.FormatRapport;
+import covoiturage.rapport.PeriodeRapport;
+import covoiturage.rapport.RapportWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 public class AdminService {
     private AdministrateurDAO administrateurDAO;
+    private RapportDAO rapportDAO;
+    private ExportDAO exportDAO;
+    private Path dossierRapports;
 
     public AdminService() {
         this.administrateurDAO = DAOFactory.getAdministrateurDAO();
+        this.rapportDAO = DAOFactory.getRapportDAO();
+        this.exportDAO = DAOFactory.getExportDAO();
+        this.dossierRapports = Paths.get(DatabaseConfig.getProperty("report.directory", "rapports"));
     }
 
     public Optional<Administrateur> getAdminById(Long id) {
@@ -60,20 +85,114 @@ public class AdminService {
     }
 
 
-    // Méthodes de génération de rapports
-    public void genererRapportUtilisateurs() {
-        // Implémentation de la génération de rapports sur les utilisateurs
-        System.out.println("Génération du rapport des utilisateurs");
+    // Méthodes de génération de rapports (CSV sur tout l'historique par défaut)
+    public Path genererRapportUtilisateurs() {
+        return genererRapportUtilisateurs(FormatRapport.CSV, PeriodeRapport.TOUT);
+    }
+
+    public Path genererRapportTrajets() {
+        return genererRapportTrajets(FormatRapport.CSV, PeriodeRapport.TOUT);
+    }
+
+    public Path genererRapportReservations() {
+        return genererRapportReservations(FormatRapport.CSV, PeriodeRapport.TOUT);
+    }
+
+    /**
+     * Activité par utilisateur : réservations, places, annulations et montants payés.
+     * @return Le fichier généré
+     */
+    public Path genererRapportUtilisateurs(FormatRapport format, PeriodeRapport periode) {
+        return generer("utilisateurs", "Activité des utilisateurs", format, periode,
+                rapportDAO::exporterActiviteUtilisateurs);
     }
 
-    public void genererRapportTrajets() {
-        // Implémentation de la génération de rapports sur les trajets
-        System.out.println("Génération du rapport des trajets");
+    /**
+     * Trajets par itinéraire et par mois : volumes, taux d'annulation et de remplissage.
+     * @return Le fichier généré
+     */
+    public Path genererRapportTrajets(FormatRapport format, PeriodeRapport periode) {
+        return generer("trajets", "Trajets par itinéraire et par mois", format, periode,
+                rapportDAO::exporterTrajetsParItineraire);
     }
 
-    public void genererRapportReservations() {
-        // Implémentation de la génération de rapports sur les réservations
-        System.out.println("Génération du rapport des réservations");
+    /**
+     * Entonnoir des réservations par mois, du statut en attente jusqu'au paiement.
+     * @return Le fichier généré
+     */
+    public Path genererRapportReservations(FormatRapport format, PeriodeRapport periode) {
+        return generer("reservations", "Entonnoir des réservations", format, periode,
+                rapportDAO::exporterEntonnoirReservations);
+    }
+
+    /**
+     * Exporte une table brute en CSV dans le dossier report.directory, par COPY TO STDOUT
+     * recopié directement dans le fichier (compressé en gzip si demandé).
+     * @param periode Filtre sur la date de la table ; sans effet pour les tables non datées
+     * @return Le fichier écrit
+     */
+    public Path exporterTable(TableExport table, PeriodeRapport periode, boolean compresser) {
+        String horodatage = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        String libellePeriode = table.isDatee() ? periode.libelle() : PeriodeRapport.TOUT.libelle();
+        Path fichier = dossierRapports.resolve("export_" + table.getTable() + "_" + libellePeriode + "_" + horodatage
+                + (compresser ? ".csv.gz" : ".csv"));
+
+        long debut = System.nanoTime();
+        try {
+            Files.createDirectories(dossierRapports);
+            long lignes;
+            try (OutputStream fluxFichier = new BufferedOutputStream(Files.newOutputStream(fichier), 64 * 1024);
+                 OutputStream sortie = compresser ? new GZIPOutputStream(fluxFichier, 64 * 1024) : fluxFichier) {
+                lignes = exportDAO.exporter(table, periode, sortie);
+            }
+            System.out.printf("Export %s : %d ligne(s) écrites dans %s (%d Ko) en %d ms%n",
+                    table.getTable(), lignes, fichier, Files.size(fichier) / 1024,
+                    (System.nanoTime() - debut) / 1_000_000);
+            return fichier;
+        } catch (SQLException | IOException e) {
+            try {
+                Files.deleteIfExists(fichier);
+            } catch (IOException suppression) {
+                e.addSuppressed(suppression);
+            }
+            throw new IllegalStateException("Échec de l'export de la table " + table.getTable() + " : " + e.getMessage(), e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Export {
+        long exporter(PeriodeRapport periode, RapportWriter writer) throws SQLException, IOException;
+    }
+
+    /**
+     * Écrit un rapport dans le dossier report.directory au fil de la lecture du curseur.
+     * Un fichier incomplet est supprimé en cas d'erreur.
+     */
+    private Path generer(String nom, String titre, FormatRapport format, PeriodeRapport periode, Export export) {
+        String horodatage = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        Path fichier = dossierRapports.resolve("rapport_" + nom + "_" + periode.libelle() + "_" + horodatage
+                + "." + format.getExtension());
+        String titreComplet = titre + (periode.equals(PeriodeRapport.TOUT) ? "" : " (" + periode.libelle() + ")");
+
+        long debut = System.nanoTime();
+        try {
+            Files.createDirectories(dossierRapports);
+            long lignes;
+            // Le fichier est fermé même si la création du writer échoue ; fermé deux fois sinon, sans effet
+            try (BufferedWriter sortie = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8);
+                 RapportWriter writer = format.creerWriter(titreComplet, sortie)) {
+                lignes = export.exporter(periode, writer);
+            }
+            System.out.printf("Rapport %s : %d ligne(s) écrites dans %s en %d ms%n",
+                    nom, lignes, fichier, (System.nanoTime() - debut) / 1_000_000);
+            return fichier;
+        } catch (SQLException | IOException e) {
+            try {
+                Files.deleteIfExists(fichier);
+            } catch (IOException suppression) {
+                e.addSuppressed(suppression);
+            }
+            throw new IllegalStateException("Échec de la génération du rapport " + nom + " : " + e.getMessage(), e);
+        }
     }
-    
 }
@@ -0,0 +1,127 @@
+package covoiturage.service;
+
+import covoiturage.config.ChangeEvent;
+import covoiturage.config.DatabaseConfig;
+import covoiturage.dao.DAOFactory;
+import covoiturage.dao.TrajetDAO;
+import covoiturage.model.Trajet;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compteur en mémoire des places réservées par trajet.
+ * Les valeurs sont lues dans la colonne trajets.nb_places_reservees (une requête pour tout un lot
+ * de trajets), tenue par la base à chaque réservation et annulation, puis mises à jour par
+ * ReservationService lors des créations et annulations de ce client.
+ * Les changements faits par d'autres clients arrivent par le flux de changements de la base :
+ * le compteur du trajet concerné est oublié et sera relu au prochain accès. Sans flux
+ * (db.changeFeed.enabled=false), rien ne signale ces changements : chaque préchargement relit
+ * alors les compteurs de son lot, toujours en une requête.
+ */
+public class CompteurPlaces {
+    private final TrajetDAO trajetDAO;
+    private final Map<Long, Integer> places = new ConcurrentHashMap<>();
+    private final boolean suivi;
+
+    public CompteurPlaces() {
+        this.trajetDAO = DAOFactory.getTrajetDAO();
+        this.suivi = DatabaseConfig.isChangeFeedEnabled();
+        DatabaseConfig.addChangeListener(this::appliquer);
+    }
+
+    /**
+     * Applique un changement publié par la base, y compris ceux de ce client : relire le compteur
+     * après une modification locale redonne la même valeur.
+     */
+    void appliquer(ChangeEvent evenement) {
+        if (evenement.table() != ChangeEvent.Table.RESERVATIONS && evenement.table() != ChangeEvent.Table.TRAJETS) {
+            return;
+        }
+        if (evenement.isMasse()) {
+            invaliderTout();
+        } else {
+            // Une réservation ou une annulation met à jour la ligne du trajet : son UPDATE est publié aussi
+            invalider(evenement.trajetConcerne());
+        }
+    }
+
+    /**
+     * @param trajetId L'identifiant du trajet
+     * @return Les places réservées (en attente et confirmées) sur ce trajet
+     */
+    public int getPlacesReservees(Long trajetId) {
+        if (trajetId == null) {
+            return 0;
+        }
+        Integer valeur = places.get(trajetId);
+        if (valeur == null) {
+            precharger(List.of(trajetId));
+            valeur = places.getOrDefault(trajetId, 0);
+        }
+        return valeur;
+    }
+
+    /**
+     * Charge en une seule requête les compteurs des trajets qui ne sont pas encore connus,
+     * ou de tous les trajets donnés sans flux de changements.
+     * @param trajets Les trajets d'une liste à afficher
+     */
+    public void prechargerTrajets(Collection<Trajet> trajets) {
+        precharger(trajets.stream()
+                .map(Trajet::getId)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    private void precharger(Collection<Long> trajetIds) {
+        List<Long> aLire = trajetIds.stream()
+                .filter(id -> !suivi || !places.containsKey(id))
+                .distinct()
+                .toList();
+        if (aLire.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> charges = trajetDAO.findPlacesReserveesByIds(aLire);
+        for (Long id : aLire) {
+            if (suivi) {
+                // putIfAbsent : une mise à jour concurrente reste prioritaire sur la valeur chargée
+                places.putIfAbsent(id, charges.getOrDefault(id, 0));
+            } else {
+                places.put(id, charges.getOrDefault(id, 0));
+            }
+        }
+    }
+
+    /**
+     * Enregistre les places d'une nouvelle réservation.
+     */
+    public void ajouter(Long trajetId, int nbPlaces) {
+        places.computeIfPresent(trajetId, (id, p) -> p + nbPlaces);
+    }
+
+    /**
+     * Libère les places d'une réservation annulée.
+     */
+    public void liberer(Long trajetId, int nbPlaces) {
+        places.computeIfPresent(trajetId, (id, p) -> Math.max(0, p - nbPlaces));
+    }
+
+    /**
+     * Oublie le compteur d'un trajet ; il sera rechargé depuis la base au prochain accès.
+     */
+    public void invalider(Long trajetId) {
+        if (trajetId == null) {
+            return;
+        }
+        places.remove(trajetId);
+    }
+
+    public void invaliderTout() {
+        places.clear();
+    }
+}
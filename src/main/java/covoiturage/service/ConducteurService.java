@@ -1,21 +1,30 @@
 package covoiturage.service;
 
+import covoiturage.dao.BilanSuppression;
 import covoiturage.dao.ConducteurDAO;
 import covoiturage.dao.DAOFactory;
+import covoiturage.dao.Delta;
+import covoiturage.dao.Page;
 import covoiturage.dao.TrajetDAO;
 import covoiturage.model.*;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public class ConducteurService {
     private ConducteurDAO conducteurDAO;
     private TrajetDAO trajetDAO;
+    private CompteurPlaces compteurPlaces;
+    private DictionnaireLieux dictionnaireLieux;
 
     public ConducteurService() {
         this.conducteurDAO = DAOFactory.getConducteurDAO();
         this.trajetDAO = DAOFactory.getTrajetDAO();
+        this.compteurPlaces = ServiceFactory.getCompteurPlaces();
+        this.dictionnaireLieux = ServiceFactory.getDictionnaireLieux();
     }
 
     public Optional<Conducteur> getConducteurById(Long id) {
@@ -30,6 +39,27 @@ public class ConducteurService {
         return conducteurDAO.findAll();
     }
 
+    /**
+     * @param apres Dernier conducteur de la page précédente, ou null pour la première page
+     */
+    public Page<Conducteur> getConducteursPage(Conducteur apres, int taille) {
+        return conducteurDAO.findPage(apres != null ? apres.getId() : null, taille);
+    }
+
+    /**
+     * Conducteurs créés ou modifiés depuis la dernière synchronisation d'un client.
+     * @param depuis Date de modification à partir de laquelle lire (exclue), ou null pour tout lire
+     * @param connus Les identifiants déjà affichés
+     * @param limite Nombre maximal de lignes modifiées ; au-delà, Delta.tronque() demande un rechargement complet
+     */
+    public Delta<Conducteur> getConducteursModifiesDepuis(LocalDateTime depuis, Collection<Long> connus, int limite) {
+        try {
+            return conducteurDAO.findModifiedSince(depuis, connus, limite);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Échec de la synchronisation des conducteurs : " + e.getMessage(), e);
+        }
+    }
+
     public Long creerConducteur(Conducteur conducteur) {
         // Vérification de l'unicité de l'email
         if (conducteurDAO.findByEMail(conducteur.getEmail()).isPresent()) {
@@ -50,35 +80,21 @@ public class ConducteurService {
     }
 
     public boolean supprimerConducteur(Long id) {
-        // Récupérer tous les trajets du conducteur
-        List<Trajet> trajets = trajetDAO.findByConducteurId(id);
-
-        // Supprimer chaque trajet
-        for (Trajet trajet : trajets) {
-            // D'abord supprimer toutes les réservations liées au trajet
-            List<Reservation> reservations = ServiceFactory.getReservationService().getReservationsByTrajet(trajet.getId());
-            for (Reservation reservation : reservations) {
-                // Vérifier s'il y a un paiement lié à la réservation et le supprimer
-                Optional<Paiement> paiement = ServiceFactory.getPaiementService().getPaiementByReservation(reservation.getId());
-                if (paiement.isPresent()) {
-                    ServiceFactory.getPaiementService().rembourserPaiement(paiement.get().getId());
-                }
-                // Supprimer la réservation
-                ServiceFactory.getReservationService().annulerReservation(reservation.getId());
-            }
-
-            // Supprimer les avis liés au trajet
-            List<Avis> avisTrajet = ServiceFactory.getAvisService().getAvisByTrajet(trajet.getId());
-            for (Avis avis : avisTrajet) {
-                ServiceFactory.getAvisService().supprimerAvis(avis.getId());
-            }
+        // Trajets, réservations, paiements, avis et conducteur supprimés en bloc dans une seule transaction
+        BilanSuppression bilan;
+        try {
+            bilan = conducteurDAO.deleteEnCascade(id);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
 
-            // Supprimer le trajet
-            trajetDAO.delete(trajet.getId());
+        for (Long trajetId : bilan.getTrajetIds()) {
+            compteurPlaces.invalider(trajetId);
         }
 
-        // Maintenant supprimer le conducteur
-        return conducteurDAO.delete(id);
+        System.out.println("Suppression du conducteur #" + id + " : " + bilan);
+        return bilan.isSupprime();
     }
 
     public Optional<Conducteur> authentifier(String email, String motDePasse) {
@@ -117,7 +133,11 @@ public class ConducteurService {
             throw new IllegalArgumentException("Le conducteur doit être spécifié");
         }
 
-        return trajetDAO.save(trajet);
+        Long id = trajetDAO.save(trajet);
+        if (id != null) {
+            dictionnaireLieux.ajouterTrajetCree(trajet);
+        }
+        return id;
     }
 
     public boolean annulerTrajet(Long trajetId) {
@@ -141,30 +161,21 @@ public class ConducteurService {
     }
 
     public boolean supprimerTrajet(Long trajetId) {
-        // Vérification préalable que le trajet existe
-        Optional<Trajet> optTrajet = trajetDAO.findById(trajetId);
-        if (optTrajet.isEmpty()) {
-            throw new IllegalArgumentException("Le trajet n'existe pas");
+        // Réservations (annulées d'office), paiements et avis sont supprimés avec le trajet
+        BilanSuppression bilan;
+        try {
+            bilan = trajetDAO.deleteEnCascade(trajetId);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
         }
+        compteurPlaces.invalider(trajetId);
 
-        // Vérifier si c'est un trajet futur avec des réservations confirmées
-        Trajet trajet = optTrajet.get();
-        if (trajet.getDateDepart().isAfter(LocalDateTime.now())) {
-            List<Reservation> reservations = ServiceFactory.getReservationService()
-                    .getReservationsByTrajet(trajetId).stream()
-                    .filter(r -> !r.isAnnule())
-                    .toList();
-
-            if (!reservations.isEmpty()) {
-                // Annuler toutes les réservations liées
-                for (Reservation reservation : reservations) {
-                    ServiceFactory.getReservationService().annulerReservation(reservation.getId());
-                }
-            }
+        if (!bilan.isSupprime()) {
+            throw new IllegalArgumentException("Le trajet n'existe pas");
         }
-
-        // Procéder à la suppression
-        return trajetDAO.delete(trajetId);
+        System.out.println("Suppression du trajet #" + trajetId + " : " + bilan);
+        return true;
     }
 
 
@@ -0,0 +1,259 @@
+package covoiturage.service;
+
+import covoiturage.config.ChangeEvent;
+import covoiturage.config.DatabaseConfig;
+import covoiturage.dao.DAOFactory;
+import covoiturage.dao.LieuMatcher;
+import covoiturage.dao.LieuRegistry;
+import covoiturage.dao.TrajetDAO;
+import covoiturage.model.Trajet;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Dictionnaire des villes des trajets, pour l'autocomplétion des formulaires de recherche.
+ *
+ * Les noms normalisés (LieuMatcher.normaliser : sans accents, casse ni espaces superflus) sont
+ * rangés dans un tableau trié : les villes qui commencent par une saisie forment un intervalle,
+ * trouvé par dichotomie, dont on garde les plus fréquentes. Aucune requête par frappe : les
+ * villes et leurs noms canoniques viennent du LieuRegistry, les fréquences d'un comptage par
+ * identifiant de ville, lu une fois. Chaque trajet créé, par ce client ou, via le flux de
+ * changements, par un autre, est ensuite compté à partir des identifiants de ses villes.
+ * Le thread du flux ne fait aucune requête : une ville pas encore dans le registre, ou un
+ * changement en masse, est traitée par le thread du dictionnaire. Les modifications et
+ * suppressions de trajets ne sont pas décomptées : les fréquences ne servent qu'au classement.
+ */
+public class DictionnaireLieux {
+    private final TrajetDAO trajetDAO;
+    private final LieuRegistry registre;
+    // Lectures de la base demandées par le flux de changements, dans l'ordre d'arrivée
+    private final ExecutorService lectures = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "dictionnaire-lieux");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Accédés sous le verrou de l'instance ; noms et frequences sont alignés sur cles, trié
+    private String[] cles = new String[0];
+    private String[] noms = new String[0];
+    private int[] frequences = new int[0];
+    private boolean charge;
+
+    public DictionnaireLieux() {
+        this.trajetDAO = DAOFactory.getTrajetDAO();
+        this.registre = DAOFactory.getLieuRegistry();
+        DatabaseConfig.addChangeListener(this::appliquer);
+    }
+
+    public synchronized boolean estCharge() {
+        return charge;
+    }
+
+    /**
+     * Lit le dictionnaire s'il ne l'est pas encore : une requête agrégée, plus la table lieux si le
+     * registre ne l'a pas encore lue. À appeler hors de l'EDT.
+     */
+    public void precharger() {
+        synchronized (this) {
+            if (charge) {
+                return;
+            }
+        }
+        recharger();
+    }
+
+    /**
+     * Villes qui commencent par la saisie (casse, espaces et accents ignorés), sans accès à la base :
+     * liste vide tant que le dictionnaire n'est pas chargé.
+     * @param max Nombre maximal de suggestions
+     * @return Les villes, des plus fréquentes aux moins fréquentes, sous leur nom canonique
+     */
+    public synchronized List<String> suggerer(String saisie, int max) {
+        String prefixe = LieuMatcher.normaliser(saisie);
+        if (prefixe.isEmpty() || max <= 0) {
+            return List.of();
+        }
+
+        int debut = position(prefixe);
+        int fin = position(prefixe + Character.MAX_VALUE);
+
+        // Tas des max meilleures : en tête, la moins fréquente (puis la dernière dans l'ordre alphabétique)
+        Comparator<Integer> classement = Comparator.<Integer>comparingInt(i -> frequences[i]).reversed()
+                .thenComparing(i -> cles[i]);
+        PriorityQueue<Integer> meilleures = new PriorityQueue<>(classement.reversed());
+        for (int i = debut; i < fin; i++) {
+            meilleures.add(i);
+            if (meilleures.size() > max) {
+                meilleures.poll();
+            }
+        }
+
+        List<Integer> retenues = new ArrayList<>(meilleures);
+        retenues.sort(classement);
+        List<String> suggestions = new ArrayList<>(retenues.size());
+        for (int i : retenues) {
+            suggestions.add(noms[i]);
+        }
+        return suggestions;
+    }
+
+    /**
+     * @return true si une ville du dictionnaire a ce nom (casse, espaces et accents ignorés)
+     */
+    public synchronized boolean contient(String lieu) {
+        return Arrays.binarySearch(cles, LieuMatcher.normaliser(lieu)) >= 0;
+    }
+
+    /**
+     * Compte un trajet créé par ce client. Avec le flux de changements, le trajet arrive déjà
+     * par son événement INSERT, comme ceux des autres clients : rien à faire ici.
+     */
+    public void ajouterTrajetCree(Trajet trajet) {
+        if (!DatabaseConfig.isChangeFeedEnabled()) {
+            ajouter(trajet);
+        }
+    }
+
+    /**
+     * Appelé sur le thread du flux : seules les villes déjà dans le registre sont comptées ici.
+     */
+    private void appliquer(ChangeEvent evenement) {
+        if (evenement.table() != ChangeEvent.Table.TRAJETS || !estCharge()) {
+            return;
+        }
+        if (evenement.isMasse()) {
+            lectures.execute(this::recharger);
+        } else if (evenement.operation() == ChangeEvent.Operation.INSERT && evenement.id() != null) {
+            if (evenement.lieuDepartId() == null || evenement.lieuArriveeId() == null) {
+                // Notification sans les villes (migration 007 non appliquée) : relecture du trajet
+                lectures.execute(() -> trajetDAO.findById(evenement.id()).ifPresent(this::ajouter));
+                return;
+            }
+            ajouterLieu(evenement.lieuDepartId().intValue());
+            ajouterLieu(evenement.lieuArriveeId().intValue());
+        }
+    }
+
+    private void ajouterLieu(int id) {
+        String nom = registre.getNomConnu(id);
+        if (nom != null) {
+            ajouterNom(nom);
+            return;
+        }
+        // Ville créée par un autre client : le registre relit la table sur le thread du dictionnaire
+        lectures.execute(() -> {
+            try {
+                String annonce = registre.getNomAnnonce(id);
+                if (annonce != null) {
+                    ajouterNom(annonce);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private synchronized void ajouterNom(String lieu) {
+        if (charge) {
+            ajouter(lieu);
+        }
+    }
+
+    private synchronized void ajouter(Trajet trajet) {
+        if (charge) {
+            ajouter(trajet.getLieuDepart());
+            ajouter(trajet.getLieuArrivee());
+        }
+    }
+
+    private void ajouter(String lieu) {
+        String cle = LieuMatcher.normaliser(lieu);
+        if (cle.isEmpty()) {
+            return;
+        }
+        int i = Arrays.binarySearch(cles, cle);
+        if (i >= 0) {
+            frequences[i]++;
+            return;
+        }
+
+        // Nouvelle ville : insertion à sa place dans les tableaux triés
+        int insertion = -i - 1;
+        cles = inserer(cles, insertion, cle);
+        noms = inserer(noms, insertion, lieu.trim());
+        int[] nouvelles = new int[frequences.length + 1];
+        System.arraycopy(frequences, 0, nouvelles, 0, insertion);
+        nouvelles[insertion] = 1;
+        System.arraycopy(frequences, insertion, nouvelles, insertion + 1, frequences.length - insertion);
+        frequences = nouvelles;
+    }
+
+    private void recharger() {
+        // Lecture hors verrou : les suggestions restent servies pendant les requêtes
+        Map<Integer, Integer> parLieu = trajetDAO.countByLieuId();
+        Map<Integer, String> lieux;
+        try {
+            lieux = registre.lieux();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        // Une ville de la table lieux a une seule clé normalisée : son nom canonique est celui affiché
+        Map<String, Integer> frequenceParCle = new HashMap<>();
+        Map<String, String> nomParCle = new HashMap<>();
+        parLieu.forEach((id, nombre) -> {
+            String nom = lieux.get(id);
+            if (nom == null) {
+                return;
+            }
+            String cle = LieuMatcher.normaliser(nom);
+            if (cle.isEmpty()) {
+                return;
+            }
+            frequenceParCle.merge(cle, nombre, Integer::sum);
+            nomParCle.putIfAbsent(cle, nom);
+        });
+
+        String[] nouvellesCles = frequenceParCle.keySet().toArray(new String[0]);
+        Arrays.sort(nouvellesCles);
+        String[] nouveauxNoms = new String[nouvellesCles.length];
+        int[] nouvellesFrequences = new int[nouvellesCles.length];
+        for (int i = 0; i < nouvellesCles.length; i++) {
+            nouveauxNoms[i] = nomParCle.get(nouvellesCles[i]);
+            nouvellesFrequences[i] = frequenceParCle.get(nouvellesCles[i]);
+        }
+
+        synchronized (this) {
+            cles = nouvellesCles;
+            noms = nouveauxNoms;
+            frequences = nouvellesFrequences;
+            charge = true;
+        }
+    }
+
+    /**
+     * @return L'indice de la première clé supérieure ou égale à la valeur
+     */
+    private int position(String valeur) {
+        int i = Arrays.binarySearch(cles, valeur);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    private static String[] inserer(String[] tableau, int position, String valeur) {
+        String[] nouveau = new String[tableau.length + 1];
+        System.arraycopy(tableau, 0, nouveau, 0, position);
+        nouveau[position] = valeur;
+        System.arraycopy(tableau, position, nouveau, position + 1, tableau.length - position);
+        return nouveau;
+    }
+}
@@ -1,6 +1,7 @@
 package covoiturage.service;
 
 import covoiturage.dao.DAOFactory;
+import covoiturage.dao.Delta;
 import covoiturage.dao.ReservationDAO;
 import covoiturage.dao.TrajetDAO;
 import covoiturage.dao.UtilisateurDAO;
@@ -8,16 +9,20 @@ import covoiturage.model.Reservation;
 import covoiturage.model.Trajet;
 import covoiturage.model.enums.StatutReservation;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 public class ReservationService {
     private ReservationDAO reservationDAO;
     private TrajetDAO trajetDAO;
     private UtilisateurDAO utilisateurDAO;
     private TrajetService trajetService;
+    private CompteurPlaces compteurPlaces;
+    private RetryPolicy retryPolicy;
 
 
     public ReservationService() {
@@ -25,12 +30,21 @@ public class ReservationService {
         this.trajetDAO = DAOFactory.getTrajetDAO();
         this.utilisateurDAO = DAOFactory.getUtilisateurDAO();
         this.trajetService = new TrajetService();
+        this.compteurPlaces = ServiceFactory.getCompteurPlaces();
+        this.retryPolicy = RetryPolicy.fromConfig();
     }
 
     public Optional<Reservation> getReservationById(Long id) {
         return reservationDAO.findById(id);
     }
 
+    /**
+     * @return Les réservations trouvées, par identifiant, chargées en une requête
+     */
+    public Map<Long, Reservation> getReservationsByIds(Collection<Long> ids) {
+        return reservationDAO.findByIds(ids);
+    }
+
     public List<Reservation> getAllReservations() {
         return reservationDAO.findAll();
     }
@@ -40,14 +54,54 @@ public class ReservationService {
     }
 
 
+    public List<Reservation> getReservationsRecentes(Long utilisateurId, int limite) {
+        return reservationDAO.findRecentesByUtilisateurId(utilisateurId, limite);
+    }
+
     public List<Reservation> getReservationsByTrajet(Long trajetId) {
         return reservationDAO.findByTrajetId(trajetId);
     }
 
+    /**
+     * @return Les réservations de tous les trajets du conducteur, lues en une requête
+     */
+    public List<Reservation> getReservationsByConducteur(Long conducteurId) {
+        return reservationDAO.findByConducteurId(conducteurId);
+    }
+
+    /**
+     * Réservations d'un utilisateur créées ou modifiées depuis la dernière synchronisation d'un client.
+     * @param depuis Date de modification à partir de laquelle lire (exclue), ou null pour tout lire
+     * @param connus Les identifiants déjà affichés
+     * @param limite Nombre maximal de lignes modifiées ; au-delà, Delta.tronque() demande un rechargement complet
+     */
+    public Delta<Reservation> getReservationsModifieesDepuisByUtilisateur(Long utilisateurId, LocalDateTime depuis,
+                                                                          Collection<Long> connus, int limite) {
+        try {
+            return reservationDAO.findByUtilisateurIdModifiedSince(utilisateurId, depuis, connus, limite);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Échec de la synchronisation des réservations : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Réservations des trajets d'un conducteur créées ou modifiées depuis la dernière synchronisation d'un client.
+     * @param depuis Date de modification à partir de laquelle lire (exclue), ou null pour tout lire
+     * @param connus Les identifiants déjà affichés
+     * @param limite Nombre maximal de lignes modifiées ; au-delà, Delta.tronque() demande un rechargement complet
+     */
+    public Delta<Reservation> getReservationsModifieesDepuisByConducteur(Long conducteurId, LocalDateTime depuis,
+                                                                         Collection<Long> connus, int limite) {
+        try {
+            return reservationDAO.findByConducteurIdModifiedSince(conducteurId, depuis, connus, limite);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Échec de la synchronisation des réservations : " + e.getMessage(), e);
+        }
+    }
+
 
     public Long creerReservation(Reservation reservation) {
         Long trajetId = reservation.getTrajet().getId();
-        Long utilisateurId = reservation.getUtilisateur().getId();
 
         // Vérifier la disponibilité du trajet
         Optional<Trajet> optTrajet = trajetService.getTrajetById(trajetId);
@@ -62,19 +116,7 @@ public class ReservationService {
             throw new IllegalArgumentException("Ce trajet n'est pas disponible");
         }
 
-        // Calculer le nombre total de places déjà réservées par cet utilisateur pour ce trajet
-        int placesDejaReservees = 0;
-        List<Reservation> reservationsExistantes = reservationDAO.findByTrajetId(trajetId).stream()
-                .filter(r -> r.getUtilisateur().getId().equals(utilisateurId) &&
-                        !r.isAnnule() &&
-                        r.getStatut() != StatutReservation.ANNULEE)
-                .collect(Collectors.toList());
-
-        for (Reservation r : reservationsExistantes) {
-            placesDejaReservees += r.getNbPlaces();
-        }
-
-        // Vérifier que le nombre total de places (existantes + nouvelles) ne dépasse pas le nombre de places disponibles
+        // Vérification rapide pour un message précis ; la garantie vient de la réservation atomique ci-dessous
         int placesRestantes = trajet.calculerPlacesRestantes();
         if (reservation.getNbPlaces() > placesRestantes) {
             throw new IllegalArgumentException("Il ne reste que " + placesRestantes + " places disponibles pour ce trajet");
@@ -85,7 +127,23 @@ public class ReservationService {
         reservation.setStatut(StatutReservation.EN_ATTENTE);
         reservation.setAnnule(false);
 
-        return reservationDAO.save(reservation);
+        // Vérification et réservation des places dans une seule transaction
+        Long id;
+        try {
+            id = retryPolicy.executer(() -> reservationDAO.reserverPlaces(reservation));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        if (id == null) {
+            // Places prises entre-temps par une réservation concurrente
+            compteurPlaces.invalider(trajetId);
+            throw new IllegalArgumentException("Il ne reste plus assez de places disponibles pour ce trajet");
+        }
+
+        compteurPlaces.ajouter(trajetId, reservation.getNbPlaces());
+        return id;
     }
 
 
@@ -99,30 +157,23 @@ public class ReservationService {
                 throw new IllegalArgumentException("La réservation n'est pas en attente et ne peut être confirmée");
             }
 
-            // Obtenir le trajet associé à la réservation
-            Trajet trajet = reservation.getTrajet();
-
-            // Calculer le nombre de places déjà réservées (confirmées uniquement)
-            int placesConfirmees = 0;
-            List<Reservation> reservationsTrajet = reservationDAO.findByTrajetId(trajet.getId());
-            for (Reservation r : reservationsTrajet) {
-                // Ne compter que les réservations confirmées autres que celle-ci
-                if (r.getId() != reservation.getId() &&
-                        r.getStatut() == StatutReservation.CONFIRMEE &&
-                        !r.isAnnule()) {
-                    placesConfirmees += r.getNbPlaces();
-                }
+            // Les places ont été réservées à la création : la confirmation ne peut pas dépasser la capacité.
+            // La mise à jour conditionnelle écarte une annulation ou une confirmation concurrente.
+            boolean confirme;
+            try {
+                confirme = retryPolicy.executer(() -> reservationDAO.confirmer(reservationId));
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return false;
             }
 
-            // Vérifier s'il reste assez de places
-            int placesRestantes = trajet.getNbPlacesDisponibles() - placesConfirmees;
-            if (reservation.getNbPlaces() > placesRestantes) {
-                throw new IllegalArgumentException("Le trajet n'a plus assez de places disponibles");
+            if (!confirme) {
+                throw new IllegalArgumentException("La réservation n'est pas en attente et ne peut être confirmée");
             }
 
-            // Si tout est bon, confirmer la réservation
+            // Les places étaient déjà comptées depuis la création : le compteur ne change pas
             reservation.setStatut(StatutReservation.CONFIRMEE);
-            return reservationDAO.update(reservation);
+            return true;
         }
         return false;
     }
@@ -137,9 +188,23 @@ public class ReservationService {
                 throw new IllegalArgumentException("La réservation est déjà annulée");
             }
 
+            // Annulation et libération des places dans une seule transaction
+            boolean annule;
+            try {
+                annule = retryPolicy.executer(() -> reservationDAO.annuler(reservationId));
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return false;
+            }
+
+            if (!annule) {
+                throw new IllegalArgumentException("La réservation est déjà annulée");
+            }
+
             reservation.setStatut(StatutReservation.ANNULEE);
             reservation.setAnnule(true);
-            return reservationDAO.update(reservation);
+            compteurPlaces.liberer(reservation.getTrajet().getId(), reservation.getNbPlaces());
+            return true;
         }
         return false;
     }
@@ -0,0 +1,81 @@
+package covoiturage.service;
+
+import covoiturage.config.DatabaseConfig;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Politique de nouvelle tentative pour les opérations transactionnelles.
+ * Seules les erreurs transitoires de PostgreSQL sont rejouées : échec de sérialisation,
+ * interblocage et délai d'attente de verrou dépassé.
+ */
+public class RetryPolicy {
+    private static final String SERIALIZATION_FAILURE = "40001";
+    private static final String DEADLOCK_DETECTED = "40P01";
+    private static final String LOCK_NOT_AVAILABLE = "55P03";
+
+    private final int maxTentatives;
+    private final long delaiInitialMs;
+    private final long delaiMaxMs;
+
+    public RetryPolicy(int maxTentatives, long delaiInitialMs, long delaiMaxMs) {
+        if (maxTentatives < 1) {
+            throw new IllegalArgumentException("Le nombre de tentatives doit être au moins 1");
+        }
+        this.maxTentatives = maxTentatives;
+        this.delaiInitialMs = delaiInitialMs;
+        this.delaiMaxMs = delaiMaxMs;
+    }
+
+    /**
+     * Construit la politique à partir des propriétés db.retry.* de database.properties.
+     */
+    public static RetryPolicy fromConfig() {
+        return new RetryPolicy(
+                DatabaseConfig.getIntProperty("db.retry.maxAttempts", 3),
+                DatabaseConfig.getIntProperty("db.retry.initialDelayMs", 20),
+                DatabaseConfig.getIntProperty("db.retry.maxDelayMs", 500));
+    }
+
+    /**
+     * Opération transactionnelle pouvant échouer avec une SQLException.
+     */
+    @FunctionalInterface
+    public interface Operation<T> {
+        T executer() throws SQLException;
+    }
+
+    /**
+     * Exécute l'opération en la rejouant sur erreur transitoire, avec un délai
+     * exponentiel aléatoire entre deux tentatives.
+     * @throws SQLException La dernière erreur si toutes les tentatives échouent, ou toute erreur non transitoire
+     */
+    public <T> T executer(Operation<T> operation) throws SQLException {
+        long delai = delaiInitialMs;
+        for (int tentative = 1; ; tentative++) {
+            try {
+                return operation.executer();
+            } catch (SQLException e) {
+                if (tentative >= maxTentatives || !estTransitoire(e)) {
+                    throw e;
+                }
+            }
+
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextLong(delai / 2, delai + 1));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrompu entre deux tentatives", ie);
+            }
+            delai = Math.min(delai * 2, delaiMaxMs);
+        }
+    }
+
+    private static boolean estTransitoire(SQLException e) {
+        String etat = e.getSQLState();
+        return SERIALIZATION_FAILURE.equals(etat)
+                || DEADLOCK_DETECTED.equals(etat)
+                || LOCK_NOT_AVAILABLE.equals(etat);
+    }
+}
@@ -1,6 +1,14 @@
 package covoiturage.service;
 
+import covoiturage.config.DatabaseConfig;
+import covoiturage.config.QueryScope;
+
+import java.util.function.Supplier;
+
 public class ServiceFactory {
+    // Déclaré en premier : utilisé par les constructeurs des services ci-dessous
+    private static final CompteurPlaces compteurPlaces = new CompteurPlaces();
+    private static final DictionnaireLieux dictionnaireLieux = new DictionnaireLieux();
     private static final UtilisateurService utilisateurService = new UtilisateurService();
     private static final ConducteurService conducteurService = new ConducteurService();
     private static final AdminService adminService = new AdminService();
@@ -8,6 +16,15 @@ public class ServiceFactory {
     private static final ReservationService reservationService = new ReservationService();
     private static final PaiementService paiementService = new PaiementService();
     private static final AvisService avisService = new AvisService();
+    private static final StatistiquesService statistiquesService = new StatistiquesService();
+
+    public static CompteurPlaces getCompteurPlaces() {
+        return compteurPlaces;
+    }
+
+    public static DictionnaireLieux getDictionnaireLieux() {
+        return dictionnaireLieux;
+    }
 
     public static UtilisateurService getUtilisateurService() {
         return utilisateurService;
@@ -36,4 +53,24 @@ public class ServiceFactory {
     public static AvisService getAvisService() {
         return avisService;
     }
+
+    public static StatistiquesService getStatistiquesService() {
+        return statistiquesService;
+    }
+
+    /**
+     * Point d'entrée d'un appel aux services : ses requêtes sont comptées dans une portée explicite,
+     * fermée à la fin de l'appel. Les requêtes des appels qui ne passent pas par ici sont seulement
+     * attribuées à leur méthode de service, sans contrôle de budget (QueryBudget).
+     * @param nom Le nom de l'appel dans les statistiques, et la clé de son budget (db.queryBudget.max.nom)
+     */
+    public static <T> T appeler(String nom, Supplier<T> appel) {
+        // try/finally plutôt que try-with-resources : la portée n'est pas lue dans le bloc (-Xlint:try)
+        QueryScope portee = DatabaseConfig.openQueryScope(nom);
+        try {
+            return appel.get();
+        } finally {
+            portee.close();
+        }
+    }
 }
@@ -0,0 +1,31 @@
+package covoiturage.service;
+
+import covoiturage.dao.DAOFactory;
+import covoiturage.dao.StatistiquesDAO;
+import covoiturage.model.ReservationsParStatut;
+import covoiturage.model.StatistiquesConducteur;
+import covoiturage.model.StatistiquesPlateforme;
+
+/**
+ * Indicateurs des tableaux de bord, calculés par des requêtes d'agrégat :
+ * leur coût ne dépend pas du nombre d'entités à charger.
+ */
+public class StatistiquesService {
+    private StatistiquesDAO statistiquesDAO;
+
+    public StatistiquesService() {
+        this.statistiquesDAO = DAOFactory.getStatistiquesDAO();
+    }
+
+    public StatistiquesPlateforme getStatistiquesPlateforme() {
+        return statistiquesDAO.statistiquesPlateforme();
+    }
+
+    public StatistiquesConducteur getStatistiquesConducteur(Long conducteurId) {
+        return statistiquesDAO.statistiquesConducteur(conducteurId);
+    }
+
+    public ReservationsParStatut getReservationsParStatutUtilisateur(Long utilisateurId) {
+        return statistiquesDAO.reservationsParStatutUtilisateur(utilisateurId);
+    }
+}
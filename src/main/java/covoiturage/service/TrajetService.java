@@ -1,49 +1,141 @@
 package covoiturage.service;
 
+import covoiturage.dao.BilanSuppression;
 import covoiturage.dao.DAOFactory;
+import covoiturage.dao.Delta;
+import covoiturage.dao.Page;
 import covoiturage.dao.TrajetDAO;
-import covoiturage.model.Reservation;
 import covoiturage.model.Trajet;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 public class TrajetService {
     private TrajetDAO trajetDAO;
+    private CompteurPlaces compteurPlaces;
 
     public TrajetService() {
         this.trajetDAO = DAOFactory.getTrajetDAO();
+        this.compteurPlaces = ServiceFactory.getCompteurPlaces();
     }
 
     public Optional<Trajet> getTrajetById(Long id) {
-        return trajetDAO.findById(id);
+        Optional<Trajet> trajet = trajetDAO.findById(id);
+        trajet.ifPresent(t -> compteurPlaces.prechargerTrajets(List.of(t)));
+        return trajet;
+    }
+
+    /**
+     * Charge un lot de trajets en une requête, places réservées comprises.
+     * @return Les trajets trouvés, par identifiant
+     */
+    public Map<Long, Trajet> getTrajetsByIds(Collection<Long> ids) {
+        Map<Long, Trajet> trajets = trajetDAO.findByIds(ids);
+        compteurPlaces.prechargerTrajets(trajets.values());
+        return trajets;
     }
 
     public List<Trajet> getAllTrajets() {
-        return trajetDAO.findAll();
+        return avecPlaces(trajetDAO.findAll());
     }
 
     public List<Trajet> rechercherTrajets(String lieuDepart, String lieuArrivee) {
-        return trajetDAO.findByLieuDepartAndLieuArrivee(lieuDepart, lieuArrivee);
+        return avecPlaces(trajetDAO.findByLieuDepartAndLieuArrivee(lieuDepart, lieuArrivee));
     }
 
 
     public List<Trajet> rechercherTrajetsDisponibles(String lieuDepart, String lieuArrivee, LocalDateTime dateMin) {
-        // Utiliser une approche plus flexible en récupérant tous les trajets
-        // puis en filtrant manuellement
-        return trajetDAO.findAll().stream()
-                .filter(trajet -> trajet.getLieuDepart().trim().toLowerCase().equalsIgnoreCase(lieuDepart.trim().toLowerCase()))
-                .filter(trajet -> trajet.getLieuArrivee().trim().toLowerCase().equalsIgnoreCase(lieuArrivee.trim().toLowerCase()))
-                .filter(trajet -> !trajet.isEstAnnule())
-                .filter(trajet -> trajet.getDateDepart().isAfter(dateMin))
-                .filter(trajet -> trajet.calculerPlacesRestantes() > 0)
-                .collect(Collectors.toList());
+        return rechercherTrajetsDisponibles(lieuDepart, lieuArrivee, dateMin, null, 1);
+    }
+
+    /**
+     * Recherche des trajets disponibles ; tous les filtres sont appliqués par la base.
+     * @param dateMax Date de départ maximale, ou null
+     * @param nbPlaces Nombre de places souhaitées
+     */
+    public List<Trajet> rechercherTrajetsDisponibles(String lieuDepart, String lieuArrivee, LocalDateTime dateMin,
+                                                     LocalDateTime dateMax, int nbPlaces) {
+        return avecPlaces(trajetDAO.rechercherDisponibles(lieuDepart, lieuArrivee, dateMin, dateMax, nbPlaces));
+    }
+
+    /**
+     * @param apres Dernier trajet de la page précédente, ou null pour la première page
+     */
+    public Page<Trajet> getTrajetsPage(Trajet apres, int taille) {
+        return avecPlaces(apres == null
+                ? trajetDAO.findPage(null, null, taille)
+                : trajetDAO.findPage(apres.getDateDepart(), apres.getId(), taille));
+    }
+
+    /**
+     * @param apres Dernier trajet de la page précédente, ou null pour la première page
+     */
+    public Page<Trajet> getTrajetsPageByConducteur(Long conducteurId, Trajet apres, int taille) {
+        return avecPlaces(apres == null
+                ? trajetDAO.findPageByConducteurId(conducteurId, null, null, taille)
+                : trajetDAO.findPageByConducteurId(conducteurId, apres.getDateDepart(), apres.getId(), taille));
     }
 
     public List<Trajet> getTrajetsByConducteur(Long conducteurId) {
-        return trajetDAO.findByConducteurId(conducteurId);
+        return avecPlaces(trajetDAO.findByConducteurId(conducteurId));
+    }
+
+    /**
+     * Trajets créés ou modifiés depuis la dernière synchronisation d'un client.
+     * @param depuis Date de modification à partir de laquelle lire (exclue), ou null pour tout lire
+     * @param connus Les identifiants déjà affichés
+     * @param limite Nombre maximal de lignes modifiées ; au-delà, Delta.tronque() demande un rechargement complet
+     */
+    public Delta<Trajet> getTrajetsModifiesDepuis(LocalDateTime depuis, Collection<Long> connus, int limite) {
+        try {
+            return avecPlaces(trajetDAO.findModifiedSince(depuis, connus, limite));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Échec de la synchronisation des trajets : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Trajets d'un conducteur créés ou modifiés depuis la dernière synchronisation d'un client.
+     * @param depuis Date de modification à partir de laquelle lire (exclue), ou null pour tout lire
+     * @param connus Les identifiants déjà affichés
+     * @param limite Nombre maximal de lignes modifiées ; au-delà, Delta.tronque() demande un rechargement complet
+     */
+    public Delta<Trajet> getTrajetsModifiesDepuisByConducteur(Long conducteurId, LocalDateTime depuis,
+                                                               Collection<Long> connus, int limite) {
+        try {
+            return avecPlaces(trajetDAO.findByConducteurIdModifiedSince(conducteurId, depuis, connus, limite));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Échec de la synchronisation des trajets : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Précharge en une requête agrégée les places réservées d'une liste de trajets,
+     * pour que calculerPlacesRestantes() n'interroge plus la base ligne par ligne.
+     */
+    private List<Trajet> avecPlaces(List<Trajet> trajets) {
+        compteurPlaces.prechargerTrajets(trajets);
+        return trajets;
+    }
+
+    private Page<Trajet> avecPlaces(Page<Trajet> page) {
+        compteurPlaces.prechargerTrajets(page.elements());
+        return page;
+    }
+
+    /**
+     * Un trajet modifié a pu changer de places réservées : son compteur est relu.
+     */
+    private Delta<Trajet> avecPlaces(Delta<Trajet> delta) {
+        for (Trajet trajet : delta.modifies()) {
+            compteurPlaces.invalider(trajet.getId());
+        }
+        compteurPlaces.prechargerTrajets(delta.modifies());
+        return delta;
     }
 
     public boolean trajetEstDisponible(Long trajetId, int nbPlaces) {
@@ -58,29 +150,20 @@ public class TrajetService {
     }
 
     public boolean deleteTrajet(Long trajetId) {
-        // Vérification préalable que le trajet existe
-        Optional<Trajet> optTrajet = trajetDAO.findById(trajetId);
-        if (optTrajet.isEmpty()) {
-            throw new IllegalArgumentException("Le trajet n'existe pas");
+        // Réservations (annulées d'office), paiements et avis sont supprimés avec le trajet
+        BilanSuppression bilan;
+        try {
+            bilan = trajetDAO.deleteEnCascade(trajetId);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
         }
+        compteurPlaces.invalider(trajetId);
 
-        // Vérifier si c'est un trajet futur avec des réservations confirmées
-        Trajet trajet = optTrajet.get();
-        if (trajet.getDateDepart().isAfter(LocalDateTime.now())) {
-            List<Reservation> reservations = ServiceFactory.getReservationService()
-                    .getReservationsByTrajet(trajetId).stream()
-                    .filter(r -> !r.isAnnule())
-                    .toList();
-
-            if (!reservations.isEmpty()) {
-                // Annuler toutes les réservations liées
-                for (Reservation reservation : reservations) {
-                    ServiceFactory.getReservationService().annulerReservation(reservation.getId());
-                }
-            }
+        if (!bilan.isSupprime()) {
+            throw new IllegalArgumentException("Le trajet n'existe pas");
         }
-
-        // Procéder à la suppression
-        return trajetDAO.delete(trajetId);
+        System.out.println("Suppression du trajet #" + trajetId + " : " + bilan);
+        return true;
     }
 }
\ No newline at end of file
@@ -1,9 +1,14 @@
 package covoiturage.service;
 
 import covoiturage.dao.DAOFactory;
+import covoiturage.dao.Delta;
+import covoiturage.dao.Page;
 import covoiturage.dao.UtilisateurDAO;
 import covoiturage.model.Utilisateur;
 
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +31,27 @@ public class UtilisateurService {
         return  utilisateurDAO.findAll();
     }
 
+    /**
+     * @param apres Dernier utilisateur de la page précédente, ou null pour la première page
+     */
+    public Page<Utilisateur> getUtilisateursPage(Utilisateur apres, int taille) {
+        return utilisateurDAO.findPage(apres != null ? apres.getId() : null, taille);
+    }
+
+    /**
+     * Utilisateurs créés ou modifiés depuis la dernière synchronisation d'un client.
+     * @param depuis Date de modification à partir de laquelle lire (exclue), ou null pour tout lire
+     * @param connus Les identifiants déjà affichés
+     * @param limite Nombre maximal de lignes modifiées ; au-delà, Delta.tronque() demande un rechargement complet
+     */
+    public Delta<Utilisateur> getUtilisateursModifiesDepuis(LocalDateTime depuis, Collection<Long> connus, int limite) {
+        try {
+            return utilisateurDAO.findModifiedSince(depuis, connus, limite);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Échec de la synchronisation des utilisateurs : " + e.getMessage(), e);
+        }
+    }
+
     public Long creerUtilisateur(Utilisateur utilisateur) {
         if (utilisateurDAO.existsByEmail(utilisateur.getEmail())) {
             throw new IllegalArgumentException("Un utilisateur avec cet email existe déjà");
@@ -0,0 +1,137 @@
+package covoiturage.tools;
+
+import covoiturage.config.DatabaseConfig;
+import covoiturage.dao.DAOFactory;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Mesure la latence de findById sur chaque entité, avec la configuration courante du pilote.
+ *
+ * Usage : BenchmarkFindById [iterations] [--comparer]
+ * Avec --comparer, la mesure est relancée dans deux JVM : « avant » sans préparation côté serveur
+ * ni cache de requêtes (db.prepareThreshold=0, db.statementCacheQueries=0), puis « après »
+ * avec les réglages de database.properties. Le cache d'entités est désactivé dans les deux cas
+ * pour que chaque appel atteigne la base, ainsi que l'instrumentation et le budget de requêtes,
+ * qui ajouteraient leur propre coût à la mesure.
+ */
+public class BenchmarkFindById {
+    private static final int ECHANTILLON_IDS = 100;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = 2000;
+        boolean comparer = false;
+        for (String arg : args) {
+            if (arg.equals("--comparer")) {
+                comparer = true;
+            } else {
+                iterations = Integer.parseInt(arg);
+            }
+        }
+
+        if (comparer) {
+            lancer("Avant : sans préparation côté serveur ni cache de requêtes", iterations,
+                    "-Ddb.prepareThreshold=0", "-Ddb.statementCacheQueries=0", "-Ddb.statementCacheSizeMiB=0");
+            lancer("Après : réglages de database.properties", iterations);
+            return;
+        }
+
+        if (DatabaseConfig.getBooleanProperty("db.cache.enabled", true)) {
+            System.out.println("Attention : le cache d'entités est actif (-Ddb.cache.enabled=false pour le désactiver)");
+        }
+        if (DatabaseConfig.getBooleanProperty("db.instrumentation.enabled", false)) {
+            System.out.println("Attention : l'instrumentation des requêtes est active (-Ddb.instrumentation.enabled=false pour la désactiver)");
+        }
+        System.out.println("prepareThreshold=" + DatabaseConfig.getIntProperty("db.prepareThreshold", 5)
+                + ", statementCacheQueries=" + DatabaseConfig.getIntProperty("db.statementCacheQueries", 256)
+                + ", " + iterations + " appels par entité");
+
+        Map<String, Function<Long, ?>> entites = new LinkedHashMap<>();
+        entites.put("utilisateurs", DAOFactory.getUtilisateurDAO()::findById);
+        entites.put("conducteurs", DAOFactory.getConducteurDAO()::findById);
+        entites.put("administrateurs", DAOFactory.getAdministrateurDAO()::findById);
+        entites.put("trajets", DAOFactory.getTrajetDAO()::findById);
+        entites.put("reservations", DAOFactory.getReservationDAO()::findById);
+        entites.put("avis", DAOFactory.getAvisDAO()::findById);
+        entites.put("paiements", DAOFactory.getPaiementDAO()::findById);
+
+        System.out.printf("%-16s %10s %10s %10s %10s%n", "entité", "moy. µs", "p50 µs", "p95 µs", "p99 µs");
+        for (Map.Entry<String, Function<Long, ?>> entite : entites.entrySet()) {
+            List<Long> ids = echantillonIds(entite.getKey());
+            if (ids.isEmpty()) {
+                System.out.printf("%-16s %10s%n", entite.getKey(), "(vide)");
+                continue;
+            }
+            mesurer(entite.getKey(), entite.getValue(), ids, iterations);
+        }
+        DatabaseConfig.getPoolStatistics().ifPresent(stats -> System.out.println(stats));
+    }
+
+    private static void mesurer(String nom, Function<Long, ?> findById, List<Long> ids, int iterations) {
+        // Échauffement : JIT et préparation des requêtes sur les connexions du pool
+        for (int i = 0; i < Math.min(iterations, 200); i++) {
+            findById.apply(ids.get(i % ids.size()));
+        }
+
+        long[] durees = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long debut = System.nanoTime();
+            findById.apply(ids.get(i % ids.size()));
+            durees[i] = System.nanoTime() - debut;
+        }
+
+        Arrays.sort(durees);
+        double moyenne = Arrays.stream(durees).average().orElse(0);
+        System.out.printf("%-16s %10.1f %10.1f %10.1f %10.1f%n", nom,
+                moyenne / 1000, centile(durees, 50) / 1000.0, centile(durees, 95) / 1000.0, centile(durees, 99) / 1000.0);
+    }
+
+    private static long centile(long[] dureesTriees, int centile) {
+        int index = (int) Math.ceil(centile / 100.0 * dureesTriees.length) - 1;
+        return dureesTriees[Math.max(0, Math.min(index, dureesTriees.length - 1))];
+    }
+
+    private static List<Long> echantillonIds(String table) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Connection conn = DatabaseConfig.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id FROM " + table + " ORDER BY id LIMIT " + ECHANTILLON_IDS)) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Relance le benchmark dans une JVM fille, avec les propriétés système données.
+     */
+    private static void lancer(String titre, int iterations, String... proprietes) throws Exception {
+        List<String> commande = new ArrayList<>();
+        commande.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        commande.add("-cp");
+        commande.add(System.getProperty("java.class.path"));
+        commande.add("-Ddb.cache.enabled=false");
+        commande.add("-Ddb.instrumentation.enabled=false");
+        commande.add("-Ddb.queryBudget.enabled=false");
+        commande.addAll(Arrays.asList(proprietes));
+        commande.add(BenchmarkFindById.class.getName());
+        commande.add(String.valueOf(iterations));
+
+        System.out.println("\n=== " + titre + " ===");
+        int code = new ProcessBuilder(commande).inheritIO().start().waitFor();
+        if (code != 0) {
+            throw new IllegalStateException("La mesure « " + titre + " » a échoué (code " + code + ")");
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package covoiturage.tools;
+
+import covoiturage.dao.DAOFactory;
+import covoiturage.dao.ImportDAO;
+import covoiturage.dao.LieuRegistry;
+
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Génère un jeu de données synthétique réaliste pour les tests de charge et de capacité,
+ * écrit par lots avec le chemin d'insertion en masse d'ImportDAO (COPY par défaut).
+ *
+ * Usage : GenerateurDonnees [--echelle=1] [--graine=42] [--reference=aaaa-mm-jj] [--remplacer]
+ *                           [--mode=copy|batch] [--lot=50000]
+ *
+ * À l'échelle 1 : 20 000 utilisateurs, 2 000 conducteurs et 200 000 trajets, avec leurs réservations,
+ * paiements et avis. Les villes sont tirées selon une loi de Zipf (quelques grands axes concentrent
+ * l'essentiel du trafic), les réservations suivent une courbe de réservation (la plupart dans les jours
+ * qui précèdent le départ) et les trajets sont répartis de six mois avant à deux mois après la date
+ * de référence. Même échelle, même graine et même référence : mêmes lignes.
+ *
+ * Les tables doivent être vides, sauf avec --remplacer qui les vide d'abord (les administrateurs sont conservés).
+ */
+public class GenerateurDonnees {
+
+    /** Villes par ordre de fréquence décroissante : le rang détermine le poids de Zipf. */
+    public static final List<String> VILLES = List.of(
+            "Tunis", "Sfax", "Sousse", "Kairouan", "Bizerte", "Gabès", "Ariana", "Gafsa", "Monastir",
+            "Ben Arous", "Kasserine", "Médenine", "Nabeul", "Tataouine", "Béja", "Jendouba", "Mahdia",
+            "Sidi Bouzid", "Siliana", "Le Kef", "Tozeur", "Kébili", "Zaghouan", "Manouba", "Hammamet", "Djerba");
+
+    private static final String[] NOMS = {
+            "Ben Ali", "Trabelsi", "Gharbi", "Jebali", "Mansouri", "Hammami", "Bouazizi", "Chaabane",
+            "Ayari", "Mejri", "Sassi", "Khelifi", "Dridi", "Ferchichi", "Brahmi", "Zouari", "Karray", "Masmoudi"};
+    private static final String[] PRENOMS = {
+            "Mohamed", "Ahmed", "Ali", "Youssef", "Hedi", "Amine", "Sami", "Karim", "Nizar", "Walid",
+            "Fatma", "Amira", "Sarra", "Ines", "Mariem", "Nour", "Salma", "Rim", "Olfa", "Leila"};
+    private static final String[] PREFERENCES = {
+            "Non-fumeur", "Musique", "Animaux acceptés", "Discussion", "Calme", "Climatisation"};
+    private static final String[] VEHICULES = {
+            "Peugeot 208", "Renault Clio", "Volkswagen Polo", "Kia Picanto", "Hyundai i10",
+            "Citroën C3", "Dacia Logan", "Toyota Yaris", "Fiat Tipo", "Seat Ibiza"};
+    private static final String[] COMMENTAIRES = {
+            "Trajet agréable, conducteur ponctuel.", "Très bonne conduite.", "Un peu de retard au départ.",
+            "Voiture propre et confortable.", "Je recommande.", "Conduite trop rapide à mon goût."};
+    /** Répartition cumulée des notes 1 à 5 des avis */
+    private static final double[] CUMUL_NOTES = {0.03, 0.08, 0.20, 0.55, 1.0};
+
+    private static final List<String> COLONNES_UTILISATEURS =
+            List.of("id", "nom", "prenom", "email", "mot_de_passe", "telephone", "preferences");
+    private static final List<String> COLONNES_CONDUCTEURS =
+            List.of("id", "nom", "prenom", "email", "mot_de_passe", "telephone", "numero_permis", "vehicule_info");
+    private static final List<String> COLONNES_TRAJETS =
+            List.of("id", "lieu_depart_id", "lieu_arrivee_id", "date_depart", "prix", "nb_places_disponibles",
+                    "nb_places_reservees", "conducteur_id", "est_annule");
+    private static final List<String> COLONNES_RESERVATIONS =
+            List.of("id", "date_reservation", "nb_places", "statut", "utilisateur_id", "trajet_id", "est_annule");
+    private static final List<String> COLONNES_PAIEMENTS =
+            List.of("id", "montant", "date_paiement", "reservation_id", "est_rembourse");
+    private static final List<String> COLONNES_AVIS =
+            List.of("id", "note", "commentaire", "utilisateur_id", "trajet_id");
+
+    private final int nbUtilisateurs;
+    private final int nbConducteurs;
+    private final int nbTrajets;
+    private final long graine;
+    private final LocalDateTime reference;
+    private final ImportDAO.Mode mode;
+    private final int tailleLot;
+    private final ImportDAO importDAO = DAOFactory.getImportDAO();
+
+    private final SplittableRandom aleatoire;
+    private final double[] cumulVilles;
+    // Identifiant dans la table lieux de chaque ville de VILLES
+    private final int[] idsVilles = new int[VILLES.size()];
+
+    private final List<Object[]> trajets = new ArrayList<>();
+    private final List<Object[]> reservations = new ArrayList<>();
+    private final List<Object[]> paiements = new ArrayList<>();
+    private final List<Object[]> avis = new ArrayList<>();
+    private long idReservation;
+    private long idPaiement;
+    private long idAvis;
+    private long lignesEcrites;
+    private long debut;
+
+    /**
+     * @param echelle Facteur de volume (1 = 200 000 trajets ; les valeurs fractionnaires sont admises)
+     * @param reference La date « actuelle » du jeu : trajets passés avant, à venir après
+     */
+    public GenerateurDonnees(double echelle, long graine, LocalDate reference, ImportDAO.Mode mode, int tailleLot) {
+        if (echelle <= 0) {
+            throw new IllegalArgumentException("L'échelle doit être positive");
+        }
+        this.nbUtilisateurs = Math.max(1, (int) Math.round(20_000 * echelle));
+        this.nbConducteurs = Math.max(1, (int) Math.round(2_000 * echelle));
+        this.nbTrajets = Math.max(1, (int) Math.round(200_000 * echelle));
+        this.graine = graine;
+        this.reference = reference.atStartOfDay();
+        this.mode = mode;
+        this.tailleLot = tailleLot;
+        this.aleatoire = new SplittableRandom(graine);
+
+        // Loi de Zipf (exposant 1.1) sur le rang des villes
+        cumulVilles = new double[VILLES.size()];
+        double total = 0;
+        for (int i = 0; i < cumulVilles.length; i++) {
+            total += 1 / Math.pow(i + 1, 1.1);
+            cumulVilles[i] = total;
+        }
+        for (int i = 0; i < cumulVilles.length; i++) {
+            cumulVilles[i] /= total;
+        }
+    }
+
+    public static void main(String[] args) throws SQLException {
+        double echelle = 1;
+        long graine = 42;
+        LocalDate reference = LocalDate.now();
+        boolean remplacer = false;
+        ImportDAO.Mode mode = ImportDAO.Mode.COPY;
+        int tailleLot = 50_000;
+
+        for (String arg : args) {
+            if (arg.startsWith("--echelle=")) {
+                echelle = Double.parseDouble(arg.substring("--echelle=".length()));
+            } else if (arg.startsWith("--graine=")) {
+                graine = Long.parseLong(arg.substring("--graine=".length()));
+            } else if (arg.startsWith("--reference=")) {
+                reference = LocalDate.parse(arg.substring("--reference=".length()));
+            } else if (arg.equals("--remplacer")) {
+                remplacer = true;
+            } else if (arg.startsWith("--mode=")) {
+                mode = ImportDAO.Mode.valueOf(arg.substring("--mode=".length()).toUpperCase());
+            } else if (arg.startsWith("--lot=")) {
+                tailleLot = Integer.parseInt(arg.substring("--lot=".length()));
+            } else {
+                throw new IllegalArgumentException("Option inconnue : " + arg);
+            }
+        }
+
+        new GenerateurDonnees(echelle, graine, reference, mode, tailleLot).generer(remplacer);
+    }
+
+    /**
+     * @param remplacer Vide d'abord les tables ; sinon, elles doivent être vides
+     */
+    public void generer(boolean remplacer) throws SQLException {
+        if (remplacer) {
+            importDAO.vider("paiements", "avis", "reservations", "trajets", "conducteurs", "utilisateurs");
+        } else if (importDAO.compter("utilisateurs") + importDAO.compter("conducteurs") + importDAO.compter("trajets") > 0) {
+            throw new IllegalStateException("La base contient déjà des données : relancer avec --remplacer pour les remplacer");
+        }
+
+        System.out.printf("Génération : %d utilisateurs, %d conducteurs, %d trajets (graine %d, référence %s, mode %s)%n",
+                nbUtilisateurs, nbConducteurs, nbTrajets, graine, reference.toLocalDate(), mode);
+        debut = System.nanoTime();
+
+        genererPersonnes("utilisateurs", COLONNES_UTILISATEURS, nbUtilisateurs, false);
+        genererPersonnes("conducteurs", COLONNES_CONDUCTEURS, nbConducteurs, true);
+        // Les villes sont gardées d'une génération à l'autre : seules les absentes sont créées
+        LieuRegistry lieux = DAOFactory.getLieuRegistry();
+        for (int i = 0; i < idsVilles.length; i++) {
+            idsVilles[i] = lieux.resoudre(VILLES.get(i));
+        }
+        genererTrajets();
+
+        for (String table : List.of("utilisateurs", "conducteurs", "trajets", "reservations", "paiements", "avis")) {
+            importDAO.finaliser(table);
+        }
+
+        double secondes = (System.nanoTime() - debut) / 1_000_000_000.0;
+        System.out.printf("Terminé : %d trajets, %d réservations, %d paiements, %d avis ; %d lignes en %.1f s (%.0f lignes/s)%n",
+                nbTrajets, idReservation, idPaiement, idAvis, lignesEcrites, secondes, lignesEcrites / Math.max(secondes, 0.001));
+    }
+
+    private void genererPersonnes(String table, List<String> colonnes, int nombre, boolean conducteurs) throws SQLException {
+        List<Object[]> lot = new ArrayList<>(Math.min(nombre, tailleLot));
+        for (long id = 1; id <= nombre; id++) {
+            String nom = choisir(NOMS);
+            String prenom = choisir(PRENOMS);
+            String email = sansAccents(prenom + "." + nom).toLowerCase().replace(' ', '-')
+                    + "." + id + (conducteurs ? "@conducteur.exemple.tn" : "@exemple.tn");
+            String telephone = "259".charAt(aleatoire.nextInt(3)) + String.format("%07d", aleatoire.nextInt(10_000_000));
+
+            if (conducteurs) {
+                lot.add(new Object[]{id, nom, prenom, email, "motdepasse", telephone,
+                        String.format("%02d/%06d", 10 + aleatoire.nextInt(90), id), choisir(VEHICULES)});
+            } else {
+                String preferences = aleatoire.nextDouble() < 0.3 ? choisir(PREFERENCES) : null;
+                lot.add(new Object[]{id, nom, prenom, email, "motdepasse", telephone, preferences});
+            }
+
+            if (lot.size() >= tailleLot) {
+                ecrire(table, colonnes, lot);
+            }
+        }
+        ecrire(table, colonnes, lot);
+        afficherProgression(table, nombre, nombre);
+    }
+
+    private void genererTrajets() throws SQLException {
+        for (long id = 1; id <= nbTrajets; id++) {
+            genererTrajet(id);
+            if (trajets.size() >= tailleLot) {
+                ecrireTrajets();
+                afficherProgression("trajets", id, nbTrajets);
+            }
+        }
+        ecrireTrajets();
+        afficherProgression("trajets", nbTrajets, nbTrajets);
+    }
+
+    private void genererTrajet(long id) {
+        int depart = tirerVille(-1);
+        int arrivee = tirerVille(depart);
+
+        // Départ entre 6 h et 21 h 45, de 180 jours avant à 60 jours après la référence
+        LocalDateTime dateDepart = reference.minusDays(180)
+                .plusDays(aleatoire.nextInt(240))
+                .plusHours(6 + aleatoire.nextInt(16))
+                .plusMinutes(15L * aleatoire.nextInt(4));
+        boolean passe = dateDepart.isBefore(reference);
+        boolean annule = aleatoire.nextDouble() < 0.02;
+
+        // Prix fonction de l'axe, avec une variation propre au conducteur
+        double prix = arrondir(6 + 1.5 * ((depart * 7 + arrivee * 13) % 20) + aleatoire.nextDouble() * 3);
+        int places = 2 + aleatoire.nextInt(4);
+        long conducteurId = 1 + (long) (nbConducteurs * Math.pow(aleatoire.nextDouble(), 2));
+
+        // Les grands axes se remplissent davantage
+        double remplissage = 0.25 + 0.6 * (1 - (depart + arrivee) / (2.0 * (VILLES.size() - 1)));
+        int reservees = 0;
+
+        while (reservees < places && aleatoire.nextDouble() < remplissage) {
+            // Courbe de réservation : délai exponentiel de moyenne 3 jours avant le départ, 30 jours au plus
+            double avanceHeures = 0.5 + Math.min(720, -Math.log(1 - aleatoire.nextDouble()) * 72);
+            LocalDateTime dateReservation = dateDepart.minusMinutes((long) (avanceHeures * 60));
+            if (dateReservation.isAfter(reference)) {
+                // Réservation pas encore faite à la date de référence
+                break;
+            }
+
+            int nbPlaces = Math.min(places - reservees, aleatoire.nextDouble() < 0.25 ? 2 : 1);
+            double tirage = aleatoire.nextDouble();
+            String statut;
+            if (annule) {
+                statut = "ANNULEE";
+            } else if (passe) {
+                statut = tirage < 0.9 ? "CONFIRMEE" : "ANNULEE";
+            } else {
+                statut = tirage < 0.55 ? "CONFIRMEE" : tirage < 0.85 ? "EN_ATTENTE" : "ANNULEE";
+            }
+            boolean reservationAnnulee = statut.equals("ANNULEE");
+            if (!reservationAnnulee) {
+                reservees += nbPlaces;
+            }
+
+            long reservationId = ++idReservation;
+            long utilisateurId = 1 + (long) (nbUtilisateurs * Math.pow(aleatoire.nextDouble(), 1.5));
+            reservations.add(new Object[]{reservationId, dateReservation, nbPlaces, statut, utilisateurId, id, reservationAnnulee});
+
+            // Paiement des réservations confirmées ; une partie des annulées avait été payée puis remboursée
+            if (statut.equals("CONFIRMEE") || (reservationAnnulee && aleatoire.nextDouble() < 0.4)) {
+                paiements.add(new Object[]{++idPaiement, arrondir(prix * nbPlaces), dateReservation.plusMinutes(10),
+                        reservationId, reservationAnnulee});
+            }
+
+            if (passe && statut.equals("CONFIRMEE") && aleatoire.nextDouble() < 0.35) {
+                avis.add(new Object[]{++idAvis, tirerNote(),
+                        aleatoire.nextDouble() < 0.5 ? choisir(COMMENTAIRES) : null, utilisateurId, id});
+            }
+        }
+
+        trajets.add(new Object[]{id, idsVilles[depart], idsVilles[arrivee], dateDepart, prix, places,
+                reservees, conducteurId, annule});
+    }
+
+    /**
+     * Écrit les lots en cours dans l'ordre des clés étrangères.
+     */
+    private void ecrireTrajets() throws SQLException {
+        ecrire("trajets", COLONNES_TRAJETS, trajets);
+        ecrire("reservations", COLONNES_RESERVATIONS, reservations);
+        ecrire("paiements", COLONNES_PAIEMENTS, paiements);
+        ecrire("avis", COLONNES_AVIS, avis);
+    }
+
+    private void ecrire(String table, List<String> colonnes, List<Object[]> lot) throws SQLException {
+        lignesEcrites += importDAO.inserer(table, colonnes, lot, mode);
+        lot.clear();
+    }
+
+    private void afficherProgression(String table, long faits, long total) {
+        double secondes = (System.nanoTime() - debut) / 1_000_000_000.0;
+        System.out.printf("%s : %d / %d (%.0f lignes/s)%n", table, faits, total, lignesEcrites / Math.max(secondes, 0.001));
+    }
+
+    /**
+     * @param exclue Une ville à ne pas tirer (la ville de départ), ou -1
+     */
+    private int tirerVille(int exclue) {
+        while (true) {
+            double tirage = aleatoire.nextDouble();
+            int ville = 0;
+            while (ville < cumulVilles.length - 1 && cumulVilles[ville] < tirage) {
+                ville++;
+            }
+            if (ville != exclue) {
+                return ville;
+            }
+        }
+    }
+
+    private int tirerNote() {
+        double tirage = aleatoire.nextDouble();
+        for (int i = 0; i < CUMUL_NOTES.length; i++) {
+            if (tirage < CUMUL_NOTES[i]) {
+                return i + 1;
+            }
+        }
+        return CUMUL_NOTES.length;
+    }
+
+    private String choisir(String[] valeurs) {
+        return valeurs[aleatoire.nextInt(valeurs.length)];
+    }
+
+    private static double arrondir(double montant) {
+        return Math.round(montant * 100) / 100.0;
+    }
+
+    private static String sansAccents(String texte) {
+        return Normalizer.normalize(texte, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+}
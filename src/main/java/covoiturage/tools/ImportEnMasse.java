@@ -0,0 +1,309 @@
+package covoiturage.tools;
+
+import covoiturage.config.DatabaseConfig;
+import covoiturage.dao.DAOFactory;
+import covoiturage.dao.ImportDAO;
+import covoiturage.dao.LieuRegistry;
+import covoiturage.dao.TableImport;
+import covoiturage.ui.validator.InputValidator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Import en masse d'utilisateurs, de conducteurs ou de trajets depuis un fichier CSV ou JSON lines.
+ * Le fichier est lu en flux, chaque enregistrement est validé (InputValidator, contraintes du schéma,
+ * unicité des emails, existence du conducteur) puis écrit par lots. Les villes des trajets sont
+ * traduites en identifiants de la table lieux (LieuRegistry), créées si elles sont nouvelles.
+ *
+ * Usage : ImportEnMasse utilisateurs|conducteurs|trajets fichier [--mode=copy|batch] [--lot=5000]
+ *
+ * Champs attendus (noms de colonnes du schéma) :
+ * <ul>
+ *     <li>utilisateurs : nom, prenom, email, mot_de_passe, telephone, preferences (facultatif)</li>
+ *     <li>conducteurs : nom, prenom, email, mot_de_passe, telephone, numero_permis, vehicule_info (facultatif)</li>
+ *     <li>trajets : lieu_depart, lieu_arrivee, date_depart (jj/mm/aaaa hh:mm ou ISO), prix,
+ *     nb_places_disponibles, conducteur_id, est_annule (facultatif)</li>
+ * </ul>
+ * Les enregistrements rejetés sont recopiés avec leur motif dans fichier.rejets.csv.
+ */
+public class ImportEnMasse {
+    private static final long INTERVALLE_PROGRESSION = 100_000;
+
+    private final TableImport table;
+    private final ImportDAO.Mode mode;
+    private final int tailleLot;
+    private final ImportDAO importDAO = DAOFactory.getImportDAO();
+    private final LieuRegistry lieux = DAOFactory.getLieuRegistry();
+
+    private Set<String> emails;
+    private Set<Long> conducteurs;
+
+    private long lus;
+    private long importes;
+    private long rejetes;
+
+    private ImportEnMasse(TableImport table, ImportDAO.Mode mode, int tailleLot) {
+        this.table = table;
+        this.mode = mode;
+        this.tailleLot = tailleLot;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage : ImportEnMasse utilisateurs|conducteurs|trajets fichier [--mode=copy|batch] [--lot=5000]");
+            System.exit(2);
+        }
+
+        TableImport table = TableImport.valueOf(args[0].toUpperCase());
+        Path fichier = Paths.get(args[1]);
+        ImportDAO.Mode mode = ImportDAO.Mode.COPY;
+        int tailleLot = 5000;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("--mode=")) {
+                mode = ImportDAO.Mode.valueOf(args[i].substring("--mode=".length()).toUpperCase());
+            } else if (args[i].startsWith("--lot=")) {
+                tailleLot = Integer.parseInt(args[i].substring("--lot=".length()));
+            } else {
+                throw new IllegalArgumentException("Option inconnue : " + args[i]);
+            }
+        }
+
+        ImportEnMasse importeur = new ImportEnMasse(table, mode, tailleLot);
+        importeur.importer(fichier, Paths.get(fichier + ".rejets.csv"));
+        System.exit(importeur.rejetes == 0 ? 0 : 1);
+    }
+
+    private void importer(Path fichier, Path fichierRejets) throws IOException, SQLException {
+        // Contrôles d'unicité et de clé étrangère faits en mémoire, pour qu'un lot ne soit pas refusé en bloc
+        if (table == TableImport.TRAJETS) {
+            conducteurs = importDAO.idsConducteurs();
+        } else {
+            emails = importDAO.emailsExistants(table);
+        }
+
+        System.out.println("Import de " + fichier + " dans " + table.getTable()
+                + " (mode " + mode + ", lots de " + tailleLot + ")");
+        long debut = System.nanoTime();
+
+        try (SourceImport source = SourceImport.ouvrir(fichier);
+             BufferedWriter rejets = Files.newBufferedWriter(fichierRejets, StandardCharsets.UTF_8)) {
+
+            rejets.write("ligne;motif;enregistrement");
+            rejets.newLine();
+
+            List<Object[]> lot = new ArrayList<>(tailleLot);
+            List<String> lotBrut = new ArrayList<>(tailleLot);
+            List<Long> lotLignes = new ArrayList<>(tailleLot);
+
+            while (true) {
+                Map<String, String> champs;
+                try {
+                    champs = source.suivant();
+                } catch (IllegalArgumentException e) {
+                    lus++;
+                    rejeter(rejets, source.getNumeroLigne(), "Enregistrement illisible : " + e.getMessage(), source.getLigneCourante());
+                    continue;
+                }
+                if (champs == null) {
+                    break;
+                }
+                lus++;
+
+                try {
+                    lot.add(valider(champs));
+                    lotBrut.add(source.getLigneCourante());
+                    lotLignes.add(source.getNumeroLigne());
+                } catch (IllegalArgumentException e) {
+                    rejeter(rejets, source.getNumeroLigne(), e.getMessage(), source.getLigneCourante());
+                }
+
+                if (lot.size() >= tailleLot) {
+                    ecrire(lot, lotBrut, lotLignes, rejets);
+                }
+                if (lus % INTERVALLE_PROGRESSION == 0) {
+                    afficherProgression(debut);
+                }
+            }
+            ecrire(lot, lotBrut, lotLignes, rejets);
+        }
+
+        double secondes = (System.nanoTime() - debut) / 1_000_000_000.0;
+        System.out.printf("Terminé : %d lus, %d importés, %d rejetés en %.1f s (%.0f lignes/s)%n",
+                lus, importes, rejetes, secondes, importes / Math.max(secondes, 0.001));
+        if (rejetes > 0) {
+            System.out.println("Rejets : " + fichierRejets);
+        } else {
+            Files.deleteIfExists(fichierRejets);
+        }
+    }
+
+    /**
+     * Écrit le lot en cours ; si la base le refuse, toutes ses lignes sont rejetées avec l'erreur SQL
+     * et leurs emails sont libérés, puisqu'aucun n'a été enregistré.
+     */
+    private void ecrire(List<Object[]> lot, List<String> lotBrut, List<Long> lotLignes, BufferedWriter rejets) throws IOException {
+        if (lot.isEmpty()) {
+            return;
+        }
+        try {
+            importes += importDAO.inserer(table, lot, mode);
+        } catch (SQLException e) {
+            for (int i = 0; i < lot.size(); i++) {
+                if (emails != null) {
+                    emails.remove((String) lot.get(i)[2]);
+                }
+                rejeter(rejets, lotLignes.get(i), "Lot refusé par la base : " + e.getMessage(), lotBrut.get(i));
+            }
+        }
+        lot.clear();
+        lotBrut.clear();
+        lotLignes.clear();
+    }
+
+    private void afficherProgression(long debut) {
+        double secondes = (System.nanoTime() - debut) / 1_000_000_000.0;
+        System.out.printf("%d lus, %d importés, %d rejetés (%.0f lignes/s)%n",
+                lus, importes, rejetes, lus / Math.max(secondes, 0.001));
+        DatabaseConfig.getPoolStatistics().ifPresent(stats -> System.out.println(stats));
+    }
+
+    private void rejeter(BufferedWriter rejets, long ligne, String motif, String enregistrement) throws IOException {
+        rejetes++;
+        rejets.write(ligne + ";\"" + motif.replace("\"", "\"\"") + "\";\""
+                + (enregistrement == null ? "" : enregistrement.replace("\"", "\"\"")) + "\"");
+        rejets.newLine();
+    }
+
+    /**
+     * @return Les valeurs de l'enregistrement dans l'ordre des colonnes de la table
+     * @throws IllegalArgumentException Si l'enregistrement est invalide (le message est le motif du rejet)
+     */
+    private Object[] valider(Map<String, String> champs) throws SQLException {
+        return switch (table) {
+            case UTILISATEURS -> validerPersonne(champs,
+                    facultatif(champs, "preferences", Integer.MAX_VALUE));
+            case CONDUCTEURS -> validerPersonne(champs,
+                    obligatoire(champs, "numero_permis", 20),
+                    facultatif(champs, "vehicule_info", Integer.MAX_VALUE));
+            case TRAJETS -> validerTrajet(champs);
+        };
+    }
+
+    private Object[] validerPersonne(Map<String, String> champs, String... complements) {
+        String nom = obligatoire(champs, "nom", 50);
+        String prenom = obligatoire(champs, "prenom", 50);
+        String email = obligatoire(champs, "email", 100);
+        String motDePasse = obligatoire(champs, "mot_de_passe", 100);
+        String telephone = obligatoire(champs, "telephone", 15);
+
+        if (!InputValidator.isValidEmail(email)) {
+            throw new IllegalArgumentException("Email invalide");
+        }
+        if (!InputValidator.isValidPassword(motDePasse)) {
+            throw new IllegalArgumentException("Mot de passe trop court");
+        }
+        if (!InputValidator.isValidTelephone(telephone)) {
+            throw new IllegalArgumentException("Téléphone invalide");
+        }
+        // L'email est réservé dès la validation : un doublon plus loin dans le fichier est rejeté.
+        // La réservation est levée si le lot qui le contient est refusé par la base (voir ecrire)
+        if (!emails.add(email)) {
+            throw new IllegalArgumentException("Email déjà utilisé");
+        }
+
+        Object[] ligne = new Object[5 + complements.length];
+        ligne[0] = nom;
+        ligne[1] = prenom;
+        ligne[2] = email;
+        ligne[3] = motDePasse;
+        ligne[4] = telephone;
+        System.arraycopy(complements, 0, ligne, 5, complements.length);
+        return ligne;
+    }
+
+    private Object[] validerTrajet(Map<String, String> champs) throws SQLException {
+        String lieuDepart = obligatoire(champs, "lieu_depart", 100);
+        String lieuArrivee = obligatoire(champs, "lieu_arrivee", 100);
+        String dateDepart = obligatoire(champs, "date_depart", Integer.MAX_VALUE);
+        String prix = obligatoire(champs, "prix", Integer.MAX_VALUE);
+        String nbPlaces = obligatoire(champs, "nb_places_disponibles", Integer.MAX_VALUE);
+        String conducteurId = obligatoire(champs, "conducteur_id", Integer.MAX_VALUE);
+        String estAnnule = facultatif(champs, "est_annule", Integer.MAX_VALUE);
+
+        if (!InputValidator.isValidDouble(prix) || Double.parseDouble(prix) < 0) {
+            throw new IllegalArgumentException("Prix invalide");
+        }
+        if (!InputValidator.isPositiveInteger(nbPlaces)) {
+            throw new IllegalArgumentException("Nombre de places invalide");
+        }
+        Long idConducteur;
+        try {
+            idConducteur = Long.valueOf(conducteurId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Identifiant de conducteur invalide");
+        }
+        if (!conducteurs.contains(idConducteur)) {
+            throw new IllegalArgumentException("Conducteur inconnu : " + idConducteur);
+        }
+        if (estAnnule != null && !estAnnule.equalsIgnoreCase("true") && !estAnnule.equalsIgnoreCase("false")) {
+            throw new IllegalArgumentException("est_annule doit valoir true ou false");
+        }
+
+        // Une ville du fichier n'est créée qu'une fois : les suivantes la trouvent dans le registre
+        return new Object[]{
+                lieux.resoudre(lieuDepart),
+                lieux.resoudre(lieuArrivee),
+                lireDate(dateDepart),
+                Double.parseDouble(prix),
+                Integer.parseInt(nbPlaces),
+                idConducteur,
+                Boolean.parseBoolean(estAnnule)
+        };
+    }
+
+    /**
+     * Accepte le format de saisie de l'application (jj/mm/aaaa hh:mm) ou le format ISO (aaaa-mm-jjThh:mm).
+     */
+    private static LocalDateTime lireDate(String valeur) {
+        if (InputValidator.isValidDateTime(valeur)) {
+            return InputValidator.parseDateTime(valeur);
+        }
+        try {
+            return LocalDateTime.parse(valeur);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Date de départ invalide : " + valeur);
+        }
+    }
+
+    private static String obligatoire(Map<String, String> champs, String nom, int longueurMax) {
+        String valeur = facultatif(champs, nom, longueurMax);
+        if (valeur == null) {
+            throw new IllegalArgumentException("Champ " + nom + " manquant");
+        }
+        return valeur;
+    }
+
+    private static String facultatif(Map<String, String> champs, String nom, int longueurMax) {
+        String valeur = champs.get(nom);
+        if (valeur == null || valeur.isBlank()) {
+            return null;
+        }
+        valeur = valeur.trim();
+        if (valeur.length() > longueurMax) {
+            throw new IllegalArgumentException("Champ " + nom + " trop long (" + longueurMax + " caractères au plus)");
+        }
+        return valeur;
+    }
+}
@@ -0,0 +1,275 @@
+package covoiturage.tools;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lit un fichier d'import enregistrement par enregistrement, sans le charger en mémoire.
+ * Deux formats, choisis d'après l'extension :
+ * <ul>
+ *     <li>.csv : une ligne d'en-tête (noms des champs), séparateur virgule ou point-virgule,
+ *     valeurs éventuellement entre guillemets ;</li>
+ *     <li>.jsonl / .ndjson : un objet JSON plat par ligne.</li>
+ * </ul>
+ * Un enregistrement illisible lève IllegalArgumentException ; la lecture peut ensuite continuer.
+ */
+abstract class SourceImport implements Closeable {
+    private final BufferedReader reader;
+    private long numeroLigne;
+    private String ligneCourante;
+
+    private SourceImport(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    static SourceImport ouvrir(Path fichier) throws IOException {
+        String nom = fichier.getFileName().toString().toLowerCase();
+        BufferedReader reader = Files.newBufferedReader(fichier, StandardCharsets.UTF_8);
+        if (nom.endsWith(".csv")) {
+            return new Csv(reader);
+        }
+        if (nom.endsWith(".jsonl") || nom.endsWith(".ndjson")) {
+            return new JsonLignes(reader);
+        }
+        reader.close();
+        throw new IllegalArgumentException("Format non reconnu (attendu : .csv, .jsonl ou .ndjson) : " + fichier);
+    }
+
+    /**
+     * @return Les champs de l'enregistrement suivant, ou null en fin de fichier
+     */
+    Map<String, String> suivant() throws IOException {
+        String ligne;
+        do {
+            ligne = reader.readLine();
+            if (ligne == null) {
+                return null;
+            }
+            numeroLigne++;
+        } while (ligne.isBlank());
+
+        ligneCourante = ligne;
+        return analyser(ligne);
+    }
+
+    /**
+     * @return Le numéro (à partir de 1) de la dernière ligne lue
+     */
+    long getNumeroLigne() {
+        return numeroLigne;
+    }
+
+    /**
+     * @return Le texte brut du dernier enregistrement lu, recopié tel quel dans le fichier des rejets
+     */
+    String getLigneCourante() {
+        return ligneCourante;
+    }
+
+    protected abstract Map<String, String> analyser(String ligne);
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static final class Csv extends SourceImport {
+        private List<String> entetes;
+        private char separateur;
+
+        private Csv(BufferedReader reader) {
+            super(reader);
+        }
+
+        @Override
+        Map<String, String> suivant() throws IOException {
+            if (entetes == null) {
+                String entete = super.suivant() == null ? null : getLigneCourante();
+                if (entete == null) {
+                    return null;
+                }
+                // Le séparateur est celui de la ligne d'en-tête
+                separateur = entete.indexOf(';') >= 0 && entete.indexOf(',') < 0 ? ';' : ',';
+                entetes = new ArrayList<>();
+                for (String nom : decouper(entete)) {
+                    entetes.add(nom.trim().toLowerCase());
+                }
+            }
+            return super.suivant();
+        }
+
+        @Override
+        protected Map<String, String> analyser(String ligne) {
+            if (entetes == null) {
+                // Ligne d'en-tête : analysée par suivant()
+                return Map.of();
+            }
+            List<String> valeurs = decouper(ligne);
+            if (valeurs.size() != entetes.size()) {
+                throw new IllegalArgumentException(valeurs.size() + " champs au lieu de " + entetes.size());
+            }
+            Map<String, String> champs = new HashMap<>();
+            for (int i = 0; i < entetes.size(); i++) {
+                String valeur = valeurs.get(i);
+                champs.put(entetes.get(i), valeur.isEmpty() ? null : valeur);
+            }
+            return champs;
+        }
+
+        private List<String> decouper(String ligne) {
+            List<String> valeurs = new ArrayList<>();
+            StringBuilder valeur = new StringBuilder();
+            boolean entreGuillemets = false;
+
+            for (int i = 0; i < ligne.length(); i++) {
+                char c = ligne.charAt(i);
+                if (entreGuillemets) {
+                    if (c == '"' && i + 1 < ligne.length() && ligne.charAt(i + 1) == '"') {
+                        valeur.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        entreGuillemets = false;
+                    } else {
+                        valeur.append(c);
+                    }
+                } else if (c == '"') {
+                    entreGuillemets = true;
+                } else if (c == separateur) {
+                    valeurs.add(valeur.toString());
+                    valeur.setLength(0);
+                } else {
+                    valeur.append(c);
+                }
+            }
+            if (entreGuillemets) {
+                throw new IllegalArgumentException("Guillemet non fermé");
+            }
+            valeurs.add(valeur.toString());
+            return valeurs;
+        }
+    }
+
+    /**
+     * Objets JSON plats : les valeurs texte, numériques, booléennes et null sont rendues sous forme de texte.
+     */
+    private static final class JsonLignes extends SourceImport {
+        private String texte;
+        private int position;
+
+        private JsonLignes(BufferedReader reader) {
+            super(reader);
+        }
+
+        @Override
+        protected Map<String, String> analyser(String ligne) {
+            texte = ligne;
+            position = 0;
+            Map<String, String> champs = new HashMap<>();
+
+            attendre('{');
+            if (!consommer('}')) {
+                do {
+                    String nom = lireTexte();
+                    attendre(':');
+                    champs.put(nom.toLowerCase(), lireValeur());
+                } while (consommer(','));
+                attendre('}');
+            }
+            ignorerEspaces();
+            if (position < texte.length()) {
+                throw new IllegalArgumentException("Contenu inattendu après l'objet JSON, position " + position);
+            }
+            return champs;
+        }
+
+        private String lireValeur() {
+            ignorerEspaces();
+            if (position >= texte.length()) {
+                throw new IllegalArgumentException("Valeur JSON manquante");
+            }
+            char c = texte.charAt(position);
+            if (c == '"') {
+                return lireTexte();
+            }
+            if (c == '{' || c == '[') {
+                throw new IllegalArgumentException("Objets et tableaux imbriqués non supportés, position " + position);
+            }
+            int debut = position;
+            while (position < texte.length() && ",} \t".indexOf(texte.charAt(position)) < 0) {
+                position++;
+            }
+            String litteral = texte.substring(debut, position);
+            if (litteral.equals("null")) {
+                return null;
+            }
+            if (!litteral.equals("true") && !litteral.equals("false") && !litteral.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) {
+                throw new IllegalArgumentException("Valeur JSON invalide : " + litteral);
+            }
+            return litteral;
+        }
+
+        private String lireTexte() {
+            attendre('"');
+            StringBuilder valeur = new StringBuilder();
+            while (position < texte.length()) {
+                char c = texte.charAt(position++);
+                if (c == '"') {
+                    return valeur.toString();
+                }
+                if (c != '\\') {
+                    valeur.append(c);
+                    continue;
+                }
+                if (position >= texte.length()) {
+                    break;
+                }
+                char echappe = texte.charAt(position++);
+                switch (echappe) {
+                    case 'n' -> valeur.append('\n');
+                    case 't' -> valeur.append('\t');
+                    case 'r' -> valeur.append('\r');
+                    case 'b' -> valeur.append('\b');
+                    case 'f' -> valeur.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > texte.length()) {
+                            throw new IllegalArgumentException("Séquence \\u incomplète");
+                        }
+                        valeur.append((char) Integer.parseInt(texte.substring(position, position + 4), 16));
+                        position += 4;
+                    }
+                    default -> valeur.append(echappe);
+                }
+            }
+            throw new IllegalArgumentException("Texte JSON non terminé");
+        }
+
+        private void attendre(char attendu) {
+            if (!consommer(attendu)) {
+                throw new IllegalArgumentException("'" + attendu + "' attendu, position " + position);
+            }
+        }
+
+        private boolean consommer(char attendu) {
+            ignorerEspaces();
+            if (position < texte.length() && texte.charAt(position) == attendu) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void ignorerEspaces() {
+            while (position < texte.length() && Character.isWhitespace(texte.charAt(position))) {
+                position++;
+            }
+        }
+    }
+}
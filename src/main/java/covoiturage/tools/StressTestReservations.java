@@ -0,0 +1,154 @@
+package covoiturage.tools;
+
+import covoiturage.config.DatabaseConfig;
+import covoiturage.dao.DAOFactory;
+import covoiturage.model.Conducteur;
+import covoiturage.model.Reservation;
+import covoiturage.model.Trajet;
+import covoiturage.model.Utilisateur;
+import covoiturage.service.ReservationService;
+import covoiturage.service.ServiceFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test de charge de la réservation concurrente : lance un grand nombre de réservations
+ * parallèles sur un même trajet, puis vérifie en base qu'aucune surréservation n'a eu lieu.
+ *
+ * Usage : StressTestReservations [nbReservations] [nbThreads] [capacite]
+ * Le trajet, le conducteur et le passager de test sont créés puis supprimés par l'outil.
+ */
+public class StressTestReservations {
+
+    public static void main(String[] args) throws Exception {
+        int nbReservations = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int nbThreads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int capacite = args.length > 2 ? Integer.parseInt(args[2]) : 25;
+
+        String suffixe = String.valueOf(System.currentTimeMillis());
+        Conducteur conducteur = creerConducteur(suffixe);
+        Utilisateur passager = creerPassager(suffixe);
+        Trajet trajet = creerTrajet(conducteur, capacite);
+
+        System.out.println("Trajet de test #" + trajet.getId() + " : " + capacite + " places, "
+                + nbReservations + " réservations sur " + nbThreads + " threads");
+
+        ReservationService reservationService = ServiceFactory.getReservationService();
+        AtomicInteger acceptees = new AtomicInteger();
+        AtomicInteger refusees = new AtomicInteger();
+        AtomicInteger erreurs = new AtomicInteger();
+        CountDownLatch depart = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+        List<Future<?>> taches = new ArrayList<>();
+        for (int i = 0; i < nbReservations; i++) {
+            taches.add(executor.submit(() -> {
+                depart.await();
+                try {
+                    // Une portée par réservation : chaque appel a son propre budget de requêtes
+                    Long id = ServiceFactory.appeler("StressTestReservations.creerReservation",
+                            () -> reservationService.creerReservation(new Reservation(1, passager, trajet)));
+                    if (id != null) {
+                        acceptees.incrementAndGet();
+                    } else {
+                        erreurs.incrementAndGet();
+                    }
+                } catch (IllegalArgumentException e) {
+                    refusees.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long debut = System.nanoTime();
+        depart.countDown();
+        for (Future<?> tache : taches) {
+            tache.get();
+        }
+        long dureeNanos = System.nanoTime() - debut;
+        executor.shutdown();
+
+        int placesEnBase = sommePlacesReservees(trajet.getId());
+        int compteurEnBase = compteurPlacesReservees(trajet.getId());
+        double secondes = dureeNanos / 1_000_000_000.0;
+
+        System.out.println("Acceptées : " + acceptees.get() + ", refusées : " + refusees.get() + ", erreurs : " + erreurs.get());
+        System.out.println("Places réservées en base : " + placesEnBase + " / " + capacite
+                + " (compteur du trajet : " + compteurEnBase + ")");
+        System.out.printf("Durée : %.2f s, débit : %.0f réservations/s%n", secondes, nbReservations / secondes);
+        DatabaseConfig.getPoolStatistics().ifPresent(stats -> System.out.println(stats));
+
+        boolean ok = placesEnBase <= capacite
+                && placesEnBase == acceptees.get()
+                && compteurEnBase == placesEnBase;
+        System.out.println(ok ? "OK : aucune surréservation" : "ÉCHEC : incohérence détectée");
+
+        // Nettoyage des données de test
+        DAOFactory.getTrajetDAO().delete(trajet.getId());
+        DAOFactory.getUtilisateurDAO().delete(passager.getId());
+        DAOFactory.getConducteurDAO().delete(conducteur.getId());
+
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static Conducteur creerConducteur(String suffixe) {
+        Conducteur conducteur = new Conducteur();
+        conducteur.setNom("Stress");
+        conducteur.setPrenom("Conducteur");
+        conducteur.setEmail("stress.conducteur." + suffixe + "@test.local");
+        conducteur.setMotDePasse("stress123");
+        conducteur.setTelephone("00000000");
+        conducteur.setNumeroPermis("STRESS-" + suffixe);
+        conducteur.setVehiculeInfo("Véhicule de test");
+        ServiceFactory.getConducteurService().creerConducteur(conducteur);
+        return conducteur;
+    }
+
+    private static Utilisateur creerPassager(String suffixe) {
+        Utilisateur utilisateur = new Utilisateur();
+        utilisateur.setNom("Stress");
+        utilisateur.setPrenom("Passager");
+        utilisateur.setEmail("stress.passager." + suffixe + "@test.local");
+        utilisateur.setMotDePasse("stress123");
+        utilisateur.setTelephone("00000000");
+        ServiceFactory.getUtilisateurService().creerUtilisateur(utilisateur);
+        return utilisateur;
+    }
+
+    private static Trajet creerTrajet(Conducteur conducteur, int capacite) {
+        Trajet trajet = new Trajet("Stress-Départ", "Stress-Arrivée", LocalDateTime.now().plusDays(7), 10.0, capacite);
+        trajet.setConducteur(conducteur);
+        ServiceFactory.getConducteurService().proposerTrajet(trajet);
+        return trajet;
+    }
+
+    private static int sommePlacesReservees(Long trajetId) throws SQLException {
+        return lireEntier("SELECT COALESCE(SUM(nb_places), 0) FROM reservations " +
+                "WHERE trajet_id = ? AND est_annule = false AND statut IN ('EN_ATTENTE', 'CONFIRMEE')", trajetId);
+    }
+
+    private static int compteurPlacesReservees(Long trajetId) throws SQLException {
+        return lireEntier("SELECT nb_places_reservees FROM trajets WHERE id = ?", trajetId);
+    }
+
+    private static int lireEntier(String sql, Long trajetId) throws SQLException {
+        try (Connection conn = DatabaseConfig.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, trajetId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+}
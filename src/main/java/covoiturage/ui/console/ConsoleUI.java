@@ -2,14 +2,12 @@ package covoiturage.ui.console;
 
 import covoiturage.model.Administrateur;
 import covoiturage.model.Conducteur;
-import covoiturage.model.Trajet;
 import covoiturage.model.Utilisateur;
 import covoiturage.service.ServiceFactory;
 import covoiturage.ui.AuthUI;
 import covoiturage.ui.controller.*;
 import covoiturage.ui.validator.InputValidator;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
 
@@ -235,11 +233,10 @@ public class ConsoleUI {
                     trajetController.creerTrajet(conducteur);
                     break;
                 case "2":
-                    List<Trajet> trajets = ServiceFactory.getConducteurService().getTrajetsByConducteur(conducteur.getId());
-                    if (trajets.isEmpty()) {
+                    if (ServiceFactory.getTrajetService().getTrajetsPageByConducteur(conducteur.getId(), null, 1).isEmpty()) {
                         afficherMessageErreur("Vous n'avez pas encore proposé de trajets.");
                     } else {
-                        trajetController.afficherListeTrajets(trajets);
+                        trajetController.afficherTrajetsConducteur(conducteur);
                     }
                     break;
                 case "3":
@@ -1,14 +1,20 @@
 package covoiturage.ui.controller;
 
+import covoiturage.dao.TableExport;
 import covoiturage.model.Administrateur;
 import covoiturage.model.Conducteur;
-import covoiturage.model.Trajet;
 import covoiturage.model.Utilisateur;
+import covoiturage.rapport.FormatRapport;
+import covoiturage.rapport.PeriodeRapport;
 import covoiturage.service.*;
 import covoiturage.ui.AuthUI;
 import covoiturage.ui.console.ConsoleUI;
 import covoiturage.ui.validator.InputValidator;
 
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
@@ -312,15 +318,13 @@ public class AdminController {
     public void gererTrajets() {
         System.out.println("\n=== GESTION DES TRAJETS ===");
 
-        List<Trajet> trajets = trajetService.getAllTrajets();
-
-        if (trajets.isEmpty()) {
+        if (trajetService.getTrajetsPage(null, 1).isEmpty()) {
             System.out.println("Aucun trajet enregistré.");
             return;
         }
 
         TrajetController trajetController = new TrajetController(scanner);
-        trajetController.afficherListeTrajets(trajets);
+        trajetController.afficherTousLesTrajets();
 
         System.out.println("\n1. Voir les détails d'un trajet");
         System.out.println("2. Supprimer un trajet");
@@ -395,29 +399,91 @@ public class AdminController {
         System.out.println("1. Rapport des utilisateurs");
         System.out.println("2. Rapport des trajets");
         System.out.println("3. Rapport des réservations");
+        System.out.println("4. Export brut d'une table (CSV)");
         System.out.println("0. Retour");
 
         System.out.print("\nVotre choix : ");
         String choix = scanner.nextLine().trim();
 
-        switch (choix) {
-            case "1":
-                adminService.genererRapportUtilisateurs();
-                System.out.println("Rapport des utilisateurs généré avec succès.");
-                break;
-            case "2":
-                adminService.genererRapportTrajets();
-                System.out.println("Rapport des trajets généré avec succès.");
-                break;
-            case "3":
-                adminService.genererRapportReservations();
-                System.out.println("Rapport des réservations généré avec succès.");
-                break;
-            case "0":
-                return;
-            default:
-                System.out.println("Choix invalide.");
-                break;
+        if (choix.equals("0")) {
+            return;
+        }
+        if (choix.equals("4")) {
+            exporterTable();
+            return;
+        }
+        if (!choix.equals("1") && !choix.equals("2") && !choix.equals("3")) {
+            System.out.println("Choix invalide.");
+            return;
+        }
+
+        System.out.print("Format (1. CSV, 2. HTML) [1] : ");
+        FormatRapport format = scanner.nextLine().trim().equals("2") ? FormatRapport.HTML : FormatRapport.CSV;
+
+        System.out.print("Mois (AAAA-MM, vide pour tout l'historique) : ");
+        String mois = scanner.nextLine().trim();
+        PeriodeRapport periode;
+        try {
+            periode = mois.isEmpty() ? PeriodeRapport.TOUT : PeriodeRapport.mois(YearMonth.parse(mois));
+        } catch (DateTimeParseException e) {
+            System.out.println("Mois invalide.");
+            return;
+        }
+
+        try {
+            Path fichier = switch (choix) {
+                case "1" -> adminService.genererRapportUtilisateurs(format, periode);
+                case "2" -> adminService.genererRapportTrajets(format, periode);
+                default -> adminService.genererRapportReservations(format, periode);
+            };
+            System.out.println("Rapport généré avec succès : " + fichier.toAbsolutePath());
+        } catch (IllegalStateException e) {
+            System.out.println("Erreur : " + e.getMessage());
+        }
+    }
+
+    private void exporterTable() {
+        TableExport[] tables = TableExport.values();
+        for (int i = 0; i < tables.length; i++) {
+            System.out.println((i + 1) + ". " + tables[i]);
+        }
+        System.out.print("Table à exporter : ");
+        String choix = scanner.nextLine().trim();
+        if (!InputValidator.isPositiveInteger(choix) || Integer.parseInt(choix) > tables.length) {
+            System.out.println("Choix invalide.");
+            return;
+        }
+        TableExport table = tables[Integer.parseInt(choix) - 1];
+
+        PeriodeRapport periode = PeriodeRapport.TOUT;
+        if (table.isDatee()) {
+            System.out.print("Du (jj/mm/aaaa, vide pour tout l'historique) : ");
+            String du = scanner.nextLine().trim();
+            if (!du.isEmpty()) {
+                System.out.print("Au (jj/mm/aaaa, inclus) : ");
+                String au = scanner.nextLine().trim();
+                if (!InputValidator.isValidDate(du) || !InputValidator.isValidDate(au)) {
+                    System.out.println("Date invalide.");
+                    return;
+                }
+                LocalDate debut = InputValidator.parseDate(du);
+                LocalDate fin = InputValidator.parseDate(au).plusDays(1);
+                if (!debut.isBefore(fin)) {
+                    System.out.println("La date de fin doit suivre la date de début.");
+                    return;
+                }
+                periode = new PeriodeRapport(debut, fin);
+            }
+        }
+
+        System.out.print("Compresser en gzip ? (o/n) [n] : ");
+        boolean compresser = scanner.nextLine().trim().equalsIgnoreCase("o");
+
+        try {
+            Path fichier = adminService.exporterTable(table, periode, compresser);
+            System.out.println("Export terminé : " + fichier.toAbsolutePath());
+        } catch (IllegalStateException e) {
+            System.out.println("Erreur : " + e.getMessage());
         }
     }
 }
@@ -11,7 +11,6 @@ import covoiturage.service.TrajetService;
 import covoiturage.ui.validator.InputValidator;
 
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
@@ -177,12 +176,8 @@ public class ReservationController {
             return;
         }
 
-        // Récupérer toutes les réservations pour les trajets du conducteur
-        List<Reservation> toutesReservations = new ArrayList<>();
-
-        for (Trajet trajet : trajets) {
-            toutesReservations.addAll(ServiceFactory.getReservationService().getReservationsByTrajet(trajet.getId()));
-        }
+        // Récupérer toutes les réservations pour les trajets du conducteur, en une requête
+        List<Reservation> toutesReservations = ServiceFactory.getReservationService().getReservationsByConducteur(conducteur.getId());
 
         // Filtrer uniquement les réservations en attente
         List<Reservation> reservationsEnAttente = toutesReservations.stream()
@@ -1,18 +1,23 @@
 package covoiturage.ui.controller;
 
+import covoiturage.dao.Page;
 import covoiturage.model.Conducteur;
 import covoiturage.model.Reservation;
+import covoiturage.model.StatistiquesTrajets;
 import covoiturage.model.Trajet;
 import covoiturage.model.Utilisateur;
+import covoiturage.service.DictionnaireLieux;
 import covoiturage.service.ServiceFactory;
 import covoiturage.service.TrajetService;
 import covoiturage.ui.validator.InputValidator;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -25,6 +30,7 @@ public class TrajetController {
 
     private TrajetService trajetService;
     private Scanner scanner;
+    private static final int NB_SUGGESTIONS_VILLES = 5;
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
     /**
@@ -61,11 +67,8 @@ public class TrajetController {
         System.out.println("                    RECHERCHE DE TRAJETS");
         System.out.println(SOUS_LIGNE);
 
-        System.out.print("➤ Lieu de départ : ");
-        String lieuDepart = scanner.nextLine().trim();
-
-        System.out.print("➤ Lieu d'arrivée : ");
-        String lieuArrivee = scanner.nextLine().trim();
+        String lieuDepart = lireLieu("➤ Lieu de départ : ");
+        String lieuArrivee = lireLieu("➤ Lieu d'arrivée : ");
 
         System.out.println("\nRecherche des trajets disponibles...");
         List<Trajet> trajets = trajetService.rechercherTrajetsDisponibles(lieuDepart, lieuArrivee, LocalDateTime.now());
@@ -78,20 +81,100 @@ public class TrajetController {
         afficherListeTrajetsPaginee(trajets);
     }
 
+    /**
+     * Lit une ville. Si elle n'est pas connue, propose les villes connues qui commencent par la saisie,
+     * depuis le dictionnaire en mémoire : le numéro d'une suggestion la choisit, Entrée garde la saisie.
+     * @param invite Le libellé affiché
+     * @return La ville saisie ou choisie
+     */
+    private String lireLieu(String invite) {
+        System.out.print(invite);
+        String saisie = scanner.nextLine().trim();
+
+        DictionnaireLieux dictionnaire = ServiceFactory.getDictionnaireLieux();
+        dictionnaire.precharger();
+        if (saisie.isEmpty() || dictionnaire.contient(saisie)) {
+            return saisie;
+        }
+        List<String> suggestions = dictionnaire.suggerer(saisie, NB_SUGGESTIONS_VILLES);
+        if (suggestions.isEmpty()) {
+            return saisie;
+        }
+
+        System.out.println("  Villes connues :");
+        for (int i = 0; i < suggestions.size(); i++) {
+            System.out.println("    " + (i + 1) + ". " + suggestions.get(i));
+        }
+        System.out.print("  Numéro de la ville (Entrée pour garder « " + saisie + " ») : ");
+        String choix = scanner.nextLine().trim();
+        try {
+            int numero = Integer.parseInt(choix);
+            if (numero >= 1 && numero <= suggestions.size()) {
+                return suggestions.get(numero - 1);
+            }
+        } catch (NumberFormatException e) {
+            // Entrée vide ou texte : la saisie est gardée
+        }
+        return saisie;
+    }
+
     /**
      * Affiche une liste de trajets formatée avec pagination.
      * @param trajets La liste des trajets à afficher
      */
     public void afficherListeTrajetsPaginee(List<Trajet> trajets) {
+        int totalTrajets = trajets.size();
+        int trajetsActifs = (int) trajets.stream().filter(t -> !t.isEstAnnule()).count();
+        String statistiques = totalTrajets + " trajet(s) au total, dont " + trajetsActifs + " actif(s)";
+
+        // Pagination en mémoire : le curseur est le dernier trajet de la page précédente
+        parcourirPages((apres, taille) -> {
+            int debut = apres == null ? 0 : trajets.indexOf(apres) + 1;
+            int fin = Math.min(debut + taille, trajets.size());
+            return new Page<>(trajets.subList(debut, fin), fin < trajets.size(), null);
+        }, statistiques);
+    }
+
+    /**
+     * Affiche tous les trajets page par page ; seule la page affichée est lue en base.
+     */
+    public void afficherTousLesTrajets() {
+        StatistiquesTrajets stats = ServiceFactory.getStatistiquesService().getStatistiquesPlateforme().trajets();
+        parcourirPages(trajetService::getTrajetsPage, formaterStatistiques(stats));
+    }
+
+    /**
+     * Affiche les trajets d'un conducteur page par page ; seule la page affichée est lue en base.
+     * @param conducteur Le conducteur dont on affiche les trajets
+     */
+    public void afficherTrajetsConducteur(Conducteur conducteur) {
+        StatistiquesTrajets stats = ServiceFactory.getStatistiquesService().getStatistiquesConducteur(conducteur.getId()).trajets();
+        parcourirPages((apres, taille) -> trajetService.getTrajetsPageByConducteur(conducteur.getId(), apres, taille),
+                formaterStatistiques(stats));
+    }
+
+    private String formaterStatistiques(StatistiquesTrajets stats) {
+        return stats.total() + " trajet(s) au total, dont " + stats.nonAnnules() + " actif(s)";
+    }
+
+    /**
+     * Boucle de navigation commune aux listes paginées.
+     * Les curseurs des pages déjà vues sont conservés pour permettre le retour en arrière.
+     * @param chargeur Lit la page qui suit le trajet donné (null pour la première page)
+     * @param statistiques Ligne de statistiques à afficher, ou null
+     */
+    private void parcourirPages(BiFunction<Trajet, Integer, Page<Trajet>> chargeur, String statistiques) {
         final int TRAJETS_PAR_PAGE = 5;
-        int pageActuelle = 0;
-        int nombrePages = (int) Math.ceil((double) trajets.size() / TRAJETS_PAR_PAGE);
+        List<Trajet> curseurs = new ArrayList<>();
+        curseurs.add(null);
+        Page<Trajet> page = chargeur.apply(null, TRAJETS_PAR_PAGE);
 
         boolean continuer = true;
         while (continuer) {
-            // Calculer l'intervalle à afficher
-            int debut = pageActuelle * TRAJETS_PAR_PAGE;
-            int fin = Math.min(debut + TRAJETS_PAR_PAGE, trajets.size());
+            int pageActuelle = curseurs.size() - 1;
+            List<Trajet> trajets = page.elements();
+            int debut = 0;
+            int fin = trajets.size();
 
             // Afficher l'en-tête de la page
             System.out.println("\n" + LIGNE_SEPARATION);
@@ -128,9 +211,10 @@ public class TrajetController {
                 System.out.println("\n⚠️ : Trajet annulé");
             }
 
-            int totalTrajets = trajets.size();
-            int trajetsActifs = (int) trajets.stream().filter(t -> !t.isEstAnnule()).count();
-            System.out.println("\n📊 Statistiques: " + totalTrajets + " trajet(s) au total, dont " + trajetsActifs + " actif(s)");
+            if (statistiques != null) {
+                System.out.println("\n📊 Statistiques: " + statistiques);
+            }
+            System.out.println("Page " + (pageActuelle + 1));
 
             // Section pour les textes tronqués
             boolean hasTruncatedText = false;
@@ -165,7 +249,7 @@ public class TrajetController {
             // Options de navigation
             System.out.println("\nOptions :");
             if (pageActuelle > 0) System.out.println("P - Page précédente");
-            if (pageActuelle < nombrePages - 1) System.out.println("N - Page suivante");
+            if (page.suivante()) System.out.println("N - Page suivante");
             System.out.println("D - Voir les détails d'un trajet");
             System.out.println("Q - Retour");
 
@@ -174,10 +258,16 @@ public class TrajetController {
 
             switch (choix) {
                 case "P":
-                    if (pageActuelle > 0) pageActuelle--;
+                    if (pageActuelle > 0) {
+                        curseurs.remove(pageActuelle);
+                        page = chargeur.apply(curseurs.get(pageActuelle - 1), TRAJETS_PAR_PAGE);
+                    }
                     break;
                 case "N":
-                    if (pageActuelle < nombrePages - 1) pageActuelle++;
+                    if (page.suivante()) {
+                        curseurs.add(page.dernier());
+                        page = chargeur.apply(page.dernier(), TRAJETS_PAR_PAGE);
+                    }
                     break;
                 case "D":
                     System.out.print("Entrez l'ID du trajet : ");
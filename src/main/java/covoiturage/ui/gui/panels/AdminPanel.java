@@ -1,30 +1,50 @@
 package covoiturage.ui.gui.panels;
 
+import covoiturage.config.ChangeEvent;
+import covoiturage.dao.TableExport;
 import covoiturage.model.Administrateur;
 import covoiturage.model.Conducteur;
 import covoiturage.model.Trajet;
 import covoiturage.model.Utilisateur;
+import covoiturage.rapport.FormatRapport;
+import covoiturage.rapport.PeriodeRapport;
 import covoiturage.service.ServiceFactory;
 import covoiturage.ui.gui.MainFrame;
 import covoiturage.ui.gui.SessionManager;
 import covoiturage.ui.gui.components.NavigationBar;
 import covoiturage.ui.gui.components.SideBar;
+import covoiturage.ui.gui.utils.BackgroundTasks;
 import covoiturage.ui.gui.utils.ColorScheme;
 import covoiturage.ui.gui.utils.ComponentFactory;
+import covoiturage.ui.gui.utils.DeltaSync;
+import covoiturage.ui.gui.utils.LazyTableLoader;
+import covoiturage.ui.gui.utils.LiveTableUpdater;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiFunction;
 
 public class AdminPanel extends JPanel {
     private MainFrame mainFrame;
     private Administrateur administrateur;
     private CardLayout cardLayout;
     private JPanel contentPanel;
+    private BackgroundTasks taches;
+    private JComboBox<FormatRapport> formatRapportCombo;
+    private JComboBox<String> periodeRapportCombo;
+    private JComboBox<TableExport> tableExportCombo;
+    private JCheckBox compresserExportBox;
+    private DeltaSync<Utilisateur> syncUtilisateurs;
+    private DeltaSync<Conducteur> syncConducteurs;
+    private DeltaSync<Trajet> syncTrajets;
 
     // Constantes pour identifier les sous-panneaux
     public static final String DASHBOARD = "DASHBOARD";
@@ -37,6 +57,8 @@ public class AdminPanel extends JPanel {
         this.mainFrame = mainFrame;
         this.administrateur = administrateur;
 
+        this.taches = new BackgroundTasks(this);
+
         setLayout(new BorderLayout());
         setBackground(ColorScheme.BACKGROUND);
 
@@ -65,18 +87,18 @@ public class AdminPanel extends JPanel {
         add(contentPanel, BorderLayout.CENTER);
 
         // Afficher le tableau de bord par défaut
-        cardLayout.show(contentPanel, DASHBOARD);
+        taches.afficher(cardLayout, contentPanel, DASHBOARD);
     }
 
     private SideBar createSideBar() {
         SideBar sideBar = new SideBar();
 
         // Ajout des éléments de menu
-        sideBar.addMenuItem("Tableau de bord", "/images/dashboard_icon.png", e -> cardLayout.show(contentPanel, DASHBOARD));
+        sideBar.addMenuItem("Tableau de bord", "/images/dashboard_icon.png", e -> taches.afficher(cardLayout, contentPanel, DASHBOARD));
         sideBar.addMenuItem("Utilisateurs", "/images/users_icon.png", e -> refreshUsersPanel());
         sideBar.addMenuItem("Conducteurs", "/images/drivers_icon.png", e -> refreshDriversPanel());
         sideBar.addMenuItem("Trajets", "/images/car_icon.png", e -> refreshRidesPanel());
-        sideBar.addMenuItem("Rapports", "/images/report_icon.png", e -> cardLayout.show(contentPanel, REPORTS));
+        sideBar.addMenuItem("Rapports", "/images/report_icon.png", e -> taches.afficher(cardLayout, contentPanel, REPORTS));
 
         return sideBar;
     }
@@ -107,23 +129,40 @@ public class AdminPanel extends JPanel {
         statsPanel.setOpaque(false);
         statsPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
 
-        // Récupérer les statistiques
-        int totalUsers = ServiceFactory.getUtilisateurService().getAllUtilisateurs().size();
-        int totalDrivers = ServiceFactory.getConducteurService().getAllConducteurs().size();
-        int totalRides = ServiceFactory.getTrajetService().getAllTrajets().size();
-
         // Carte 1: Utilisateurs
-        JPanel card1 = createStatCard("Utilisateurs", String.valueOf(totalUsers), ColorScheme.PRIMARY);
+        JLabel usersValue = new JLabel("…");
+        JPanel card1 = createStatCard("Utilisateurs", usersValue, ColorScheme.PRIMARY);
         statsPanel.add(card1);
 
         // Carte 2: Conducteurs
-        JPanel card2 = createStatCard("Conducteurs", String.valueOf(totalDrivers), ColorScheme.ACCENT);
+        JLabel driversValue = new JLabel("…");
+        JPanel card2 = createStatCard("Conducteurs", driversValue, ColorScheme.ACCENT);
         statsPanel.add(card2);
 
         // Carte 3: Trajets
-        JPanel card3 = createStatCard("Trajets", String.valueOf(totalRides), ColorScheme.INFO);
+        JLabel ridesValue = new JLabel("…");
+        JPanel card3 = createStatCard("Trajets", ridesValue, ColorScheme.INFO);
         statsPanel.add(card3);
 
+        // Résumé des réservations et des revenus
+        JLabel activityLabel = new JLabel(" ");
+        activityLabel.setFont(new Font("Dialog", Font.PLAIN, 14));
+        activityLabel.setBorder(new EmptyBorder(15, 0, 0, 0));
+        activityLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        // Récupérer les statistiques (requêtes d'agrégat) en tâche de fond
+        taches.executer(DASHBOARD, ServiceFactory.getStatistiquesService()::getStatistiquesPlateforme, stats -> {
+            usersValue.setText(String.valueOf(stats.utilisateurs()));
+            driversValue.setText(String.valueOf(stats.conducteurs()));
+            ridesValue.setText(String.valueOf(stats.trajets().total()));
+            activityLabel.setText(String.format("Trajets à venir : %d  •  Réservations : %d en attente, %d confirmées, %d annulées  •  Revenus : %.2f €",
+                    stats.trajets().aVenir(),
+                    stats.reservations().enAttente(),
+                    stats.reservations().confirmees(),
+                    stats.reservations().annulees(),
+                    stats.revenus()));
+        });
+
         // Carte 4: Actions rapides
         JPanel card4 = new JPanel();
         card4.setBackground(Color.WHITE);
@@ -155,13 +194,14 @@ public class AdminPanel extends JPanel {
         statsPanel.add(card4);
 
         content.add(statsPanel);
+        content.add(activityLabel);
 
         panel.add(content, BorderLayout.CENTER);
 
         return panel;
     }
 
-    private JPanel createStatCard(String title, String value, Color color) {
+    private JPanel createStatCard(String title, JLabel valueLabel, Color color) {
         JPanel card = new JPanel();
         card.setBackground(Color.WHITE);
         card.setBorder(BorderFactory.createLineBorder(ColorScheme.SECONDARY));
@@ -173,7 +213,6 @@ public class AdminPanel extends JPanel {
         titleLabel.setBorder(new EmptyBorder(10, 10, 5, 10));
         titleLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
 
-        JLabel valueLabel = new JLabel(value);
         valueLabel.setFont(new Font("Dialog", Font.BOLD, 36));
         valueLabel.setForeground(color);
         valueLabel.setBorder(new EmptyBorder(5, 10, 10, 10));
@@ -247,39 +286,49 @@ public class AdminPanel extends JPanel {
         panel.add(actionsPanel, BorderLayout.SOUTH);
 
         // Charger les utilisateurs
-        loadUsers(model);
+        loadUsers(model, scrollPane);
 
         return panel;
     }
 
     private void refreshUsersPanel() {
-        // Actualiser et afficher le panel des utilisateurs
-        cardLayout.show(contentPanel, USERS);
+        // Afficher le panel des utilisateurs et n'y relire que les lignes modifiées
+        taches.afficher(cardLayout, contentPanel, USERS);
+        syncUtilisateurs.synchroniser();
+    }
+
+    private void rechargerUsersPanel() {
+        taches.annuler(USERS);
 
         // Remplacer le contenu par une version actualisée
         JPanel usersPanel = createUsersPanel();
         contentPanel.remove(contentPanel.getComponent(1)); // Supprimer l'ancien panel
         contentPanel.add(usersPanel, USERS, 1); // Ajouter le nouveau panel
-        cardLayout.show(contentPanel, USERS);
+        taches.afficher(cardLayout, contentPanel, USERS);
     }
 
-    private void loadUsers(DefaultTableModel model) {
-        // Vider le modèle
-        model.setRowCount(0);
-
-        // Récupérer les utilisateurs
-        List<Utilisateur> utilisateurs = ServiceFactory.getUtilisateurService().getAllUtilisateurs();
-
-        // Ajouter les utilisateurs au modèle
-        for (Utilisateur utilisateur : utilisateurs) {
-            model.addRow(new Object[]{
-                    utilisateur.getId(),
-                    utilisateur.getNom(),
-                    utilisateur.getPrenom(),
-                    utilisateur.getEmail(),
-                    utilisateur.getTelephone()
-            });
-        }
+    private void loadUsers(DefaultTableModel model, JScrollPane scrollPane) {
+        // Les utilisateurs sont lus page par page au fil du défilement
+        LazyTableLoader<Utilisateur> loader = new LazyTableLoader<>(taches, USERS, model, scrollPane,
+                ServiceFactory.getUtilisateurService()::getUtilisateursPage,
+                this::ligneUtilisateur);
+
+        // Les lignes chargées modifiées ou supprimées depuis sont relues à l'actualisation ;
+        // les nouveaux utilisateurs arrivent par la pagination, à leur place dans l'ordre des identifiants
+        syncUtilisateurs = new DeltaSync<>(taches, USERS, model,
+                ServiceFactory.getUtilisateurService()::getUtilisateursModifiesDepuis,
+                this::ligneUtilisateur, loader::recharger);
+        loader.observer(syncUtilisateurs::vu).recharger();
+    }
+
+    private Object[] ligneUtilisateur(Utilisateur utilisateur) {
+        return new Object[]{
+                utilisateur.getId(),
+                utilisateur.getNom(),
+                utilisateur.getPrenom(),
+                utilisateur.getEmail(),
+                utilisateur.getTelephone()
+        };
     }
 
     private JPanel createDriversPanel() {
@@ -344,41 +393,51 @@ public class AdminPanel extends JPanel {
         panel.add(actionsPanel, BorderLayout.SOUTH);
 
         // Charger les conducteurs
-        loadDrivers(model);
+        loadDrivers(model, scrollPane);
 
         return panel;
     }
 
     private void refreshDriversPanel() {
-        // Actualiser et afficher le panel des conducteurs
-        cardLayout.show(contentPanel, DRIVERS);
+        // Afficher le panel des conducteurs et n'y relire que les lignes modifiées
+        taches.afficher(cardLayout, contentPanel, DRIVERS);
+        syncConducteurs.synchroniser();
+    }
+
+    private void rechargerDriversPanel() {
+        taches.annuler(DRIVERS);
 
         // Remplacer le contenu par une version actualisée
         JPanel driversPanel = createDriversPanel();
         contentPanel.remove(contentPanel.getComponent(2)); // Supprimer l'ancien panel
         contentPanel.add(driversPanel, DRIVERS, 2); // Ajouter le nouveau panel
-        cardLayout.show(contentPanel, DRIVERS);
+        taches.afficher(cardLayout, contentPanel, DRIVERS);
     }
 
-    private void loadDrivers(DefaultTableModel model) {
-        // Vider le modèle
-        model.setRowCount(0);
-
-        // Récupérer les conducteurs
-        List<Conducteur> conducteurs = ServiceFactory.getConducteurService().getAllConducteurs();
-
-        // Ajouter les conducteurs au modèle
-        for (Conducteur conducteur : conducteurs) {
-            model.addRow(new Object[]{
-                    conducteur.getId(),
-                    conducteur.getNom(),
-                    conducteur.getPrenom(),
-                    conducteur.getEmail(),
-                    conducteur.getTelephone(),
-                    conducteur.getNumeroPermis(),
-                    conducteur.getVehiculeInfo()
-            });
-        }
+    private void loadDrivers(DefaultTableModel model, JScrollPane scrollPane) {
+        // Les conducteurs sont lus page par page au fil du défilement
+        LazyTableLoader<Conducteur> loader = new LazyTableLoader<>(taches, DRIVERS, model, scrollPane,
+                ServiceFactory.getConducteurService()::getConducteursPage,
+                this::ligneConducteur);
+
+        // Les lignes chargées modifiées ou supprimées depuis sont relues à l'actualisation ;
+        // les nouveaux conducteurs arrivent par la pagination, à leur place dans l'ordre des identifiants
+        syncConducteurs = new DeltaSync<>(taches, DRIVERS, model,
+                ServiceFactory.getConducteurService()::getConducteursModifiesDepuis,
+                this::ligneConducteur, loader::recharger);
+        loader.observer(syncConducteurs::vu).recharger();
+    }
+
+    private Object[] ligneConducteur(Conducteur conducteur) {
+        return new Object[]{
+                conducteur.getId(),
+                conducteur.getNom(),
+                conducteur.getPrenom(),
+                conducteur.getEmail(),
+                conducteur.getTelephone(),
+                conducteur.getNumeroPermis(),
+                conducteur.getVehiculeInfo()
+        };
     }
 
     private JPanel createRidesPanel() {
@@ -450,45 +509,47 @@ public class AdminPanel extends JPanel {
         panel.add(actionsPanel, BorderLayout.SOUTH);
 
         // Charger les trajets
-        loadRides(model);
+        loadRides(model, scrollPane);
 
         return panel;
     }
 
     private void refreshRidesPanel() {
-        // Actualiser et afficher le panel des trajets
-        cardLayout.show(contentPanel, RIDES);
-
-        // Remplacer le contenu par une version actualisée
-        JPanel ridesPanel = createRidesPanel();
-        contentPanel.remove(contentPanel.getComponent(3)); // Supprimer l'ancien panel
-        contentPanel.add(ridesPanel, RIDES, 3); // Ajouter le nouveau panel
-        cardLayout.show(contentPanel, RIDES);
+        // Afficher le panel des trajets et n'y relire que les lignes modifiées
+        taches.afficher(cardLayout, contentPanel, RIDES);
+        syncTrajets.synchroniser();
     }
 
-    private void loadRides(DefaultTableModel model) {
-        // Vider le modèle
-        model.setRowCount(0);
-
-        // Récupérer les trajets
-        List<Trajet> trajets = ServiceFactory.getTrajetService().getAllTrajets();
-
-        // Ajouter les trajets au modèle
-        for (Trajet trajet : trajets) {
-            String conducteurInfo = trajet.getConducteur() != null ?
-                    trajet.getConducteur().getPrenom() + " " + trajet.getConducteur().getNom() : "N/A";
+    private void loadRides(DefaultTableModel model, JScrollPane scrollPane) {
+        // Les trajets sont lus page par page (curseur sur date de départ, id) au fil du défilement
+        LazyTableLoader<Trajet> loader = new LazyTableLoader<>(taches, RIDES, model, scrollPane,
+                ServiceFactory.getTrajetService()::getTrajetsPage, this::ligneTrajet);
+        syncTrajets = new DeltaSync<>(taches, RIDES, model,
+                ServiceFactory.getTrajetService()::getTrajetsModifiesDepuis, this::ligneTrajet, loader::recharger);
+        loader.observer(syncTrajets::vu).recharger();
+
+        // Trajets modifiés ou supprimés par d'autres clients : seules leurs lignes sont relues.
+        // Les nouveaux trajets arrivent par la pagination, à leur place dans l'ordre des dates.
+        new LiveTableUpdater(taches, RIDES, model, scrollPane,
+                ids -> LiveTableUpdater.lignes(ServiceFactory.getTrajetService().getTrajetsByIds(ids),
+                        trajet -> true, this::ligneTrajet))
+                .suivre(ChangeEvent.Table.TRAJETS, ChangeEvent::id);
+    }
 
-            model.addRow(new Object[]{
-                    trajet.getId(),
-                    trajet.getLieuDepart(),
-                    trajet.getLieuArrivee(),
-                    trajet.getDateDepart().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
-                    trajet.getPrix(),
-                    trajet.getNbPlacesDisponibles(),
-                    conducteurInfo,
-                    trajet.isEstAnnule() ? "Annulé" : "Actif"
-            });
-        }
+    private Object[] ligneTrajet(Trajet trajet) {
+        String conducteurInfo = trajet.getConducteur() != null ?
+                trajet.getConducteur().getPrenom() + " " + trajet.getConducteur().getNom() : "N/A";
+
+        return new Object[]{
+                trajet.getId(),
+                trajet.getLieuDepart(),
+                trajet.getLieuArrivee(),
+                trajet.getDateDepart().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
+                trajet.getPrix(),
+                trajet.getNbPlacesDisponibles(),
+                conducteurInfo,
+                trajet.isEstAnnule() ? "Annulé" : "Actif"
+        };
     }
 
     private JPanel createReportsPanel() {
@@ -520,43 +581,76 @@ public class AdminPanel extends JPanel {
         c.gridwidth = 2;
         content.add(descLabel, c);
 
+        // Options : format et période
+        JPanel optionsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        optionsPanel.setOpaque(false);
+        formatRapportCombo = new JComboBox<>(FormatRapport.values());
+        periodeRapportCombo = new JComboBox<>(new String[]{
+                "Tout l'historique", "Mois en cours", "Mois précédent", "Année en cours"});
+        optionsPanel.add(new JLabel("Format :"));
+        optionsPanel.add(formatRapportCombo);
+        optionsPanel.add(new JLabel("Période :"));
+        optionsPanel.add(periodeRapportCombo);
+        c.gridx = 0;
+        c.gridy = 1;
+        content.add(optionsPanel, c);
+
         // Rapport utilisateurs
         JButton usersReportButton = ComponentFactory.createButton("Rapport des utilisateurs", ColorScheme.PRIMARY, Color.WHITE);
         usersReportButton.addActionListener(e -> generateUsersReport());
         c.gridx = 0;
-        c.gridy = 1;
+        c.gridy = 2;
         c.gridwidth = 1;
         content.add(usersReportButton, c);
 
-        JLabel usersReportLabel = new JLabel("Statistiques sur les inscriptions et activités des utilisateurs");
+        JLabel usersReportLabel = new JLabel("Activité par utilisateur : réservations, annulations et montants payés");
         c.gridx = 1;
-        c.gridy = 1;
+        c.gridy = 2;
         content.add(usersReportLabel, c);
 
         // Rapport trajets
         JButton ridesReportButton = ComponentFactory.createButton("Rapport des trajets", ColorScheme.PRIMARY, Color.WHITE);
         ridesReportButton.addActionListener(e -> generateRidesReport());
         c.gridx = 0;
-        c.gridy = 2;
+        c.gridy = 3;
         content.add(ridesReportButton, c);
 
-        JLabel ridesReportLabel = new JLabel("Statistiques sur les trajets proposés, annulés, etc.");
+        JLabel ridesReportLabel = new JLabel("Trajets par itinéraire et par mois, taux d'annulation et de remplissage");
         c.gridx = 1;
-        c.gridy = 2;
+        c.gridy = 3;
         content.add(ridesReportLabel, c);
 
         // Rapport réservations
         JButton reservationsReportButton = ComponentFactory.createButton("Rapport des réservations", ColorScheme.PRIMARY, Color.WHITE);
         reservationsReportButton.addActionListener(e -> generateReservationsReport());
         c.gridx = 0;
-        c.gridy = 3;
+        c.gridy = 4;
         content.add(reservationsReportButton, c);
 
-        JLabel reservationsReportLabel = new JLabel("Statistiques sur les réservations effectuées et leur statut");
+        JLabel reservationsReportLabel = new JLabel("Entonnoir des réservations par mois : en attente, confirmées, annulées, payées");
         c.gridx = 1;
-        c.gridy = 3;
+        c.gridy = 4;
         content.add(reservationsReportLabel, c);
 
+        // Export brut d'une table (comptabilité)
+        JButton exportButton = ComponentFactory.createButton("Exporter une table", ColorScheme.PRIMARY, Color.WHITE);
+        exportButton.addActionListener(e -> exportTable());
+        c.gridx = 0;
+        c.gridy = 5;
+        content.add(exportButton, c);
+
+        JPanel exportPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        exportPanel.setOpaque(false);
+        tableExportCombo = new JComboBox<>(TableExport.values());
+        compresserExportBox = new JCheckBox("Compresser (gzip)");
+        compresserExportBox.setOpaque(false);
+        exportPanel.add(tableExportCombo);
+        exportPanel.add(compresserExportBox);
+        exportPanel.add(new JLabel("Données brutes en CSV, filtrées par la période choisie"));
+        c.gridx = 1;
+        c.gridy = 5;
+        content.add(exportPanel, c);
+
         panel.add(content, BorderLayout.CENTER);
 
         return panel;
@@ -665,8 +759,7 @@ public class AdminPanel extends JPanel {
             Utilisateur utilisateur = new Utilisateur(nom, prenom, email, password, telephone);
             utilisateur.setPreferences(preferences);
 
-            try {
-                Long id = ServiceFactory.getUtilisateurService().creerUtilisateur(utilisateur);
+            taches.executer(null, null, () -> ServiceFactory.getUtilisateurService().creerUtilisateur(utilisateur), id -> {
                 if (id != null) {
                     JOptionPane.showMessageDialog(dialog,
                             "Utilisateur créé avec succès !",
@@ -675,18 +768,18 @@ public class AdminPanel extends JPanel {
                     // Fermer la boîte de dialogue
                     dialog.dispose();
 
-                    // Actualiser la liste des utilisateurs
-                    refreshUsersPanel();
+                    // Recharger la liste des utilisateurs : le nouvel utilisateur se place en fin de liste
+                    rechargerUsersPanel();
                 } else {
                     JOptionPane.showMessageDialog(dialog,
                             "Erreur lors de la création de l'utilisateur.",
                             "Erreur", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (Exception ex) {
+            }, ex -> {
                 JOptionPane.showMessageDialog(dialog,
                         "Erreur: " + ex.getMessage(),
                         "Erreur", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         });
 
         buttonsPanel.add(cancelButton);
@@ -703,8 +796,7 @@ public class AdminPanel extends JPanel {
                 "Suppression d'utilisateur", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if (choice == JOptionPane.YES_OPTION) {
-            try {
-                boolean success = ServiceFactory.getUtilisateurService().supprimerUtilisateur(userId);
+            taches.executer(null, null, () -> ServiceFactory.getUtilisateurService().supprimerUtilisateur(userId), success -> {
                 if (success) {
                     JOptionPane.showMessageDialog(this,
                             "Utilisateur supprimé avec succès !",
@@ -717,11 +809,11 @@ public class AdminPanel extends JPanel {
                             "Erreur lors de la suppression de l'utilisateur.",
                             "Erreur", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (Exception e) {
+            }, e -> {
                 JOptionPane.showMessageDialog(this,
                         "Erreur: " + e.getMessage(),
                         "Erreur", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         }
     }
 
@@ -839,8 +931,7 @@ public class AdminPanel extends JPanel {
             Conducteur conducteur = new Conducteur(nom, prenom, email, password, telephone, permis);
             conducteur.setVehiculeInfo(vehicule);
 
-            try {
-                Long id = ServiceFactory.getConducteurService().creerConducteur(conducteur);
+            taches.executer(null, null, () -> ServiceFactory.getConducteurService().creerConducteur(conducteur), id -> {
                 if (id != null) {
                     JOptionPane.showMessageDialog(dialog,
                             "Conducteur créé avec succès !",
@@ -849,18 +940,18 @@ public class AdminPanel extends JPanel {
                     // Fermer la boîte de dialogue
                     dialog.dispose();
 
-                    // Actualiser la liste des conducteurs
-                    refreshDriversPanel();
+                    // Recharger la liste des conducteurs : le nouveau conducteur se place en fin de liste
+                    rechargerDriversPanel();
                 } else {
                     JOptionPane.showMessageDialog(dialog,
                             "Erreur lors de la création du conducteur.",
                             "Erreur", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (Exception ex) {
+            }, ex -> {
                 JOptionPane.showMessageDialog(dialog,
                         "Erreur: " + ex.getMessage(),
                         "Erreur", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         });
 
         buttonsPanel.add(cancelButton);
@@ -877,8 +968,7 @@ public class AdminPanel extends JPanel {
                 "Suppression de conducteur", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if (choice == JOptionPane.YES_OPTION) {
-            try {
-                boolean success = ServiceFactory.getConducteurService().supprimerConducteur(driverId);
+            taches.executer(null, null, () -> ServiceFactory.getConducteurService().supprimerConducteur(driverId), success -> {
                 if (success) {
                     JOptionPane.showMessageDialog(this,
                             "Conducteur et tous ses trajets supprimés avec succès !",
@@ -891,18 +981,22 @@ public class AdminPanel extends JPanel {
                             "Erreur lors de la suppression du conducteur.",
                             "Erreur", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (Exception e) {
+            }, e -> {
                 JOptionPane.showMessageDialog(this,
                         "Erreur: " + e.getMessage(),
                         "Erreur", JOptionPane.ERROR_MESSAGE);
                 e.printStackTrace(); // Afficher la trace d'erreur pour le débogage
-            }
+            });
         }
     }
     private void showRideDetailsDialog(Long rideId) {
-        // Récupérer le trajet
+        // Récupérer le trajet en tâche de fond, puis ouvrir la boîte de dialogue sur l'EDT
+        taches.executer(null, () -> ServiceFactory.getTrajetService().getTrajetById(rideId),
+                this::showRideDetailsDialog);
+    }
+
+    private void showRideDetailsDialog(Optional<Trajet> optTrajet) {
         try {
-            Optional<Trajet> optTrajet = ServiceFactory.getTrajetService().getTrajetById(rideId);
             if (optTrajet.isEmpty()) {
                 JOptionPane.showMessageDialog(this,
                         "Trajet non trouvé.",
@@ -926,7 +1020,7 @@ public class AdminPanel extends JPanel {
             c.insets = new Insets(5, 5, 5, 5);
 
             // Titre
-            JLabel titleLabel = ComponentFactory.createTitleLabel("Détails du trajet #" + rideId);
+            JLabel titleLabel = ComponentFactory.createTitleLabel("Détails du trajet #" + trajet.getId());
             c.gridx = 0;
             c.gridy = 0;
             c.gridwidth = 2;
@@ -1026,8 +1120,7 @@ public class AdminPanel extends JPanel {
                 "Suppression de trajet", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if (choice == JOptionPane.YES_OPTION) {
-            try {
-                boolean success = ServiceFactory.getTrajetService().deleteTrajet(rideId);
+            taches.executer(null, null, () -> ServiceFactory.getTrajetService().deleteTrajet(rideId), success -> {
                 if (success) {
                     JOptionPane.showMessageDialog(this,
                             "Trajet supprimé avec succès !",
@@ -1040,51 +1133,61 @@ public class AdminPanel extends JPanel {
                             "Erreur lors de la suppression du trajet.",
                             "Erreur", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (Exception e) {
+            }, e -> {
                 JOptionPane.showMessageDialog(this,
                         "Erreur: " + e.getMessage(),
                         "Erreur", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         }
     }
 
     private void generateUsersReport() {
-        try {
-            ServiceFactory.getAdminService().genererRapportUtilisateurs();
-            JOptionPane.showMessageDialog(this,
-                    "Rapport des utilisateurs généré avec succès !",
-                    "Succès", JOptionPane.INFORMATION_MESSAGE);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Erreur lors de la génération du rapport: " + e.getMessage(),
-                    "Erreur", JOptionPane.ERROR_MESSAGE);
-        }
+        generateReport("Rapport des utilisateurs", ServiceFactory.getAdminService()::genererRapportUtilisateurs);
     }
 
     private void generateRidesReport() {
-        try {
-            ServiceFactory.getAdminService().genererRapportTrajets();
-            JOptionPane.showMessageDialog(this,
-                    "Rapport des trajets généré avec succès !",
-                    "Succès", JOptionPane.INFORMATION_MESSAGE);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Erreur lors de la génération du rapport: " + e.getMessage(),
-                    "Erreur", JOptionPane.ERROR_MESSAGE);
-        }
+        generateReport("Rapport des trajets", ServiceFactory.getAdminService()::genererRapportTrajets);
     }
 
     private void generateReservationsReport() {
-        try {
-            ServiceFactory.getAdminService().genererRapportReservations();
-            JOptionPane.showMessageDialog(this,
-                    "Rapport des réservations généré avec succès !",
-                    "Succès", JOptionPane.INFORMATION_MESSAGE);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Erreur lors de la génération du rapport: " + e.getMessage(),
-                    "Erreur", JOptionPane.ERROR_MESSAGE);
-        }
+        generateReport("Rapport des réservations", ServiceFactory.getAdminService()::genererRapportReservations);
+    }
+
+    private void generateReport(String libelle, BiFunction<FormatRapport, PeriodeRapport, Path> generation) {
+        FormatRapport format = (FormatRapport) formatRapportCombo.getSelectedItem();
+        PeriodeRapport periode = getPeriodeRapport();
+
+        // Génération en tâche de fond, poursuivie même si l'administrateur change de carte
+        taches.executer(null, null, () -> generation.apply(format, periode),
+                fichier -> JOptionPane.showMessageDialog(this,
+                        libelle + " généré avec succès !\n" + fichier.toAbsolutePath(),
+                        "Succès", JOptionPane.INFORMATION_MESSAGE),
+                e -> JOptionPane.showMessageDialog(this,
+                        "Erreur lors de la génération du rapport: " + e.getMessage(),
+                        "Erreur", JOptionPane.ERROR_MESSAGE));
+    }
+
+    private void exportTable() {
+        TableExport table = (TableExport) tableExportCombo.getSelectedItem();
+        PeriodeRapport periode = getPeriodeRapport();
+        boolean compresser = compresserExportBox.isSelected();
+
+        taches.executer(null, null, () -> ServiceFactory.getAdminService().exporterTable(table, periode, compresser),
+                fichier -> JOptionPane.showMessageDialog(this,
+                        "Export « " + table + " » terminé !\n" + fichier.toAbsolutePath(),
+                        "Succès", JOptionPane.INFORMATION_MESSAGE),
+                e -> JOptionPane.showMessageDialog(this,
+                        "Erreur lors de l'export: " + e.getMessage(),
+                        "Erreur", JOptionPane.ERROR_MESSAGE));
+    }
+
+    private PeriodeRapport getPeriodeRapport() {
+        return switch (periodeRapportCombo.getSelectedIndex()) {
+            case 1 -> PeriodeRapport.mois(YearMonth.now());
+            case 2 -> PeriodeRapport.mois(YearMonth.now().minusMonths(1));
+            case 3 -> PeriodeRapport.annee(LocalDate.now().getYear());
+            default -> PeriodeRapport.TOUT;
+        };
     }
 
     private void logout() {
@@ -1094,7 +1197,8 @@ public class AdminPanel extends JPanel {
                 "Déconnexion", JOptionPane.YES_NO_OPTION);
 
         if (choice == JOptionPane.YES_OPTION) {
-            // Effacer la session
+            // Abandonner les chargements en cours et effacer la session
+            taches.annulerTout();
             SessionManager.clearSession();
 
             // Retourner à l'écran de connexion
@@ -1,5 +1,6 @@
 package covoiturage.ui.gui.panels;
 
+import covoiturage.config.ChangeEvent;
 import covoiturage.model.Conducteur;
 import covoiturage.model.Reservation;
 import covoiturage.model.Trajet;
@@ -8,8 +9,11 @@ import covoiturage.ui.gui.MainFrame;
 import covoiturage.ui.gui.SessionManager;
 import covoiturage.ui.gui.components.NavigationBar;
 import covoiturage.ui.gui.components.SideBar;
+import covoiturage.ui.gui.utils.BackgroundTasks;
 import covoiturage.ui.gui.utils.ColorScheme;
 import covoiturage.ui.gui.utils.ComponentFactory;
+import covoiturage.ui.gui.utils.DeltaSync;
+import covoiturage.ui.gui.utils.LiveTableUpdater;
 import covoiturage.ui.validator.InputValidator;
 
 import javax.swing.*;
@@ -18,15 +22,18 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DriverPanel extends JPanel {
     private MainFrame mainFrame;
     private Conducteur conducteur;
     private CardLayout cardLayout;
     private JPanel contentPanel;
+    private BackgroundTasks taches;
+    private DeltaSync<Trajet> syncTrajets;
+    private DeltaSync<Reservation> syncReservations;
 
     // Constantes pour identifier les sous-panneaux
     public static final String DASHBOARD = "DASHBOARD";
@@ -41,6 +48,7 @@ public class DriverPanel extends JPanel {
     public DriverPanel(MainFrame mainFrame, Conducteur conducteur) {
         this.mainFrame = mainFrame;
         this.conducteur = conducteur;
+        this.taches = new BackgroundTasks(this);
 
         setLayout(new BorderLayout());
         setBackground(ColorScheme.BACKGROUND);
@@ -70,18 +78,18 @@ public class DriverPanel extends JPanel {
         add(contentPanel, BorderLayout.CENTER);
 
         // Afficher le tableau de bord par défaut
-        cardLayout.show(contentPanel, DASHBOARD);
+        taches.afficher(cardLayout, contentPanel, DASHBOARD);
     }
 
     private SideBar createSideBar() {
         SideBar sideBar = new SideBar();
 
         // Ajout des éléments de menu
-        sideBar.addMenuItem("Tableau de bord", "/images/dashboard_icon.png", e -> cardLayout.show(contentPanel, DASHBOARD));
+        sideBar.addMenuItem("Tableau de bord", "/images/dashboard_icon.png", e -> taches.afficher(cardLayout, contentPanel, DASHBOARD));
         sideBar.addMenuItem("Mes trajets", "/images/car_icon.png", e -> refreshMyRidesPanel());
-        sideBar.addMenuItem("Proposer un trajet", "/images/add_icon.png", e -> cardLayout.show(contentPanel, ADD_RIDE));
+        sideBar.addMenuItem("Proposer un trajet", "/images/add_icon.png", e -> taches.afficher(cardLayout, contentPanel, ADD_RIDE));
         sideBar.addMenuItem("Gérer réservations", "/images/reservation_icon.png", e -> refreshReservationsPanel());
-        sideBar.addMenuItem("Mon profil", "/images/profile_icon.png", e -> cardLayout.show(contentPanel, PROFILE));
+        sideBar.addMenuItem("Mon profil", "/images/profile_icon.png", e -> taches.afficher(cardLayout, contentPanel, PROFILE));
 
         return sideBar;
     }
@@ -112,21 +120,24 @@ public class DriverPanel extends JPanel {
         statsPanel.setOpaque(false);
         statsPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
 
-        // Récupérer les statistiques
-        List<Trajet> trajets = ServiceFactory.getConducteurService().getTrajetsByConducteur(conducteur.getId());
-        int totalTrajets = trajets.size();
-        int trajetsActifs = (int) trajets.stream()
-                .filter(t -> !t.isEstAnnule() && t.getDateDepart().isAfter(LocalDateTime.now()))
-                .count();
-
         // Carte 1: Trajets proposés
-        JPanel card1 = createStatCard("Trajets proposés", String.valueOf(totalTrajets), ColorScheme.PRIMARY);
+        JLabel totalValue = new JLabel("…");
+        JPanel card1 = createStatCard("Trajets proposés", totalValue, ColorScheme.PRIMARY);
         statsPanel.add(card1);
 
         // Carte 2: Trajets actifs
-        JPanel card2 = createStatCard("Trajets actifs", String.valueOf(trajetsActifs), ColorScheme.ACCENT);
+        JLabel activeValue = new JLabel("…");
+        JPanel card2 = createStatCard("Trajets actifs", activeValue, ColorScheme.ACCENT);
         statsPanel.add(card2);
 
+        // Récupérer les statistiques (requêtes d'agrégat) en tâche de fond
+        taches.executer(DASHBOARD,
+                () -> ServiceFactory.getStatistiquesService().getStatistiquesConducteur(conducteur.getId()),
+                stats -> {
+                    totalValue.setText(String.valueOf(stats.trajets().total()));
+                    activeValue.setText(String.valueOf(stats.trajets().aVenir()));
+                });
+
         // Carte 3: Actions rapides
         JPanel card3 = new JPanel();
         card3.setBackground(Color.WHITE);
@@ -141,7 +152,7 @@ public class DriverPanel extends JPanel {
         JButton addRideButton = ComponentFactory.createButton("Proposer un trajet", ColorScheme.PRIMARY, Color.WHITE);
         addRideButton.setAlignmentX(Component.LEFT_ALIGNMENT);
         addRideButton.setBorder(new EmptyBorder(5, 10, 5, 10));
-        addRideButton.addActionListener(e -> cardLayout.show(contentPanel, ADD_RIDE));
+        addRideButton.addActionListener(e -> taches.afficher(cardLayout, contentPanel, ADD_RIDE));
 
         JButton reservationsButton = ComponentFactory.createButton("Gérer les réservations", ColorScheme.SECONDARY, ColorScheme.TEXT);
         reservationsButton.setAlignmentX(Component.LEFT_ALIGNMENT);
@@ -164,7 +175,7 @@ public class DriverPanel extends JPanel {
         return panel;
     }
 
-    private JPanel createStatCard(String title, String value, Color color) {
+    private JPanel createStatCard(String title, JLabel valueLabel, Color color) {
         JPanel card = new JPanel();
         card.setBackground(Color.WHITE);
         card.setBorder(BorderFactory.createLineBorder(ColorScheme.SECONDARY));
@@ -176,7 +187,6 @@ public class DriverPanel extends JPanel {
         titleLabel.setBorder(new EmptyBorder(10, 10, 5, 10));
         titleLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
 
-        JLabel valueLabel = new JLabel(value);
         valueLabel.setFont(new Font("Dialog", Font.BOLD, 36));
         valueLabel.setForeground(color);
         valueLabel.setBorder(new EmptyBorder(5, 10, 10, 10));
@@ -295,41 +305,69 @@ public class DriverPanel extends JPanel {
         panel.add(actionsPanel, BorderLayout.SOUTH);
 
         // Charger les trajets du conducteur
-        loadTrajets(model);
+        loadTrajets(model, scrollPane);
 
         return panel;
     }
 
     private void refreshMyRidesPanel() {
-        // Actualiser et afficher le panel des trajets
-        cardLayout.show(contentPanel, MY_RIDES);
+        // Afficher le panel des trajets et n'y relire que les trajets modifiés
+        taches.afficher(cardLayout, contentPanel, MY_RIDES);
+        syncTrajets.synchroniser();
+    }
+
+    private void rechargerMyRidesPanel() {
+        taches.annuler(MY_RIDES);
 
         // Remplacer le contenu par une version actualisée
         JPanel myRidesPanel = createMyRidesPanel();
         contentPanel.remove(contentPanel.getComponent(1)); // Supprimer l'ancien panel
         contentPanel.add(myRidesPanel, MY_RIDES, 1); // Ajouter le nouveau panel
-        cardLayout.show(contentPanel, MY_RIDES);
+        taches.afficher(cardLayout, contentPanel, MY_RIDES);
     }
 
-    private void loadTrajets(DefaultTableModel model) {
+    private void loadTrajets(DefaultTableModel model, JScrollPane scrollPane) {
         // Vider le modèle
         model.setRowCount(0);
 
-        // Récupérer les trajets du conducteur
-        List<Trajet> trajets = ServiceFactory.getConducteurService().getTrajetsByConducteur(conducteur.getId());
-
-        // Ajouter les trajets au modèle
-        for (Trajet trajet : trajets) {
-            model.addRow(new Object[]{
-                    trajet.getId(),
-                    trajet.getLieuDepart(),
-                    trajet.getLieuArrivee(),
-                    trajet.getDateDepart().format(formatter),
-                    trajet.getPrix(),
-                    trajet.getNbPlacesDisponibles(),
-                    trajet.isEstAnnule() ? "Annulé" : "Actif"
-            });
-        }
+        // Les actualisations suivantes ne relisent que les trajets modifiés depuis ce chargement
+        syncTrajets = new DeltaSync<>(taches, MY_RIDES, model,
+                (depuis, connus, limite) -> ServiceFactory.getTrajetService()
+                        .getTrajetsModifiesDepuisByConducteur(conducteur.getId(), depuis, connus, limite),
+                this::ligneTrajet, this::rechargerMyRidesPanel)
+                .ajouterNouvelles();
+
+        // Récupérer les trajets du conducteur en tâche de fond
+        syncTrajets.charger(scrollPane,
+                () -> ServiceFactory.getConducteurService().getTrajetsByConducteur(conducteur.getId()),
+                trajets -> {
+                    // Ajouter les trajets au modèle
+                    for (Trajet trajet : trajets) {
+                        model.addRow(ligneTrajet(trajet));
+                    }
+                });
+
+        // Trajets du conducteur créés, modifiés ou supprimés depuis un autre client
+        new LiveTableUpdater(taches, MY_RIDES, model, scrollPane,
+                ids -> LiveTableUpdater.lignes(ServiceFactory.getTrajetService().getTrajetsByIds(ids),
+                        trajet -> trajet.getConducteur() != null
+                                && conducteur.getId().equals(trajet.getConducteur().getId()),
+                        this::ligneTrajet))
+                .suivre(ChangeEvent.Table.TRAJETS,
+                        e -> e.conducteurId() == null || conducteur.getId().equals(e.conducteurId()) ? e.id() : null)
+                .ajouterNouvelles();
+    }
+
+    private Object[] ligneTrajet(Trajet trajet) {
+        return new Object[]{
+                trajet.getId(),
+                trajet.getLieuDepart(),
+                trajet.getLieuArrivee(),
+                trajet.getDateDepart().format(formatter),
+                trajet.getPrix(),
+                trajet.getNbPlacesDisponibles(),
+                trajet.isEstAnnule() ? "Annulé" : "Actif"
+        };
     }
 
     private JPanel createAddRidePanel() {
@@ -428,7 +466,7 @@ public class DriverPanel extends JPanel {
             placesField.setText("Nombre de places");
 
             // Retour au tableau de bord
-            cardLayout.show(contentPanel, DASHBOARD);
+            taches.afficher(cardLayout, contentPanel, DASHBOARD);
         });
 
         JButton saveButton = ComponentFactory.createButton("Enregistrer", ColorScheme.PRIMARY, Color.WHITE);
@@ -494,8 +532,7 @@ public class DriverPanel extends JPanel {
             );
             trajet.setConducteur(conducteur);
 
-            try {
-                Long id = ServiceFactory.getConducteurService().proposerTrajet(trajet);
+            taches.executer(null, null, () -> ServiceFactory.getConducteurService().proposerTrajet(trajet), id -> {
                 if (id != null) {
                     JOptionPane.showMessageDialog(panel,
                             "Trajet créé avec succès !",
@@ -515,11 +552,11 @@ public class DriverPanel extends JPanel {
                             "Erreur lors de la création du trajet.",
                             "Erreur", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (Exception ex) {
+            }, ex -> {
                 JOptionPane.showMessageDialog(panel,
                         "Erreur: " + ex.getMessage(),
                         "Erreur", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         });
 
         buttonsPanel.add(cancelButton);
@@ -609,45 +646,78 @@ public class DriverPanel extends JPanel {
 
         panel.add(actionsPanel, BorderLayout.SOUTH);
 
-        // Charger les réservations
-        List<Trajet> trajetsConducteur = ServiceFactory.getConducteurService().getTrajetsByConducteur(conducteur.getId());
-        List<Reservation> reservations = new ArrayList<>();
+        // Trajets du conducteur, pour ne relire que les réservations qui le concernent
+        Set<Long> trajetsSuivis = ConcurrentHashMap.newKeySet();
 
-        // Collecter toutes les réservations pour les trajets du conducteur
-        for (Trajet trajet : trajetsConducteur) {
-            List<Reservation> reservationsTrajet = ServiceFactory.getReservationService().getReservationsByTrajet(trajet.getId());
-            reservations.addAll(reservationsTrajet);
-        }
+        syncReservations = new DeltaSync<>(taches, RESERVATIONS, model,
+                (depuis, connus, limite) -> ServiceFactory.getReservationService()
+                        .getReservationsModifieesDepuisByConducteur(conducteur.getId(), depuis, connus, limite),
+                this::ligneReservation, this::rechargerReservationsPanel)
+                .ajouterNouvelles();
 
-        // Remplir le modèle de tableau avec les réservations
-        for (Reservation reservation : reservations) {
-            String trajetInfo = reservation.getTrajet().getLieuDepart() + " → " + reservation.getTrajet().getLieuArrivee();
-            String dateTrajet = reservation.getTrajet().getDateDepart().format(formatter);
-            String passagerInfo = reservation.getUtilisateur().getPrenom() + " " + reservation.getUtilisateur().getNom();
-
-            model.addRow(new Object[]{
-                    reservation.getId(),
-                    trajetInfo,
-                    dateTrajet,
-                    passagerInfo,
-                    reservation.getNbPlaces(),
-                    reservation.getStatut().toString()
-            });
-        }
+        // Charger les réservations en tâche de fond
+        syncReservations.charger(scrollPane, () -> {
+            // Trajets suivis, y compris ceux qui n'ont pas encore de réservation
+            for (Trajet trajet : ServiceFactory.getConducteurService().getTrajetsByConducteur(conducteur.getId())) {
+                trajetsSuivis.add(trajet.getId());
+            }
+            // Toutes les réservations des trajets du conducteur, en une requête
+            return ServiceFactory.getReservationService().getReservationsByConducteur(conducteur.getId());
+        }, reservations -> {
+            // Remplir le modèle de tableau avec les réservations
+            for (Reservation reservation : reservations) {
+                model.addRow(ligneReservation(reservation));
+            }
+        });
+
+        // Réservations faites, confirmées ou annulées depuis un autre client
+        new LiveTableUpdater(taches, RESERVATIONS, model, scrollPane,
+                ids -> LiveTableUpdater.lignes(ServiceFactory.getReservationService().getReservationsByIds(ids),
+                        reservation -> trajetsSuivis.contains(reservation.getTrajet().getId()),
+                        this::ligneReservation))
+                .suivre(ChangeEvent.Table.RESERVATIONS, e -> trajetsSuivis.contains(e.trajetId()) ? e.id() : null)
+                .suivre(ChangeEvent.Table.TRAJETS, e -> {
+                    // Un nouveau trajet du conducteur pourra recevoir des réservations
+                    if (e.operation() == ChangeEvent.Operation.INSERT && conducteur.getId().equals(e.conducteurId())) {
+                        trajetsSuivis.add(e.id());
+                    }
+                    return null;
+                })
+                .ajouterNouvelles();
 
         return panel;
     }
 
+    private Object[] ligneReservation(Reservation reservation) {
+        String trajetInfo = reservation.getTrajet().getLieuDepart() + " → " + reservation.getTrajet().getLieuArrivee();
+        String dateTrajet = reservation.getTrajet().getDateDepart().format(formatter);
+        String passagerInfo = reservation.getUtilisateur().getPrenom() + " " + reservation.getUtilisateur().getNom();
+
+        return new Object[]{
+                reservation.getId(),
+                trajetInfo,
+                dateTrajet,
+                passagerInfo,
+                reservation.getNbPlaces(),
+                reservation.getStatut().toString()
+        };
+    }
+
 
     private void refreshReservationsPanel() {
-        // Actualiser et afficher le panel des réservations
-        cardLayout.show(contentPanel, RESERVATIONS);
+        // Afficher le panel des réservations et n'y relire que les réservations modifiées
+        taches.afficher(cardLayout, contentPanel, RESERVATIONS);
+        syncReservations.synchroniser();
+    }
+
+    private void rechargerReservationsPanel() {
+        taches.annuler(RESERVATIONS);
 
         // Remplacer le contenu par une version actualisée
         JPanel reservationsPanel = createReservationsPanel();
         contentPanel.remove(contentPanel.getComponent(3)); // Supprimer l'ancien panel
         contentPanel.add(reservationsPanel, RESERVATIONS, 3); // Ajouter le nouveau panel
-        cardLayout.show(contentPanel, RESERVATIONS);
+        taches.afficher(cardLayout, contentPanel, RESERVATIONS);
     }
 
     private JPanel createProfilePanel() {
@@ -780,8 +850,7 @@ public class DriverPanel extends JPanel {
             conducteur.setNumeroPermis(permisField.getText());
             conducteur.setVehiculeInfo(vehiculeField.getText());
 
-            try {
-                boolean success = ServiceFactory.getConducteurService().modifierConducteur(conducteur);
+            taches.executer(null, null, () -> ServiceFactory.getConducteurService().modifierConducteur(conducteur), success -> {
                 if (success) {
                     JOptionPane.showMessageDialog(panel,
                             "Profil mis à jour avec succès !",
@@ -791,11 +860,11 @@ public class DriverPanel extends JPanel {
                             "Erreur lors de la mise à jour du profil.",
                             "Erreur", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (Exception ex) {
+            }, ex -> {
                 JOptionPane.showMessageDialog(panel,
                         "Erreur: " + ex.getMessage(),
                         "Erreur", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         });
 
         buttonsPanel.add(saveButton);
@@ -806,9 +875,13 @@ public class DriverPanel extends JPanel {
     }
 
     private void showModifyRideDialog(Long trajetId) {
-        // Récupérer le trajet à modifier
+        // Récupérer le trajet à modifier en tâche de fond, puis ouvrir la boîte de dialogue sur l'EDT
+        taches.executer(null, () -> ServiceFactory.getTrajetService().getTrajetById(trajetId),
+                this::showModifyRideDialog);
+    }
+
+    private void showModifyRideDialog(Optional<Trajet> optTrajet) {
         try {
-            Optional<Trajet> optTrajet = ServiceFactory.getTrajetService().getTrajetById(trajetId);
             if (optTrajet.isEmpty()) {
                 JOptionPane.showMessageDialog(this,
                         "Trajet non trouvé.",
@@ -832,7 +905,7 @@ public class DriverPanel extends JPanel {
             c.insets = new Insets(5, 5, 5, 5);
 
             // Titre
-            JLabel titleLabel = ComponentFactory.createTitleLabel("Modifier le trajet #" + trajetId);
+            JLabel titleLabel = ComponentFactory.createTitleLabel("Modifier le trajet #" + trajet.getId());
             c.gridx = 0;
             c.gridy = 0;
             c.gridwidth = 2;
@@ -953,8 +1026,7 @@ public class DriverPanel extends JPanel {
                 trajet.setPrix(Double.parseDouble(prixStr));
                 trajet.setNbPlacesDisponibles(Integer.parseInt(placesStr));
 
-                try {
-                    boolean success = ServiceFactory.getConducteurService().modifierTrajet(trajet);
+                taches.executer(null, null, () -> ServiceFactory.getConducteurService().modifierTrajet(trajet), success -> {
                     if (success) {
                         JOptionPane.showMessageDialog(dialog,
                                 "Trajet modifié avec succès !",
@@ -970,11 +1042,11 @@ public class DriverPanel extends JPanel {
                                 "Erreur lors de la modification du trajet.",
                                 "Erreur", JOptionPane.ERROR_MESSAGE);
                     }
-                } catch (Exception ex) {
+                }, ex -> {
                     JOptionPane.showMessageDialog(dialog,
                             "Erreur: " + ex.getMessage(),
                             "Erreur", JOptionPane.ERROR_MESSAGE);
-                }
+                });
             });
 
             buttonsPanel.add(cancelButton);
@@ -996,8 +1068,7 @@ public class DriverPanel extends JPanel {
                 "Annulation de trajet", JOptionPane.YES_NO_OPTION);
 
         if (choice == JOptionPane.YES_OPTION) {
-            try {
-                boolean success = ServiceFactory.getConducteurService().annulerTrajet(trajetId);
+            taches.executer(null, null, () -> ServiceFactory.getConducteurService().annulerTrajet(trajetId), success -> {
                 if (success) {
                     JOptionPane.showMessageDialog(this,
                             "Trajet annulé avec succès !",
@@ -1010,11 +1081,11 @@ public class DriverPanel extends JPanel {
                             "Erreur lors de l'annulation du trajet.",
                             "Erreur", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (Exception e) {
+            }, e -> {
                 JOptionPane.showMessageDialog(this,
                         "Erreur: " + e.getMessage(),
                         "Erreur", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         }
     }
 
@@ -1024,8 +1095,7 @@ public class DriverPanel extends JPanel {
                 "Réactivation de trajet", JOptionPane.YES_NO_OPTION);
 
         if (choice == JOptionPane.YES_OPTION) {
-            try {
-                boolean success = ServiceFactory.getConducteurService().reactiverTrajet(trajetId);
+            taches.executer(null, null, () -> ServiceFactory.getConducteurService().reactiverTrajet(trajetId), success -> {
                 if (success) {
                     JOptionPane.showMessageDialog(this,
                             "Trajet réactivé avec succès !",
@@ -1038,11 +1108,11 @@ public class DriverPanel extends JPanel {
                             "Erreur lors de la réactivation du trajet.",
                             "Erreur", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (Exception e) {
+            }, e -> {
                 JOptionPane.showMessageDialog(this,
                         "Erreur: " + e.getMessage(),
                         "Erreur", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         }
     }
 
@@ -1052,8 +1122,7 @@ public class DriverPanel extends JPanel {
                 "Suppression de trajet", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
 
         if (choice == JOptionPane.YES_OPTION) {
-            try {
-                boolean success = ServiceFactory.getConducteurService().supprimerTrajet(trajetId);
+            taches.executer(null, null, () -> ServiceFactory.getConducteurService().supprimerTrajet(trajetId), success -> {
                 if (success) {
                     JOptionPane.showMessageDialog(this,
                             "Trajet supprimé avec succès !",
@@ -1066,17 +1135,16 @@ public class DriverPanel extends JPanel {
                             "Erreur lors de la suppression du trajet.",
                             "Erreur", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (Exception e) {
+            }, e -> {
                 JOptionPane.showMessageDialog(this,
                         "Erreur: " + e.getMessage(),
                         "Erreur", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         }
     }
 
     private void acceptReservation(Long reservationId) {
-        try {
-            boolean success = ServiceFactory.getReservationService().confirmerReservation(reservationId);
+        taches.executer(null, null, () -> ServiceFactory.getReservationService().confirmerReservation(reservationId), success -> {
             if (success) {
                 JOptionPane.showMessageDialog(this,
                         "Réservation acceptée avec succès !",
@@ -1089,16 +1157,15 @@ public class DriverPanel extends JPanel {
                         "Erreur lors de l'acceptation de la réservation.",
                         "Erreur", JOptionPane.ERROR_MESSAGE);
             }
-        } catch (Exception e) {
+        }, e -> {
             JOptionPane.showMessageDialog(this,
                     "Erreur: " + e.getMessage(),
                     "Erreur", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
 
     private void rejectReservation(Long reservationId) {
-        try {
-            boolean success = ServiceFactory.getReservationService().annulerReservation(reservationId);
+        taches.executer(null, null, () -> ServiceFactory.getReservationService().annulerReservation(reservationId), success -> {
             if (success) {
                 JOptionPane.showMessageDialog(this,
                         "Réservation refusée avec succès !",
@@ -1111,11 +1178,11 @@ public class DriverPanel extends JPanel {
                         "Erreur lors du refus de la réservation.",
                         "Erreur", JOptionPane.ERROR_MESSAGE);
             }
-        } catch (Exception e) {
+        }, e -> {
             JOptionPane.showMessageDialog(this,
                     "Erreur: " + e.getMessage(),
                     "Erreur", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
 
     private void logout() {
@@ -1125,7 +1192,8 @@ public class DriverPanel extends JPanel {
                 "Déconnexion", JOptionPane.YES_NO_OPTION);
 
         if (choice == JOptionPane.YES_OPTION) {
-            // Effacer la session
+            // Abandonner les chargements en cours et effacer la session
+            taches.annulerTout();
             SessionManager.clearSession();
 
             // Retourner à l'écran de connexion
@@ -6,6 +6,7 @@ import covoiturage.model.Utilisateur;
 import covoiturage.service.ServiceFactory;
 import covoiturage.ui.gui.MainFrame;
 import covoiturage.ui.gui.SessionManager;
+import covoiturage.ui.gui.utils.BackgroundTasks;
 import covoiturage.ui.gui.utils.ColorScheme;
 import covoiturage.ui.gui.utils.ComponentFactory;
 import covoiturage.ui.gui.utils.ImageUtils;
@@ -24,6 +25,7 @@ public class LoginPanel extends JPanel {
     private MainFrame mainFrame;
     private CardLayout cardLayout;
     private JPanel contentPanel;
+    private BackgroundTasks taches;
 
     // Constantes pour les différentes vues
     private static final String LOGIN_VIEW = "LOGIN";
@@ -31,6 +33,7 @@ public class LoginPanel extends JPanel {
 
     public LoginPanel(MainFrame mainFrame) {
         this.mainFrame = mainFrame;
+        this.taches = new BackgroundTasks(this);
 
         // Layout général
         setLayout(new BorderLayout());
@@ -242,40 +245,45 @@ public class LoginPanel extends JPanel {
             }
 
             if (isValid) {
-                if (authenticateUser(email, password, userType)) {
-                    // Effet de transition
-                    Timer timer = new Timer(10, event -> {
-                        // Code pour l'animation de transition si nécessaire
-                        ((Timer) event.getSource()).stop();
-                        // Après l'animation
-                        JOptionPane.showMessageDialog(mainPanel, "Connexion réussie !");
-                        // Redirection vers le panel approprié
-                        switchToDashboard(userType);
-                    });
-                    timer.setInitialDelay(100);
-                    timer.start();
-                } else {
-                    // Animation pour indiquer l'échec
-                    passwordField.setBorder(new LineBorder(ColorScheme.ERROR, 2, true));
-                    emailField.setBorder(new LineBorder(ColorScheme.ERROR, 2, true));
-
-                    passwordErrorLabel.setText("Identifiants incorrects");
-
-                    // Restaurer les bordures après un délai
-                    Timer timer = new Timer(3000, event -> {
-                        passwordField.setBorder(new CompoundBorder(
-                                new LineBorder(ColorScheme.BORDER, 1, true),
-                                new EmptyBorder(5, 10, 5, 10)
-                        ));
-                        emailField.setBorder(new CompoundBorder(
-                                new LineBorder(ColorScheme.BORDER, 1, true),
-                                new EmptyBorder(5, 10, 5, 10)
-                        ));
-                        passwordErrorLabel.setText(" ");
-                        ((Timer) event.getSource()).stop();
-                    });
-                    timer.start();
-                }
+                // Authentifier en tâche de fond ; le bouton reste désactivé pendant l'appel
+                loginButton.setEnabled(false);
+                taches.executer(null, () -> authenticateUser(email, password, userType), authentifie -> {
+                    loginButton.setEnabled(true);
+                    if (authentifie) {
+                        // Effet de transition
+                        Timer timer = new Timer(10, event -> {
+                            // Code pour l'animation de transition si nécessaire
+                            ((Timer) event.getSource()).stop();
+                            // Après l'animation
+                            JOptionPane.showMessageDialog(mainPanel, "Connexion réussie !");
+                            // Redirection vers le panel approprié
+                            switchToDashboard(userType);
+                        });
+                        timer.setInitialDelay(100);
+                        timer.start();
+                    } else {
+                        // Animation pour indiquer l'échec
+                        passwordField.setBorder(new LineBorder(ColorScheme.ERROR, 2, true));
+                        emailField.setBorder(new LineBorder(ColorScheme.ERROR, 2, true));
+
+                        passwordErrorLabel.setText("Identifiants incorrects");
+
+                        // Restaurer les bordures après un délai
+                        Timer timer = new Timer(3000, event -> {
+                            passwordField.setBorder(new CompoundBorder(
+                                    new LineBorder(ColorScheme.BORDER, 1, true),
+                                    new EmptyBorder(5, 10, 5, 10)
+                            ));
+                            emailField.setBorder(new CompoundBorder(
+                                    new LineBorder(ColorScheme.BORDER, 1, true),
+                                    new EmptyBorder(5, 10, 5, 10)
+                            ));
+                            passwordErrorLabel.setText(" ");
+                            ((Timer) event.getSource()).stop();
+                        });
+                        timer.start();
+                    }
+                });
             }
         });
 
@@ -720,14 +728,12 @@ public class LoginPanel extends JPanel {
 
             // Si tous les champs sont valides, créer l'utilisateur
             if (isValid) {
-                try {
-                    // Créer l'utilisateur
-                    Utilisateur utilisateur = new Utilisateur(nom, prenom, email, password, telephone);
-                    utilisateur.setPreferences(preferences);
-
-                    // Enregistrer l'utilisateur
-                    Long id = ServiceFactory.getUtilisateurService().creerUtilisateur(utilisateur);
+                // Créer l'utilisateur
+                Utilisateur utilisateur = new Utilisateur(nom, prenom, email, password, telephone);
+                utilisateur.setPreferences(preferences);
 
+                // Enregistrer l'utilisateur en tâche de fond
+                taches.executer(null, null, () -> ServiceFactory.getUtilisateurService().creerUtilisateur(utilisateur), id -> {
                     if (id != null) {
                         JOptionPane.showMessageDialog(mainPanel,
                                 "Compte créé avec succès ! Vous pouvez maintenant vous connecter.",
@@ -740,11 +746,11 @@ public class LoginPanel extends JPanel {
                                 "Erreur lors de la création du compte.",
                                 "Erreur", JOptionPane.ERROR_MESSAGE);
                     }
-                } catch (Exception ex) {
+                }, ex -> {
                     JOptionPane.showMessageDialog(mainPanel,
                             "Erreur: " + ex.getMessage(),
                             "Erreur", JOptionPane.ERROR_MESSAGE);
-                }
+                });
             }
         });
 
@@ -1,18 +1,24 @@
 package covoiturage.ui.gui.panels;
 
+import covoiturage.config.ChangeEvent;
 import covoiturage.model.Conducteur;
 import covoiturage.model.Reservation;
 import covoiturage.model.Trajet;
 import covoiturage.model.Utilisateur;
 import covoiturage.model.enums.StatutReservation;
+import covoiturage.service.DictionnaireLieux;
 import covoiturage.service.ServiceFactory;
 import covoiturage.ui.gui.MainFrame;
 import covoiturage.ui.gui.SessionManager;
 import covoiturage.ui.gui.components.NavigationBar;
 import covoiturage.ui.gui.components.SideBar;
+import covoiturage.ui.gui.utils.AutoCompletion;
+import covoiturage.ui.gui.utils.BackgroundTasks;
 import covoiturage.ui.gui.utils.ColorScheme;
 import covoiturage.ui.gui.utils.ComponentFactory;
+import covoiturage.ui.gui.utils.DeltaSync;
 import covoiturage.ui.gui.utils.ImageUtils;
+import covoiturage.ui.gui.utils.LiveTableUpdater;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -28,7 +34,6 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 
 public class UserPanel extends JPanel {
@@ -36,6 +41,8 @@ public class UserPanel extends JPanel {
     private Utilisateur utilisateur;
     private CardLayout cardLayout;
     private JPanel contentPanel;
+    private BackgroundTasks taches;
+    private DeltaSync<Reservation> syncReservations;
 
     // Constantes pour identifier les sous-panneaux
     public static final String DASHBOARD = "DASHBOARD";
@@ -43,9 +50,12 @@ public class UserPanel extends JPanel {
     public static final String MY_RESERVATIONS = "MY_RESERVATIONS";
     public static final String PROFILE = "PROFILE";
 
+    private static final int NB_SUGGESTIONS_VILLES = 8;
+
     public UserPanel(MainFrame mainFrame, Utilisateur utilisateur) {
         this.mainFrame = mainFrame;
         this.utilisateur = utilisateur;
+        this.taches = new BackgroundTasks(this);
 
         setLayout(new BorderLayout());
         setBackground(ColorScheme.BACKGROUND);
@@ -74,17 +84,17 @@ public class UserPanel extends JPanel {
         add(contentPanel, BorderLayout.CENTER);
 
         // Afficher le tableau de bord par défaut
-        cardLayout.show(contentPanel, DASHBOARD);
+        taches.afficher(cardLayout, contentPanel, DASHBOARD);
     }
 
     private SideBar createSideBar() {
         SideBar sideBar = new SideBar();
 
         // Ajout des éléments de menu
-        sideBar.addMenuItem("Tableau de bord", "/images/dashboard_icon.png", e -> cardLayout.show(contentPanel, DASHBOARD));
-        sideBar.addMenuItem("Rechercher", "/images/search_icon.png", e -> cardLayout.show(contentPanel, SEARCH_RIDES));
-        sideBar.addMenuItem("Mes réservations", "/images/reservation_icon.png", e -> cardLayout.show(contentPanel, MY_RESERVATIONS));
-        sideBar.addMenuItem("Mon profil", "/images/profile_icon.png", e -> cardLayout.show(contentPanel, PROFILE));
+        sideBar.addMenuItem("Tableau de bord", "/images/dashboard_icon.png", e -> taches.afficher(cardLayout, contentPanel, DASHBOARD));
+        sideBar.addMenuItem("Rechercher", "/images/search_icon.png", e -> taches.afficher(cardLayout, contentPanel, SEARCH_RIDES));
+        sideBar.addMenuItem("Mes réservations", "/images/reservation_icon.png", e -> taches.afficher(cardLayout, contentPanel, MY_RESERVATIONS));
+        sideBar.addMenuItem("Mon profil", "/images/profile_icon.png", e -> taches.afficher(cardLayout, contentPanel, PROFILE));
         sideBar.addMenuItem("Devenir conducteur", "/images/driver_icon.png", e -> becomeDriver());
 
         return sideBar;
@@ -126,23 +136,18 @@ public class UserPanel extends JPanel {
         JPanel statsPanel = new JPanel(new GridLayout(1, 3, 20, 0));
         statsPanel.setOpaque(false);
 
-        // Récupérer les statistiques réelles
-        List<Reservation> userReservations = ServiceFactory.getReservationService().getReservationsByUtilisateur(utilisateur.getId());
-        int totalReservations = userReservations.size();
-        int activeReservations = (int) userReservations.stream()
-                .filter(r -> !r.isAnnule() && r.getStatut() != StatutReservation.ANNULEE)
-                .count();
-
         // Carte 1: Réservations totales - Version améliorée
+        JLabel totalValue = new JLabel("…");
         JPanel card1 = createAnimatedStatCard("Réservations totales",
-                String.valueOf(totalReservations),
+                totalValue,
                 ColorScheme.PRIMARY,
                 "/images/stats_icon.png");
         statsPanel.add(card1);
 
         // Carte 2: Réservations actives
+        JLabel activeValue = new JLabel("…");
         JPanel card2 = createAnimatedStatCard("Réservations actives",
-                String.valueOf(activeReservations),
+                activeValue,
                 ColorScheme.ACCENT,
                 "/images/calendar_icon.png");
         statsPanel.add(card2);
@@ -173,13 +178,13 @@ public class UserPanel extends JPanel {
         searchButton.setIcon(ImageUtils.loadIcon("/images/search_icon.png", 20, 20));
         searchButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         searchButton.setMaximumSize(new Dimension(250, 40));
-        searchButton.addActionListener(e -> cardLayout.show(contentPanel, SEARCH_RIDES));
+        searchButton.addActionListener(e -> taches.afficher(cardLayout, contentPanel, SEARCH_RIDES));
 
         JButton profileButton = ComponentFactory.createButton("Modifier mon profil", ColorScheme.SECONDARY, ColorScheme.TEXT);
         profileButton.setIcon(ImageUtils.loadIcon("/images/profile_edit_icon.png", 20, 20));
         profileButton.setAlignmentX(Component.CENTER_ALIGNMENT);
         profileButton.setMaximumSize(new Dimension(250, 40));
-        profileButton.addActionListener(e -> cardLayout.show(contentPanel, PROFILE));
+        profileButton.addActionListener(e -> taches.afficher(cardLayout, contentPanel, PROFILE));
 
         JPanel buttonContainer = new JPanel();
         buttonContainer.setLayout(new BoxLayout(buttonContainer, BoxLayout.Y_AXIS));
@@ -227,16 +232,51 @@ public class UserPanel extends JPanel {
         activityListPanel.setLayout(new BoxLayout(activityListPanel, BoxLayout.Y_AXIS));
         activityListPanel.setBackground(Color.WHITE);
 
-        // Récupérer les données réelles d'activités
+        JScrollPane scrollPane = new JScrollPane(activityListPanel);
+        scrollPane.setBorder(null);
+        recentActivityPanel.add(scrollPane, BorderLayout.CENTER);
+
+        // Récupérer les statistiques (requête d'agrégat) en tâche de fond
+        taches.executer(DASHBOARD,
+                () -> ServiceFactory.getStatistiquesService().getReservationsParStatutUtilisateur(utilisateur.getId()),
+                stats -> {
+                    animerCompteur(totalValue, (int) stats.total());
+                    animerCompteur(activeValue, (int) stats.actives());
+                });
+
+        // Limiter à 3 activités récentes (pour la vue du dashboard), lues directement triées et limitées
+        taches.executer(DASHBOARD, scrollPane,
+                () -> ServiceFactory.getReservationService().getReservationsRecentes(utilisateur.getId(), 3),
+                recentReservations -> afficherActivitesRecentes(activityListPanel, recentReservations));
+
+        // Bouton "Voir tout"
+        JButton viewAllButton = new JButton("Voir toute l'activité");
+        viewAllButton.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        viewAllButton.setForeground(ColorScheme.PRIMARY);
+        viewAllButton.setBackground(Color.WHITE);
+        viewAllButton.setBorderPainted(false);
+        viewAllButton.setFocusPainted(false);
+        viewAllButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        viewAllButton.setBorder(new EmptyBorder(10, 15, 10, 15));
+
+        // Ajouter l'action pour voir toutes les activités
+        viewAllButton.addActionListener(e -> showAllActivities());
+
+        recentActivityPanel.add(viewAllButton, BorderLayout.SOUTH);
+
+        mainContent.add(recentActivityPanel, BorderLayout.CENTER);
+
+        panel.add(mainContent, BorderLayout.CENTER);
+
+        return panel;
+    }
+
+
+    // Remplit la liste des activités récentes du tableau de bord
+    private void afficherActivitesRecentes(JPanel activityListPanel, List<Reservation> recentReservations) {
         List<String> activityItems = new ArrayList<>();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
-        // Limiter à 3 activités récentes (pour la vue du dashboard)
-        List<Reservation> recentReservations = userReservations.stream()
-                .sorted((r1, r2) -> r2.getDateReservation().compareTo(r1.getDateReservation()))
-                .limit(3)
-                .collect(Collectors.toList());
-
         for (Reservation reservation : recentReservations) {
             String activity;
             if (reservation.isAnnule() || reservation.getStatut() == StatutReservation.ANNULEE) {
@@ -271,35 +311,12 @@ public class UserPanel extends JPanel {
             activityListPanel.add(new JSeparator(SwingConstants.HORIZONTAL));
         }
 
-        JScrollPane scrollPane = new JScrollPane(activityListPanel);
-        scrollPane.setBorder(null);
-        recentActivityPanel.add(scrollPane, BorderLayout.CENTER);
-
-        // Bouton "Voir tout"
-        JButton viewAllButton = new JButton("Voir toute l'activité");
-        viewAllButton.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        viewAllButton.setForeground(ColorScheme.PRIMARY);
-        viewAllButton.setBackground(Color.WHITE);
-        viewAllButton.setBorderPainted(false);
-        viewAllButton.setFocusPainted(false);
-        viewAllButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
-        viewAllButton.setBorder(new EmptyBorder(10, 15, 10, 15));
-
-        // Ajouter l'action pour voir toutes les activités
-        viewAllButton.addActionListener(e -> showAllActivities());
-
-        recentActivityPanel.add(viewAllButton, BorderLayout.SOUTH);
-
-        mainContent.add(recentActivityPanel, BorderLayout.CENTER);
-
-        panel.add(mainContent, BorderLayout.CENTER);
-
-        return panel;
+        activityListPanel.revalidate();
+        activityListPanel.repaint();
     }
 
-
     // Méthode pour créer une carte de statistique animée
-    private JPanel createAnimatedStatCard(String title, String value, Color color, String iconPath) {
+    private JPanel createAnimatedStatCard(String title, JLabel valueLabel, Color color, String iconPath) {
         JPanel card = new JPanel();
         card.setLayout(new BorderLayout(10, 10));
         card.setBackground(Color.WHITE);
@@ -319,8 +336,7 @@ public class UserPanel extends JPanel {
 
         card.add(headerPanel, BorderLayout.NORTH);
 
-        // Valeur au centre avec animation
-        JLabel valueLabel = new JLabel("0");
+        // Valeur au centre, animée par animerCompteur une fois chargée
         valueLabel.setFont(new Font("Segoe UI", Font.BOLD, 48));
         valueLabel.setForeground(color);
         valueLabel.setHorizontalAlignment(SwingConstants.CENTER);
@@ -328,22 +344,6 @@ public class UserPanel extends JPanel {
 
         card.add(valueLabel, BorderLayout.CENTER);
 
-        // Animation du compteur
-        int targetValue = Integer.parseInt(value);
-        Timer timer = new Timer(50, new ActionListener() {
-            int currentValue = 0;
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                if (currentValue < targetValue) {
-                    currentValue++;
-                    valueLabel.setText(String.valueOf(currentValue));
-                } else {
-                    ((Timer)e.getSource()).stop();
-                }
-            }
-        });
-        timer.start();
-
         // Animation sur hover
         card.addMouseListener(new MouseAdapter() {
             @Override
@@ -360,6 +360,24 @@ public class UserPanel extends JPanel {
         return card;
     }
 
+    // Animation du compteur d'une carte de statistique jusqu'à sa valeur
+    private void animerCompteur(JLabel valueLabel, int targetValue) {
+        valueLabel.setText("0");
+        Timer timer = new Timer(50, new ActionListener() {
+            int currentValue = 0;
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (currentValue < targetValue) {
+                    currentValue++;
+                    valueLabel.setText(String.valueOf(currentValue));
+                } else {
+                    ((Timer)e.getSource()).stop();
+                }
+            }
+        });
+        timer.start();
+    }
+
     // Méthode pour créer un élément d'activité avec la date réelle
     private JPanel createActivityItem(String text) {
         JPanel item = new JPanel(new BorderLayout(10, 0));
@@ -427,14 +445,19 @@ public class UserPanel extends JPanel {
 
     // Nouvelle méthode pour afficher toutes les activités
     private void showAllActivities() {
+        // Récupérer toutes les réservations en tâche de fond avant d'ouvrir la boîte de dialogue
+        taches.executer(DASHBOARD,
+                () -> ServiceFactory.getReservationService().getReservationsByUtilisateur(utilisateur.getId()),
+                this::showAllActivities);
+    }
+
+    private void showAllActivities(List<Reservation> allReservations) {
         // Créer une boîte de dialogue pour afficher toutes les activités
         JDialog dialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(this), "Toutes les activités", true);
         dialog.setLayout(new BorderLayout());
         dialog.setSize(600, 400);
         dialog.setLocationRelativeTo(this);
 
-        // Récupérer toutes les réservations
-        List<Reservation> allReservations = ServiceFactory.getReservationService().getReservationsByUtilisateur(utilisateur.getId());
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
         // Panneau pour la liste d'activités
@@ -596,6 +619,16 @@ public class UserPanel extends JPanel {
         JTextField arriveeField = ComponentFactory.createTextField("Ville d'arrivée");
         searchForm.add(arriveeField, c);
 
+        // Suggestions de villes tirées du dictionnaire en mémoire : aucune requête par frappe.
+        // Le dictionnaire est lu en tâche de fond à l'affichage de la recherche.
+        DictionnaireLieux dictionnaire = ServiceFactory.getDictionnaireLieux();
+        AutoCompletion.installer(departField, saisie -> dictionnaire.suggerer(saisie, NB_SUGGESTIONS_VILLES));
+        AutoCompletion.installer(arriveeField, saisie -> dictionnaire.suggerer(saisie, NB_SUGGESTIONS_VILLES));
+        taches.executer(SEARCH_RIDES, () -> {
+            dictionnaire.precharger();
+            return dictionnaire.estCharge();
+        }, charge -> { });
+
         // Bouton de recherche
         c.gridx = 0;
         c.gridy = 2;
@@ -681,57 +714,57 @@ public class UserPanel extends JPanel {
             // Ajouter une trace pour le débogage
             System.out.println("Recherche de trajets : " + depart + " → " + arrivee);
 
-            // Récupérer tous les trajets disponibles
-            List<Trajet> allTrajets = ServiceFactory.getTrajetService().getAllTrajets();
-
-            // Filtrer manuellement les trajets avec une recherche insensible à la casse
-            List<Trajet> trajetsDisponibles = allTrajets.stream()
-                    .filter(trajet -> trajet.getLieuDepart().trim().toLowerCase().equalsIgnoreCase(depart.toLowerCase()))
-                    .filter(trajet -> trajet.getLieuArrivee().trim().toLowerCase().equalsIgnoreCase(arrivee.toLowerCase()))
-                    .filter(trajet -> !trajet.isEstAnnule())
-                    .filter(trajet -> trajet.getDateDepart().isAfter(LocalDateTime.now()))
-                    .filter(trajet -> trajet.calculerPlacesRestantes() > 0)
-                    .collect(Collectors.toList());
-
-            // Afficher le nombre de trajets trouvés pour le débogage
-            System.out.println("Nombre de trajets trouvés : " + trajetsDisponibles.size());
-
-            // Mettre à jour la table avec les résultats
-            model.setRowCount(0); // Effacer les données existantes
-
-            for (Trajet trajet : trajetsDisponibles) {
-                String conducteurInfo = trajet.getConducteur() != null ?
-                        trajet.getConducteur().getPrenom() + " " + trajet.getConducteur().getNom() : "N/A";
-
-                // Ajouter une trace pour chaque trajet pour le débogage
-                System.out.println("Ajout du trajet ID=" + trajet.getId() + ", " +
-                        trajet.getLieuDepart() + " → " + trajet.getLieuArrivee() + ", " +
-                        trajet.getDateDepart());
-
-                model.addRow(new Object[]{
-                        trajet.getId(),
-                        trajet.getLieuDepart(),
-                        trajet.getLieuArrivee(),
-                        trajet.getDateDepart().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
-                        String.format("%.2f", trajet.getPrix()),
-                        trajet.calculerPlacesRestantes() + "/" + trajet.getNbPlacesDisponibles() + " places disponibles",
-                        conducteurInfo
-                });
-            }
+            // Effacer les résultats précédents
+            model.setRowCount(0);
 
-            // Si aucun résultat, afficher un message
-            if (trajetsDisponibles.isEmpty()) {
-                JOptionPane.showMessageDialog(panel,
-                        "Aucun trajet ne correspond à votre recherche.",
-                        "Information", JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                // Informer l'utilisateur du nombre de trajets trouvés
-                JOptionPane.showMessageDialog(panel,
-                        trajetsDisponibles.size() + " trajet(s) trouvé(s).",
-                        "Résultats de recherche", JOptionPane.INFORMATION_MESSAGE);
-            }
+            // Recherche approchée des villes (casse, accents, fautes de frappe) effectuée par la base, en tâche de fond ;
+            // une nouvelle recherche remplace celle encore en cours
+            taches.executer(SEARCH_RIDES, scrollPane, () -> {
+                List<Trajet> trajetsDisponibles = ServiceFactory.getTrajetService()
+                        .rechercherTrajetsDisponibles(depart, arrivee, LocalDateTime.now());
+
+                // Afficher le nombre de trajets trouvés pour le débogage
+                System.out.println("Nombre de trajets trouvés : " + trajetsDisponibles.size());
+
+                // Préparer les lignes hors de l'EDT : le calcul des places restantes peut lire la base
+                List<Object[]> lignes = new ArrayList<>();
+                for (Trajet trajet : trajetsDisponibles) {
+                    // Ajouter une trace pour chaque trajet pour le débogage
+                    System.out.println("Ajout du trajet ID=" + trajet.getId() + ", " +
+                            trajet.getLieuDepart() + " → " + trajet.getLieuArrivee() + ", " +
+                            trajet.getDateDepart());
+
+                    lignes.add(ligneResultat(trajet));
+                }
+                return lignes;
+            }, lignes -> {
+                // Mettre à jour la table avec les résultats
+                for (Object[] ligne : lignes) {
+                    model.addRow(ligne);
+                }
+
+                // Si aucun résultat, afficher un message
+                if (lignes.isEmpty()) {
+                    JOptionPane.showMessageDialog(panel,
+                            "Aucun trajet ne correspond à votre recherche.",
+                            "Information", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    // Informer l'utilisateur du nombre de trajets trouvés
+                    JOptionPane.showMessageDialog(panel,
+                            lignes.size() + " trajet(s) trouvé(s).",
+                            "Résultats de recherche", JOptionPane.INFORMATION_MESSAGE);
+                }
+            });
         });
 
+        // Places restantes et trajets annulés ou supprimés mis à jour en direct ;
+        // les nouveaux trajets n'apparaissent qu'à la prochaine recherche
+        new LiveTableUpdater(taches, SEARCH_RIDES, model, scrollPane,
+                ids -> LiveTableUpdater.lignes(ServiceFactory.getTrajetService().getTrajetsByIds(ids),
+                        trajet -> !trajet.isEstAnnule(), this::ligneResultat))
+                .suivre(ChangeEvent.Table.TRAJETS, ChangeEvent::id)
+                .suivre(ChangeEvent.Table.RESERVATIONS, ChangeEvent::trajetId);
+
         // Ajouter le bouton au panel d'actions
         JPanel actionsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         actionsPanel.setBackground(ColorScheme.BACKGROUND);
@@ -741,11 +774,30 @@ public class UserPanel extends JPanel {
         return panel;
     }
 
+    private Object[] ligneResultat(Trajet trajet) {
+        String conducteurInfo = trajet.getConducteur() != null ?
+                trajet.getConducteur().getPrenom() + " " + trajet.getConducteur().getNom() : "N/A";
+
+        return new Object[]{
+                trajet.getId(),
+                trajet.getLieuDepart(),
+                trajet.getLieuArrivee(),
+                trajet.getDateDepart().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
+                String.format("%.2f", trajet.getPrix()),
+                trajet.calculerPlacesRestantes() + "/" + trajet.getNbPlacesDisponibles() + " places disponibles",
+                conducteurInfo
+        };
+    }
+
     // Méthode complémentaire pour la réservation d'un trajet
     private void showReservationDialog(Long trajetId) {
+        // Récupérer le trajet en tâche de fond, puis ouvrir la boîte de dialogue sur l'EDT
+        taches.executer(null, () -> ServiceFactory.getTrajetService().getTrajetById(trajetId),
+                this::showReservationDialog);
+    }
+
+    private void showReservationDialog(Optional<Trajet> optTrajet) {
         try {
-            // Récupérer le trajet
-            Optional<Trajet> optTrajet = ServiceFactory.getTrajetService().getTrajetById(trajetId);
             if (optTrajet.isEmpty()) {
                 JOptionPane.showMessageDialog(this,
                         "Trajet non trouvé.",
@@ -884,34 +936,32 @@ public class UserPanel extends JPanel {
                 reservation.setNbPlaces(nbPlaces);
                 reservation.setDateReservation(LocalDateTime.now());
 
-                try {
-                    // Utiliser le service approprié pour créer la réservation
-                    Long reservationId = ServiceFactory.getReservationService().creerReservation(reservation);
-
-                    if (reservationId != null) {
-                        JOptionPane.showMessageDialog(dialog,
-                                "Réservation effectuée avec succès ! En attente de confirmation du conducteur.",
-                                "Succès", JOptionPane.INFORMATION_MESSAGE);
-
-                        dialog.dispose();
-
-                        // Rafraîchir le tableau des réservations
-                        cardLayout.show(contentPanel, MY_RESERVATIONS);
-                        // Re-créer le panel des réservations pour afficher la nouvelle réservation
-                        contentPanel.remove(contentPanel.getComponent(2)); // Supprimer l'ancien panel
-                        contentPanel.add(createMyReservationsPanel(), MY_RESERVATIONS, 2); // Ajouter le nouveau panel
-                        cardLayout.show(contentPanel, MY_RESERVATIONS);
-                    } else {
-                        JOptionPane.showMessageDialog(dialog,
-                                "Erreur lors de la création de la réservation.",
-                                "Erreur", JOptionPane.ERROR_MESSAGE);
-                    }
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(dialog,
-                            "Erreur: " + ex.getMessage(),
-                            "Erreur", JOptionPane.ERROR_MESSAGE);
-                    ex.printStackTrace(); // Afficher la trace de l'erreur dans la console
-                }
+                // Créer la réservation en tâche de fond ; le bouton reste désactivé pendant l'appel
+                confirmButton.setEnabled(false);
+                taches.executer(null, null, () -> ServiceFactory.getReservationService().creerReservation(reservation),
+                        reservationId -> {
+                            if (reservationId != null) {
+                                JOptionPane.showMessageDialog(dialog,
+                                        "Réservation effectuée avec succès ! En attente de confirmation du conducteur.",
+                                        "Succès", JOptionPane.INFORMATION_MESSAGE);
+
+                                dialog.dispose();
+
+                                // Rafraîchir le tableau des réservations
+                                refreshMyReservationsPanel();
+                            } else {
+                                confirmButton.setEnabled(true);
+                                JOptionPane.showMessageDialog(dialog,
+                                        "Erreur lors de la création de la réservation.",
+                                        "Erreur", JOptionPane.ERROR_MESSAGE);
+                            }
+                        }, ex -> {
+                            confirmButton.setEnabled(true);
+                            JOptionPane.showMessageDialog(dialog,
+                                    "Erreur: " + ex.getMessage(),
+                                    "Erreur", JOptionPane.ERROR_MESSAGE);
+                            ex.printStackTrace(); // Afficher la trace de l'erreur dans la console
+                        });
             });
 
             buttonsPanel.add(cancelButton);
@@ -965,21 +1015,31 @@ public class UserPanel extends JPanel {
         JButton payButton = ComponentFactory.createButton("Payer", ColorScheme.SUCCESS, Color.WHITE);
         payButton.setEnabled(false); // Désactivé par défaut
 
-        // Charger les réservations de l'utilisateur
-        List<Reservation> reservations = ServiceFactory.getReservationService().getReservationsByUtilisateur(utilisateur.getId());
-
-        // Remplir le modèle de tableau avec les réservations
-        for (Reservation reservation : reservations) {
-            model.addRow(new Object[]{
-                    reservation.getId(),
-                    reservation.getTrajet().getLieuDepart(),
-                    reservation.getTrajet().getLieuArrivee(),
-                    reservation.getTrajet().getDateDepart().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
-                    reservation.getNbPlaces(),
-                    String.format("%.2f", reservation.getTrajet().getPrix() * reservation.getNbPlaces()),
-                    reservation.getStatut().toString()
-            });
-        }
+        // Les actualisations suivantes ne relisent que les réservations modifiées depuis ce chargement
+        syncReservations = new DeltaSync<>(taches, MY_RESERVATIONS, model,
+                (depuis, connus, limite) -> ServiceFactory.getReservationService()
+                        .getReservationsModifieesDepuisByUtilisateur(utilisateur.getId(), depuis, connus, limite),
+                this::ligneReservation, this::rechargerMyReservationsPanel)
+                .ajouterNouvelles();
+
+        // Charger les réservations de l'utilisateur en tâche de fond
+        syncReservations.charger(scrollPane,
+                () -> ServiceFactory.getReservationService().getReservationsByUtilisateur(utilisateur.getId()),
+                reservations -> {
+                    // Remplir le modèle de tableau avec les réservations
+                    for (Reservation reservation : reservations) {
+                        model.addRow(ligneReservation(reservation));
+                    }
+                });
+
+        // Réservations de l'utilisateur confirmées, refusées ou annulées depuis un autre client
+        new LiveTableUpdater(taches, MY_RESERVATIONS, model, scrollPane,
+                ids -> LiveTableUpdater.lignes(ServiceFactory.getReservationService().getReservationsByIds(ids),
+                        reservation -> utilisateur.getId().equals(reservation.getUtilisateur().getId()),
+                        this::ligneReservation))
+                .suivre(ChangeEvent.Table.RESERVATIONS,
+                        e -> utilisateur.getId().equals(e.utilisateurId()) ? e.id() : null)
+                .ajouterNouvelles();
 
         // Ajouter un listener pour activer/désactiver les boutons selon l'état de la réservation
         reservationsTable.getSelectionModel().addListSelectionListener(e -> {
@@ -1000,27 +1060,32 @@ public class UserPanel extends JPanel {
             int selectedRow = reservationsTable.getSelectedRow();
             if (selectedRow != -1) {
                 Long reservationId = Long.parseLong(model.getValueAt(selectedRow, 0).toString());
-                try {
-                    boolean success = ServiceFactory.getReservationService().annulerReservation(reservationId);
-                    if (success) {
-                        JOptionPane.showMessageDialog(panel,
-                                "Réservation annulée avec succès !",
-                                "Succès", JOptionPane.INFORMATION_MESSAGE);
-
-                        // Rafraîchir le tableau
-                        model.setValueAt("ANNULEE", selectedRow, 6);
-                        cancelButton.setEnabled(false);
-                        payButton.setEnabled(false);
-                    } else {
-                        JOptionPane.showMessageDialog(panel,
-                                "Échec de l'annulation de la réservation.",
-                                "Erreur", JOptionPane.ERROR_MESSAGE);
-                    }
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(panel,
-                            "Erreur: " + ex.getMessage(),
-                            "Erreur", JOptionPane.ERROR_MESSAGE);
-                }
+                cancelButton.setEnabled(false);
+                taches.executer(null, null, () -> ServiceFactory.getReservationService().annulerReservation(reservationId),
+                        success -> {
+                            if (success) {
+                                JOptionPane.showMessageDialog(panel,
+                                        "Réservation annulée avec succès !",
+                                        "Succès", JOptionPane.INFORMATION_MESSAGE);
+
+                                // Rafraîchir le tableau ; la ligne a pu changer de place pendant l'appel
+                                int ligne = LiveTableUpdater.chercher(model, reservationId);
+                                if (ligne >= 0) {
+                                    model.setValueAt("ANNULEE", ligne, 6);
+                                }
+                                payButton.setEnabled(false);
+                            } else {
+                                cancelButton.setEnabled(true);
+                                JOptionPane.showMessageDialog(panel,
+                                        "Échec de l'annulation de la réservation.",
+                                        "Erreur", JOptionPane.ERROR_MESSAGE);
+                            }
+                        }, ex -> {
+                            cancelButton.setEnabled(true);
+                            JOptionPane.showMessageDialog(panel,
+                                    "Erreur: " + ex.getMessage(),
+                                    "Erreur", JOptionPane.ERROR_MESSAGE);
+                        });
             }
         });
 
@@ -1031,25 +1096,26 @@ public class UserPanel extends JPanel {
                 String prixStr = model.getValueAt(selectedRow, 5).toString();
                 double prix = Double.parseDouble(prixStr.replace(",", "."));
 
-                try {
-                    Long paiementId = ServiceFactory.getPaiementService().effectuerPaiement(reservationId, prix);
-                    if (paiementId != null) {
-                        JOptionPane.showMessageDialog(panel,
-                                "Paiement effectué avec succès !",
-                                "Succès", JOptionPane.INFORMATION_MESSAGE);
-
-                        // Désactiver le bouton de paiement
-                        payButton.setEnabled(false);
-                    } else {
-                        JOptionPane.showMessageDialog(panel,
-                                "Échec du paiement.",
-                                "Erreur", JOptionPane.ERROR_MESSAGE);
-                    }
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(panel,
-                            "Erreur: " + ex.getMessage(),
-                            "Erreur", JOptionPane.ERROR_MESSAGE);
-                }
+                // Bouton désactivé pendant l'appel : un double clic ne paie pas deux fois
+                payButton.setEnabled(false);
+                taches.executer(null, null, () -> ServiceFactory.getPaiementService().effectuerPaiement(reservationId, prix),
+                        paiementId -> {
+                            if (paiementId != null) {
+                                JOptionPane.showMessageDialog(panel,
+                                        "Paiement effectué avec succès !",
+                                        "Succès", JOptionPane.INFORMATION_MESSAGE);
+                            } else {
+                                payButton.setEnabled(true);
+                                JOptionPane.showMessageDialog(panel,
+                                        "Échec du paiement.",
+                                        "Erreur", JOptionPane.ERROR_MESSAGE);
+                            }
+                        }, ex -> {
+                            payButton.setEnabled(true);
+                            JOptionPane.showMessageDialog(panel,
+                                    "Erreur: " + ex.getMessage(),
+                                    "Erreur", JOptionPane.ERROR_MESSAGE);
+                        });
             }
         });
 
@@ -1061,6 +1127,33 @@ public class UserPanel extends JPanel {
         return panel;
     }
 
+    private Object[] ligneReservation(Reservation reservation) {
+        return new Object[]{
+                reservation.getId(),
+                reservation.getTrajet().getLieuDepart(),
+                reservation.getTrajet().getLieuArrivee(),
+                reservation.getTrajet().getDateDepart().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
+                reservation.getNbPlaces(),
+                String.format("%.2f", reservation.getTrajet().getPrix() * reservation.getNbPlaces()),
+                reservation.getStatut().toString()
+        };
+    }
+
+    private void refreshMyReservationsPanel() {
+        // Afficher le panel des réservations et n'y relire que les réservations modifiées
+        taches.afficher(cardLayout, contentPanel, MY_RESERVATIONS);
+        syncReservations.synchroniser();
+    }
+
+    private void rechargerMyReservationsPanel() {
+        taches.annuler(MY_RESERVATIONS);
+
+        // Re-créer le panel des réservations pour afficher la nouvelle réservation
+        contentPanel.remove(contentPanel.getComponent(2)); // Supprimer l'ancien panel
+        contentPanel.add(createMyReservationsPanel(), MY_RESERVATIONS, 2); // Ajouter le nouveau panel
+        taches.afficher(cardLayout, contentPanel, MY_RESERVATIONS);
+    }
+
     private JPanel createProfilePanel() {
         // Implémentation du panel de profil utilisateur
         // Ce panel devrait permettre de visualiser et modifier les informations du profil
@@ -1181,22 +1274,25 @@ public class UserPanel extends JPanel {
 
             utilisateur.setPreferences(preferencesField.getText());
 
-            try {
-                boolean success = ServiceFactory.getUtilisateurService().modifierUtilisateur(utilisateur);
-                if (success) {
-                    JOptionPane.showMessageDialog(panel,
-                            "Profil mis à jour avec succès !",
-                            "Succès", JOptionPane.INFORMATION_MESSAGE);
-                } else {
-                    JOptionPane.showMessageDialog(panel,
-                            "Erreur lors de la mise à jour du profil.",
-                            "Erreur", JOptionPane.ERROR_MESSAGE);
-                }
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(panel,
-                        "Erreur: " + ex.getMessage(),
-                        "Erreur", JOptionPane.ERROR_MESSAGE);
-            }
+            saveButton.setEnabled(false);
+            taches.executer(null, null, () -> ServiceFactory.getUtilisateurService().modifierUtilisateur(utilisateur),
+                    success -> {
+                        saveButton.setEnabled(true);
+                        if (success) {
+                            JOptionPane.showMessageDialog(panel,
+                                    "Profil mis à jour avec succès !",
+                                    "Succès", JOptionPane.INFORMATION_MESSAGE);
+                        } else {
+                            JOptionPane.showMessageDialog(panel,
+                                    "Erreur lors de la mise à jour du profil.",
+                                    "Erreur", JOptionPane.ERROR_MESSAGE);
+                        }
+                    }, ex -> {
+                        saveButton.setEnabled(true);
+                        JOptionPane.showMessageDialog(panel,
+                                "Erreur: " + ex.getMessage(),
+                                "Erreur", JOptionPane.ERROR_MESSAGE);
+                    });
         });
 
         buttonsPanel.add(saveButton);
@@ -1279,8 +1375,8 @@ public class UserPanel extends JPanel {
             );
             conducteur.setVehiculeInfo(vehicule);
 
-            try {
-                Long id = ServiceFactory.getConducteurService().creerConducteur(conducteur);
+            confirmButton.setEnabled(false);
+            taches.executer(null, null, () -> ServiceFactory.getConducteurService().creerConducteur(conducteur), id -> {
                 if (id != null) {
                     JOptionPane.showMessageDialog(dialog,
                             "Félicitations, vous êtes maintenant conducteur !",
@@ -1298,15 +1394,17 @@ public class UserPanel extends JPanel {
                     mainFrame.addPanel(driverPanel, MainFrame.DRIVER_PANEL);
                     mainFrame.switchPanel(MainFrame.DRIVER_PANEL);
                 } else {
+                    confirmButton.setEnabled(true);
                     JOptionPane.showMessageDialog(dialog,
                             "Erreur lors de la création du profil conducteur.",
                             "Erreur", JOptionPane.ERROR_MESSAGE);
                 }
-            } catch (Exception ex) {
+            }, ex -> {
+                confirmButton.setEnabled(true);
                 JOptionPane.showMessageDialog(dialog,
                         "Erreur: " + ex.getMessage(),
                         "Erreur", JOptionPane.ERROR_MESSAGE);
-            }
+            });
         });
 
         buttonsPanel.add(cancelButton);
@@ -1324,7 +1422,8 @@ public class UserPanel extends JPanel {
                 "Déconnexion", JOptionPane.YES_NO_OPTION);
 
         if (choice == JOptionPane.YES_OPTION) {
-            // Effacer la session
+            // Abandonner les chargements en cours et effacer la session
+            taches.annulerTout();
             SessionManager.clearSession();
 
             // Retourner à l'écran de connexion
@@ -0,0 +1,166 @@
+package covoiturage.ui.gui.utils;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Liste de suggestions sous un champ texte, mise à jour à chaque frappe.
+ * Flèches haut et bas pour choisir, Entrée ou clic pour accepter, Échap pour fermer.
+ * La source est appelée sur l'EDT à chaque frappe : elle doit répondre sans accéder à la base.
+ */
+public class AutoCompletion {
+    private static final int LIGNES_VISIBLES = 8;
+
+    private final JTextField champ;
+    private final Function<String, List<String>> source;
+    private final DefaultListModel<String> suggestions = new DefaultListModel<>();
+    private final JList<String> liste = new JList<>(suggestions);
+    private final JScrollPane defilement = new JScrollPane(liste);
+    private final JPopupMenu popup = new JPopupMenu();
+    private boolean remplissage;
+
+    /**
+     * @param champ Le champ à compléter
+     * @param source Les suggestions pour une saisie
+     */
+    public static void installer(JTextField champ, Function<String, List<String>> source) {
+        new AutoCompletion(champ, source);
+    }
+
+    private AutoCompletion(JTextField champ, Function<String, List<String>> source) {
+        this.champ = champ;
+        this.source = source;
+
+        // Ni la liste ni la fenêtre ne prennent le focus : la frappe continue dans le champ
+        liste.setFocusable(false);
+        liste.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        liste.setFont(champ.getFont());
+        defilement.setFocusable(false);
+        defilement.getVerticalScrollBar().setFocusable(false);
+        defilement.setBorder(BorderFactory.createEmptyBorder());
+        popup.setFocusable(false);
+        popup.setBorder(BorderFactory.createLineBorder(ColorScheme.BORDER));
+        popup.add(defilement);
+
+        // Le document ne peut pas être lu de façon sûre pendant sa modification : mise à jour différée
+        champ.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                programmer();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                programmer();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+
+        champ.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (!popup.isVisible()) {
+                    return;
+                }
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_DOWN -> {
+                        deplacer(1);
+                        e.consume();
+                    }
+                    case KeyEvent.VK_UP -> {
+                        deplacer(-1);
+                        e.consume();
+                    }
+                    case KeyEvent.VK_ENTER -> {
+                        // Sans suggestion choisie, Entrée garde son action habituelle
+                        if (liste.getSelectedValue() != null) {
+                            accepter(liste.getSelectedValue());
+                            e.consume();
+                        }
+                    }
+                    case KeyEvent.VK_ESCAPE -> {
+                        popup.setVisible(false);
+                        e.consume();
+                    }
+                    default -> {
+                    }
+                }
+            }
+        });
+
+        champ.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                popup.setVisible(false);
+            }
+        });
+
+        liste.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int indice = liste.locationToIndex(e.getPoint());
+                if (indice >= 0) {
+                    accepter(suggestions.get(indice));
+                }
+            }
+        });
+    }
+
+    private void programmer() {
+        // Une suggestion acceptée remplit le champ : pas de nouvelle liste pour ce remplissage
+        if (!remplissage) {
+            SwingUtilities.invokeLater(this::mettreAJour);
+        }
+    }
+
+    private void mettreAJour() {
+        String saisie = champ.getText().trim();
+        List<String> resultats = champ.isFocusOwner() ? source.apply(saisie) : List.of();
+        // Rien à proposer, ou la saisie est déjà la seule suggestion
+        if (resultats.isEmpty() || (resultats.size() == 1 && resultats.get(0).equalsIgnoreCase(saisie))) {
+            popup.setVisible(false);
+            return;
+        }
+
+        suggestions.clear();
+        resultats.forEach(suggestions::addElement);
+        liste.setVisibleRowCount(Math.min(resultats.size(), LIGNES_VISIBLES));
+        defilement.setPreferredSize(null);
+        defilement.setPreferredSize(new Dimension(champ.getWidth(), defilement.getPreferredSize().height));
+
+        if (popup.isVisible()) {
+            popup.pack();
+        } else {
+            popup.show(champ, 0, champ.getHeight());
+        }
+    }
+
+    private void deplacer(int pas) {
+        int indice = Math.max(0, Math.min(suggestions.size() - 1, liste.getSelectedIndex() + pas));
+        liste.setSelectedIndex(indice);
+        liste.ensureIndexIsVisible(indice);
+    }
+
+    private void accepter(String valeur) {
+        remplissage = true;
+        try {
+            champ.setText(valeur);
+        } finally {
+            remplissage = false;
+        }
+        popup.setVisible(false);
+    }
+}
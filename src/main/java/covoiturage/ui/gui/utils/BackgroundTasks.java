@@ -0,0 +1,247 @@
+package covoiturage.ui.gui.utils;
+
+import covoiturage.service.ServiceFactory;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Exécute les appels aux services hors de l'EDT (Event Dispatch Thread) et livre leur
+ * résultat sur l'EDT. Chaque tâche est rattachée à une carte du CardLayout d'un panneau :
+ * <ul>
+ *     <li>une tâche d'une carte masquée attend que la carte soit affichée pour démarrer ;</li>
+ *     <li>quitter une carte annule ses tâches en cours, qui seront relancées au retour ;</li>
+ *     <li>une nouvelle tâche sur une zone déjà en chargement remplace la précédente.</li>
+ * </ul>
+ * Une tâche sans carte (carte null) démarre immédiatement et n'est pas interrompue
+ * par la navigation : elle convient aux traitements que l'utilisateur a explicitement lancés.
+ * Chaque tâche est un appel aux services au sens du budget de requêtes (ServiceFactory.appeler),
+ * nommé d'après le panneau et la carte, par exemple UserPanel.SEARCH_RIDES.
+ * Toutes les méthodes doivent être appelées depuis l'EDT.
+ */
+public class BackgroundTasks {
+    private final Component parent;
+    private final Map<String, List<Tache<?>>> taches = new HashMap<>();
+    private final Map<JScrollPane, Tache<?>> tachesParZone = new IdentityHashMap<>();
+    private final Map<JScrollPane, Component> vuesMasquees = new IdentityHashMap<>();
+    private String carteAffichee;
+
+    /**
+     * @param parent Le composant au-dessus duquel les erreurs de chargement sont affichées
+     */
+    public BackgroundTasks(Component parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Affiche une carte : les tâches en cours des autres cartes sont annulées
+     * et les tâches en attente de cette carte démarrent.
+     */
+    public void afficher(CardLayout cardLayout, JPanel contentPanel, String carte) {
+        if (!carte.equals(carteAffichee)) {
+            if (carteAffichee != null) {
+                suspendre(carteAffichee);
+            }
+            carteAffichee = carte;
+        }
+        cardLayout.show(contentPanel, carte);
+        demarrer(carte);
+    }
+
+    /**
+     * Lance une tâche de fond ; les erreurs sont affichées dans une boîte de dialogue.
+     * @see #executer(String, JScrollPane, Supplier, Consumer, Consumer)
+     */
+    public <T> void executer(String carte, Supplier<T> tache, Consumer<T> succes) {
+        executer(carte, null, tache, succes, this::afficherErreur);
+    }
+
+    /**
+     * Lance une tâche de fond en affichant un message de chargement à la place du contenu de la zone.
+     * @see #executer(String, JScrollPane, Supplier, Consumer, Consumer)
+     */
+    public <T> void executer(String carte, JScrollPane zone, Supplier<T> tache, Consumer<T> succes) {
+        executer(carte, zone, tache, succes, this::afficherErreur);
+    }
+
+    /**
+     * @param carte La carte du CardLayout à laquelle la tâche appartient, ou null
+     * @param zone La zone remplacée par un message de chargement pendant la tâche (peut être null)
+     * @param tache L'appel aux services, exécuté hors de l'EDT
+     * @param succes Reçoit le résultat sur l'EDT
+     * @param echec Reçoit l'erreur levée par la tâche, sur l'EDT
+     */
+    public <T> void executer(String carte, JScrollPane zone, Supplier<T> tache,
+                             Consumer<T> succes, Consumer<Exception> echec) {
+        if (zone != null) {
+            Tache<?> precedente = tachesParZone.get(zone);
+            if (precedente != null) {
+                retirer(precedente);
+                precedente.arreter();
+            }
+        }
+
+        Tache<T> nouvelle = new Tache<>(carte, zone, tache, succes, echec);
+        taches.computeIfAbsent(carte, c -> new ArrayList<>()).add(nouvelle);
+        if (zone != null) {
+            tachesParZone.put(zone, nouvelle);
+            afficherChargement(zone);
+        }
+        if (carte == null || carte.equals(carteAffichee)) {
+            nouvelle.demarrer();
+        }
+    }
+
+    /**
+     * Abandonne toutes les tâches d'une carte, par exemple avant de reconstruire son contenu.
+     */
+    public void annuler(String carte) {
+        List<Tache<?>> tachesCarte = taches.remove(carte);
+        if (tachesCarte == null) {
+            return;
+        }
+        for (Tache<?> tache : tachesCarte) {
+            if (tache.zone != null && tachesParZone.get(tache.zone) == tache) {
+                tachesParZone.remove(tache.zone);
+                masquerChargement(tache.zone);
+            }
+            tache.arreter();
+        }
+    }
+
+    /**
+     * Abandonne toutes les tâches, par exemple à la déconnexion.
+     */
+    public void annulerTout() {
+        for (String carte : new ArrayList<>(taches.keySet())) {
+            annuler(carte);
+        }
+        carteAffichee = null;
+    }
+
+    private void suspendre(String carte) {
+        for (Tache<?> tache : taches.getOrDefault(carte, List.of())) {
+            tache.arreter();
+        }
+    }
+
+    private void demarrer(String carte) {
+        for (Tache<?> tache : new ArrayList<>(taches.getOrDefault(carte, List.of()))) {
+            tache.demarrer();
+        }
+    }
+
+    private void retirer(Tache<?> tache) {
+        List<Tache<?>> tachesCarte = taches.get(tache.carte);
+        if (tachesCarte != null) {
+            tachesCarte.remove(tache);
+            if (tachesCarte.isEmpty()) {
+                taches.remove(tache.carte);
+            }
+        }
+        if (tache.zone != null && tachesParZone.get(tache.zone) == tache) {
+            tachesParZone.remove(tache.zone);
+            masquerChargement(tache.zone);
+        }
+    }
+
+    private void afficherChargement(JScrollPane zone) {
+        if (vuesMasquees.containsKey(zone)) {
+            return;
+        }
+        vuesMasquees.put(zone, zone.getViewport().getView());
+
+        JLabel chargement = new JLabel("Chargement…", SwingConstants.CENTER);
+        chargement.setFont(new Font("Dialog", Font.ITALIC, 14));
+        chargement.setForeground(ColorScheme.TEXT_LIGHT);
+        zone.setViewportView(chargement);
+    }
+
+    private void masquerChargement(JScrollPane zone) {
+        Component vue = vuesMasquees.remove(zone);
+        if (vue != null) {
+            zone.setViewportView(vue);
+        }
+    }
+
+    private void afficherErreur(Exception e) {
+        e.printStackTrace();
+        JOptionPane.showMessageDialog(parent,
+                "Erreur lors du chargement des données: " + e.getMessage(),
+                "Erreur", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Une tâche rattachée à une carte ; son SwingWorker est recréé à chaque démarrage
+     * pour pouvoir relancer une tâche suspendue.
+     */
+    private final class Tache<T> {
+        private final String carte;
+        private final JScrollPane zone;
+        private final Supplier<T> appel;
+        private final Consumer<T> succes;
+        private final Consumer<Exception> echec;
+        private SwingWorker<T, Void> worker;
+
+        private Tache(String carte, JScrollPane zone, Supplier<T> appel,
+                      Consumer<T> succes, Consumer<Exception> echec) {
+            this.carte = carte;
+            this.zone = zone;
+            this.appel = appel;
+            this.succes = succes;
+            this.echec = echec;
+        }
+
+        private void demarrer() {
+            if (worker != null) {
+                return;
+            }
+            SwingWorker<T, Void> courant = new SwingWorker<>() {
+                @Override
+                protected T doInBackground() {
+                    String nom = parent.getClass().getSimpleName() + "." + (carte != null ? carte : "action");
+                    return ServiceFactory.appeler(nom, appel);
+                }
+
+                @Override
+                protected void done() {
+                    // Un worker annulé ou remplacé ne livre rien
+                    if (worker != this || isCancelled()) {
+                        return;
+                    }
+                    retirer(Tache.this);
+                    try {
+                        succes.accept(get());
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        echec.accept(cause instanceof Exception ex ? ex : new RuntimeException(cause));
+                    } catch (InterruptedException | CancellationException e) {
+                        // La tâche a été abandonnée
+                    }
+                }
+            };
+            worker = courant;
+            courant.execute();
+        }
+
+        /**
+         * Interrompt le worker en cours ; sans retrait de la liste, la tâche redémarrera avec sa carte.
+         */
+        private void arreter() {
+            if (worker != null) {
+                SwingWorker<T, Void> courant = worker;
+                worker = null;
+                courant.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package covoiturage.ui.gui.utils;
+
+import covoiturage.config.DatabaseConfig;
+import covoiturage.dao.Delta;
+import covoiturage.dao.Page;
+import covoiturage.model.Synchronisable;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Rafraîchit une table par différence plutôt que par rechargement complet : seules les lignes
+ * modifiées depuis la dernière synchronisation sont lues, puis remplacées ou ajoutées, et les
+ * lignes affichées qui n'existent plus sont retirées. La première colonne de la table doit
+ * contenir l'identifiant de la ligne.
+ *
+ * Le curseur est l'heure du serveur lue avant le chargement complet, puis avant chaque différence,
+ * et non la date des lignes affichées : une table paginée n'en montre qu'une partie. La base date chaque
+ * ligne à son écriture (clock_timestamp, migration 009) ; une ligne écrite avant une lecture mais validée
+ * après peut porter une date antérieure au curseur, d'où une relecture des db.sync.chevauchementSecondes
+ * précédant le curseur. Ce chevauchement doit dépasser la plus longue transaction d'écriture, de sa première
+ * écriture à sa validation : celles de l'application tiennent en quelques requêtes, mais une ligne
+ * d'une transaction plus longue (import en masse) peut n'apparaître qu'au rechargement complet.
+ * Tant que le chargement complet n'est pas terminé, ou si trop de lignes ont changé,
+ * le rechargement complet du panneau prend le relais.
+ * Toutes les méthodes doivent être appelées depuis l'EDT.
+ */
+public class DeltaSync<T extends Synchronisable> {
+    private static final int CHEVAUCHEMENT_SECONDES = DatabaseConfig.getIntProperty("db.sync.chevauchementSecondes", 5);
+    private static final int LIMITE = 200;
+
+    /**
+     * Lecture des lignes modifiées, exécutée hors de l'EDT.
+     */
+    @FunctionalInterface
+    public interface ChargeurDelta<T> {
+        /**
+         * @param depuis Date de modification à partir de laquelle lire
+         * @param connus Les identifiants affichés
+         * @param limite Nombre maximal de lignes modifiées à lire
+         */
+        Delta<T> charger(LocalDateTime depuis, Collection<Long> connus, int limite);
+    }
+
+    private final BackgroundTasks taches;
+    private final String carte;
+    private final DefaultTableModel model;
+    private final ChargeurDelta<T> chargeur;
+    private final Function<T, Object[]> versLigne;
+    private final Runnable rechargementComplet;
+    private boolean ajouterNouvelles;
+    private LocalDateTime curseur;
+
+    /**
+     * @param taches L'exécuteur des tâches de fond du panneau
+     * @param carte La carte du CardLayout qui contient la table
+     * @param model Le modèle de la table
+     * @param chargeur Lit les lignes modifiées et vérifie l'existence des lignes affichées
+     * @param versLigne Construit les valeurs d'une ligne
+     * @param rechargementComplet Reconstruit la table quand la différence est trop grande
+     */
+    public DeltaSync(BackgroundTasks taches, String carte, DefaultTableModel model, ChargeurDelta<T> chargeur,
+                     Function<T, Object[]> versLigne, Runnable rechargementComplet) {
+        this.taches = taches;
+        this.carte = carte;
+        this.model = model;
+        this.chargeur = chargeur;
+        this.versLigne = versLigne;
+        this.rechargementComplet = rechargementComplet;
+    }
+
+    /**
+     * Ajoute en tête de table les lignes modifiées qui ne sont pas encore affichées.
+     */
+    public DeltaSync<T> ajouterNouvelles() {
+        this.ajouterNouvelles = true;
+        return this;
+    }
+
+    /**
+     * Lance en tâche de fond un chargement complet qui renvoie toutes les lignes de la table.
+     * L'heure du serveur est lue juste avant lui et devient le curseur une fois les lignes affichées.
+     * @param zone La zone qui affiche le message de chargement
+     * @param chargement La lecture des lignes
+     * @param affichage Remplit la table avec le résultat
+     */
+    public <R> void charger(JScrollPane zone, Supplier<R> chargement, Consumer<R> affichage) {
+        taches.executer(carte, zone, () -> new Chargement<>(Delta.horlogeServeur(), chargement.get()), lu -> {
+            affichage.accept(lu.resultat());
+            curseur = lu.horloge();
+        });
+    }
+
+    /**
+     * Signale la première page d'une table paginée : le curseur part de l'heure à laquelle elle a été lue.
+     */
+    public void vu(Page<?> premierePage) {
+        curseur = premierePage.horloge();
+    }
+
+    private record Chargement<R>(LocalDateTime horloge, R resultat) {
+    }
+
+    /**
+     * Oublie le curseur, par exemple quand la table est vidée.
+     */
+    public void reinitialiser() {
+        curseur = null;
+    }
+
+    /**
+     * Lit en tâche de fond les changements depuis la dernière synchronisation et les applique à la table.
+     */
+    public void synchroniser() {
+        if (curseur == null) {
+            // Chargement initial pas encore terminé : rien à comparer
+            rechargementComplet.run();
+            return;
+        }
+
+        List<Long> connus = new ArrayList<>();
+        for (int ligne = 0; ligne < model.getRowCount(); ligne++) {
+            Long id = LiveTableUpdater.versId(model.getValueAt(ligne, 0));
+            if (id != null) {
+                connus.add(id);
+            }
+        }
+        LocalDateTime depuis = curseur.minusSeconds(CHEVAUCHEMENT_SECONDES);
+
+        taches.executer(carte, () -> chargeur.charger(depuis, connus, LIMITE), this::appliquer);
+    }
+
+    private void appliquer(Delta<T> delta) {
+        if (delta.tronque()) {
+            reinitialiser();
+            rechargementComplet.run();
+            return;
+        }
+
+        for (int ligne = model.getRowCount() - 1; ligne >= 0; ligne--) {
+            Long id = LiveTableUpdater.versId(model.getValueAt(ligne, 0));
+            if (id != null && !delta.existants().contains(id)) {
+                model.removeRow(ligne);
+            }
+        }
+
+        curseur = delta.horloge();
+        for (T element : delta.modifies()) {
+            int ligne = LiveTableUpdater.chercher(model, element.getId());
+            if (ligne >= 0) {
+                LiveTableUpdater.remplacer(model, ligne, versLigne.apply(element));
+            } else if (ajouterNouvelles) {
+                model.insertRow(0, versLigne.apply(element));
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package covoiturage.ui.gui.utils;
+
+import covoiturage.dao.Page;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.event.HierarchyEvent;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Remplit une table page par page (pagination par curseur) : la page suivante n'est lue
+ * que lorsque l'utilisateur fait défiler la table jusqu'en bas. Les pages sont lues
+ * en tâche de fond, rattachées à la carte qui contient la table.
+ * @param <T> Le type des éléments affichés
+ */
+public class LazyTableLoader<T> {
+    public static final int TAILLE_PAGE = 50;
+
+    private final BackgroundTasks taches;
+    private final String carte;
+    private final DefaultTableModel model;
+    private final JScrollPane scrollPane;
+    private final BiFunction<T, Integer, Page<T>> chargeur;
+    private final Function<T, Object[]> versLigne;
+    private Consumer<? super Page<T>> observateur = page -> { };
+
+    private T dernier;
+    private boolean suivante;
+    private boolean enChargement;
+    private int generation;
+
+    /**
+     * @param taches L'exécuteur des tâches de fond du panneau
+     * @param carte La carte du CardLayout qui contient la table
+     * @param model Le modèle de la table à remplir
+     * @param scrollPane Le conteneur de défilement de la table
+     * @param chargeur Lit la page qui suit l'élément donné (null pour la première page)
+     * @param versLigne Convertit un élément en ligne de la table
+     */
+    public LazyTableLoader(BackgroundTasks taches, String carte, DefaultTableModel model, JScrollPane scrollPane,
+                           BiFunction<T, Integer, Page<T>> chargeur, Function<T, Object[]> versLigne) {
+        this.taches = taches;
+        this.carte = carte;
+        this.model = model;
+        this.scrollPane = scrollPane;
+        this.chargeur = chargeur;
+        this.versLigne = versLigne;
+
+        // Charger la page suivante quand la barre de défilement atteint le bas
+        scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> {
+            if (e.getValueIsAdjusting()) {
+                return;
+            }
+            BoundedRangeModel range = scrollPane.getVerticalScrollBar().getModel();
+            if (range.getValue() + range.getExtent() >= range.getMaximum() - 20) {
+                chargerSuivante();
+            }
+        });
+
+        // Une table construite sur une carte masquée est complétée à son affichage
+        scrollPane.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && scrollPane.isShowing()) {
+                remplirZoneVisible();
+            }
+        });
+    }
+
+    /**
+     * Reçoit la première page de chaque chargement, une fois ses lignes ajoutées à la table (sur l'EDT).
+     */
+    public LazyTableLoader<T> observer(Consumer<? super Page<T>> observateur) {
+        this.observateur = observateur;
+        return this;
+    }
+
+    /**
+     * Vide la table et recharge la première page.
+     */
+    public void recharger() {
+        model.setRowCount(0);
+        dernier = null;
+        suivante = true;
+        enChargement = false;
+        generation++;
+        chargerSuivante();
+    }
+
+    private void chargerSuivante() {
+        if (!suivante || enChargement) {
+            return;
+        }
+
+        enChargement = true;
+        int generationDemandee = generation;
+        T apres = dernier;
+        // Le message de chargement ne remplace la table que tant qu'elle est vide
+        JScrollPane zone = apres == null ? scrollPane : null;
+        taches.executer(carte, zone, () -> chargeur.apply(apres, TAILLE_PAGE), page -> {
+            if (generationDemandee != generation) {
+                return; // Page d'un chargement antérieur à recharger()
+            }
+            enChargement = false;
+            for (T element : page.elements()) {
+                model.addRow(versLigne.apply(element));
+            }
+            if (apres == null) {
+                observateur.accept(page);
+            }
+            if (!page.isEmpty()) {
+                dernier = page.dernier();
+            }
+            suivante = page.suivante();
+            SwingUtilities.invokeLater(this::remplirZoneVisible);
+        }, e -> {
+            if (generationDemandee != generation) {
+                return;
+            }
+            // Pas de nouvelle tentative automatique : le prochain défilement relancera la lecture
+            enChargement = false;
+            e.printStackTrace();
+        });
+    }
+
+    /**
+     * Si les lignes chargées ne remplissent pas la zone visible, aucun défilement
+     * ne déclenchera la suite : on charge donc la page suivante directement.
+     */
+    private void remplirZoneVisible() {
+        if (suivante && scrollPane.isShowing() && !scrollPane.getVerticalScrollBar().isVisible()) {
+            chargerSuivante();
+        }
+    }
+}
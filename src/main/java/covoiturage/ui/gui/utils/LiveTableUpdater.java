@@ -0,0 +1,226 @@
+package covoiturage.ui.gui.utils;
+
+import covoiturage.config.ChangeEvent;
+import covoiturage.config.DatabaseConfig;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.event.HierarchyEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Tient une table à jour à partir du flux de changements de la base : seules les lignes
+ * concernées sont relues, en tâche de fond et en une requête par lot (WHERE id = ANY(?)),
+ * puis remplacées, retirées ou ajoutées.
+ * La première colonne de la table doit contenir l'identifiant de la ligne.
+ *
+ * Les changements reçus pendant DELAI_REGROUPEMENT_MS sont regroupés en une seule lecture.
+ * L'abonnement au flux suit la vie de la table : il cesse quand la table est retirée
+ * de la fenêtre (par exemple quand son panneau est reconstruit).
+ */
+public class LiveTableUpdater {
+    private static final int DELAI_REGROUPEMENT_MS = 100;
+
+    private final BackgroundTasks taches;
+    private final String carte;
+    private final DefaultTableModel model;
+    private final Function<Collection<Long>, Map<Long, Object[]>> chargeurLignes;
+    private final Map<ChangeEvent.Table, Function<ChangeEvent, Long>> suivis = new ConcurrentHashMap<>();
+    private final Consumer<ChangeEvent> abonnement = this::recevoir;
+    private boolean ajouterNouvelles;
+
+    // Accédés sur l'EDT uniquement
+    private final Set<Long> enAttente = new LinkedHashSet<>();
+    private final Timer regroupement;
+
+    /**
+     * @param taches L'exécuteur des tâches de fond du panneau
+     * @param carte La carte du CardLayout qui contient la table : les lectures attendent son affichage
+     * @param model Le modèle de la table à tenir à jour
+     * @param hote Le composant qui contient la table (son conteneur de défilement)
+     * @param chargeurLignes Relit en une fois les lignes d'un lot d'identifiants ; un identifiant absent
+     *                       du résultat ne doit plus figurer dans la table (voir {@link #lignes})
+     */
+    public LiveTableUpdater(BackgroundTasks taches, String carte, DefaultTableModel model, JComponent hote,
+                            Function<Collection<Long>, Map<Long, Object[]>> chargeurLignes) {
+        this.taches = taches;
+        this.carte = carte;
+        this.model = model;
+        this.chargeurLignes = chargeurLignes;
+
+        regroupement = new Timer(DELAI_REGROUPEMENT_MS, e -> relire());
+        regroupement.setRepeats(false);
+
+        hote.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.DISPLAYABILITY_CHANGED) == 0) {
+                return;
+            }
+            if (hote.isDisplayable()) {
+                DatabaseConfig.addChangeListener(abonnement);
+            } else {
+                DatabaseConfig.removeChangeListener(abonnement);
+                regroupement.stop();
+                enAttente.clear();
+            }
+        });
+        if (hote.isDisplayable()) {
+            DatabaseConfig.addChangeListener(abonnement);
+        }
+    }
+
+    /**
+     * Lignes d'un lot d'éléments chargé par identifiants, pour un chargeur de lignes.
+     * @param elements Les éléments trouvés, par identifiant
+     * @param garder Les éléments qui doivent encore figurer dans la table
+     * @param versLigne Les valeurs de la ligne d'un élément
+     */
+    public static <T> Map<Long, Object[]> lignes(Map<Long, T> elements, Predicate<T> garder,
+                                                 Function<T, Object[]> versLigne) {
+        Map<Long, Object[]> lignes = new HashMap<>();
+        elements.forEach((id, element) -> {
+            if (garder.test(element)) {
+                lignes.put(id, versLigne.apply(element));
+            }
+        });
+        return lignes;
+    }
+
+    /**
+     * Suit les changements d'une table de la base.
+     * @param identifiant Donne l'identifiant de la ligne affichée concernée par un changement (null : aucune)
+     */
+    public LiveTableUpdater suivre(ChangeEvent.Table table, Function<ChangeEvent, Long> identifiant) {
+        suivis.put(table, identifiant);
+        return this;
+    }
+
+    /**
+     * Ajoute en tête de table les lignes que le chargeur accepte mais qui ne sont pas encore affichées.
+     */
+    public LiveTableUpdater ajouterNouvelles() {
+        this.ajouterNouvelles = true;
+        return this;
+    }
+
+    /**
+     * Appelé sur le thread du flux de changements.
+     */
+    private void recevoir(ChangeEvent evenement) {
+        Function<ChangeEvent, Long> identifiant = suivis.get(evenement.table());
+        if (identifiant == null) {
+            return;
+        }
+        if (evenement.isMasse()) {
+            // Nombre de lignes inconnu : on relit celles qui sont affichées
+            SwingUtilities.invokeLater(() -> {
+                for (int ligne = 0; ligne < model.getRowCount(); ligne++) {
+                    Long id = versId(model.getValueAt(ligne, 0));
+                    if (id != null) {
+                        enAttente.add(id);
+                    }
+                }
+                programmer();
+            });
+            return;
+        }
+
+        Long id = identifiant.apply(evenement);
+        if (id != null) {
+            SwingUtilities.invokeLater(() -> {
+                enAttente.add(id);
+                programmer();
+            });
+        }
+    }
+
+    private void programmer() {
+        if (!enAttente.isEmpty() && !regroupement.isRunning()) {
+            regroupement.start();
+        }
+    }
+
+    private void relire() {
+        // Sans ajout, une ligne qui n'est pas affichée n'a pas à être relue
+        List<Long> ids = new ArrayList<>();
+        for (Long id : enAttente) {
+            if (ajouterNouvelles || chercher(model, id) >= 0) {
+                ids.add(id);
+            }
+        }
+        enAttente.clear();
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        taches.executer(carte, null, () -> {
+            Map<Long, Object[]> lues = chargeurLignes.apply(ids);
+            Map<Long, Optional<Object[]>> lignes = new LinkedHashMap<>();
+            for (Long id : ids) {
+                lignes.put(id, Optional.ofNullable(lues.get(id)));
+            }
+            return lignes;
+        }, this::appliquer, Exception::printStackTrace);
+    }
+
+    private void appliquer(Map<Long, Optional<Object[]>> lignes) {
+        lignes.forEach((id, valeurs) -> {
+            int ligne = chercher(model, id);
+            if (valeurs.isEmpty()) {
+                if (ligne >= 0) {
+                    model.removeRow(ligne);
+                }
+            } else if (ligne >= 0) {
+                remplacer(model, ligne, valeurs.get());
+            } else if (ajouterNouvelles) {
+                model.insertRow(0, valeurs.get());
+            }
+        });
+    }
+
+    /**
+     * Remplace les valeurs d'une ligne cellule par cellule : la sélection de la ligne est conservée.
+     */
+    static void remplacer(DefaultTableModel model, int ligne, Object[] nouvelles) {
+        for (int colonne = 0; colonne < nouvelles.length && colonne < model.getColumnCount(); colonne++) {
+            if (!Objects.equals(model.getValueAt(ligne, colonne), nouvelles[colonne])) {
+                model.setValueAt(nouvelles[colonne], ligne, colonne);
+            }
+        }
+    }
+
+    /**
+     * @return L'indice de la ligne qui affiche cet identifiant en première colonne, ou -1
+     */
+    public static int chercher(DefaultTableModel model, Long id) {
+        for (int ligne = 0; ligne < model.getRowCount(); ligne++) {
+            if (id.equals(versId(model.getValueAt(ligne, 0)))) {
+                return ligne;
+            }
+        }
+        return -1;
+    }
+
+    static Long versId(Object valeur) {
+        if (valeur instanceof Number nombre) {
+            return nombre.longValue();
+        }
+        try {
+            return valeur == null ? null : Long.valueOf(valeur.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
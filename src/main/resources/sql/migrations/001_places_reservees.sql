@@ -0,0 +1,15 @@
+-- Migration : compteur de places réservées sur trajets
+-- À appliquer sur une base créée avec une version antérieure de schema.sql
+
+ALTER TABLE trajets ADD COLUMN IF NOT EXISTS nb_places_reservees INT NOT NULL DEFAULT 0
+    CHECK (nb_places_reservees >= 0);
+
+-- Initialisation à partir des réservations actives existantes
+UPDATE trajets t
+SET nb_places_reservees = COALESCE((
+    SELECT SUM(r.nb_places)
+    FROM reservations r
+    WHERE r.trajet_id = t.id
+      AND r.est_annule = FALSE
+      AND r.statut IN ('EN_ATTENTE', 'CONFIRMEE')
+), 0);
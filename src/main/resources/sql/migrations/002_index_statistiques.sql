@@ -0,0 +1,6 @@
+-- Migration : index des requêtes d'agrégat des tableaux de bord
+-- À appliquer sur une base créée avec une version antérieure de schema.sql
+
+CREATE INDEX IF NOT EXISTS idx_reservations_utilisateur ON reservations (utilisateur_id, date_reservation DESC);
+
+CREATE INDEX IF NOT EXISTS idx_paiements_reservation ON paiements (reservation_id);
@@ -0,0 +1,65 @@
+-- Migration : notification des changements aux clients (LISTEN covoiturage_changements)
+-- À appliquer sur une base créée avec une version antérieure de schema.sql
+
+-- Une notification par ligne modifiée : table, opération et identifiants utiles aux clients.
+-- Les imports en masse désactivent les notifications par ligne (covoiturage.notifications = off)
+-- et envoient une seule notification IMPORT par lot.
+CREATE OR REPLACE FUNCTION notifier_changement() RETURNS trigger AS $$
+DECLARE
+    ligne JSONB;
+BEGIN
+    IF current_setting('covoiturage.notifications', true) = 'off' THEN
+        RETURN NULL;
+    END IF;
+
+    IF TG_LEVEL = 'STATEMENT' THEN
+        PERFORM pg_notify('covoiturage_changements',
+                          json_build_object('table', TG_TABLE_NAME, 'op', TG_OP)::text);
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP = 'DELETE' THEN
+        ligne := to_jsonb(OLD);
+    ELSE
+        ligne := to_jsonb(NEW);
+    END IF;
+
+    PERFORM pg_notify('covoiturage_changements', json_build_object(
+            'table', TG_TABLE_NAME,
+            'op', TG_OP,
+            'id', (ligne ->> 'id')::BIGINT,
+            'trajet_id', (ligne ->> 'trajet_id')::BIGINT,
+            'reservation_id', (ligne ->> 'reservation_id')::BIGINT,
+            'utilisateur_id', (ligne ->> 'utilisateur_id')::BIGINT,
+            'conducteur_id', (ligne ->> 'conducteur_id')::BIGINT)::text);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trajets_notifier ON trajets;
+CREATE TRIGGER trajets_notifier AFTER INSERT OR UPDATE OR DELETE ON trajets
+    FOR EACH ROW EXECUTE FUNCTION notifier_changement();
+DROP TRIGGER IF EXISTS trajets_notifier_vidage ON trajets;
+CREATE TRIGGER trajets_notifier_vidage AFTER TRUNCATE ON trajets
+    FOR EACH STATEMENT EXECUTE FUNCTION notifier_changement();
+
+DROP TRIGGER IF EXISTS reservations_notifier ON reservations;
+CREATE TRIGGER reservations_notifier AFTER INSERT OR UPDATE OR DELETE ON reservations
+    FOR EACH ROW EXECUTE FUNCTION notifier_changement();
+DROP TRIGGER IF EXISTS reservations_notifier_vidage ON reservations;
+CREATE TRIGGER reservations_notifier_vidage AFTER TRUNCATE ON reservations
+    FOR EACH STATEMENT EXECUTE FUNCTION notifier_changement();
+
+DROP TRIGGER IF EXISTS paiements_notifier ON paiements;
+CREATE TRIGGER paiements_notifier AFTER INSERT OR UPDATE OR DELETE ON paiements
+    FOR EACH ROW EXECUTE FUNCTION notifier_changement();
+DROP TRIGGER IF EXISTS paiements_notifier_vidage ON paiements;
+CREATE TRIGGER paiements_notifier_vidage AFTER TRUNCATE ON paiements
+    FOR EACH STATEMENT EXECUTE FUNCTION notifier_changement();
+
+DROP TRIGGER IF EXISTS avis_notifier ON avis;
+CREATE TRIGGER avis_notifier AFTER INSERT OR UPDATE OR DELETE ON avis
+    FOR EACH ROW EXECUTE FUNCTION notifier_changement();
+DROP TRIGGER IF EXISTS avis_notifier_vidage ON avis;
+CREATE TRIGGER avis_notifier_vidage AFTER TRUNCATE ON avis
+    FOR EACH STATEMENT EXECUTE FUNCTION notifier_changement();
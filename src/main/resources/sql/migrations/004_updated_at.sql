@@ -0,0 +1,14 @@
+-- Migration : date de dernière modification des tables synchronisées par les clients
+-- À appliquer sur une base créée avec une version antérieure de schema.sql
+-- Les lignes existantes reçoivent la date de la migration.
+
+ALTER TABLE utilisateurs ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT now();
+ALTER TABLE conducteurs ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT now();
+ALTER TABLE trajets ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT now();
+ALTER TABLE reservations ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP NOT NULL DEFAULT now();
+
+-- Index des requêtes « modifiés depuis » des DAO
+CREATE INDEX IF NOT EXISTS idx_utilisateurs_modification ON utilisateurs (updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_conducteurs_modification ON conducteurs (updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_trajets_modification ON trajets (updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_reservations_modification ON reservations (updated_at, id);
@@ -0,0 +1,17 @@
+-- Migration : recherche approchée des villes (pg_trgm, unaccent)
+-- À appliquer sur une base créée avec une version antérieure de schema.sql
+-- Sans ces extensions, TrajetDAO se rabat sur un index de trigrammes en mémoire (db.recherche.mode).
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- Forme normalisée d'un nom de ville : sans accents, en minuscules, espaces réduits.
+-- unaccent() n'est pas IMMUTABLE (son dictionnaire peut changer) : l'enveloppe, qui fixe
+-- le dictionnaire, l'est pour pouvoir servir dans un index. Même règle que LieuMatcher.normaliser.
+CREATE OR REPLACE FUNCTION normaliser_lieu(lieu TEXT) RETURNS TEXT AS $$
+    SELECT lower(public.unaccent('public.unaccent', regexp_replace(trim(lieu), '\s+', ' ', 'g')))
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT;
+
+-- Index GIN de trigrammes : opérateur % (similarité) et LIKE '%...%' sur les villes
+CREATE INDEX IF NOT EXISTS idx_trajets_lieu_depart_trgm ON trajets USING gin (normaliser_lieu(lieu_depart) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_trajets_lieu_arrivee_trgm ON trajets USING gin (normaliser_lieu(lieu_arrivee) gin_trgm_ops);
@@ -0,0 +1,68 @@
+-- Migration : table lieux (une ligne par ville), référencée par les trajets
+-- À appliquer sur une base créée avec une version antérieure de schema.sql, après 005 (obligatoire :
+-- ses clés sont celles de LieuMatcher.normaliser, accents compris).
+-- Les écritures d'une même ville sont regroupées sous la plus fréquente, puis les colonnes texte
+-- lieu_depart et lieu_arrivee de trajets sont remplacées par lieu_depart_id et lieu_arrivee_id.
+-- Étape manuelle ensuite, hors transaction et table verrouillée : VACUUM FULL trajets (voir en fin de fichier).
+
+BEGIN;
+
+DO $$
+BEGIN
+    IF to_regprocedure('normaliser_lieu(text)') IS NULL THEN
+        RAISE EXCEPTION 'Fonction normaliser_lieu absente : appliquer d''abord 005_recherche_floue.sql';
+    END IF;
+END;
+$$;
+
+-- Pas de notification par ligne pour la reprise des trajets existants
+SET LOCAL covoiturage.notifications = 'off';
+
+CREATE TABLE IF NOT EXISTS lieux (
+    id SERIAL PRIMARY KEY,
+    nom VARCHAR(100) NOT NULL,
+    -- Nom normalisé (LieuMatcher.normaliser) : deux écritures d'une même ville ont la même clé
+    cle VARCHAR(100) NOT NULL UNIQUE
+);
+
+-- Clé des villes existantes : même règle que LieuMatcher.normaliser (« Béja » et « Beja » ne font qu'une)
+INSERT INTO lieux (nom, cle)
+SELECT DISTINCT ON (cle) nom, cle
+FROM (SELECT trim(lieu) AS nom, normaliser_lieu(lieu) AS cle, count(*) AS nb
+      FROM (SELECT lieu_depart AS lieu FROM trajets UNION ALL SELECT lieu_arrivee FROM trajets) l
+      GROUP BY 1, 2) ecritures
+ORDER BY cle, nb DESC, nom
+ON CONFLICT (cle) DO NOTHING;
+
+ALTER TABLE trajets
+    ADD COLUMN lieu_depart_id INT REFERENCES lieux(id),
+    ADD COLUMN lieu_arrivee_id INT REFERENCES lieux(id);
+
+UPDATE trajets t
+SET lieu_depart_id = d.id, lieu_arrivee_id = a.id
+FROM lieux d, lieux a
+WHERE d.cle = normaliser_lieu(t.lieu_depart)
+  AND a.cle = normaliser_lieu(t.lieu_arrivee);
+
+ALTER TABLE trajets
+    ALTER COLUMN lieu_depart_id SET NOT NULL,
+    ALTER COLUMN lieu_arrivee_id SET NOT NULL;
+
+-- Les index sur les colonnes texte, trigrammes compris, disparaissent avec elles
+ALTER TABLE trajets
+    DROP COLUMN lieu_depart,
+    DROP COLUMN lieu_arrivee;
+
+CREATE INDEX idx_trajets_recherche ON trajets (lieu_depart_id, lieu_arrivee_id, date_depart)
+    WHERE est_annule = FALSE;
+CREATE INDEX idx_trajets_lieu_arrivee ON trajets (lieu_arrivee_id);
+
+-- Recherche approchée côté base (mode trigram) : pg_trgm est installée par 005
+CREATE INDEX idx_lieux_cle_trgm ON lieux USING gin (cle gin_trgm_ops);
+
+COMMIT;
+
+-- Étape manuelle, non exécutée par ce fichier : la place des colonnes supprimées n'est rendue
+-- qu'à la réécriture de la table. VACUUM FULL prend un verrou exclusif sur trajets pendant toute
+-- la réécriture ; à lancer seul, en période creuse :
+-- VACUUM FULL trajets;
@@ -0,0 +1,38 @@
+-- Migration : villes des trajets dans les notifications de changements
+-- À appliquer après 003 et 006 : un client qui reçoit une ville inconnue relit la table lieux
+-- (LieuRegistry), sans relire quoi que ce soit pour les autres changements de trajets.
+-- Les déclencheurs existants appellent la fonction par son nom : seule la fonction est remplacée.
+
+CREATE OR REPLACE FUNCTION notifier_changement() RETURNS trigger AS $$
+DECLARE
+    ligne JSONB;
+BEGIN
+    IF current_setting('covoiturage.notifications', true) = 'off' THEN
+        RETURN NULL;
+    END IF;
+
+    IF TG_LEVEL = 'STATEMENT' THEN
+        PERFORM pg_notify('covoiturage_changements',
+                          json_build_object('table', TG_TABLE_NAME, 'op', TG_OP)::text);
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP = 'DELETE' THEN
+        ligne := to_jsonb(OLD);
+    ELSE
+        ligne := to_jsonb(NEW);
+    END IF;
+
+    PERFORM pg_notify('covoiturage_changements', json_build_object(
+            'table', TG_TABLE_NAME,
+            'op', TG_OP,
+            'id', (ligne ->> 'id')::BIGINT,
+            'trajet_id', (ligne ->> 'trajet_id')::BIGINT,
+            'reservation_id', (ligne ->> 'reservation_id')::BIGINT,
+            'utilisateur_id', (ligne ->> 'utilisateur_id')::BIGINT,
+            'conducteur_id', (ligne ->> 'conducteur_id')::BIGINT,
+            'lieu_depart_id', (ligne ->> 'lieu_depart_id')::BIGINT,
+            'lieu_arrivee_id', (ligne ->> 'lieu_arrivee_id')::BIGINT)::text);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
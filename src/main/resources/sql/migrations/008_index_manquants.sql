@@ -0,0 +1,11 @@
+-- Migration : index de schema.sql qu'aucune migration précédente ne créait
+-- À appliquer sur une base créée avec une version antérieure de schema.sql
+
+-- Réservations d'un trajet (places réservées, liste des réservations d'un trajet)
+CREATE INDEX IF NOT EXISTS idx_reservations_trajet ON reservations (trajet_id) WHERE est_annule = FALSE;
+
+-- Recherche par fenêtre de dates ; (date_depart, id) est aussi l'ordre de la pagination des trajets
+CREATE INDEX IF NOT EXISTS idx_trajets_date_depart ON trajets (date_depart, id);
+
+-- Trajets d'un conducteur, paginés dans l'ordre (date_depart, id)
+CREATE INDEX IF NOT EXISTS idx_trajets_conducteur ON trajets (conducteur_id, date_depart, id);
@@ -0,0 +1,25 @@
+-- Migration : date de modification des tables synchronisées prise à l'écriture de chaque ligne
+-- À appliquer sur une base créée avec une version antérieure de schema.sql, après 004.
+
+-- Date de modification prise à l'horloge (clock_timestamp) au moment de l'écriture de la ligne,
+-- et non au début de la transaction (now()) : une ligne n'échappe plus au curseur de DeltaSync que
+-- si sa transaction est validée plus de db.sync.chevauchementSecondes après l'avoir écrite.
+CREATE OR REPLACE FUNCTION horodater_modification() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at := clock_timestamp();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS utilisateurs_horodater ON utilisateurs;
+CREATE TRIGGER utilisateurs_horodater BEFORE INSERT OR UPDATE ON utilisateurs
+    FOR EACH ROW EXECUTE FUNCTION horodater_modification();
+DROP TRIGGER IF EXISTS conducteurs_horodater ON conducteurs;
+CREATE TRIGGER conducteurs_horodater BEFORE INSERT OR UPDATE ON conducteurs
+    FOR EACH ROW EXECUTE FUNCTION horodater_modification();
+DROP TRIGGER IF EXISTS trajets_horodater ON trajets;
+CREATE TRIGGER trajets_horodater BEFORE INSERT OR UPDATE ON trajets
+    FOR EACH ROW EXECUTE FUNCTION horodater_modification();
+DROP TRIGGER IF EXISTS reservations_horodater ON reservations;
+CREATE TRIGGER reservations_horodater BEFORE INSERT OR UPDATE ON reservations
+    FOR EACH ROW EXECUTE FUNCTION horodater_modification();
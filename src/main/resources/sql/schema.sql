@@ -9,6 +9,7 @@ DROP TABLE IF EXISTS paiements;
 DROP TABLE IF EXISTS avis;
 DROP TABLE IF EXISTS reservations;
 DROP TABLE IF EXISTS trajets;
+DROP TABLE IF EXISTS lieux;
 DROP TABLE IF EXISTS conducteurs;
 DROP TABLE IF EXISTS utilisateurs;
 DROP TABLE IF EXISTS administrateurs;
@@ -21,9 +22,13 @@ CREATE TABLE utilisateurs (
     email VARCHAR(100) UNIQUE NOT NULL,
     mot_de_passe VARCHAR(100) NOT NULL,
     telephone VARCHAR(15) NOT NULL,
-    preferences TEXT
+    preferences TEXT,
+    -- Date de dernière modification, posée par le déclencheur *_horodater (synchronisation des clients)
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
 );
 
+CREATE INDEX idx_utilisateurs_modification ON utilisateurs (updated_at, id);
+
 -- Création de la table conducteurs
 CREATE TABLE conducteurs (
     id SERIAL PRIMARY KEY,
@@ -33,9 +38,13 @@ CREATE TABLE conducteurs (
     mot_de_passe VARCHAR(100) NOT NULL,
     telephone VARCHAR(15) NOT NULL,
     numero_permis VARCHAR(20) NOT NULL,
-    vehicule_info TEXT
+    vehicule_info TEXT,
+    -- Date de dernière modification, posée par le déclencheur *_horodater (synchronisation des clients)
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
 );
 
+CREATE INDEX idx_conducteurs_modification ON conducteurs (updated_at, id);
+
 -- Création de la table administrateurs
 CREATE TABLE administrateurs (
     id SERIAL PRIMARY KEY,
@@ -47,19 +56,53 @@ CREATE TABLE administrateurs (
     role VARCHAR(50) NOT NULL
 );
 
+-- Recherche approchée des villes : trigrammes et suppression des accents
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- Forme normalisée d'un nom de ville (sans accents, minuscules, espaces réduits), IMMUTABLE pour les index
+CREATE OR REPLACE FUNCTION normaliser_lieu(lieu TEXT) RETURNS TEXT AS $$
+    SELECT lower(public.unaccent('public.unaccent', regexp_replace(trim(lieu), '\s+', ' ', 'g')))
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT;
+
+-- Création de la table lieux : une ligne par ville, référencée par les trajets
+CREATE TABLE lieux (
+    id SERIAL PRIMARY KEY,
+    nom VARCHAR(100) NOT NULL,
+    -- Nom normalisé (LieuMatcher.normaliser) : deux écritures d'une même ville ont la même clé
+    cle VARCHAR(100) NOT NULL UNIQUE
+);
+
+-- Index de trigrammes de la recherche approchée (TrajetDAO, mode trigram)
+CREATE INDEX idx_lieux_cle_trgm ON lieux USING gin (cle gin_trgm_ops);
+
 -- Création de la table trajets
 CREATE TABLE trajets (
     id SERIAL PRIMARY KEY,
-    lieu_depart VARCHAR(100) NOT NULL,
-    lieu_arrivee VARCHAR(100) NOT NULL,
+    lieu_depart_id INT NOT NULL,
+    lieu_arrivee_id INT NOT NULL,
     date_depart TIMESTAMP NOT NULL,
     prix DECIMAL(10, 2) NOT NULL,
     nb_places_disponibles INT NOT NULL,
+    -- Places des réservations actives (en attente et confirmées), tenu à jour par ReservationDAO
+    nb_places_reservees INT NOT NULL DEFAULT 0 CHECK (nb_places_reservees >= 0),
     conducteur_id INT NOT NULL,
     est_annule BOOLEAN NOT NULL DEFAULT FALSE,
-    FOREIGN KEY (conducteur_id) REFERENCES conducteurs(id)
+    -- Date de dernière modification, posée par le déclencheur *_horodater (synchronisation des clients)
+    updated_at TIMESTAMP NOT NULL DEFAULT now(),
+    FOREIGN KEY (conducteur_id) REFERENCES conducteurs(id),
+    FOREIGN KEY (lieu_depart_id) REFERENCES lieux(id),
+    FOREIGN KEY (lieu_arrivee_id) REFERENCES lieux(id)
 );
 
+-- Index de la clé étrangère lieu_arrivee_id (lieu_depart_id est en tête de idx_trajets_recherche)
+CREATE INDEX idx_trajets_lieu_arrivee ON trajets (lieu_arrivee_id);
+CREATE INDEX idx_trajets_date_depart ON trajets (date_depart, id);
+CREATE INDEX idx_trajets_conducteur ON trajets (conducteur_id, date_depart, id);
+CREATE INDEX idx_trajets_modification ON trajets (updated_at, id);
+CREATE INDEX idx_trajets_recherche ON trajets (lieu_depart_id, lieu_arrivee_id, date_depart)
+    WHERE est_annule = FALSE;
+
 -- Création de la table reservations
 CREATE TABLE reservations (
     id SERIAL PRIMARY KEY,
@@ -69,10 +112,21 @@ CREATE TABLE reservations (
     utilisateur_id INT NOT NULL,
     trajet_id INT NOT NULL,
     est_annule BOOLEAN NOT NULL DEFAULT FALSE,
+    -- Date de dernière modification, posée par le déclencheur *_horodater (synchronisation des clients)
+    updated_at TIMESTAMP NOT NULL DEFAULT now(),
     FOREIGN KEY (utilisateur_id) REFERENCES utilisateurs(id),
     FOREIGN KEY (trajet_id) REFERENCES trajets(id)
 );
 
+-- Index des réservations d'un trajet (places réservées, liste des réservations d'un trajet)
+CREATE INDEX idx_reservations_trajet ON reservations (trajet_id) WHERE est_annule = FALSE;
+
+-- Index pour les statistiques et les réservations récentes d'un utilisateur
+CREATE INDEX idx_reservations_utilisateur ON reservations (utilisateur_id, date_reservation DESC);
+
+-- Index des requêtes « modifiées depuis » de ReservationDAO
+CREATE INDEX idx_reservations_modification ON reservations (updated_at, id);
+
 -- Création de la table avis
 CREATE TABLE avis (
     id SERIAL PRIMARY KEY,
@@ -94,6 +148,86 @@ CREATE TABLE paiements (
     FOREIGN KEY (reservation_id) REFERENCES reservations(id)
 );
 
+-- Index pour la somme des paiements par conducteur
+CREATE INDEX idx_paiements_reservation ON paiements (reservation_id);
+
+-- Notification des changements aux clients (LISTEN covoiturage_changements)
+-- Une notification par ligne modifiée : table, opération et identifiants utiles aux clients.
+-- Les imports en masse désactivent les notifications par ligne (covoiturage.notifications = off)
+-- et envoient une seule notification IMPORT par lot.
+CREATE OR REPLACE FUNCTION notifier_changement() RETURNS trigger AS $$
+DECLARE
+    ligne JSONB;
+BEGIN
+    IF current_setting('covoiturage.notifications', true) = 'off' THEN
+        RETURN NULL;
+    END IF;
+
+    IF TG_LEVEL = 'STATEMENT' THEN
+        PERFORM pg_notify('covoiturage_changements',
+                          json_build_object('table', TG_TABLE_NAME, 'op', TG_OP)::text);
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP = 'DELETE' THEN
+        ligne := to_jsonb(OLD);
+    ELSE
+        ligne := to_jsonb(NEW);
+    END IF;
+
+    PERFORM pg_notify('covoiturage_changements', json_build_object(
+            'table', TG_TABLE_NAME,
+            'op', TG_OP,
+            'id', (ligne ->> 'id')::BIGINT,
+            'trajet_id', (ligne ->> 'trajet_id')::BIGINT,
+            'reservation_id', (ligne ->> 'reservation_id')::BIGINT,
+            'utilisateur_id', (ligne ->> 'utilisateur_id')::BIGINT,
+            'conducteur_id', (ligne ->> 'conducteur_id')::BIGINT,
+            'lieu_depart_id', (ligne ->> 'lieu_depart_id')::BIGINT,
+            'lieu_arrivee_id', (ligne ->> 'lieu_arrivee_id')::BIGINT)::text);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trajets_notifier AFTER INSERT OR UPDATE OR DELETE ON trajets
+    FOR EACH ROW EXECUTE FUNCTION notifier_changement();
+CREATE TRIGGER trajets_notifier_vidage AFTER TRUNCATE ON trajets
+    FOR EACH STATEMENT EXECUTE FUNCTION notifier_changement();
+
+CREATE TRIGGER reservations_notifier AFTER INSERT OR UPDATE OR DELETE ON reservations
+    FOR EACH ROW EXECUTE FUNCTION notifier_changement();
+CREATE TRIGGER reservations_notifier_vidage AFTER TRUNCATE ON reservations
+    FOR EACH STATEMENT EXECUTE FUNCTION notifier_changement();
+
+CREATE TRIGGER paiements_notifier AFTER INSERT OR UPDATE OR DELETE ON paiements
+    FOR EACH ROW EXECUTE FUNCTION notifier_changement();
+CREATE TRIGGER paiements_notifier_vidage AFTER TRUNCATE ON paiements
+    FOR EACH STATEMENT EXECUTE FUNCTION notifier_changement();
+
+CREATE TRIGGER avis_notifier AFTER INSERT OR UPDATE OR DELETE ON avis
+    FOR EACH ROW EXECUTE FUNCTION notifier_changement();
+CREATE TRIGGER avis_notifier_vidage AFTER TRUNCATE ON avis
+    FOR EACH STATEMENT EXECUTE FUNCTION notifier_changement();
+
+-- Date de modification prise à l'horloge (clock_timestamp) au moment de l'écriture de la ligne,
+-- et non au début de la transaction (now()) : une ligne n'échappe plus au curseur de DeltaSync que
+-- si sa transaction est validée plus de db.sync.chevauchementSecondes après l'avoir écrite.
+CREATE OR REPLACE FUNCTION horodater_modification() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at := clock_timestamp();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER utilisateurs_horodater BEFORE INSERT OR UPDATE ON utilisateurs
+    FOR EACH ROW EXECUTE FUNCTION horodater_modification();
+CREATE TRIGGER conducteurs_horodater BEFORE INSERT OR UPDATE ON conducteurs
+    FOR EACH ROW EXECUTE FUNCTION horodater_modification();
+CREATE TRIGGER trajets_horodater BEFORE INSERT OR UPDATE ON trajets
+    FOR EACH ROW EXECUTE FUNCTION horodater_modification();
+CREATE TRIGGER reservations_horodater BEFORE INSERT OR UPDATE ON reservations
+    FOR EACH ROW EXECUTE FUNCTION horodater_modification();
+
 -- Insertion d'un administrateur par défaut
 INSERT INTO administrateurs (nom, prenom, email, mot_de_passe, telephone, role)
 VALUES ('Admin', 'System', 'admin@covoiturage.com', 'admin123', '24038805', 'Super Admin');